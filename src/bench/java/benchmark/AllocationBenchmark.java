@@ -0,0 +1,237 @@
+package benchmark;
+
+import crypto.Group;
+import crypto.GroupElement;
+import crypto.ModPGroup;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+/**
+ * Benchmark of the memory allocated in each round by the arithmetic of the commitments of a room: the commitments on
+ * the round keys and their product, the product of the commitments on keys received, and the commitments on the
+ * messages and the values \(\beta\) built from the commitments received from each node. The same round is computed
+ * with BigInteger (modPow, multiply and mod, modInverse) and with the elements of {@link ModPGroup}, that work in
+ * Montgomery form.
+ * <p>
+ * Usage: AllocationBenchmark [roomSize] [rounds]
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public class AllocationBenchmark {
+
+    /**
+     * Random padding length (in bytes) of the messages
+     */
+    private static final int PAD_LENGTH = 8;
+
+    /**
+     * Rounds run before measuring, so the JIT compiler has already optimized the arithmetic
+     */
+    private static final int WARM_UP_ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int roomSize = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        RoundInputs inputs = new RoundInputs(roomSize, new Random(1));
+        Round[] arithmetics = {new BigIntegerRound(inputs), new GroupRound(inputs, BenchmarkGroups.modp2048())};
+
+        System.out.println("Room of " + roomSize + " nodes, " + BenchmarkGroups.P.bitLength() + "-bit p, " + rounds +
+                " rounds");
+        System.out.println(String.format("%-12s %16s %12s", "arithmetic", "bytes/round", "ms/round"));
+        for (Round arithmetic : arithmetics) {
+            for (int i = 0; i < WARM_UP_ROUNDS; i++)
+                arithmetic.run();
+            long bytes = Allocations.allocatedBytes();
+            long time = System.nanoTime();
+            for (int i = 0; i < rounds; i++)
+                arithmetic.run();
+            time = System.nanoTime() - time;
+            bytes = bytes < 0 ? -1 : (Allocations.allocatedBytes() - bytes) / rounds;
+            System.out.println(String.format("%-12s %16d %12.2f", arithmetic.name(), bytes, time / 1e6 / rounds));
+        }
+    }
+
+    /**
+     * Values received and generated by a node in a round, the same for every arithmetic
+     */
+    private static final class RoundInputs {
+
+        final int roomSize;
+
+        /**
+         * Round keys and random values of the commitments on them
+         */
+        final BigInteger[] keys, randoms;
+
+        /**
+         * Commitments on key, plain message, random padding and final bit received from each node
+         */
+        final BigInteger[] commitmentsOnKey, commitmentsOnPlainMessage, commitmentsOnRandomPadding,
+                commitmentsOnFinalBit;
+
+        /**
+         * Output messages received from each node
+         */
+        final BigInteger[] outputMessages;
+
+        RoundInputs(int roomSize, Random random) {
+            this.roomSize = roomSize;
+            this.keys = new BigInteger[roomSize - 1];
+            this.randoms = new BigInteger[roomSize - 1];
+            for (int i = 0; i < roomSize - 1; i++) {
+                this.keys[i] = new BigInteger(BenchmarkGroups.P.bitLength(), random);
+                this.randoms[i] = new BigInteger(BenchmarkGroups.Q.bitLength() - 1, random);
+            }
+            this.commitmentsOnKey = elements(roomSize, random);
+            this.commitmentsOnPlainMessage = elements(roomSize, random);
+            this.commitmentsOnRandomPadding = elements(roomSize, random);
+            this.commitmentsOnFinalBit = elements(roomSize, random);
+            this.outputMessages = new BigInteger[roomSize];
+            for (int i = 0; i < roomSize; i++)
+                this.outputMessages[i] = new BigInteger(BenchmarkGroups.P.bitLength(), random);
+        }
+
+        private static BigInteger[] elements(int count, Random random) {
+            BigInteger[] elements = new BigInteger[count];
+            for (int i = 0; i < count; i++)
+                elements[i] = BenchmarkGroups.G.modPow(new BigInteger(BenchmarkGroups.Q.bitLength() - 1, random),
+                        BenchmarkGroups.P);
+            return elements;
+        }
+
+        /**
+         * @return \(2^{8z}(n+1)\), exponent of the commitment on plain message
+         */
+        BigInteger plainMessageExponent() {
+            return BigInteger.ONE.shiftLeft(8 * PAD_LENGTH).multiply(BigInteger.valueOf(this.roomSize + 1));
+        }
+
+    }
+
+    /**
+     * Arithmetic of one round
+     */
+    private static abstract class Round {
+
+        abstract String name();
+
+        abstract void run();
+
+    }
+
+    private static final class BigIntegerRound extends Round {
+
+        private final RoundInputs inputs;
+        private final BigInteger p, g, h;
+
+        BigIntegerRound(RoundInputs inputs) {
+            this.inputs = inputs;
+            this.p = BenchmarkGroups.P;
+            this.g = BenchmarkGroups.G;
+            this.h = BenchmarkGroups.H;
+        }
+
+        @Override
+        String name() {
+            return "BigInteger";
+        }
+
+        @Override
+        void run() {
+            // Commitment on the round key, product of the commitments on each key
+            BigInteger commitmentOnKey = BigInteger.ONE;
+            for (int i = 0; i < this.inputs.keys.length; i++)
+                commitmentOnKey = commitmentOnKey.multiply(this.g.modPow(this.inputs.keys[i], this.p)
+                        .multiply(this.h.modPow(this.inputs.randoms[i], this.p)).mod(this.p)).mod(this.p);
+
+            // Product of the commitments on keys received
+            BigInteger product = BigInteger.ONE;
+            for (BigInteger commitment : this.inputs.commitmentsOnKey)
+                product = product.multiply(commitment).mod(this.p);
+
+            BigInteger nPlusOne = BigInteger.valueOf(this.inputs.roomSize + 1);
+            BigInteger plainMessageExponent = this.inputs.plainMessageExponent();
+            for (int i = 0; i < this.inputs.roomSize; i++) {
+                BigInteger finalBit = this.inputs.commitmentsOnFinalBit[i];
+                BigInteger commitmentOnFinalBitTimesInverseOfG = this.g.modInverse(this.p).multiply(finalBit)
+                        .mod(this.p);
+                BigInteger commitmentOnMessage = this.inputs.commitmentsOnPlainMessage[i]
+                        .modPow(plainMessageExponent, this.p)
+                        .multiply(this.inputs.commitmentsOnRandomPadding[i]).mod(this.p)
+                        .modPow(nPlusOne, this.p)
+                        .multiply(finalBit).mod(this.p);
+                BigInteger beta = this.inputs.commitmentsOnKey[i].multiply(commitmentOnMessage).mod(this.p)
+                        .multiply(this.g.modPow(this.inputs.outputMessages[i], this.p).modInverse(this.p))
+                        .mod(this.p);
+                if (commitmentOnKey.equals(beta) || product.equals(commitmentOnFinalBitTimesInverseOfG))
+                    throw new IllegalStateException();
+            }
+        }
+
+    }
+
+    private static final class GroupRound extends Round {
+
+        private final RoundInputs inputs;
+        private final Group group;
+        private final GroupElement[] commitmentsOnKey, commitmentsOnPlainMessage, commitmentsOnRandomPadding,
+                commitmentsOnFinalBit;
+
+        GroupRound(RoundInputs inputs, Group group) {
+            this.inputs = inputs;
+            this.group = group;
+            this.commitmentsOnKey = decode(inputs.commitmentsOnKey);
+            this.commitmentsOnPlainMessage = decode(inputs.commitmentsOnPlainMessage);
+            this.commitmentsOnRandomPadding = decode(inputs.commitmentsOnRandomPadding);
+            this.commitmentsOnFinalBit = decode(inputs.commitmentsOnFinalBit);
+        }
+
+        private GroupElement[] decode(BigInteger[] encodings) {
+            GroupElement[] elements = new GroupElement[encodings.length];
+            for (int i = 0; i < encodings.length; i++)
+                elements[i] = this.group.decode(encodings[i]);
+            return elements;
+        }
+
+        @Override
+        String name() {
+            return "Montgomery";
+        }
+
+        @Override
+        void run() {
+            GroupElement g = this.group.getG();
+            GroupElement h = this.group.getH();
+
+            // Commitment on the round key, product of the commitments on each key
+            GroupElement commitmentOnKey = this.group.getIdentity();
+            for (int i = 0; i < this.inputs.keys.length; i++)
+                commitmentOnKey = commitmentOnKey.multiply(this.group.multiExponentiation(new GroupElement[]{g, h},
+                        new BigInteger[]{this.inputs.keys[i], this.inputs.randoms[i]}));
+
+            // Product of the commitments on keys received
+            GroupElement product = this.group.getIdentity();
+            for (GroupElement commitment : this.commitmentsOnKey)
+                product = product.multiply(commitment);
+
+            BigInteger nPlusOne = BigInteger.valueOf(this.inputs.roomSize + 1);
+            BigInteger plainMessageExponent = this.inputs.plainMessageExponent();
+            for (int i = 0; i < this.inputs.roomSize; i++) {
+                GroupElement finalBit = this.commitmentsOnFinalBit[i];
+                GroupElement commitmentOnFinalBitTimesInverseOfG = g.inverse().multiply(finalBit);
+                GroupElement commitmentOnMessage = this.commitmentsOnPlainMessage[i].power(plainMessageExponent)
+                        .multiply(this.commitmentsOnRandomPadding[i])
+                        .power(nPlusOne)
+                        .multiply(finalBit);
+                GroupElement beta = this.commitmentsOnKey[i].multiply(commitmentOnMessage)
+                        .multiply(g.power(this.inputs.outputMessages[i]).inverse());
+                if (commitmentOnKey.equals(beta) || product.equals(commitmentOnFinalBitTimesInverseOfG))
+                    throw new IllegalStateException();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,29 @@
+package benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Bytes allocated by the current thread, as counted by the JVM
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+final class Allocations {
+
+    private Allocations() {
+    }
+
+    /**
+     * @return bytes allocated by the current thread since it started, or -1 if the JVM does not count them
+     */
+    static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean))
+            return -1;
+        com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+        if (!counter.isThreadAllocatedMemorySupported() || !counter.isThreadAllocatedMemoryEnabled())
+            return -1;
+        return counter.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+}
@@ -0,0 +1,62 @@
+package benchmark;
+
+import crypto.ModPGroup;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Groups used by the benchmarks, so that every run measures the same parameters
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+final class BenchmarkGroups {
+
+    /**
+     * 2048-bit safe prime of the MODP group 14 of RFC 3526
+     */
+    static final BigInteger P = new BigInteger(
+            "FFFFFFFFFFFFFFFFC90FDAA22168C234C4C6628B80DC1CD129024E088A67CC74020BBEA63B139B22514A08798E3404DD" +
+            "EF9519B3CD3A431B302B0A6DF25F14374FE1356D6D51C245E485B576625E7EC6F44C42E9A637ED6B0BFF5CB6F406B7ED" +
+            "EE386BFB5A899FA5AE9F24117C4B1FE649286651ECE45B3DC2007CB8A163BF0598DA48361C55D39A69163FA8FD24CF5F" +
+            "83655D23DCA3AD961C62F356208552BB9ED529077096966D670C354E4ABC9804F1746C08CA18217C32905E462E36CE3B" +
+            "E39E772C180E86039B2783A2EC07A28FB5C55DF06F4C52C9DE2BCBF6955817183995497CEA956AE515D2261898FA0510" +
+            "15728E5A8AACAA68FFFFFFFFFFFFFFFF", 16);
+
+    /**
+     * Prime order \((p - 1) / 2\) of the subgroup of squares
+     */
+    static final BigInteger Q = P.shiftRight(1);
+
+    /**
+     * Generator 2 of RFC 3526, that has order q
+     */
+    static final BigInteger G = BigInteger.valueOf(2);
+
+    /**
+     * Square of a hash, so it has order q and nobody knows its logarithm in base g
+     */
+    static final BigInteger H = hash("dcnet/benchmark/h").modPow(BigInteger.valueOf(2), P);
+
+    private BenchmarkGroups() {
+    }
+
+    /**
+     * @return subgroup of order q of \(\mathbb{Z}_p^*\) of the MODP group 14
+     */
+    static ModPGroup modp2048() {
+        return new ModPGroup(P, Q, G, H);
+    }
+
+    private static BigInteger hash(String label) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return new BigInteger(1, digest.digest(label.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
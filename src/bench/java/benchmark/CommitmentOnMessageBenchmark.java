@@ -0,0 +1,82 @@
+package benchmark;
+
+import crypto.GroupElement;
+import crypto.ModPGroup;
+import dcnet.RoomContext;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+/**
+ * Benchmark of the commitment on message \(C = (C_m^{2^{8z}(n+1)} C_r)^{n+1} C_b\) built for every node in each
+ * round, over rooms of 3 to 64 nodes. It compares the original expression, that raised the product to \(n+1\)
+ * without reducing it \(\pmod{p}\), the same expression reduced after each power, and the single multi-exponentiation
+ * \(C_m^{2^{8z}(n+1)^2} C_r^{n+1} C_b\) of {@link RoomContext}.
+ * <p>
+ * Usage: CommitmentOnMessageBenchmark [iterations]
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public class CommitmentOnMessageBenchmark {
+
+    /**
+     * Random padding length (in bytes) of the messages
+     */
+    private static final int PAD_LENGTH = 8;
+
+    private static final int[] ROOM_SIZES = {3, 4, 8, 16, 32, 64};
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+
+        ModPGroup group = BenchmarkGroups.modp2048();
+        BigInteger p = group.getP();
+        Random random = new Random(1);
+        BigInteger[] commitments = new BigInteger[3];
+        GroupElement[] elements = new GroupElement[3];
+        for (int i = 0; i < commitments.length; i++) {
+            commitments[i] = group.getG().power(new BigInteger(group.getOrder().bitLength() - 1, random)).encode();
+            elements[i] = group.decode(commitments[i]);
+        }
+
+        System.out.println("Commitment on message, " + p.bitLength() + "-bit p, " + iterations + " iterations");
+        System.out.println(String.format("%-6s %16s %16s %16s", "nodes", "unreduced (us)", "reduced (us)",
+                "multi-exp (us)"));
+        for (int roomSize : ROOM_SIZES) {
+            RoomContext context = new RoomContext(group, roomSize, PAD_LENGTH);
+            BigInteger nPlusOne = context.getNPlusOne();
+            int nPlusOneInteger = roomSize + 1;
+            BigInteger factor = context.getPlainMessageFactor();
+
+            BigInteger expected = context.commitmentOnMessage(elements[0], elements[1], elements[2]).encode();
+            long[] times = new long[3];
+            // First pass warms up the JIT compiler, second one is measured
+            for (int pass = 0; pass < 2; pass++) {
+                long time = System.nanoTime();
+                for (int i = 0; i < iterations; i++)
+                    check(expected, commitments[0].modPow(factor, p).multiply(commitments[1])
+                            .pow(nPlusOneInteger).multiply(commitments[2]).mod(p));
+                times[0] = System.nanoTime() - time;
+
+                time = System.nanoTime();
+                for (int i = 0; i < iterations; i++)
+                    check(expected, commitments[0].modPow(factor, p).multiply(commitments[1]).mod(p)
+                            .modPow(nPlusOne, p).multiply(commitments[2]).mod(p));
+                times[1] = System.nanoTime() - time;
+
+                time = System.nanoTime();
+                for (int i = 0; i < iterations; i++)
+                    check(expected, context.commitmentOnMessage(elements[0], elements[1], elements[2]).encode());
+                times[2] = System.nanoTime() - time;
+            }
+            System.out.println(String.format("%-6d %16.1f %16.1f %16.1f", roomSize,
+                    times[0] / 1e3 / iterations, times[1] / 1e3 / iterations, times[2] / 1e3 / iterations));
+        }
+    }
+
+    private static void check(BigInteger expected, BigInteger actual) {
+        if (!expected.equals(actual))
+            throw new IllegalStateException("Commitments on message differ");
+    }
+
+}
@@ -0,0 +1,272 @@
+package benchmark;
+
+import com.google.gson.Gson;
+import crypto.ModPGroup;
+import dcnet.InfoFromDirectory;
+import dcnet.PeerChannel;
+import dcnet.Room;
+import keygeneration.KeyGeneration;
+import keygeneration.KeyGenerationStrategy;
+import keygeneration.PeerExchange;
+import keygeneration.SeededKeyGeneration;
+import org.zeromq.ZContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Benchmark of the key generation strategies over rooms of 3 to 64 nodes. Every node of the room runs in its own
+ * thread, connected to the others by an in-process {@link PeerChannel} as in a session (a ROUTER socket for the
+ * nodes of lower index, a DEALER socket for each node of higher index), and each iteration measures three phases on
+ * every node: generate (values sent to the other nodes), exchange (values received from them) and derive (keys and
+ * shared random values of one round). For each phase it reports the CPU time and the bytes allocated per node, the
+ * bytes sent per node (all the frames put on the channel in the iteration), and the 50th, 90th and 99th percentiles of
+ * the latency over all the nodes and iterations. A room size that fails is reported and skipped, so the rest still
+ * run.
+ * <p>
+ * {@link KeyGenerationStrategy#SEEDED} exchanges once per session and its first derive agrees on the seeds, so its
+ * numbers are the cost of a whole session; the other strategies pay all three phases in every real round.
+ * <p>
+ * Usage: KeyGenerationBenchmark [iterations [strategy,...]]
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public class KeyGenerationBenchmark {
+
+    private static final int[] ROOM_SIZES = {3, 4, 8, 16, 32, 64};
+
+    private static final String[] PHASES = {"generate", "exchange", "derive"};
+    private static final int GENERATE = 0, EXCHANGE = 1, DERIVE = 2;
+
+    /**
+     * Message length (in characters) and random padding length (in bytes) of the room
+     */
+    private static final int MESSAGE_LENGTH = 128;
+    private static final int PAD_LENGTH = 8;
+
+    /**
+     * Sockets allowed in the context over the ones of the channels
+     */
+    private static final int SPARE_SOCKETS = 16;
+
+    public static void main(String[] args) throws InterruptedException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        List<KeyGenerationStrategy> strategies = new ArrayList<>();
+        if (args.length > 1) {
+            for (String name : args[1].split(","))
+                strategies.add(KeyGenerationStrategy.fromName(name));
+        } else {
+            strategies.addAll(Arrays.asList(KeyGenerationStrategy.values()));
+        }
+
+        ModPGroup group = BenchmarkGroups.modp2048();
+        System.out.println("Key generation, " + group.getP().bitLength() + "-bit p, " + iterations
+                + " iterations, values per node");
+        System.out.println(String.format("%-30s %-6s %-9s %12s %12s %12s %10s %10s %10s", "strategy", "nodes",
+                "phase", "cpu (us)", "alloc (KB)", "sent (B)", "p50 (us)", "p90 (us)", "p99 (us)"));
+        for (KeyGenerationStrategy strategy : strategies) {
+            for (int roomSize : ROOM_SIZES) {
+                Measurements measurements;
+                try {
+                    measurements = run(strategy, room(group, roomSize), iterations);
+                } catch (RuntimeException e) {
+                    System.out.println(String.format("%-30s %-6d failed: %s", strategy, roomSize, e));
+                    continue;
+                }
+                for (int phase = 0; phase < PHASES.length; phase++) {
+                    System.out.println(String.format("%-30s %-6d %-9s %12.1f %12.1f %12s %10.1f %10.1f %10.1f",
+                            strategy, roomSize, PHASES[phase],
+                            measurements.mean(measurements.cpu[phase]) / 1e3,
+                            measurements.mean(measurements.allocated[phase]) / 1024.0,
+                            phase == EXCHANGE ? String.format("%.0f", measurements.mean(measurements.sent)) : "-",
+                            measurements.percentile(phase, 0.50) / 1e3,
+                            measurements.percentile(phase, 0.90) / 1e3,
+                            measurements.percentile(phase, 0.99) / 1e3));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param group    group of the room
+     * @param roomSize number of nodes of the room
+     * @return room configured as the directory node would do it
+     */
+    private static Room room(ModPGroup group, int roomSize) {
+        StringBuilder json = new StringBuilder("{\"nodes\":[");
+        for (int i = 1; i <= roomSize; i++)
+            json.append(i > 1 ? "," : "").append("{\"index\":").append(i).append(",\"ip\":\"10.0.0.").append(i)
+                    .append("\"}");
+        json.append("],\"p\":").append(group.getP()).append(",\"q\":").append(group.getOrder())
+                .append(",\"g\":").append(group.getG().encode()).append(",\"h\":").append(group.getH().encode())
+                .append(",\"l\":").append(MESSAGE_LENGTH).append(",\"padLength\":").append(PAD_LENGTH).append("}");
+        Room room = new Room();
+        room.setRoomInfoFromDirectory(new Gson().fromJson(json.toString(), InfoFromDirectory.class));
+        return room;
+    }
+
+    /**
+     * Run every node of the room in its own thread, the first iteration only warms up the JIT compiler
+     *
+     * @param strategy   strategy measured
+     * @param room       room of the nodes
+     * @param iterations iterations measured
+     * @return measurements of every node and iteration
+     */
+    private static Measurements run(final KeyGenerationStrategy strategy, final Room room, final int iterations)
+            throws InterruptedException {
+        final int roomSize = room.getRoomSize();
+        // In-process endpoints only connect sockets of the same context, so the context holds a ROUTER socket per
+        // node and a DEALER socket per pair of nodes, over the default limit of sockets for the larger rooms
+        ZContext context = new ZContext();
+        context.getContext().setMaxSockets(roomSize + roomSize * (roomSize - 1) / 2 + SPARE_SOCKETS);
+        try {
+            return run(strategy, room, iterations, context);
+        } finally {
+            context.destroy();
+        }
+    }
+
+    /**
+     * @param context context where the channels of all the nodes are created
+     */
+    private static Measurements run(final KeyGenerationStrategy strategy, final Room room, final int iterations,
+                                    ZContext context) throws InterruptedException {
+        final int roomSize = room.getRoomSize();
+        // Every ROUTER socket is bound before the DEALER sockets connect to them, as in-process endpoints require
+        final PeerChannel[] peerChannels = new PeerChannel[roomSize + 1];
+        String[] endpoints = new String[roomSize + 1];
+        for (int node = 1; node <= roomSize; node++) {
+            endpoints[node] = endpoint(node);
+            peerChannels[node] = new PeerChannel(node, roomSize, context, endpoints[node]);
+        }
+        for (int node = 1; node <= roomSize; node++)
+            peerChannels[node].connect(endpoints);
+
+        final Measurements measurements = new Measurements(roomSize * iterations);
+        final CyclicBarrier barrier = new CyclicBarrier(roomSize);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] threads = new Thread[roomSize];
+        for (int node = 1; node <= roomSize; node++) {
+            final int nodeIndex = node;
+            threads[node - 1] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int iteration = 0; iteration <= iterations; iteration++) {
+                            int sample = iteration == 0 ? -1 : (iteration - 1) * roomSize + nodeIndex - 1;
+                            runNode(strategy, room, nodeIndex, peerChannels[nodeIndex], barrier,
+                                    measurements, sample);
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                        barrier.reset();
+                    }
+                }
+            }, "node-" + node);
+            threads[node - 1].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        if (failure.get() != null)
+            throw new IllegalStateException("Node failed with " + strategy + " in a room of " + roomSize,
+                    failure.get());
+        return measurements;
+    }
+
+    /**
+     * One iteration of a node: every phase starts when all the nodes are ready, so the exchange does not measure
+     * the time waiting for slower nodes to generate their values
+     *
+     * @param sample position of the measurements of this node and iteration (negative to discard them)
+     */
+    private static void runNode(KeyGenerationStrategy strategy, Room room, int nodeIndex, PeerChannel peerChannel,
+                                CyclicBarrier barrier, Measurements measurements, int sample)
+            throws InterruptedException, BrokenBarrierException {
+        KeyGeneration keyGeneration = strategy.create(nodeIndex, peerChannel, room, PeerExchange.Mode.CONCURRENT);
+        if (keyGeneration instanceof SeededKeyGeneration)
+            ((SeededKeyGeneration) keyGeneration).setRound(1);
+
+        long sentBefore = peerChannel.getBytesSent();
+
+        barrier.await();
+        long[] start = measurements.start();
+        keyGeneration.generateParticipantNodeValues();
+        measurements.stop(GENERATE, sample, start);
+
+        barrier.await();
+        start = measurements.start();
+        keyGeneration.getOtherParticipantNodesValues();
+        measurements.stop(EXCHANGE, sample, start);
+
+        barrier.await();
+        start = measurements.start();
+        keyGeneration.getParticipantNodeRoundKeyValue();
+        keyGeneration.getRoundKeys();
+        keyGeneration.getSharedRandomValues();
+        measurements.stop(DERIVE, sample, start);
+
+        // Every frame put on the channel, including the second exchange of the seeded strategy
+        if (sample >= 0)
+            measurements.sent[sample] = peerChannel.getBytesSent() - sentBefore;
+    }
+
+    private static String endpoint(int nodeIndex) {
+        return "inproc://keygeneration-" + nodeIndex;
+    }
+
+    /**
+     * Latency, CPU time and allocations of each phase, and bytes sent, of every node and iteration
+     */
+    private static final class Measurements {
+
+        private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+        final long[][] latency, cpu, allocated;
+        final long[] sent;
+
+        Measurements(int samples) {
+            this.latency = new long[PHASES.length][samples];
+            this.cpu = new long[PHASES.length][samples];
+            this.allocated = new long[PHASES.length][samples];
+            this.sent = new long[samples];
+        }
+
+        /**
+         * @return wall time, CPU time and bytes allocated by the current thread
+         */
+        long[] start() {
+            return new long[]{System.nanoTime(), THREADS.getCurrentThreadCpuTime(), Allocations.allocatedBytes()};
+        }
+
+        void stop(int phase, int sample, long[] start) {
+            long[] end = start();
+            if (sample < 0)
+                return;
+            this.latency[phase][sample] = end[0] - start[0];
+            this.cpu[phase][sample] = end[1] - start[1];
+            this.allocated[phase][sample] = end[2] - start[2];
+        }
+
+        double mean(long[] values) {
+            double sum = 0;
+            for (long value : values)
+                sum += value;
+            return sum / values.length;
+        }
+
+        long percentile(int phase, double fraction) {
+            long[] sorted = this.latency[phase].clone();
+            Arrays.sort(sorted);
+            return sorted[Math.max(0, (int) Math.ceil(fraction * sorted.length) - 1)];
+        }
+
+    }
+
+}
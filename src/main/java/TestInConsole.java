@@ -1,5 +1,8 @@
 import dcnet.DCNETProtocol;
+import keygeneration.KeyGenerationStrategy;
+import keygeneration.PairwiseSeedStore;
 
+import java.io.File;
 import java.io.IOException;
 import java.text.DecimalFormat;
 import java.util.Observable;
@@ -8,7 +11,7 @@ import java.util.Observer;
 public class TestInConsole {
 
     /**
-     * Usage: ./gradlew run -PappArgs=[{message},{directoryIP},{cheatingMode}]
+     * Usage: ./gradlew run -PappArgs=[{message},{directoryIP},{cheatingMode}(,{verificationThreads}(,{keyDerivationThreads}(,{seedStoreFile}(,{keyGenerationStrategy}(,{deterministicNonces})))))]
      *
      * @param args message and ip address of directory node
      * @throws IOException test
@@ -20,6 +23,16 @@ public class TestInConsole {
         boolean cheaterNode = Boolean.parseBoolean(args[2]);
 
         DCNETProtocol dcnetProtocol = new DCNETProtocol();
+        if (args.length > 3)
+            dcnetProtocol.setVerificationThreads(Integer.parseInt(args[3]));
+        if (args.length > 4)
+            dcnetProtocol.setKeyDerivationThreads(Integer.parseInt(args[4]));
+        if (args.length > 5)
+            dcnetProtocol.setSeedStore(new PairwiseSeedStore(new File(args[5]), PairwiseSeedStore.DEFAULT_TIME_TO_LIVE));
+        if (args.length > 6)
+            dcnetProtocol.setKeyGenerationStrategy(KeyGenerationStrategy.fromName(args[6]));
+        if (args.length > 7)
+            dcnetProtocol.setDeterministicNonces(Boolean.parseBoolean(args[7]));
         ParticipantsLeftToConnectObserver participantsLeftToConnectObserver = new ParticipantsLeftToConnectObserver(dcnetProtocol.getObservableParticipantsLeft());
         dcnetProtocol.getObservableParticipantsLeft().addObserver(participantsLeftToConnectObserver);
         MessagesArrivedObserver messagesArrivedObserver = new MessagesArrivedObserver(dcnetProtocol.getObservableMessageArrived());
@@ -1,10 +1,9 @@
 package crypto;
 
 import java.math.BigInteger;
-import java.util.Random;
 
 /**
- * Class that manages regular commitments \((c = g^x \pmod{p})\) operations
+ * Class that manages regular commitments \((c = g^x)\) operations
  *
  * @author Camilo J. Gomez (camilo@niclabs.cl)
  */
@@ -13,29 +12,22 @@ public class Commitment {
     /**
      * Generator of group \(G_q\)
      */
-    private BigInteger g;
+    private GroupElement g;
 
     /**
-     * Large prime
+     * Group \(G_q\) of the commitments
      */
-    private BigInteger q;
-
-    /**
-     * Large prime s.t. \(p = kq + 1\)
-     */
-    private BigInteger p;
+    private Group group;
 
     /**
      * Constructor for crypto.Commitment class
      *
-     * @param g generator of group \(G_q\)
-     * @param q large prime
-     * @param p large prime s.t. \(p = kq + 1\)
+     * @param g     generator of group \(G_q\)
+     * @param group group \(G_q\) of the commitments
      */
-    public Commitment(BigInteger g, BigInteger q, BigInteger p) {
+    public Commitment(GroupElement g, Group group) {
         this.g = g;
-        this.q = q;
-        this.p = p;
+        this.group = group;
     }
 
     /**
@@ -44,18 +36,17 @@ public class Commitment {
      * @return random value in group \(\mathbb{Z}_q\)
      */
     BigInteger generateRandom() {
-        BigInteger random = new BigInteger(this.q.bitCount(), new Random());
-        return random.mod(this.q);
+        return this.group.randomScalar().getValue();
     }
 
     /**
      * Calculate and generate a commitment for \(x\)
      *
      * @param x value in group \(\mathbb{Z}_q\)
-     * @return commitment \(c = g^x \pmod{p}\)
+     * @return commitment \(c = g^x\)
      */
-    public BigInteger calculateCommitment(BigInteger x) {
-        return this.g.modPow(x, this.p);
+    public GroupElement calculateCommitment(BigInteger x) {
+        return this.g.power(x);
     }
 
     /**
@@ -63,8 +54,8 @@ public class Commitment {
      *
      * @return generator \(g\) of group \(G_q\)
      */
-    BigInteger getG() {
+    GroupElement getG() {
         return g;
     }
 
-}
\ No newline at end of file
+}
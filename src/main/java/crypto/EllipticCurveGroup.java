@@ -0,0 +1,508 @@
+package crypto;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Group of points of a short Weierstrass curve \(y^2 = x^3 + ax + b\) over \(\mathbb{F}_p\) with prime order \(q\)
+ * (cofactor 1), written multiplicatively as the rest of the groups: the product of two elements is the sum of the
+ * points and the power \(P^x\) is the scalar multiplication \(xP\). Points are added in Jacobian coordinates, so
+ * only the result of each operation needs a field inversion. Elements are encoded as the compressed SEC 1 point
+ * (prefix 2 or 3 followed by \(x\)), read as a non negative integer, and the identity (point at infinity) as 0.
+ * <p>
+ * Generator \(g\) is the standard base point of the curve, and generator \(h\) is derived from it by hashing to the
+ * curve, so nobody knows \(\log_g h\). Both get a precomputed table
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public class EllipticCurveGroup implements Group {
+
+    /**
+     * Name of NIST P-256 (secp256r1) curve
+     */
+    public static final String P256 = "P-256";
+
+    /**
+     * Name of SEC secp256k1 curve
+     */
+    public static final String SECP256K1 = "secp256k1";
+
+    /**
+     * Number of bits of the scalar consumed by each window of the exponentiations
+     */
+    private static final int WINDOW_SIZE = 4;
+
+    /**
+     * Label hashed (with the encoding of \(g\)) to derive generator \(h\)
+     */
+    private static final String DOMAIN_H = "dcnet/h";
+
+    /**
+     * Point at infinity in Jacobian coordinates. Points are added as arrays \(\{X, Y, Z\}\), with \(x = X / Z^2\)
+     * and \(y = Y / Z^3\), where \(Z = 0\) is the point at infinity
+     */
+    private static final BigInteger[] INFINITY = {BigInteger.ONE, BigInteger.ONE, BigInteger.ZERO};
+
+    private static final BigInteger TWO = BigInteger.valueOf(2);
+    private static final BigInteger THREE = BigInteger.valueOf(3);
+
+    private final String name;
+
+    /**
+     * Prime of the field and coefficients of the curve
+     */
+    private final BigInteger p, a, b;
+
+    /**
+     * Prime order of the group of points
+     */
+    private final BigInteger q;
+
+    /**
+     * Exponent of the square roots in \(\mathbb{F}_p\), \((p + 1) / 4\) (both curves have \(p = 3 \pmod{4}\))
+     */
+    private final BigInteger sqrtExponent;
+
+    /**
+     * Length in bytes of an element of \(\mathbb{F}_p\)
+     */
+    private final int fieldLength;
+
+    /**
+     * Generators and identity of the group
+     */
+    private final Point g, h, identity;
+
+    /**
+     * Constructor for crypto.EllipticCurveGroup class, that derives generator \(h\) and builds the tables of the
+     * generators
+     *
+     * @param name name of the curve
+     * @param p    prime of the field, s.t. \(p = 3 \pmod{4}\)
+     * @param a    coefficient a of the curve
+     * @param b    coefficient b of the curve
+     * @param q    prime order of the curve
+     * @param gx   coordinate x of the base point
+     * @param gy   coordinate y of the base point
+     */
+    public EllipticCurveGroup(String name, BigInteger p, BigInteger a, BigInteger b, BigInteger q, BigInteger gx, BigInteger gy) {
+        if (!p.testBit(0) || !p.testBit(1))
+            throw new IllegalArgumentException("Prime of the field must be 3 (mod 4)");
+        this.name = name;
+        this.p = p;
+        this.a = a.mod(p);
+        this.b = b.mod(p);
+        this.q = q;
+        this.sqrtExponent = p.add(BigInteger.ONE).shiftRight(2);
+        this.fieldLength = (p.bitLength() + 7) / 8;
+        this.identity = new Point(null, null);
+        Point base = new Point(gx, gy);
+        if (!isOnCurve(gx, gy))
+            throw new IllegalArgumentException("Base point is not on the curve");
+        this.g = base.withTable();
+        this.h = hashToCurve(DOMAIN_H).withTable();
+    }
+
+    /**
+     * @param name name of the curve ("P-256" or "secp256k1")
+     * @return group of points of the curve
+     * @throws IllegalArgumentException if the curve is not supported
+     */
+    public static EllipticCurveGroup named(String name) {
+        if (P256.equalsIgnoreCase(name) || "secp256r1".equalsIgnoreCase(name))
+            return new EllipticCurveGroup(P256,
+                    new BigInteger("ffffffff00000001000000000000000000000000ffffffffffffffffffffffff", 16),
+                    BigInteger.valueOf(-3),
+                    new BigInteger("5ac635d8aa3a93e7b3ebbd55769886bc651d06b0cc53b0f63bce3c3e27d2604b", 16),
+                    new BigInteger("ffffffff00000000ffffffffffffffffbce6faada7179e84f3b9cac2fc632551", 16),
+                    new BigInteger("6b17d1f2e12c4247f8bce6e563a440f277037d812deb33a0f4a13945d898c296", 16),
+                    new BigInteger("4fe342e2fe1a7f9b8ee7eb4a7c0f9e162bce33576b315ececbb6406837bf51f5", 16));
+        if (SECP256K1.equalsIgnoreCase(name))
+            return new EllipticCurveGroup(SECP256K1,
+                    new BigInteger("fffffffffffffffffffffffffffffffffffffffffffffffffffffffefffffc2f", 16),
+                    BigInteger.ZERO,
+                    BigInteger.valueOf(7),
+                    new BigInteger("fffffffffffffffffffffffffffffffebaaedce6af48a03bbfd25e8cd0364141", 16),
+                    new BigInteger("79be667ef9dcbbac55a06295ce870b07029bfcdb2dce28d959f2815b16f81798", 16),
+                    new BigInteger("483ada7726a3c4655da4fbfc0e1108a8fd17b448a68554199c47d08ffb10d4b8", 16));
+        throw new IllegalArgumentException("Unknown curve " + name);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public BigInteger getOrder() {
+        return q;
+    }
+
+    @Override
+    public GroupElement getG() {
+        return g;
+    }
+
+    @Override
+    public GroupElement getH() {
+        return h;
+    }
+
+    @Override
+    public GroupElement getIdentity() {
+        return identity;
+    }
+
+    /**
+     * Compressed points take one byte for the parity of \(y\) and the bytes of \(x\)
+     */
+    @Override
+    public int getElementLength() {
+        return this.fieldLength + 1;
+    }
+
+    @Override
+    public GroupElement decode(BigInteger encoding) {
+        if (encoding.signum() == 0)
+            return this.identity;
+        int prefix = encoding.shiftRight(8 * this.fieldLength).intValue();
+        BigInteger x = encoding.subtract(BigInteger.valueOf(prefix).shiftLeft(8 * this.fieldLength));
+        if (encoding.signum() < 0 || (prefix != 2 && prefix != 3) || x.compareTo(this.p) >= 0)
+            throw new IllegalArgumentException("Not a compressed point");
+        BigInteger y = squareRoot(rightHandSide(x));
+        if (y == null)
+            throw new IllegalArgumentException("Point is not on the curve");
+        if (y.testBit(0) != (prefix == 3))
+            y = this.p.subtract(y);
+        Point point = new Point(x, y);
+        if (point.equals(this.g))
+            return this.g;
+        if (point.equals(this.h))
+            return this.h;
+        return point;
+    }
+
+    @Override
+    public GroupElement multiExponentiation(GroupElement[] bases, BigInteger[] exponents) {
+        if (bases.length != exponents.length)
+            throw new IllegalArgumentException("Number of bases and exponents differ");
+        BigInteger[] result = INFINITY;
+        Point[] variableBases = new Point[bases.length];
+        BigInteger[] variableExponents = new BigInteger[bases.length];
+        int k = 0;
+        for (int i = 0; i < bases.length; i++) {
+            Point base = point(bases[i]);
+            BigInteger exponent = exponents[i].mod(this.q);
+            if (base.isIdentity() || exponent.signum() == 0)
+                continue;
+            if (base.table != null)
+                result = add(result, base.lookUp(exponent));
+            else {
+                variableBases[k] = base;
+                variableExponents[k] = exponent;
+                k++;
+            }
+        }
+        if (k > 0)
+            result = add(result, straus(variableBases, variableExponents, k));
+        return toAffine(result);
+    }
+
+    @Override
+    public Scalar scalar(BigInteger value) {
+        return new Scalar(value, this.q);
+    }
+
+    @Override
+    public Scalar randomScalar() {
+        return Scalar.random(this.q);
+    }
+
+    /**
+     * @return prime of the field
+     */
+    public BigInteger getP() {
+        return p;
+    }
+
+    /**
+     * Straus interleaving: process all the exponents window by window, sharing the doublings
+     *
+     * @param bases     points without table
+     * @param exponents exponents in \([0, q)\)
+     * @param k         number of bases used
+     * @return \(\sum e_i P_i\) in Jacobian coordinates
+     */
+    private BigInteger[] straus(Point[] bases, BigInteger[] exponents, int k) {
+        int windows = (this.q.bitLength() + WINDOW_SIZE - 1) / WINDOW_SIZE;
+        int size = 1 << WINDOW_SIZE;
+        BigInteger[][][] multiples = new BigInteger[k][size][];
+        int[][] digits = new int[k][];
+        for (int i = 0; i < k; i++) {
+            multiples[i][1] = bases[i].toJacobian();
+            for (int j = 2; j < size; j++)
+                multiples[i][j] = add(multiples[i][j - 1], multiples[i][1]);
+            digits[i] = MultiExponentiation.digits(exponents[i], WINDOW_SIZE, windows);
+        }
+
+        BigInteger[] result = INFINITY;
+        for (int window = windows - 1; window >= 0; window--) {
+            for (int s = 0; s < WINDOW_SIZE; s++)
+                result = twice(result);
+            for (int i = 0; i < k; i++) {
+                int digit = digits[i][window];
+                if (digit != 0)
+                    result = add(result, multiples[i][digit]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param label domain separation label
+     * @return point with even y whose x is the first value of \(H(label || g || counter) \pmod{p}\) that is on the
+     * curve (try and increment)
+     */
+    private Point hashToCurve(String label) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (int counter = 0; ; counter++) {
+            digest.reset();
+            digest.update(label.getBytes(StandardCharsets.UTF_8));
+            digest.update(this.g.encode().toByteArray());
+            digest.update(new byte[]{(byte) (counter >>> 24), (byte) (counter >>> 16), (byte) (counter >>> 8), (byte) counter});
+            BigInteger x = new BigInteger(1, digest.digest()).mod(this.p);
+            BigInteger y = squareRoot(rightHandSide(x));
+            if (y != null && y.signum() != 0)
+                return new Point(x, y.testBit(0) ? this.p.subtract(y) : y);
+        }
+    }
+
+    /**
+     * @return \(x^3 + ax + b \pmod{p}\)
+     */
+    private BigInteger rightHandSide(BigInteger x) {
+        return x.multiply(x).add(this.a).multiply(x).add(this.b).mod(this.p);
+    }
+
+    /**
+     * @return a square root of value in \(\mathbb{F}_p\), or null if value is not a square
+     */
+    private BigInteger squareRoot(BigInteger value) {
+        BigInteger root = value.modPow(this.sqrtExponent, this.p);
+        return root.multiply(root).mod(this.p).equals(value) ? root : null;
+    }
+
+    private boolean isOnCurve(BigInteger x, BigInteger y) {
+        return x.signum() >= 0 && x.compareTo(this.p) < 0 && y.signum() >= 0 && y.compareTo(this.p) < 0
+                && y.multiply(y).mod(this.p).equals(rightHandSide(x));
+    }
+
+    private Point point(GroupElement element) {
+        if (!(element instanceof Point) || ((Point) element).group() != this)
+            throw new IllegalArgumentException("Element of another group");
+        return (Point) element;
+    }
+
+    /**
+     * Doubling in Jacobian coordinates
+     *
+     * @param point point \(P\)
+     * @return \(2P\)
+     */
+    private BigInteger[] twice(BigInteger[] point) {
+        if (isInfinity(point) || point[1].signum() == 0)
+            return INFINITY;
+        BigInteger x = point[0], y = point[1], z = point[2];
+        BigInteger yy = y.multiply(y).mod(this.p);
+        BigInteger s = x.multiply(yy).shiftLeft(2).mod(this.p); // S = 4 X Y^2
+        BigInteger xx = x.multiply(x).mod(this.p);
+        BigInteger m = xx.multiply(THREE); // M = 3 X^2 + a Z^4
+        if (this.a.signum() != 0) {
+            BigInteger zz = z.multiply(z).mod(this.p);
+            m = m.add(this.a.multiply(zz.multiply(zz).mod(this.p)));
+        }
+        m = m.mod(this.p);
+        BigInteger x3 = m.multiply(m).subtract(s.shiftLeft(1)).mod(this.p); // X' = M^2 - 2S
+        BigInteger y3 = m.multiply(s.subtract(x3)).subtract(yy.multiply(yy).shiftLeft(3)).mod(this.p); // Y' = M (S - X') - 8 Y^4
+        BigInteger z3 = y.multiply(z).shiftLeft(1).mod(this.p); // Z' = 2 Y Z
+        return new BigInteger[]{x3, y3, z3};
+    }
+
+    /**
+     * Addition in Jacobian coordinates
+     *
+     * @param first  point \(P\)
+     * @param second point \(Q\)
+     * @return \(P + Q\)
+     */
+    private BigInteger[] add(BigInteger[] first, BigInteger[] second) {
+        if (isInfinity(first))
+            return second;
+        if (isInfinity(second))
+            return first;
+        BigInteger z1z1 = first[2].multiply(first[2]).mod(this.p);
+        BigInteger z2z2 = second[2].multiply(second[2]).mod(this.p);
+        BigInteger u1 = first[0].multiply(z2z2).mod(this.p);
+        BigInteger u2 = second[0].multiply(z1z1).mod(this.p);
+        BigInteger s1 = first[1].multiply(second[2]).multiply(z2z2).mod(this.p);
+        BigInteger s2 = second[1].multiply(first[2]).multiply(z1z1).mod(this.p);
+        BigInteger hh = u2.subtract(u1).mod(this.p);
+        BigInteger r = s2.subtract(s1).mod(this.p);
+        if (hh.signum() == 0)
+            return r.signum() == 0 ? twice(first) : INFINITY;
+        BigInteger hh2 = hh.multiply(hh).mod(this.p);
+        BigInteger hh3 = hh2.multiply(hh).mod(this.p);
+        BigInteger v = u1.multiply(hh2).mod(this.p);
+        BigInteger x3 = r.multiply(r).subtract(hh3).subtract(v.shiftLeft(1)).mod(this.p); // X3 = R^2 - H^3 - 2 U1 H^2
+        BigInteger y3 = r.multiply(v.subtract(x3)).subtract(s1.multiply(hh3)).mod(this.p); // Y3 = R (U1 H^2 - X3) - S1 H^3
+        BigInteger z3 = hh.multiply(first[2]).multiply(second[2]).mod(this.p); // Z3 = H Z1 Z2
+        return new BigInteger[]{x3, y3, z3};
+    }
+
+    /**
+     * @param point point in Jacobian coordinates
+     * @return same point in affine coordinates
+     */
+    private Point toAffine(BigInteger[] point) {
+        if (isInfinity(point))
+            return this.identity;
+        BigInteger zInverse = point[2].modInverse(this.p);
+        BigInteger zInverse2 = zInverse.multiply(zInverse).mod(this.p);
+        BigInteger x = point[0].multiply(zInverse2).mod(this.p);
+        BigInteger y = point[1].multiply(zInverse2).multiply(zInverse).mod(this.p);
+        return new Point(x, y);
+    }
+
+    private static boolean isInfinity(BigInteger[] point) {
+        return point[2].signum() == 0;
+    }
+
+    /**
+     * Point in affine coordinates (both null for the point at infinity), with the precomputed table of the generator
+     * it is (null if it is not a generator)
+     */
+    private final class Point implements GroupElement {
+
+        private final BigInteger x, y;
+
+        /**
+         * Precomputed values, where \(table[i][j] = (j \cdot 2^{w i}) P\) in Jacobian coordinates
+         */
+        private final BigInteger[][][] table;
+
+        private Point(BigInteger x, BigInteger y) {
+            this(x, y, null);
+        }
+
+        private Point(BigInteger x, BigInteger y, BigInteger[][][] table) {
+            this.x = x;
+            this.y = y;
+            this.table = table;
+        }
+
+        private EllipticCurveGroup group() {
+            return EllipticCurveGroup.this;
+        }
+
+        private boolean isIdentity() {
+            return this.x == null;
+        }
+
+        private BigInteger[] toJacobian() {
+            if (isIdentity())
+                return INFINITY;
+            return new BigInteger[]{this.x, this.y, BigInteger.ONE};
+        }
+
+        /**
+         * @return same point with a precomputed table for fixed-base exponentiations
+         */
+        private Point withTable() {
+            int rows = (q.bitLength() + WINDOW_SIZE - 1) / WINDOW_SIZE;
+            int columns = 1 << WINDOW_SIZE;
+            BigInteger[][][] table = new BigInteger[rows][columns][];
+            BigInteger[] rowBase = toJacobian();
+            for (int i = 0; i < rows; i++) {
+                table[i][0] = INFINITY;
+                table[i][1] = rowBase;
+                for (int j = 2; j < columns; j++)
+                    table[i][j] = add(table[i][j - 1], rowBase);
+                // Base of the next row is 2^{w(i+1)} P
+                rowBase = add(table[i][columns - 1], rowBase);
+            }
+            return new Point(this.x, this.y, table);
+        }
+
+        /**
+         * @param exponent exponent in \([0, q)\)
+         * @return sum of the table entries selected by each window of the exponent, with no doublings
+         */
+        private BigInteger[] lookUp(BigInteger exponent) {
+            int[] digits = MultiExponentiation.digits(exponent, WINDOW_SIZE, this.table.length);
+            BigInteger[] result = INFINITY;
+            for (int i = 0; i < digits.length; i++)
+                if (digits[i] != 0)
+                    result = add(result, this.table[i][digits[i]]);
+            return result;
+        }
+
+        @Override
+        public GroupElement multiply(GroupElement other) {
+            return toAffine(add(toJacobian(), point(other).toJacobian()));
+        }
+
+        @Override
+        public GroupElement power(BigInteger exponent) {
+            BigInteger e = exponent.mod(q);
+            if (isIdentity() || e.signum() == 0)
+                return identity;
+            if (this.table != null)
+                return toAffine(lookUp(e));
+            return toAffine(straus(new Point[]{this}, new BigInteger[]{e}, 1));
+        }
+
+        @Override
+        public GroupElement inverse() {
+            if (isIdentity() || this.y.signum() == 0)
+                return this;
+            return new Point(this.x, p.subtract(this.y));
+        }
+
+        @Override
+        public BigInteger encode() {
+            if (isIdentity())
+                return BigInteger.ZERO;
+            BigInteger prefix = this.y.testBit(0) ? THREE : TWO;
+            return prefix.shiftLeft(8 * fieldLength).add(this.x);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Point) || ((Point) o).group() != group())
+                return false;
+            Point other = (Point) o;
+            if (isIdentity() || other.isIdentity())
+                return isIdentity() && other.isIdentity();
+            return this.x.equals(other.x) && this.y.equals(other.y);
+        }
+
+        @Override
+        public int hashCode() {
+            return isIdentity() ? 0 : this.x.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return encode().toString(16);
+        }
+
+    }
+
+}
@@ -0,0 +1,141 @@
+package crypto;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Class that defines how the secret exponents of the Diffie-Hellman key agreements are drawn. With
+ * {@link Mode#FULL} they are uniform in \(\mathbb{Z}_q\), drawn from a CSPRNG, so every exponent has the bit length
+ * of \(q\). With {@link Mode#SHORT} they are uniform in \([1, 2^k)\) for a configured length \(k\), which makes each
+ * exponentiation about \(|q|/k\) times cheaper when \(q\) is large (e.g. the \(q = (p-1)/2\) of a safe prime). Short
+ * exponents must be at least twice as long as the security level (e.g. 256 bits for 128-bit security); groups whose
+ * order is not longer than \(k\) always use full exponents.
+ * <p>
+ * The policy only applies to the halves of the key agreements: the random values of the commitments are always full
+ * length, since the hiding of a Pedersen commitment needs them uniform in \(\mathbb{Z}_q\). Each node chooses its
+ * exponents alone, so nodes with different policies can share a room
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public class ExponentPolicy {
+
+    /**
+     * How the exponents are drawn
+     */
+    public enum Mode {
+        /**
+         * Uniform in \(\mathbb{Z}_q\)
+         */
+        FULL,
+        /**
+         * Uniform in \([1, 2^k)\)
+         */
+        SHORT
+    }
+
+    /**
+     * Length of the short exponents of the rooms that do not specify one (128-bit security)
+     */
+    public static final int DEFAULT_SHORT_EXPONENT_BITS = 256;
+
+    /**
+     * Shortest length accepted for short exponents (80-bit security)
+     */
+    public static final int MIN_SHORT_EXPONENT_BITS = 160;
+
+    /**
+     * Policy used by the rooms that do not specify one
+     */
+    public static final ExponentPolicy FULL = new ExponentPolicy(Mode.FULL, DEFAULT_SHORT_EXPONENT_BITS);
+
+    /**
+     * How the exponents are drawn
+     */
+    private final Mode mode;
+
+    /**
+     * Length \(k\) of the short exponents
+     */
+    private final int shortExponentBits;
+
+    /**
+     * Constructor for crypto.ExponentPolicy class
+     *
+     * @param mode              how the exponents are drawn
+     * @param shortExponentBits length \(k\) of the short exponents (ignored on full mode)
+     */
+    public ExponentPolicy(Mode mode, int shortExponentBits) {
+        if (mode == Mode.SHORT && shortExponentBits < MIN_SHORT_EXPONENT_BITS)
+            throw new IllegalArgumentException("Short exponents need at least " + MIN_SHORT_EXPONENT_BITS + " bits");
+        this.mode = mode;
+        this.shortExponentBits = shortExponentBits;
+    }
+
+    /**
+     * Policy announced by the directory node. Missing values fall back to full exponents and to
+     * {@link #DEFAULT_SHORT_EXPONENT_BITS}
+     *
+     * @param mode              name of the mode ("full" or "short"), or null
+     * @param shortExponentBits length of the short exponents, or null
+     * @return policy of the room
+     * @throws IllegalArgumentException if there is no mode with that name
+     */
+    public static ExponentPolicy fromDirectory(String mode, Integer shortExponentBits) {
+        if (mode == null || mode.equalsIgnoreCase(Mode.FULL.name()))
+            return FULL;
+        Mode policyMode;
+        try {
+            policyMode = Mode.valueOf(mode.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown exponent policy " + mode + ", expected one of " +
+                    Arrays.toString(Mode.values()));
+        }
+        return new ExponentPolicy(policyMode,
+                shortExponentBits == null ? DEFAULT_SHORT_EXPONENT_BITS : shortExponentBits);
+    }
+
+    /**
+     * @param group group \(G_q\) where the exponent is used
+     * @return secret exponent drawn as the policy says
+     */
+    public BigInteger randomExponent(Group group) {
+        if (!usesShortExponents(group))
+            return group.randomScalar().getValue();
+        BigInteger exponent;
+        do {
+            exponent = RandomSource.getInstance().nextBits(this.shortExponentBits);
+        } while (exponent.signum() == 0);
+        return exponent;
+    }
+
+    /**
+     * @param group group \(G_q\) where the exponents are used
+     * @return bit length of the exponents drawn for the group, which bounds the cost of each exponentiation
+     */
+    public int exponentBitLength(Group group) {
+        return usesShortExponents(group) ? this.shortExponentBits : group.getOrder().bitLength();
+    }
+
+    /**
+     * @param group group \(G_q\) where the exponents are used
+     * @return true if the exponents drawn for the group are shorter than its order
+     */
+    public boolean usesShortExponents(Group group) {
+        return this.mode == Mode.SHORT && this.shortExponentBits < group.getOrder().bitLength();
+    }
+
+    /**
+     * @return how the exponents are drawn
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return length \(k\) of the short exponents
+     */
+    public int getShortExponentBits() {
+        return shortExponentBits;
+    }
+
+}
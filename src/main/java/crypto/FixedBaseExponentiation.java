@@ -0,0 +1,173 @@
+package crypto;
+
+import java.math.BigInteger;
+
+/**
+ * Class that precomputes a table of powers of a fixed base \(b\) so that \(b^x \pmod{p}\) is computed using only
+ * table look-ups and multiplications (fixed-base windowing), with no squarings. The table is kept in Montgomery form,
+ * so the look-ups are multiplied by a {@link MontgomeryField} without allocating
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public class FixedBaseExponentiation {
+
+    /**
+     * Number of bits of the exponent consumed by each row of the table
+     */
+    private static final int WINDOW_SIZE = 4;
+
+    /**
+     * Fixed base \(b\)
+     */
+    private final BigInteger base;
+
+    /**
+     * Large prime
+     */
+    private final BigInteger q;
+
+    /**
+     * Large prime s.t. \(p = kq + 1\)
+     */
+    private final BigInteger p;
+
+    /**
+     * True if \(b^q = 1 \pmod{p}\), in which case exponents can be reduced \(\pmod{q}\)
+     */
+    private final boolean baseOfOrderQ;
+
+    /**
+     * Maximum bit length of an exponent covered by the table
+     */
+    private final int exponentBitLength;
+
+    /**
+     * Arithmetic of \(\mathbb{Z}_p\) used for the table
+     */
+    private final MontgomeryField field;
+
+    /**
+     * Precomputed values in Montgomery form, where \(table[i][j] = b^{j \cdot 2^{w i}} \pmod{p}\)
+     */
+    private final long[][][] table;
+
+    /**
+     * Constructor for crypto.FixedBaseExponentiation class, that builds the table for the base
+     *
+     * @param base fixed base \(b\)
+     * @param q    large prime
+     * @param p    large prime s.t. \(p = kq + 1\)
+     */
+    public FixedBaseExponentiation(BigInteger base, BigInteger q, BigInteger p) {
+        this(base, q, new MontgomeryField(p));
+    }
+
+    /**
+     * Constructor for crypto.FixedBaseExponentiation class, that builds the table for the base using the arithmetic
+     * of a field shared with other values of \(\mathbb{Z}_p\)
+     *
+     * @param base  fixed base \(b\)
+     * @param q     large prime
+     * @param field arithmetic of \(\mathbb{Z}_p\), with p large prime s.t. \(p = kq + 1\)
+     */
+    public FixedBaseExponentiation(BigInteger base, BigInteger q, MontgomeryField field) {
+        this.base = base;
+        this.q = q;
+        this.p = field.getModulus();
+        this.field = field;
+        this.baseOfOrderQ = base.modPow(q, this.p).equals(BigInteger.ONE);
+        this.exponentBitLength = this.baseOfOrderQ ? q.bitLength() : this.p.bitLength();
+
+        MontgomeryField.Workspace workspace = field.newWorkspace();
+        int rows = (this.exponentBitLength + WINDOW_SIZE - 1) / WINDOW_SIZE;
+        int columns = 1 << WINDOW_SIZE;
+        this.table = new long[rows][columns][];
+        long[] rowBase = field.newElement();
+        field.toMontgomery(base, rowBase, workspace);
+        for (int i = 0; i < rows; i++) {
+            this.table[i][0] = field.newElement();
+            field.setOne(this.table[i][0]);
+            this.table[i][1] = rowBase;
+            for (int j = 2; j < columns; j++) {
+                this.table[i][j] = field.newElement();
+                field.multiply(this.table[i][j - 1], rowBase, this.table[i][j], workspace);
+            }
+            // Base of the next row is b^{2^{w(i+1)}}
+            long[] nextRowBase = field.newElement();
+            field.multiply(this.table[i][columns - 1], rowBase, nextRowBase, workspace);
+            rowBase = nextRowBase;
+        }
+    }
+
+    /**
+     * Calculate \(b^x \pmod{p}\) using the precomputed table
+     *
+     * @param exponent exponent \(x\) (can be negative)
+     * @return \(b^x \pmod{p}\)
+     */
+    public BigInteger modPow(BigInteger exponent) {
+        MontgomeryField.Workspace workspace = this.field.newWorkspace();
+        long[] result = this.field.newElement();
+        power(exponent, result, workspace);
+        return this.field.fromMontgomery(result, workspace);
+    }
+
+    /**
+     * Calculate \(b^x\) in Montgomery form using the precomputed table
+     *
+     * @param exponent  exponent \(x\) (can be negative)
+     * @param out       array where \(b^x\) is written
+     * @param workspace scratch space of the field
+     */
+    void power(BigInteger exponent, long[] out, MontgomeryField.Workspace workspace) {
+        if (this.baseOfOrderQ) {
+            lookUp(exponent.mod(this.q), out, workspace);
+        } else if (exponent.signum() < 0 || exponent.bitLength() > this.exponentBitLength) {
+            this.field.toMontgomery(this.base.modPow(exponent, this.p), out, workspace);
+        } else {
+            lookUp(exponent, out, workspace);
+        }
+    }
+
+    /**
+     * Write in out the product of the table entries selected by each window of the exponent
+     *
+     * @param exponent non negative exponent with at most exponentBitLength bits
+     */
+    private void lookUp(BigInteger exponent, long[] out, MontgomeryField.Workspace workspace) {
+        byte[] bytes = exponent.toByteArray();
+        this.field.setOne(out);
+        int row = 0;
+        for (int k = bytes.length - 1; k >= 0 && row < this.table.length; k--) {
+            int lowNibble = bytes[k] & 0x0F;
+            int highNibble = (bytes[k] >> 4) & 0x0F;
+            if (lowNibble != 0)
+                this.field.multiply(out, this.table[row][lowNibble], out, workspace);
+            if (highNibble != 0 && row + 1 < this.table.length)
+                this.field.multiply(out, this.table[row + 1][highNibble], out, workspace);
+            row += 2;
+        }
+    }
+
+    /**
+     * @return fixed base \(b\) of the table
+     */
+    public BigInteger getBase() {
+        return base;
+    }
+
+    /**
+     * @return large prime p of the table
+     */
+    public BigInteger getP() {
+        return p;
+    }
+
+    /**
+     * @return true if the base belongs to the subgroup of order q
+     */
+    public boolean isBaseOfOrderQ() {
+        return baseOfOrderQ;
+    }
+
+}
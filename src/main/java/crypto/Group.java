@@ -0,0 +1,72 @@
+package crypto;
+
+import java.math.BigInteger;
+
+/**
+ * Cyclic group \(G_q\) of large prime order \(q\) where the commitments, proofs and keys of a room are computed, with
+ * two generators \(g\) and \(h\) whose relative discrete logarithm is unknown. The group operation is written
+ * multiplicatively. Elements travel through the network as their (non negative) integer encoding
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public interface Group {
+
+    /**
+     * @return name of the group, as announced by the directory node
+     */
+    String getName();
+
+    /**
+     * @return large prime order \(q\) of the group
+     */
+    BigInteger getOrder();
+
+    /**
+     * @return generator \(g\) of the group
+     */
+    GroupElement getG();
+
+    /**
+     * @return generator \(h\) of the group
+     */
+    GroupElement getH();
+
+    /**
+     * @return identity element of the group
+     */
+    GroupElement getIdentity();
+
+    /**
+     * @return length in bytes of the fixed-width encoding of the elements, enough for any {@link GroupElement#encode()}
+     */
+    int getElementLength();
+
+    /**
+     * @param encoding integer encoding of an element, as returned by {@link GroupElement#encode()}
+     * @return element with that encoding
+     * @throws IllegalArgumentException if encoding is not the encoding of an element of the group
+     */
+    GroupElement decode(BigInteger encoding);
+
+    /**
+     * Calculate \(\prod b_i^{e_i}\), sharing the work between all the bases and using the precomputed tables of the
+     * generators
+     *
+     * @param bases     bases \(b_i\)
+     * @param exponents exponents \(e_i\) (can be negative)
+     * @return \(\prod b_i^{e_i}\)
+     */
+    GroupElement multiExponentiation(GroupElement[] bases, BigInteger[] exponents);
+
+    /**
+     * @param value integer value
+     * @return value as an element of \(\mathbb{Z}_q\)
+     */
+    Scalar scalar(BigInteger value);
+
+    /**
+     * @return uniformly random element of \(\mathbb{Z}_q\)
+     */
+    Scalar randomScalar();
+
+}
@@ -0,0 +1,35 @@
+package crypto;
+
+import java.math.BigInteger;
+
+/**
+ * Element of a group \(G_q\). Elements are immutable, and two elements are equal if they have the same encoding
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public interface GroupElement {
+
+    /**
+     * @param other element of the same group
+     * @return \(this \cdot other\)
+     */
+    GroupElement multiply(GroupElement other);
+
+    /**
+     * @param exponent exponent \(x\) (can be negative)
+     * @return \(this^x\), using the precomputed table of the element if it is a generator of the group
+     */
+    GroupElement power(BigInteger exponent);
+
+    /**
+     * @return \(this^{-1}\)
+     */
+    GroupElement inverse();
+
+    /**
+     * @return non negative integer encoding of the element, used to send it and to absorb it in the transcripts of the
+     * proofs
+     */
+    BigInteger encode();
+
+}
@@ -0,0 +1,57 @@
+package crypto;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+
+/**
+ * HMAC-SHA256 used as PRF by the key generations that derive their values from seeds and by the derivation of
+ * deterministic nonces, expanded in counter mode to outputs of any length
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public final class HmacPrf {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private HmacPrf() {
+    }
+
+    /**
+     * @param key key of the PRF
+     * @return PRF keyed with the key
+     */
+    public static Mac keyed(byte[] key) {
+        try {
+            Mac prf = Mac.getInstance(ALGORITHM);
+            prf.init(new SecretKeySpec(key, ALGORITHM));
+            return prf;
+        } catch (GeneralSecurityException e) {
+            // Every Java platform is required to support HmacSHA256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Expand the PRF in counter mode: \(PRF(key, label, input, 0) || PRF(key, label, input, 1) || \ldots\)
+     *
+     * @param prf    keyed PRF (not shared with other threads)
+     * @param label  label of the output
+     * @param input  input of the PRF
+     * @param length length of the output in bytes
+     * @return output of the given length
+     */
+    public static byte[] expand(Mac prf, byte[] label, byte[] input, int length) {
+        byte[] output = new byte[length];
+        int blockLength = prf.getMacLength();
+        for (int counter = 0, offset = 0; offset < length; counter++, offset += blockLength) {
+            prf.update(label);
+            prf.update(input);
+            prf.update((byte) counter);
+            byte[] block = prf.doFinal();
+            System.arraycopy(block, 0, output, offset, Math.min(blockLength, length - offset));
+        }
+        return output;
+    }
+
+}
@@ -0,0 +1,318 @@
+package crypto;
+
+import java.math.BigInteger;
+
+/**
+ * Subgroup \(G_q\) of prime order \(q\) of the multiplicative group \(\mathbb{Z}_p^*\), where \(p = kq + 1\). The
+ * generators \(g\) and \(h\) get a precomputed table each, used in every commitment and key generated in the room.
+ * <p>
+ * Elements are kept in Montgomery form and their products are computed by a {@link MontgomeryField} over reused
+ * scratch space (one per thread), so they are only converted to BigInteger when they are encoded
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public class ModPGroup implements Group {
+
+    /**
+     * Name of the group announced by the directory node
+     */
+    public static final String NAME = "modp";
+
+    /**
+     * Large prime s.t. \(p = kq + 1\)
+     */
+    private final BigInteger p;
+
+    /**
+     * Large prime order of the group
+     */
+    private final BigInteger q;
+
+    /**
+     * Whether \(p = 2q + 1\), so \(G_q\) is the subgroup of quadratic residues of \(\mathbb{Z}_p^*\)
+     */
+    private final boolean safePrime;
+
+    /**
+     * Arithmetic of \(\mathbb{Z}_p\)
+     */
+    private final MontgomeryField field;
+
+    /**
+     * Scratch space of the arithmetic, one for each thread using the group
+     */
+    private final ThreadLocal<MontgomeryField.Workspace> workspaces;
+
+    /**
+     * Generators and identity of the group
+     */
+    private final Element g, h, identity;
+
+    /**
+     * Constructor for crypto.ModPGroup class, that builds the tables of the generators
+     *
+     * @param p large prime s.t. \(p = kq + 1\)
+     * @param q large prime
+     * @param g generator of group \(G_q\)
+     * @param h generator of group \(G_q\)
+     */
+    public ModPGroup(BigInteger p, BigInteger q, BigInteger g, BigInteger h) {
+        this.p = p;
+        this.q = q;
+        this.safePrime = p.equals(q.shiftLeft(1).add(BigInteger.ONE));
+        this.field = new MontgomeryField(p);
+        this.workspaces = new ThreadLocal<MontgomeryField.Workspace>() {
+            @Override
+            protected MontgomeryField.Workspace initialValue() {
+                return field.newWorkspace();
+            }
+        };
+        this.g = new Element(limbs(g), new FixedBaseExponentiation(g, q, this.field));
+        this.h = new Element(limbs(h), new FixedBaseExponentiation(h, q, this.field));
+        long[] one = this.field.newElement();
+        this.field.setOne(one);
+        this.identity = new Element(one, null);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public BigInteger getOrder() {
+        return q;
+    }
+
+    @Override
+    public GroupElement getG() {
+        return g;
+    }
+
+    @Override
+    public GroupElement getH() {
+        return h;
+    }
+
+    @Override
+    public GroupElement getIdentity() {
+        return identity;
+    }
+
+    @Override
+    public int getElementLength() {
+        return (this.p.bitLength() + 7) / 8;
+    }
+
+    /**
+     * @return large prime p s.t. \(p = kq + 1\)
+     */
+    public BigInteger getP() {
+        return p;
+    }
+
+    /**
+     * Decode a value of \(\mathbb{Z}_p^*\) that belongs to \(G_q\). The small exponent test of the verification
+     * of the proofs is only sound for values of \(G_q\), as a value of small order would pass it with probability
+     * about 1/2. When \(p\) is a safe prime the membership is a Jacobi symbol, much cheaper than the exponentiation
+     * \(x^q = 1\) needed otherwise
+     */
+    @Override
+    public GroupElement decode(BigInteger encoding) {
+        if (encoding.signum() <= 0 || encoding.compareTo(this.p) >= 0)
+            throw new IllegalArgumentException("Value out of the range of Z_p*");
+        if (encoding.equals(this.g.encode()))
+            return this.g;
+        if (encoding.equals(this.h.encode()))
+            return this.h;
+        if (!isMember(encoding))
+            throw new IllegalArgumentException("Value out of the subgroup G_q");
+        return new Element(limbs(encoding), encoding, null);
+    }
+
+    /**
+     * @param value value of \(\mathbb{Z}_p^*\)
+     * @return true if the value belongs to \(G_q\)
+     */
+    private boolean isMember(BigInteger value) {
+        if (this.safePrime)
+            return jacobi(value, this.p) == 1;
+        return value.modPow(this.q, this.p).equals(BigInteger.ONE);
+    }
+
+    /**
+     * @param a integer
+     * @param n odd positive integer
+     * @return Jacobi symbol \((a/n)\), computed by quadratic reciprocity
+     */
+    private static int jacobi(BigInteger a, BigInteger n) {
+        a = a.mod(n);
+        int result = 1;
+        while (a.signum() != 0) {
+            // (2/n) = -1 iff n = 3, 5 (mod 8)
+            int twos = a.getLowestSetBit();
+            a = a.shiftRight(twos);
+            int nMod8 = n.intValue() & 7;
+            if ((twos & 1) == 1 && (nMod8 == 3 || nMod8 == 5))
+                result = -result;
+            // Reciprocity flips the sign iff a = n = 3 (mod 4)
+            if ((a.intValue() & 3) == 3 && (nMod8 & 3) == 3)
+                result = -result;
+            BigInteger r = n.mod(a);
+            n = a;
+            a = r;
+        }
+        return n.equals(BigInteger.ONE) ? result : 0;
+    }
+
+    @Override
+    public GroupElement multiExponentiation(GroupElement[] bases, BigInteger[] exponents) {
+        if (bases.length != exponents.length)
+            throw new IllegalArgumentException("Number of bases and exponents differ");
+        MontgomeryField.Workspace workspace = this.workspaces.get();
+        long[] result = this.field.newElement();
+        long[] fixedPower = null;
+        long[][] variableBases = new long[bases.length][];
+        BigInteger[] variableExponents = new BigInteger[bases.length];
+        int k = 0;
+        for (int i = 0; i < bases.length; i++) {
+            Element base = element(bases[i]);
+            if (base.fixedBase != null) {
+                if (fixedPower == null) {
+                    fixedPower = this.field.newElement();
+                    base.fixedBase.power(exponents[i], result, workspace);
+                } else {
+                    base.fixedBase.power(exponents[i], fixedPower, workspace);
+                    this.field.multiply(result, fixedPower, result, workspace);
+                }
+            } else {
+                variableBases[k] = base.limbs;
+                variableExponents[k] = exponents[i];
+                k++;
+            }
+        }
+        if (k > 0) {
+            if (k < bases.length) {
+                long[][] b = new long[k][];
+                BigInteger[] e = new BigInteger[k];
+                System.arraycopy(variableBases, 0, b, 0, k);
+                System.arraycopy(variableExponents, 0, e, 0, k);
+                variableBases = b;
+                variableExponents = e;
+            }
+            long[] variablePower = fixedPower == null ? result : fixedPower;
+            MultiExponentiation.power(this.field, variableBases, variableExponents, variablePower, workspace);
+            if (variablePower != result)
+                this.field.multiply(result, variablePower, result, workspace);
+        } else if (fixedPower == null) {
+            this.field.setOne(result);
+        }
+        return new Element(result, null);
+    }
+
+    @Override
+    public Scalar scalar(BigInteger value) {
+        return new Scalar(value, this.q);
+    }
+
+    @Override
+    public Scalar randomScalar() {
+        return Scalar.random(this.q);
+    }
+
+    private Element element(GroupElement element) {
+        if (!(element instanceof Element) || ((Element) element).group() != this)
+            throw new IllegalArgumentException("Element of another group");
+        return (Element) element;
+    }
+
+    /**
+     * @param value integer
+     * @return Montgomery form of the value \(\pmod{p}\)
+     */
+    private long[] limbs(BigInteger value) {
+        long[] limbs = this.field.newElement();
+        this.field.toMontgomery(value, limbs, this.workspaces.get());
+        return limbs;
+    }
+
+    /**
+     * Value of \(\mathbb{Z}_p^*\) in Montgomery form, with the precomputed table of the generator it is (null if it is
+     * not a generator)
+     */
+    private final class Element implements GroupElement {
+
+        private final long[] limbs;
+
+        private final FixedBaseExponentiation fixedBase;
+
+        /**
+         * Value as an integer, computed the first time the element is encoded
+         */
+        private BigInteger value;
+
+        private Element(long[] limbs, FixedBaseExponentiation fixedBase) {
+            this(limbs, null, fixedBase);
+        }
+
+        private Element(long[] limbs, BigInteger value, FixedBaseExponentiation fixedBase) {
+            this.limbs = limbs;
+            this.value = value;
+            this.fixedBase = fixedBase;
+        }
+
+        private ModPGroup group() {
+            return ModPGroup.this;
+        }
+
+        @Override
+        public GroupElement multiply(GroupElement other) {
+            long[] product = field.newElement();
+            field.multiply(this.limbs, element(other).limbs, product, workspaces.get());
+            return new Element(product, null);
+        }
+
+        @Override
+        public GroupElement power(BigInteger exponent) {
+            long[] power = field.newElement();
+            if (this.fixedBase != null)
+                this.fixedBase.power(exponent, power, workspaces.get());
+            else
+                // BigInteger.modPow is already a Montgomery exponentiation, that the JVM runs with intrinsics
+                field.toMontgomery(encode().modPow(exponent, p), power, workspaces.get());
+            return new Element(power, null);
+        }
+
+        @Override
+        public GroupElement inverse() {
+            // Inverting by Fermat would cost a full exponentiation, the extended Euclid of BigInteger is much cheaper
+            BigInteger inverse = encode().modInverse(p);
+            return new Element(limbs(inverse), inverse, null);
+        }
+
+        @Override
+        public BigInteger encode() {
+            if (this.value == null)
+                this.value = field.fromMontgomery(this.limbs, workspaces.get());
+            return this.value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Element && ((Element) o).group() == group()
+                    && MontgomeryField.equals(((Element) o).limbs, this.limbs);
+        }
+
+        @Override
+        public int hashCode() {
+            return MontgomeryField.hashCode(this.limbs);
+        }
+
+        @Override
+        public String toString() {
+            return encode().toString();
+        }
+
+    }
+
+}
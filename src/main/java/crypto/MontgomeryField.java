@@ -0,0 +1,326 @@
+package crypto;
+
+import java.math.BigInteger;
+
+/**
+ * Class that does the arithmetic of \(\mathbb{Z}_p\) for a fixed odd modulus \(p\) in Montgomery form
+ * \(\tilde{a} = a R \pmod{p}\), with \(R = 2^{32n}\). Values are fixed-width arrays of \(n\) 32-bit limbs (least
+ * significant first, each one held in a long) that are written in place, so chains of multiplications do not
+ * allocate: the only conversions from and to BigInteger are done when a value enters or leaves the engine.
+ * <p>
+ * The field is immutable and can be shared between threads; the scratch space of the operations lives in a
+ * {@link Workspace}, that must be used by one thread at a time
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public final class MontgomeryField {
+
+    private static final long MASK = 0xFFFFFFFFL;
+
+    /**
+     * Modulus \(p\)
+     */
+    private final BigInteger modulus;
+
+    /**
+     * Limbs of the modulus
+     */
+    private final long[] p;
+
+    /**
+     * Number of limbs \(n\)
+     */
+    private final int n;
+
+    /**
+     * \(-p^{-1} \pmod{2^{32}}\)
+     */
+    private final long pInverse;
+
+    /**
+     * \(R^2 \pmod{p}\), used to move values into Montgomery form
+     */
+    private final long[] rSquared;
+
+    /**
+     * \(R \pmod{p}\), the Montgomery form of 1
+     */
+    private final long[] one;
+
+    /**
+     * Constructor for crypto.MontgomeryField class
+     *
+     * @param modulus odd modulus \(p > 1\)
+     */
+    public MontgomeryField(BigInteger modulus) {
+        if (modulus.signum() <= 0 || !modulus.testBit(0) || modulus.equals(BigInteger.ONE))
+            throw new IllegalArgumentException("Modulus must be odd and greater than one");
+        this.modulus = modulus;
+        this.n = (modulus.bitLength() + 31) >>> 5;
+        this.p = toLimbs(modulus, this.n);
+
+        // Newton iteration for p^{-1} mod 2^32, doubling the correct bits in each step
+        int p0 = (int) this.p[0];
+        int inverse = p0;
+        for (int i = 0; i < 5; i++)
+            inverse *= 2 - p0 * inverse;
+        this.pInverse = -inverse & MASK;
+
+        BigInteger r = BigInteger.ONE.shiftLeft(32 * this.n);
+        this.one = toLimbs(r.mod(modulus), this.n);
+        this.rSquared = toLimbs(r.multiply(r).mod(modulus), this.n);
+    }
+
+    /**
+     * @return modulus \(p\)
+     */
+    public BigInteger getModulus() {
+        return modulus;
+    }
+
+    /**
+     * @return number of 32-bit limbs of the values of the field
+     */
+    public int getLimbs() {
+        return n;
+    }
+
+    /**
+     * @return new value of the field, set to zero
+     */
+    public long[] newElement() {
+        return new long[this.n];
+    }
+
+    /**
+     * @return new scratch space for the operations of the field
+     */
+    public Workspace newWorkspace() {
+        return new Workspace();
+    }
+
+    /**
+     * Move a value into Montgomery form
+     *
+     * @param value     integer (reduced \(\pmod{p}\) if needed)
+     * @param out       array where \(value \cdot R \pmod{p}\) is written
+     * @param workspace scratch space
+     */
+    public void toMontgomery(BigInteger value, long[] out, Workspace workspace) {
+        if (value.signum() < 0 || value.compareTo(this.modulus) >= 0)
+            value = value.mod(this.modulus);
+        toLimbs(value, out);
+        multiply(out, this.rSquared, out, workspace);
+    }
+
+    /**
+     * Move a value out of Montgomery form
+     *
+     * @param a         value in Montgomery form
+     * @param workspace scratch space
+     * @return \(a R^{-1} \pmod{p}\)
+     */
+    public BigInteger fromMontgomery(long[] a, Workspace workspace) {
+        long[] t = workspace.t;
+        System.arraycopy(a, 0, t, 0, this.n);
+        t[this.n] = 0;
+        t[this.n + 1] = 0;
+        // Multiplying by 1 is n reduction steps over a
+        for (int i = 0; i < this.n; i++)
+            reduceStep(t);
+        finish(t, workspace.product);
+        return fromLimbs(workspace.product);
+    }
+
+    /**
+     * @param out array where the Montgomery form of 1 is written
+     */
+    public void setOne(long[] out) {
+        System.arraycopy(this.one, 0, out, 0, this.n);
+    }
+
+    /**
+     * @param a value in Montgomery form
+     * @return true if \(a\) is the Montgomery form of 1
+     */
+    public boolean isOne(long[] a) {
+        return equals(a, this.one);
+    }
+
+    /**
+     * Montgomery product (CIOS method). The output can be the same array as any of the inputs
+     *
+     * @param a         value in Montgomery form
+     * @param b         value in Montgomery form
+     * @param out       array where \(a b R^{-1} \pmod{p}\) is written
+     * @param workspace scratch space
+     */
+    public void multiply(long[] a, long[] b, long[] out, Workspace workspace) {
+        long[] t = workspace.t;
+        long[] p = this.p;
+        int n = this.n;
+        for (int j = 0; j < n + 2; j++)
+            t[j] = 0;
+        for (int i = 0; i < n; i++) {
+            long ai = a[i];
+            long carry = 0;
+            for (int j = 0; j < n; j++) {
+                long s = t[j] + ai * b[j] + carry;
+                t[j] = s & MASK;
+                carry = s >>> 32;
+            }
+            long s = t[n] + carry;
+            t[n] = s & MASK;
+            t[n + 1] = s >>> 32;
+
+            long m = (t[0] * this.pInverse) & MASK;
+            carry = (t[0] + m * p[0]) >>> 32;
+            for (int j = 1; j < n; j++) {
+                s = t[j] + m * p[j] + carry;
+                t[j - 1] = s & MASK;
+                carry = s >>> 32;
+            }
+            s = t[n] + carry;
+            t[n - 1] = s & MASK;
+            t[n] = t[n + 1] + (s >>> 32);
+        }
+        finish(t, out);
+    }
+
+    /**
+     * @param a value of the field
+     * @param b value of the field
+     * @return true if both values are equal
+     */
+    static boolean equals(long[] a, long[] b) {
+        for (int i = 0; i < a.length; i++)
+            if (a[i] != b[i])
+                return false;
+        return true;
+    }
+
+    /**
+     * @param a value of the field
+     * @return hash code of the value
+     */
+    static int hashCode(long[] a) {
+        int hash = 1;
+        for (long limb : a)
+            hash = 31 * hash + (int) limb;
+        return hash;
+    }
+
+    /**
+     * One step of the Montgomery reduction of t (of n + 2 limbs), dividing it by \(2^{32}\)
+     */
+    private void reduceStep(long[] t) {
+        long m = (t[0] * this.pInverse) & MASK;
+        long carry = (t[0] + m * this.p[0]) >>> 32;
+        for (int j = 1; j < this.n; j++) {
+            long s = t[j] + m * this.p[j] + carry;
+            t[j - 1] = s & MASK;
+            carry = s >>> 32;
+        }
+        long s = t[this.n] + carry;
+        t[this.n - 1] = s & MASK;
+        t[this.n] = t[this.n + 1] + (s >>> 32);
+        t[this.n + 1] = 0;
+    }
+
+    /**
+     * Write t (smaller than 2p) reduced \(\pmod{p}\) in out
+     */
+    private void finish(long[] t, long[] out) {
+        int n = this.n;
+        boolean subtract = t[n] != 0;
+        if (!subtract) {
+            subtract = true;
+            for (int j = n - 1; j >= 0; j--) {
+                if (t[j] != this.p[j]) {
+                    subtract = t[j] > this.p[j];
+                    break;
+                }
+            }
+        }
+        if (subtract) {
+            long borrow = 0;
+            for (int j = 0; j < n; j++) {
+                long s = t[j] - this.p[j] - borrow;
+                out[j] = s & MASK;
+                borrow = s >>> 63;
+            }
+        } else {
+            System.arraycopy(t, 0, out, 0, n);
+        }
+    }
+
+    private static long[] toLimbs(BigInteger value, int n) {
+        long[] limbs = new long[n];
+        toLimbs(value, limbs);
+        return limbs;
+    }
+
+    private static void toLimbs(BigInteger value, long[] limbs) {
+        byte[] bytes = value.toByteArray();
+        for (int i = 0; i < limbs.length; i++)
+            limbs[i] = 0;
+        for (int k = 0; k < bytes.length; k++) {
+            int position = bytes.length - 1 - k;
+            if (position >>> 2 < limbs.length)
+                limbs[position >>> 2] |= (bytes[k] & 0xFFL) << ((position & 3) << 3);
+        }
+    }
+
+    private static BigInteger fromLimbs(long[] limbs) {
+        byte[] bytes = new byte[4 * limbs.length + 1];
+        for (int i = 0; i < limbs.length; i++) {
+            int k = bytes.length - 1 - 4 * i;
+            bytes[k] = (byte) limbs[i];
+            bytes[k - 1] = (byte) (limbs[i] >>> 8);
+            bytes[k - 2] = (byte) (limbs[i] >>> 16);
+            bytes[k - 3] = (byte) (limbs[i] >>> 24);
+        }
+        return new BigInteger(bytes);
+    }
+
+    /**
+     * Scratch space of the operations of a field, reused between operations. It must not be shared between threads
+     */
+    public final class Workspace {
+
+        /**
+         * Accumulator of the Montgomery products
+         */
+        private final long[] t = new long[n + 2];
+
+        /**
+         * Result of a reduction before it is converted
+         */
+        private final long[] product = new long[n];
+
+        /**
+         * Values of the field reused by multi-exponentiations
+         */
+        private long[][] elements = new long[0][];
+
+        private Workspace() {
+        }
+
+        /**
+         * @param count number of values needed
+         * @return at least count values of the field, owned by the workspace (their contents are not defined)
+         */
+        long[][] elements(int count) {
+            if (this.elements.length < count) {
+                long[][] grown = new long[count][];
+                System.arraycopy(this.elements, 0, grown, 0, this.elements.length);
+                for (int i = this.elements.length; i < count; i++)
+                    grown[i] = new long[n];
+                this.elements = grown;
+            }
+            return this.elements;
+        }
+
+    }
+
+}
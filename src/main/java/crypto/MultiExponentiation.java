@@ -0,0 +1,285 @@
+package crypto;
+
+import java.math.BigInteger;
+
+/**
+ * Class that computes products of several powers \(\prod b_i^{e_i} \pmod{p}\) at once (simultaneous
+ * multi-exponentiation), sharing the squarings between all the bases. Uses Straus interleaving for a few bases and
+ * Pippenger bucketing for many of them, depending on which one needs less multiplications (a few powers are computed
+ * on their own by BigInteger.modPow, that is faster than sharing the squarings). The products are done in
+ * Montgomery form by a {@link MontgomeryField}, over reused arrays
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public class MultiExponentiation {
+
+    /**
+     * Maximum window size tried for Straus interleaving
+     */
+    private static final int MAX_STRAUS_WINDOW = 8;
+
+    /**
+     * Maximum window size tried for Pippenger bucketing
+     */
+    private static final int MAX_PIPPENGER_WINDOW = 16;
+
+    /**
+     * Cost of the conversions of a BigInteger.modPow call, in multiplications of the field
+     */
+    private static final int INTRINSIC_SETUP_COST = 32;
+
+    /**
+     * Exponent bits processed by BigInteger.modPow in the time of one multiplication of the field
+     */
+    private static final int INTRINSIC_BITS_PER_MULTIPLICATION = 3;
+
+    private MultiExponentiation() {
+    }
+
+    /**
+     * Calculate \(\prod b_i^{e_i} \pmod{p}\)
+     *
+     * @param bases     bases \(b_i\)
+     * @param exponents exponents \(e_i\) (can be negative, in which case the base must be invertible)
+     * @param p         odd modulus
+     * @return \(\prod b_i^{e_i} \pmod{p}\)
+     */
+    public static BigInteger modPow(BigInteger[] bases, BigInteger[] exponents, BigInteger p) {
+        MontgomeryField field = new MontgomeryField(p);
+        MontgomeryField.Workspace workspace = field.newWorkspace();
+        long[][] b = new long[bases.length][];
+        for (int i = 0; i < bases.length; i++) {
+            b[i] = field.newElement();
+            field.toMontgomery(bases[i], b[i], workspace);
+        }
+        long[] result = field.newElement();
+        power(field, b, exponents, result, workspace);
+        return field.fromMontgomery(result, workspace);
+    }
+
+    /**
+     * Calculate \(\prod b_i^{e_i}\) in Montgomery form
+     *
+     * @param field     field of the values
+     * @param bases     bases \(b_i\) in Montgomery form
+     * @param exponents exponents \(e_i\) (can be negative, in which case the base must be invertible)
+     * @param out       array where \(\prod b_i^{e_i}\) is written
+     * @param workspace scratch space
+     */
+    static void power(MontgomeryField field, long[][] bases, BigInteger[] exponents, long[] out,
+                      MontgomeryField.Workspace workspace) {
+        if (bases.length != exponents.length)
+            throw new IllegalArgumentException("Number of bases and exponents differ");
+
+        // Leave only non zero exponents, inverting the bases with negative exponents
+        int k = 0;
+        int maxBitLength = 0;
+        long[][] b = new long[bases.length][];
+        BigInteger[] e = new BigInteger[bases.length];
+        for (int i = 0; i < bases.length; i++) {
+            if (exponents[i].signum() == 0)
+                continue;
+            if (exponents[i].signum() < 0) {
+                b[k] = field.newElement();
+                field.toMontgomery(field.fromMontgomery(bases[i], workspace).modInverse(field.getModulus()), b[k],
+                        workspace);
+                e[k] = exponents[i].negate();
+            } else {
+                b[k] = bases[i];
+                e[k] = exponents[i];
+            }
+            maxBitLength = Math.max(maxBitLength, e[k].bitLength());
+            k++;
+        }
+
+        if (k == 0) {
+            field.setOne(out);
+            return;
+        }
+        int strausWindow = bestStrausWindow(k, maxBitLength);
+        int pippengerWindow = bestPippengerWindow(k, maxBitLength);
+        long strausCost = strausCost(k, maxBitLength, strausWindow);
+        long pippengerCost = pippengerCost(k, maxBitLength, pippengerWindow);
+        if (separateCost(e, k) < maxBitLength + Math.min(strausCost, pippengerCost))
+            separate(field, b, e, k, out, workspace);
+        else if (strausCost <= pippengerCost)
+            straus(field, b, e, k, maxBitLength, strausWindow, out, workspace);
+        else
+            pippenger(field, b, e, k, maxBitLength, pippengerWindow, out, workspace);
+    }
+
+    /**
+     * Straus interleaving: precompute \(b_i^j\) for each window value \(j\) and process all exponents window by
+     * window, sharing the squarings
+     */
+    private static void straus(MontgomeryField field, long[][] b, BigInteger[] e, int k, int bitLength, int w,
+                               long[] out, MontgomeryField.Workspace workspace) {
+        int windows = (bitLength + w - 1) / w;
+        int size = 1 << w;
+        // powers of b_i are at [i * size + j] of the values of the workspace
+        long[][] powers = workspace.elements(k * size);
+        int[][] digits = new int[k][];
+        for (int i = 0; i < k; i++) {
+            System.arraycopy(b[i], 0, powers[i * size + 1], 0, b[i].length);
+            for (int j = 2; j < size; j++)
+                field.multiply(powers[i * size + j - 1], b[i], powers[i * size + j], workspace);
+            digits[i] = digits(e[i], w, windows);
+        }
+
+        field.setOne(out);
+        for (int window = windows - 1; window >= 0; window--) {
+            if (window != windows - 1)
+                for (int s = 0; s < w; s++)
+                    field.multiply(out, out, out, workspace);
+            for (int i = 0; i < k; i++) {
+                int digit = digits[i][window];
+                if (digit != 0)
+                    field.multiply(out, powers[i * size + digit], out, workspace);
+            }
+        }
+    }
+
+    /**
+     * Pippenger bucketing: for each window, accumulate the bases into buckets by their window value and combine the
+     * buckets with a running product, sharing the squarings
+     */
+    private static void pippenger(MontgomeryField field, long[][] b, BigInteger[] e, int k, int bitLength, int c,
+                                  long[] out, MontgomeryField.Workspace workspace) {
+        int windows = (bitLength + c - 1) / c;
+        int size = 1 << c;
+        int[][] digits = new int[k][];
+        for (int i = 0; i < k; i++)
+            digits[i] = digits(e[i], c, windows);
+
+        // buckets are [1, size) of the values of the workspace, followed by the running and window products
+        long[][] values = workspace.elements(size + 2);
+        long[] runningProduct = values[size];
+        long[] windowProduct = values[size + 1];
+        boolean[] filled = new boolean[size];
+
+        field.setOne(out);
+        for (int window = windows - 1; window >= 0; window--) {
+            if (window != windows - 1)
+                for (int s = 0; s < c; s++)
+                    field.multiply(out, out, out, workspace);
+
+            for (int j = 1; j < size; j++)
+                filled[j] = false;
+            for (int i = 0; i < k; i++) {
+                int digit = digits[i][window];
+                if (digit == 0)
+                    continue;
+                if (filled[digit])
+                    field.multiply(values[digit], b[i], values[digit], workspace);
+                else
+                    System.arraycopy(b[i], 0, values[digit], 0, b[i].length);
+                filled[digit] = true;
+            }
+
+            // windowProduct = prod_j buckets[j]^j, computed as a running product from the highest bucket
+            boolean running = false;
+            boolean any = false;
+            for (int j = size - 1; j >= 1; j--) {
+                if (filled[j]) {
+                    if (running)
+                        field.multiply(runningProduct, values[j], runningProduct, workspace);
+                    else
+                        System.arraycopy(values[j], 0, runningProduct, 0, runningProduct.length);
+                    running = true;
+                }
+                if (running) {
+                    if (any)
+                        field.multiply(windowProduct, runningProduct, windowProduct, workspace);
+                    else
+                        System.arraycopy(runningProduct, 0, windowProduct, 0, windowProduct.length);
+                    any = true;
+                }
+            }
+            if (any)
+                field.multiply(out, windowProduct, out, workspace);
+        }
+    }
+
+    /**
+     * @param exponent non negative exponent
+     * @param width    bits per digit
+     * @param count    number of digits
+     * @return digits of the exponent in base \(2^{width}\), least significant first
+     */
+    static int[] digits(BigInteger exponent, int width, int count) {
+        byte[] bytes = exponent.toByteArray();
+        int[] digits = new int[count];
+        for (int d = 0; d < count; d++) {
+            int value = 0;
+            for (int bit = 0; bit < width; bit++) {
+                int position = d * width + bit;
+                int byteIndex = bytes.length - 1 - (position >>> 3);
+                if (byteIndex >= 0 && ((bytes[byteIndex] >>> (position & 7)) & 1) != 0)
+                    value |= 1 << bit;
+            }
+            digits[d] = value;
+        }
+        return digits;
+    }
+
+    /**
+     * Multiply the powers of each base computed on their own. BigInteger.modPow is already a Montgomery
+     * exponentiation, that the JVM runs with intrinsics, so it beats sharing the squarings when there are few bases
+     */
+    private static void separate(MontgomeryField field, long[][] b, BigInteger[] e, int k, long[] out,
+                                 MontgomeryField.Workspace workspace) {
+        BigInteger p = field.getModulus();
+        long[] power = workspace.elements(1)[0];
+        field.setOne(out);
+        for (int i = 0; i < k; i++) {
+            if (e[i].equals(BigInteger.ONE)) {
+                field.multiply(out, b[i], out, workspace);
+            } else {
+                field.toMontgomery(field.fromMontgomery(b[i], workspace).modPow(e[i], p), power, workspace);
+                field.multiply(out, power, out, workspace);
+            }
+        }
+    }
+
+    private static int bestStrausWindow(int k, int bitLength) {
+        int best = 1;
+        for (int w = 2; w <= MAX_STRAUS_WINDOW; w++)
+            if (strausCost(k, bitLength, w) < strausCost(k, bitLength, best))
+                best = w;
+        return best;
+    }
+
+    private static int bestPippengerWindow(int k, int bitLength) {
+        int best = 1;
+        for (int c = 2; c <= MAX_PIPPENGER_WINDOW; c++)
+            if (pippengerCost(k, bitLength, c) < pippengerCost(k, bitLength, best))
+                best = c;
+        return best;
+    }
+
+    /**
+     * @return approximate number of multiplications of Straus interleaving, not counting the shared squarings
+     */
+    private static long strausCost(int k, int bitLength, int w) {
+        return (long) k * (((bitLength + w - 1) / w) + (1L << w));
+    }
+
+    /**
+     * @return approximate number of multiplications of Pippenger bucketing, not counting the shared squarings
+     */
+    private static long pippengerCost(int k, int bitLength, int c) {
+        return (long) ((bitLength + c - 1) / c) * (k + (2L << c));
+    }
+
+    /**
+     * @return approximate cost of computing each power with BigInteger.modPow, in multiplications of the field
+     */
+    private static long separateCost(BigInteger[] e, int k) {
+        long cost = 0;
+        for (int i = 0; i < k; i++)
+            cost += e[i].equals(BigInteger.ONE) ? 1
+                    : INTRINSIC_SETUP_COST + e[i].bitLength() / INTRINSIC_BITS_PER_MULTIPLICATION;
+        return cost;
+    }
+
+}
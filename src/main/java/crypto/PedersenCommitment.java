@@ -1,10 +1,9 @@
 package crypto;
 
 import java.math.BigInteger;
-import java.util.Random;
 
 /**
- * Class that manages Pedersen commitments \((c = g^x h^r \pmod{p})\) operations
+ * Class that manages Pedersen commitments \((c = g^x h^r)\) operations
  *
  * @author Camilo J. Gomez (camilo@niclabs.cl)
  */
@@ -14,42 +13,38 @@ public class PedersenCommitment {
     /**
      * Generator of group \(G_q\)
      */
-    private BigInteger g;
+    private GroupElement g;
 
     /**
      * Generator of group \(G_q\)
      */
-    private BigInteger h;
+    private GroupElement h;
 
     /**
-     * Large prime
+     * Group \(G_q\) of the commitments
      */
-    private BigInteger q;
-
-    /**
-     * Large prime s.t. \(p = kq + 1\)
-     */
-    private BigInteger p;
+    private Group group;
 
     /**
      * Constructor with parameters for crypto.PedersenCommitment class
      *
-     * @param g generator of group \(G_q\)
-     * @param h generator of group \(G_q\)
-     * @param q large prime
-     * @param p large prime s.t. \(p = kq + 1\)
+     * @param g     generator of group \(G_q\)
+     * @param h     generator of group \(G_q\)
+     * @param group group \(G_q\) of the commitments
      */
-    public PedersenCommitment(BigInteger g, BigInteger h, BigInteger q, BigInteger p) {
+    public PedersenCommitment(GroupElement g, GroupElement h, Group group) {
         this.g = g;
         this.h = h;
-        this.q = q;
-        this.p = p;
+        this.group = group;
     }
 
     /**
-     * Empty constructor for crypto.PedersenCommitment class
+     * Constructor for crypto.PedersenCommitment class with the generators of the group
+     *
+     * @param group group \(G_q\) of the commitments
      */
-    public PedersenCommitment() {
+    public PedersenCommitment(Group group) {
+        this(group.getG(), group.getH(), group);
     }
 
     /**
@@ -58,8 +53,7 @@ public class PedersenCommitment {
      * @return random value in group \(\mathbb{Z}_q\)
      */
     public BigInteger generateRandom() {
-        BigInteger random = new BigInteger(this.q.bitCount(), new Random());
-        return random.mod(this.q);
+        return this.group.randomScalar().getValue();
     }
 
     /**
@@ -67,10 +61,10 @@ public class PedersenCommitment {
      *
      * @param secret message that will be hidden in the commitment
      * @param random random value used to create commitment
-     * @return commitment value as \(c = g^s \cdot h^r \pmod{p} = (g^s \pmod{p} \cdot h^r \pmod{p}) \pmod{p}\)
+     * @return commitment value as \(c = g^s \cdot h^r\)
      */
-    public BigInteger calculateCommitment(BigInteger secret, BigInteger random) {
-        return (this.g.modPow(secret, this.p).multiply(this.h.modPow(random, this.p))).mod(this.p);
+    public GroupElement calculateCommitment(BigInteger secret, BigInteger random) {
+        return this.group.multiExponentiation(new GroupElement[]{this.g, this.h}, new BigInteger[]{secret, random});
     }
 
     /**
@@ -78,7 +72,7 @@ public class PedersenCommitment {
      *
      * @return generator \(g\) of group \(G_q\)
      */
-    BigInteger getG() {
+    GroupElement getG() {
         return g;
     }
 
@@ -87,8 +81,8 @@ public class PedersenCommitment {
      *
      * @return generator \(h\) of group \(G_q\)
      */
-    BigInteger getH() {
+    GroupElement getH() {
         return h;
     }
 
-}
\ No newline at end of file
+}
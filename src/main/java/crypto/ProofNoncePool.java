@@ -0,0 +1,235 @@
+package crypto;
+
+import java.math.BigInteger;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class that precomputes, in a background thread, the random nonces of the Zero Knowledge Proofs together with their
+ * commitments: pairs \((r, g^r)\) for each generator of the group and triples \((y, s, g^y h^s)\) for Pedersen
+ * commitments. They do not depend on the data of the round, so the pool is filled while the node waits (for the rest
+ * of the room, between rounds or for the network), and the generation of a proof only has to do the linear arithmetic
+ * on the critical path. When a pool runs out, nonces are computed on the calling thread
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public class ProofNoncePool {
+
+    /**
+     * Number of nonces kept ready for each base (and for the Pedersen commitments)
+     */
+    private static final int DEFAULT_CAPACITY = 32;
+
+    /**
+     * Generators \(g\) and \(h\) of the group
+     */
+    private final GroupElement[] bases;
+
+    /**
+     * Pairs \((r, b^r)\) ready to be used, one queue per base
+     */
+    private final ConcurrentLinkedQueue<Nonce>[] nonces;
+
+    /**
+     * Triples \((y, s, g^y h^s)\) ready to be used
+     */
+    private final ConcurrentLinkedQueue<Nonce> pedersenNonces;
+
+    /**
+     * Number of nonces in each queue (pedersenNonces is the last one)
+     */
+    private final AtomicInteger[] sizes;
+
+    /**
+     * Commitments used to generate the random values and powers of each base
+     */
+    private final Commitment[] commitments;
+
+    /**
+     * Pedersen commitment used to generate the triples
+     */
+    private final PedersenCommitment pedersenCommitment;
+
+    /**
+     * Number of nonces kept ready in each queue
+     */
+    private final int capacity;
+
+    /**
+     * Background thread that fills the queues (null if it is not running)
+     */
+    private Thread filler;
+
+    /**
+     * Constructor for crypto.ProofNoncePool class, with the default capacity
+     *
+     * @param group group \(G_q\) of the room
+     */
+    public ProofNoncePool(Group group) {
+        this(DEFAULT_CAPACITY, group);
+    }
+
+    /**
+     * Constructor for crypto.ProofNoncePool class
+     *
+     * @param capacity number of nonces kept ready for each base
+     * @param group    group \(G_q\) of the room
+     */
+    public ProofNoncePool(int capacity, Group group) {
+        this.capacity = capacity;
+        this.bases = new GroupElement[]{group.getG(), group.getH()};
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ConcurrentLinkedQueue<Nonce>[] nonces = new ConcurrentLinkedQueue[this.bases.length];
+        this.nonces = nonces;
+        this.commitments = new Commitment[this.bases.length];
+        this.sizes = new AtomicInteger[this.bases.length + 1];
+        for (int i = 0; i < this.bases.length; i++) {
+            this.nonces[i] = new ConcurrentLinkedQueue<>();
+            this.commitments[i] = new Commitment(this.bases[i], group);
+            this.sizes[i] = new AtomicInteger();
+        }
+        this.pedersenNonces = new ConcurrentLinkedQueue<>();
+        this.pedersenCommitment = new PedersenCommitment(group);
+        this.sizes[this.bases.length] = new AtomicInteger();
+    }
+
+    /**
+     * Start filling the pool in a background thread with minimum priority
+     */
+    public synchronized void start() {
+        if (this.filler != null)
+            return;
+        this.filler = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                fill();
+            }
+        }, "proof-nonce-pool");
+        this.filler.setDaemon(true);
+        this.filler.setPriority(Thread.MIN_PRIORITY);
+        this.filler.start();
+    }
+
+    /**
+     * Stop the background thread. The nonces already computed can still be taken
+     */
+    public synchronized void stop() {
+        if (this.filler == null)
+            return;
+        this.filler.interrupt();
+        this.filler = null;
+    }
+
+    /**
+     * @param base base of the nonce
+     * @return pair \((r, b^r)\) with \(r\) random in \(\mathbb{Z}_q\), or null if \(b\) is not a base of the pool
+     */
+    Nonce takeNonce(GroupElement base) {
+        for (int i = 0; i < this.bases.length; i++) {
+            if (this.bases[i].equals(base)) {
+                Nonce nonce = this.nonces[i].poll();
+                if (nonce == null)
+                    return newNonce(i);
+                this.sizes[i].decrementAndGet();
+                wakeUpFiller();
+                return nonce;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param g generator of group \(G_q\)
+     * @param h generator of group \(G_q\)
+     * @return triple \((y, s, g^y h^s)\) with \(y, s\) random in \(\mathbb{Z}_q\), or null if \((g, h)\) are not the
+     * generators of the pool
+     */
+    Nonce takePedersenNonce(GroupElement g, GroupElement h) {
+        if (!this.bases[0].equals(g) || !this.bases[1].equals(h))
+            return null;
+        Nonce nonce = this.pedersenNonces.poll();
+        if (nonce == null)
+            return newPedersenNonce();
+        this.sizes[this.bases.length].decrementAndGet();
+        wakeUpFiller();
+        return nonce;
+    }
+
+    /**
+     * Fill the queues up to their capacity, and wait until a nonce is taken to fill them again
+     */
+    private void fill() {
+        while (!Thread.currentThread().isInterrupted()) {
+            boolean full = true;
+            for (int i = 0; i < this.bases.length; i++) {
+                if (this.sizes[i].get() < this.capacity) {
+                    this.nonces[i].add(newNonce(i));
+                    this.sizes[i].incrementAndGet();
+                    full = false;
+                }
+            }
+            if (this.sizes[this.bases.length].get() < this.capacity) {
+                this.pedersenNonces.add(newPedersenNonce());
+                this.sizes[this.bases.length].incrementAndGet();
+                full = false;
+            }
+            if (full) {
+                synchronized (this.sizes) {
+                    try {
+                        if (isFull())
+                            this.sizes.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean isFull() {
+        for (AtomicInteger size : this.sizes)
+            if (size.get() < this.capacity)
+                return false;
+        return true;
+    }
+
+    private void wakeUpFiller() {
+        synchronized (this.sizes) {
+            this.sizes.notifyAll();
+        }
+    }
+
+    private Nonce newNonce(int i) {
+        BigInteger r = this.commitments[i].generateRandom();
+        return new Nonce(new BigInteger[]{r}, this.commitments[i].calculateCommitment(r));
+    }
+
+    private Nonce newPedersenNonce() {
+        BigInteger y = this.pedersenCommitment.generateRandom();
+        BigInteger s = this.pedersenCommitment.generateRandom();
+        return new Nonce(new BigInteger[]{y, s}, this.pedersenCommitment.calculateCommitment(y, s));
+    }
+
+    /**
+     * Random values of \(\mathbb{Z}_q\) used in a proof together with their commitment
+     */
+    static final class Nonce {
+
+        /**
+         * Random values \(r\) (or \((y, s)\) for Pedersen commitments)
+         */
+        final BigInteger[] randoms;
+
+        /**
+         * Commitment \(b^r\) (or \(g^y h^s\) for Pedersen commitments)
+         */
+        final GroupElement commitment;
+
+        Nonce(BigInteger[] randoms, GroupElement commitment) {
+            this.randoms = randoms;
+            this.commitment = commitment;
+        }
+
+    }
+
+}
@@ -0,0 +1,175 @@
+package crypto;
+
+import javax.crypto.Mac;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * Source of all the randomness of the node: scalars of \(\mathbb{Z}_q\), exponents, nonces, seeds, padding and coin
+ * flips. A single CSPRNG, seeded once by the platform, fills a buffer of each thread in bulk, and the values are taken
+ * from that buffer, so drawing a value neither creates nor seeds a generator and the threads do not contend for it.
+ * The source is thread-safe.
+ * <p>
+ * It can also derive nonces deterministically as \(PRF(secret, label, public values) \pmod{q}\), expanded to
+ * 64 bits over the length of \(q\) so they are close to uniform: the same proof always gets the same nonce, and
+ * different proofs get unrelated nonces even if the generator of the node is weak
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public final class RandomSource {
+
+    /**
+     * Bytes taken from the generator each time the buffer of a thread is empty
+     */
+    private static final int BUFFER_LENGTH = 4096;
+
+    /**
+     * Extra bits derived over the size of the order, so the reduced nonces are close to uniform
+     */
+    private static final int EXTRA_BITS = 64;
+
+    private static final RandomSource INSTANCE = new RandomSource();
+
+    private final SecureRandom generator = new SecureRandom();
+
+    private final ThreadLocal<Buffer> buffers = new ThreadLocal<Buffer>() {
+        @Override
+        protected Buffer initialValue() {
+            return new Buffer();
+        }
+    };
+
+    private RandomSource() {
+    }
+
+    /**
+     * @return source shared by the whole node
+     */
+    public static RandomSource getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param bytes array filled with random bytes
+     */
+    public void nextBytes(byte[] bytes) {
+        Buffer buffer = this.buffers.get();
+        for (int offset = 0; offset < bytes.length; ) {
+            if (buffer.position == BUFFER_LENGTH)
+                refill(buffer);
+            int length = Math.min(bytes.length - offset, BUFFER_LENGTH - buffer.position);
+            System.arraycopy(buffer.bytes, buffer.position, bytes, offset, length);
+            // Bytes handed out do not stay in the buffer
+            Arrays.fill(buffer.bytes, buffer.position, buffer.position + length, (byte) 0);
+            buffer.position += length;
+            offset += length;
+        }
+    }
+
+    /**
+     * @param bits number of bits
+     * @return uniformly random integer in \([0, 2^{bits})\)
+     */
+    public BigInteger nextBits(int bits) {
+        byte[] bytes = new byte[(bits + 7) / 8];
+        nextBytes(bytes);
+        if (bytes.length > 0)
+            bytes[0] &= (byte) (0xFF >>> (8 * bytes.length - bits));
+        return new BigInteger(1, bytes);
+    }
+
+    /**
+     * @param order large prime order \(q\) of a group
+     * @return uniformly random integer in \([0, q)\)
+     */
+    public BigInteger nextScalar(BigInteger order) {
+        BigInteger value;
+        do {
+            value = nextBits(order.bitLength());
+        } while (value.compareTo(order) >= 0);
+        return value;
+    }
+
+    /**
+     * @param bound upper bound (positive)
+     * @return uniformly random integer in \([0, bound)\)
+     */
+    public int nextInt(int bound) {
+        byte[] bytes = new byte[4];
+        int limit = Integer.MAX_VALUE - Integer.MAX_VALUE % bound;
+        int value;
+        do {
+            nextBytes(bytes);
+            value = ((bytes[0] & 0x7F) << 24) | ((bytes[1] & 0xFF) << 16) | ((bytes[2] & 0xFF) << 8) | (bytes[3] & 0xFF);
+        } while (value >= limit);
+        return value % bound;
+    }
+
+    /**
+     * @return true or false with the same probability
+     */
+    public boolean nextBoolean() {
+        byte[] bytes = new byte[1];
+        nextBytes(bytes);
+        return (bytes[0] & 1) == 1;
+    }
+
+    /**
+     * Derive a nonce from the secrets and the public values of a proof, instead of drawing it
+     *
+     * @param order        large prime order \(q\) of the group
+     * @param secrets      secret values of the proof
+     * @param label        label of the nonce, distinct for each nonce of each proof
+     * @param publicValues public values of the proof
+     * @return \(PRF(secrets, label, public values) \pmod{q}\)
+     */
+    public static BigInteger deriveScalar(BigInteger order, BigInteger[] secrets, String label,
+                                          BigInteger... publicValues) {
+        Mac prf = HmacPrf.keyed(lengthPrefixed(secrets));
+        int length = (order.bitLength() + EXTRA_BITS + 7) / 8;
+        byte[] output = HmacPrf.expand(prf, label.getBytes(StandardCharsets.UTF_8), lengthPrefixed(publicValues),
+                length);
+        return new BigInteger(1, output).mod(order);
+    }
+
+    /**
+     * @return concatenation of the values, each one preceded by its length in 4 bytes
+     */
+    private static byte[] lengthPrefixed(BigInteger[] values) {
+        byte[][] encoded = new byte[values.length][];
+        int length = 0;
+        for (int i = 0; i < values.length; i++) {
+            encoded[i] = values[i].toByteArray();
+            length += 4 + encoded[i].length;
+        }
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        for (byte[] value : encoded) {
+            bytes[offset] = (byte) (value.length >>> 24);
+            bytes[offset + 1] = (byte) (value.length >>> 16);
+            bytes[offset + 2] = (byte) (value.length >>> 8);
+            bytes[offset + 3] = (byte) value.length;
+            System.arraycopy(value, 0, bytes, offset + 4, value.length);
+            offset += 4 + value.length;
+        }
+        return bytes;
+    }
+
+    private void refill(Buffer buffer) {
+        this.generator.nextBytes(buffer.bytes);
+        buffer.position = 0;
+    }
+
+    /**
+     * Random bytes of a thread not handed out yet
+     */
+    private static final class Buffer {
+
+        final byte[] bytes = new byte[BUFFER_LENGTH];
+        int position = BUFFER_LENGTH;
+
+    }
+
+}
@@ -0,0 +1,105 @@
+package crypto;
+
+import java.math.BigInteger;
+
+/**
+ * Element of \(\mathbb{Z}_q\), the exponents of a group \(G_q\) of prime order \(q\). Scalars are immutable and
+ * always reduced \(\pmod{q}\)
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public final class Scalar {
+
+    /**
+     * Value in \([0, q)\)
+     */
+    private final BigInteger value;
+
+    /**
+     * Large prime order \(q\) of the group
+     */
+    private final BigInteger order;
+
+    /**
+     * Constructor for crypto.Scalar class
+     *
+     * @param value integer value (reduced \(\pmod{q}\))
+     * @param order large prime order \(q\) of the group
+     */
+    public Scalar(BigInteger value, BigInteger order) {
+        this.value = value.mod(order);
+        this.order = order;
+    }
+
+    /**
+     * @param order large prime order \(q\) of the group
+     * @return uniformly random element of \(\mathbb{Z}_q\)
+     */
+    static Scalar random(BigInteger order) {
+        return new Scalar(RandomSource.getInstance().nextScalar(order), order);
+    }
+
+    /**
+     * @param other scalar of the same group
+     * @return \(this + other \pmod{q}\)
+     */
+    public Scalar add(Scalar other) {
+        return new Scalar(this.value.add(other.value), this.order);
+    }
+
+    /**
+     * @param other scalar of the same group
+     * @return \(this - other \pmod{q}\)
+     */
+    public Scalar subtract(Scalar other) {
+        return new Scalar(this.value.subtract(other.value), this.order);
+    }
+
+    /**
+     * @param other scalar of the same group
+     * @return \(this \cdot other \pmod{q}\)
+     */
+    public Scalar multiply(Scalar other) {
+        return new Scalar(this.value.multiply(other.value), this.order);
+    }
+
+    /**
+     * @return \(-this \pmod{q}\)
+     */
+    public Scalar negate() {
+        return new Scalar(this.value.negate(), this.order);
+    }
+
+    /**
+     * @return value in \([0, q)\)
+     */
+    public BigInteger getValue() {
+        return value;
+    }
+
+    /**
+     * @return large prime order \(q\) of the group
+     */
+    public BigInteger getOrder() {
+        return order;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Scalar))
+            return false;
+        Scalar other = (Scalar) o;
+        return this.value.equals(other.value) && this.order.equals(other.order);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.value.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return this.value.toString();
+    }
+
+}
@@ -0,0 +1,126 @@
+package crypto;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Class that absorbs the public values of a Zero Knowledge Proof, in order, and derives the challenge of the proof from
+ * them as \(H(transcript) \pmod{q}\)
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public abstract class Transcript {
+
+    /**
+     * Scheme that defines the hash algorithm of the transcript
+     */
+    final TranscriptScheme scheme;
+
+    private Transcript(TranscriptScheme scheme) {
+        this.scheme = scheme;
+    }
+
+    /**
+     * @param value public value to absorb
+     * @return this transcript
+     */
+    public abstract Transcript append(BigInteger value);
+
+    /**
+     * @param element public element of the group to absorb, as its encoding
+     * @return this transcript
+     */
+    public Transcript append(GroupElement element) {
+        return append(element.encode());
+    }
+
+    /**
+     * @param value public value to absorb (e.g. index of a node)
+     * @return this transcript
+     */
+    public abstract Transcript append(int value);
+
+    /**
+     * @param q large prime
+     * @return challenge \(H(transcript) \pmod{q}\)
+     */
+    public abstract BigInteger challenge(BigInteger q);
+
+    /**
+     * Transcript as the concatenation of the decimal representation of the values, kept for rooms that were not
+     * migrated to the binary format
+     */
+    static class Legacy extends Transcript {
+
+        private final StringBuilder values = new StringBuilder();
+
+        Legacy(TranscriptScheme scheme) {
+            super(scheme);
+        }
+
+        @Override
+        public Transcript append(BigInteger value) {
+            this.values.append(value.toString());
+            return this;
+        }
+
+        @Override
+        public Transcript append(int value) {
+            this.values.append(value);
+            return this;
+        }
+
+        @Override
+        public BigInteger challenge(BigInteger q) {
+            byte[] hash = this.scheme.digest().digest(this.values.toString().getBytes(StandardCharsets.UTF_8));
+            return new BigInteger(hash).mod(q);
+        }
+
+    }
+
+    /**
+     * Transcript as the length-prefixed big-endian encoding of the values, after a domain separation label
+     */
+    static class Binary extends Transcript {
+
+        private final ByteArrayOutputStream values = new ByteArrayOutputStream();
+
+        Binary(TranscriptScheme scheme, String domain) {
+            super(scheme);
+            appendBytes(domain.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public Transcript append(BigInteger value) {
+            appendBytes(value.toByteArray());
+            return this;
+        }
+
+        @Override
+        public Transcript append(int value) {
+            appendBytes(new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value});
+            return this;
+        }
+
+        @Override
+        public BigInteger challenge(BigInteger q) {
+            byte[] hash = this.scheme.digest().digest(this.values.toByteArray());
+            return new BigInteger(1, hash).mod(q);
+        }
+
+        /**
+         * @param bytes value to absorb, preceded by its length as a 4 bytes big-endian integer
+         */
+        private void appendBytes(byte[] bytes) {
+            int length = bytes.length;
+            this.values.write(length >>> 24);
+            this.values.write(length >>> 16);
+            this.values.write(length >>> 8);
+            this.values.write(length);
+            this.values.write(bytes, 0, length);
+        }
+
+    }
+
+}
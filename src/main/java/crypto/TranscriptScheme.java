@@ -0,0 +1,141 @@
+package crypto;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Class that defines how the challenges of the Zero Knowledge Proofs are computed (Fiat-Shamir transform): the format
+ * of the transcript of public values and the hash algorithm applied to it. All the nodes of a room must use the same
+ * scheme
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public class TranscriptScheme {
+
+    /**
+     * Format of the transcript of public values
+     */
+    public enum Format {
+        /**
+         * Concatenation of the decimal representation of the values, hashed with SHA-512
+         */
+        LEGACY,
+        /**
+         * Length-prefixed big-endian encoding of the values after a domain separation label
+         */
+        BINARY
+    }
+
+    /**
+     * Scheme used by the rooms that do not specify one
+     */
+    public static final TranscriptScheme LEGACY = new TranscriptScheme(Format.LEGACY, "SHA-512");
+
+    /**
+     * Digests of each thread, by algorithm, reused between transcripts
+     */
+    private static final ThreadLocal<Map<String, MessageDigest>> DIGESTS = new ThreadLocal<Map<String, MessageDigest>>() {
+        @Override
+        protected Map<String, MessageDigest> initialValue() {
+            return new HashMap<>();
+        }
+    };
+
+    /**
+     * Format of the transcript
+     */
+    private final Format format;
+
+    /**
+     * Name of the hash algorithm (as in java.security.MessageDigest)
+     */
+    private final String hashAlgorithm;
+
+    /**
+     * Constructor for crypto.TranscriptScheme class
+     *
+     * @param format        format of the transcript
+     * @param hashAlgorithm name of the hash algorithm, e.g. SHA-256 or SHA-512 (always SHA-512 on legacy format)
+     */
+    public TranscriptScheme(Format format, String hashAlgorithm) {
+        if (format == Format.LEGACY && !"SHA-512".equals(hashAlgorithm))
+            throw new IllegalArgumentException("Legacy transcripts are only hashed with SHA-512");
+        try {
+            MessageDigest.getInstance(hashAlgorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException("Unknown hash algorithm " + hashAlgorithm, e);
+        }
+        this.format = format;
+        this.hashAlgorithm = hashAlgorithm;
+    }
+
+    /**
+     * Scheme announced by the directory node. Missing values fall back to the legacy format and SHA-512
+     *
+     * @param format        name of the format ("legacy" or "binary"), or null
+     * @param hashAlgorithm name of the hash algorithm, or null
+     * @return scheme of the room
+     * @throws IllegalArgumentException if there is no format with that name
+     */
+    public static TranscriptScheme fromDirectory(String format, String hashAlgorithm) {
+        if (format == null || format.equalsIgnoreCase(Format.LEGACY.name()))
+            return LEGACY;
+        Format transcriptFormat;
+        try {
+            transcriptFormat = Format.valueOf(format.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown transcript format " + format + ", expected one of " +
+                    Arrays.toString(Format.values()));
+        }
+        return new TranscriptScheme(transcriptFormat, hashAlgorithm == null ? "SHA-512" : hashAlgorithm);
+    }
+
+    /**
+     * Start a new transcript
+     *
+     * @param domain label that separates the transcripts of the different proofs (ignored by the legacy format)
+     * @return empty transcript
+     */
+    public Transcript start(String domain) {
+        if (this.format == Format.LEGACY)
+            return new Transcript.Legacy(this);
+        return new Transcript.Binary(this, domain);
+    }
+
+    /**
+     * @return digest of the current thread for the hash algorithm of the scheme, ready to be used
+     */
+    MessageDigest digest() {
+        Map<String, MessageDigest> digests = DIGESTS.get();
+        MessageDigest digest = digests.get(this.hashAlgorithm);
+        if (digest == null) {
+            try {
+                digest = MessageDigest.getInstance(this.hashAlgorithm);
+            } catch (NoSuchAlgorithmException e) {
+                // Already checked when the scheme was created
+                throw new IllegalStateException(e);
+            }
+            digests.put(this.hashAlgorithm, digest);
+        }
+        digest.reset();
+        return digest;
+    }
+
+    /**
+     * @return format of the transcript
+     */
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * @return name of the hash algorithm
+     */
+    public String getHashAlgorithm() {
+        return hashAlgorithm;
+    }
+
+}
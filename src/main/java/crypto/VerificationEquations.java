@@ -0,0 +1,148 @@
+package crypto;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class that keeps the verification equations of a proof, of the form \(\prod a_i^{x_i} = \prod b_j^{y_j}\). Each
+ * side of an equation is computed with one multi-exponentiation of the group, which uses the tables of the
+ * generators, and the proof is correct if every one of its equations holds.
+ * <p>
+ * The proofs of a batch can also be checked at once by {@link #holdAll(VerificationEquations[], Group)}, which raises
+ * each equation to a random weight \(\rho\) and combines them in a single one (small exponent test). That test is only
+ * sound if all the values belong to the group \(G_q\) of prime order \(q\), which
+ * {@link Group#decode(java.math.BigInteger)} checks for every value received from another node
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+class VerificationEquations {
+
+    /**
+     * Bit length of the random weights, which bounds the probability of accepting a wrong equation by
+     * \(2^{-128}\)
+     */
+    private static final int WEIGHT_BIT_LENGTH = 128;
+
+    /**
+     * Group \(G_q\) of the values
+     */
+    private final Group group;
+
+    /**
+     * Equations of the proof, in the order they were added
+     */
+    private final List<Equation> equations;
+
+    /**
+     * @param group group \(G_q\) of the values
+     */
+    VerificationEquations(Group group) {
+        this.group = group;
+        this.equations = new ArrayList<>();
+    }
+
+    /**
+     * Add equation \(\prod a_i^{x_i} = \prod b_j^{y_j}\)
+     *
+     * @param leftBases      bases \(a_i\)
+     * @param leftExponents  exponents \(x_i\)
+     * @param rightBases     bases \(b_j\)
+     * @param rightExponents exponents \(y_j\)
+     */
+    void addEquation(GroupElement[] leftBases, BigInteger[] leftExponents, GroupElement[] rightBases, BigInteger[] rightExponents) {
+        this.equations.add(new Equation(leftBases, leftExponents, rightBases, rightExponents));
+    }
+
+    /**
+     * Check all the proofs of a batch at once, combining their equations in a single one with random weights (the
+     * first one gets weight 1). If the combined equation does not hold, each proof is checked on its own to find
+     * which ones are wrong
+     *
+     * @param proofs verification equations of each proof (null if the challenge of the proof is not correct)
+     * @param group  group \(G_q\) of the values
+     * @return array with true in position i if the proof i is correct, false otherwise
+     */
+    static boolean[] holdAll(VerificationEquations[] proofs, Group group) {
+        boolean[] results = new boolean[proofs.length];
+        Map<GroupElement, BigInteger> leftSide = new LinkedHashMap<>();
+        Map<GroupElement, BigInteger> rightSide = new LinkedHashMap<>();
+        int combined = 0;
+        for (int i = 0; i < proofs.length; i++) {
+            results[i] = proofs[i] != null;
+            if (!results[i])
+                continue;
+            for (Equation equation : proofs[i].equations) {
+                BigInteger weight = combined == 0 ? BigInteger.ONE
+                        : RandomSource.getInstance().nextBits(WEIGHT_BIT_LENGTH);
+                addTerms(leftSide, equation.leftBases, equation.leftExponents, weight);
+                addTerms(rightSide, equation.rightBases, equation.rightExponents, weight);
+                combined++;
+            }
+        }
+        if (combined == 0 || evaluate(group, leftSide).equals(evaluate(group, rightSide)))
+            return results;
+
+        // At least one proof is wrong, check them one by one
+        for (int i = 0; i < proofs.length; i++)
+            if (results[i])
+                results[i] = proofs[i].hold();
+        return results;
+    }
+
+    /**
+     * @return true if every equation of the proof holds, false otherwise
+     */
+    boolean hold() {
+        for (Equation equation : this.equations)
+            if (!this.group.multiExponentiation(equation.leftBases, equation.leftExponents)
+                    .equals(this.group.multiExponentiation(equation.rightBases, equation.rightExponents)))
+                return false;
+        return true;
+    }
+
+    private static void addTerms(Map<GroupElement, BigInteger> side, GroupElement[] bases, BigInteger[] exponents, BigInteger weight) {
+        for (int i = 0; i < bases.length; i++) {
+            BigInteger exponent = exponents[i].multiply(weight);
+            BigInteger accumulated = side.get(bases[i]);
+            side.put(bases[i], accumulated == null ? exponent : accumulated.add(exponent));
+        }
+    }
+
+    /**
+     * @param group group \(G_q\) of the values
+     * @param side  bases and exponents of one side of the equation
+     * @return product of the powers of the side
+     */
+    private static GroupElement evaluate(Group group, Map<GroupElement, BigInteger> side) {
+        GroupElement[] bases = new GroupElement[side.size()];
+        BigInteger[] exponents = new BigInteger[side.size()];
+        int k = 0;
+        for (Map.Entry<GroupElement, BigInteger> term : side.entrySet()) {
+            bases[k] = term.getKey();
+            exponents[k] = term.getValue();
+            k++;
+        }
+        return group.multiExponentiation(bases, exponents);
+    }
+
+    /**
+     * Equation \(\prod a_i^{x_i} = \prod b_j^{y_j}\)
+     */
+    private static final class Equation {
+
+        private final GroupElement[] leftBases, rightBases;
+        private final BigInteger[] leftExponents, rightExponents;
+
+        Equation(GroupElement[] leftBases, BigInteger[] leftExponents, GroupElement[] rightBases, BigInteger[] rightExponents) {
+            this.leftBases = leftBases;
+            this.leftExponents = leftExponents;
+            this.rightBases = rightBases;
+            this.rightExponents = rightExponents;
+        }
+
+    }
+
+}
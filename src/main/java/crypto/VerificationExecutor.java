@@ -0,0 +1,123 @@
+package crypto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class that manages a fixed pool of worker threads where the verification of the proofs received in a phase is
+ * split. With only one thread there is no pool, and the tasks run on the calling thread
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public class VerificationExecutor {
+
+    /**
+     * Number of worker threads
+     */
+    private final int threads;
+
+    /**
+     * Pool of worker threads (null if threads is 1)
+     */
+    private final ExecutorService executorService;
+
+    /**
+     * Constructor for crypto.VerificationExecutor class
+     *
+     * @param threads number of worker threads (values lower than 1 are treated as 1)
+     */
+    public VerificationExecutor(int threads) {
+        this.threads = Math.max(1, threads);
+        if (this.threads == 1)
+            this.executorService = null;
+        else
+            this.executorService = Executors.newFixedThreadPool(this.threads, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "verifier-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+    }
+
+    /**
+     * @return executor with one thread per available processor
+     */
+    public static VerificationExecutor withAvailableProcessors() {
+        return new VerificationExecutor(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Run all the tasks and wait for them to finish
+     *
+     * @param tasks tasks to run
+     * @param <T>   type of the results of the tasks
+     * @return results of the tasks, in the same order
+     * @throws ExecutionException if any of the tasks threw an exception
+     */
+    <T> List<T> invokeAll(List<Callable<T>> tasks) throws ExecutionException {
+        List<T> results = new ArrayList<>(tasks.size());
+        if (this.executorService == null || tasks.size() == 1) {
+            for (Callable<T> task : tasks) {
+                try {
+                    results.add(task.call());
+                } catch (Exception e) {
+                    throw new ExecutionException(e);
+                }
+            }
+            return results;
+        }
+        try {
+            for (Future<T> future : this.executorService.invokeAll(tasks))
+                results.add(future.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExecutionException(e);
+        }
+        return results;
+    }
+
+    /**
+     * Start a task on a worker thread as soon as one is free, without waiting for it. With no pool the task runs on
+     * the calling thread before returning
+     *
+     * @param task task to run
+     * @param <T>  type of the result of the task
+     * @return pending result of the task
+     */
+    <T> Future<T> submit(Callable<T> task) {
+        if (this.executorService == null) {
+            FutureTask<T> futureTask = new FutureTask<>(task);
+            futureTask.run();
+            return futureTask;
+        }
+        return this.executorService.submit(task);
+    }
+
+    /**
+     * @return number of worker threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Stop the worker threads
+     */
+    public void shutdown() {
+        if (this.executorService != null)
+            this.executorService.shutdownNow();
+    }
+
+}
@@ -4,8 +4,13 @@ import json.*;
 
 import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 /**
  * Class that manages Zero Knowledge Proofs operations, using regular and Pedersen commitments
@@ -14,392 +19,533 @@ import java.security.NoSuchAlgorithmException;
  */
 public class ZeroKnowledgeProof {
 
+    /**
+     * Prefix of the domain separation labels of the transcripts of the proofs
+     */
+    private static final String DOMAIN = "dcnet/";
+
     /**
      * Index of current node
      */
     private final int nodeIndex;
 
+    /**
+     * Group \(G_q\) of the commitments of the room
+     */
+    private final Group group;
+
+    /**
+     * Worker threads where the proofs received are verified
+     */
+    private final VerificationExecutor verificationExecutor;
+
+    /**
+     * Scheme used to compute the challenges of the proofs
+     */
+    private final TranscriptScheme transcriptScheme;
+
+    /**
+     * Pool of precomputed nonces of the proofs (null if there is no pool)
+     */
+    private final ProofNoncePool noncePool;
+
+    /**
+     * True if the nonces of the proofs of knowledge are derived from their secrets and public values instead of drawn
+     */
+    private boolean deterministicNonces;
+
     /**
      * Constructor with parameter for crypto.ZeroKnowledgeProof class
      *
      * @param nodeIndex index of current participant node
+     * @param group     group \(G_q\) of the commitments of the room
      */
-    public ZeroKnowledgeProof(int nodeIndex) {
+    public ZeroKnowledgeProof(int nodeIndex, Group group) {
+        this(nodeIndex, group, new VerificationExecutor(1));
+    }
+
+    /**
+     * Constructor with parameters for crypto.ZeroKnowledgeProof class
+     *
+     * @param nodeIndex            index of current participant node
+     * @param group                group \(G_q\) of the commitments of the room
+     * @param verificationExecutor worker threads where the verification of a batch of proofs is split
+     */
+    public ZeroKnowledgeProof(int nodeIndex, Group group, VerificationExecutor verificationExecutor) {
+        this(nodeIndex, group, TranscriptScheme.LEGACY, verificationExecutor);
+    }
+
+    /**
+     * Constructor with parameters for crypto.ZeroKnowledgeProof class
+     *
+     * @param nodeIndex            index of current participant node
+     * @param group                group \(G_q\) of the commitments of the room
+     * @param transcriptScheme     scheme used to compute the challenges of the proofs (the same in the whole room)
+     * @param verificationExecutor worker threads where the verification of a batch of proofs is split
+     */
+    public ZeroKnowledgeProof(int nodeIndex, Group group, TranscriptScheme transcriptScheme, VerificationExecutor verificationExecutor) {
+        this(nodeIndex, group, transcriptScheme, verificationExecutor, null);
+    }
+
+    /**
+     * Constructor with parameters for crypto.ZeroKnowledgeProof class
+     *
+     * @param nodeIndex            index of current participant node
+     * @param group                group \(G_q\) of the commitments of the room
+     * @param transcriptScheme     scheme used to compute the challenges of the proofs (the same in the whole room)
+     * @param verificationExecutor worker threads where the verification of a batch of proofs is split
+     * @param noncePool            pool of precomputed nonces of the proofs (can be null)
+     */
+    public ZeroKnowledgeProof(int nodeIndex, Group group, TranscriptScheme transcriptScheme, VerificationExecutor verificationExecutor, ProofNoncePool noncePool) {
         this.nodeIndex = nodeIndex;
+        this.group = group;
+        this.transcriptScheme = transcriptScheme;
+        this.noncePool = noncePool;
+        this.verificationExecutor = verificationExecutor;
+    }
+
+    /**
+     * Derive the nonces of the proofs of knowledge from their secrets and public values (as RFC 6979 does for DSA),
+     * instead of drawing them from the nonce pool or the random source. A proof of the same statement always gets the
+     * same nonces, so a weak or repeated generator can not leak the secrets. OR proofs always draw their nonces, since
+     * their simulated part has no secret to derive them from
+     *
+     * @param deterministicNonces true to derive the nonces, false to draw them
+     */
+    public void setDeterministicNonces(boolean deterministicNonces) {
+        this.deterministicNonces = deterministicNonces;
+    }
+
+    /**
+     * @param g generator of group \(G_q\)
+     * @return pair \((r, g^r)\) with \(r\) random in \(\mathbb{Z}_q\), taken from the nonce pool if \(g\) is one
+     * of its bases
+     */
+    private ProofNoncePool.Nonce nonce(GroupElement g) {
+        if (this.noncePool != null) {
+            ProofNoncePool.Nonce nonce = this.noncePool.takeNonce(g);
+            if (nonce != null)
+                return nonce;
+        }
+        Commitment commitment = new Commitment(g, this.group);
+        BigInteger r = commitment.generateRandom();
+        return new ProofNoncePool.Nonce(new BigInteger[]{r}, commitment.calculateCommitment(r));
+    }
+
+    /**
+     * @param nonce nonce \((r, g^r)\)
+     * @param h     commitment of the simulated part of an OR proof
+     * @param c     challenge of the simulated part
+     * @return \(g^r h^{-c}\)
+     */
+    private GroupElement simulate(ProofNoncePool.Nonce nonce, GroupElement h, Scalar c) {
+        return nonce.commitment.multiply(h.power(c.getValue().negate()));
+    }
+
+    /**
+     * @param transcript transcript with all the public values of a proof
+     * @return challenge of the proof as an element of \(\mathbb{Z}_q\)
+     */
+    private Scalar challenge(Transcript transcript) {
+        return this.group.scalar(transcript.challenge(this.group.getOrder()));
     }
 
     /**
-     * Generate Proof of Knowledge that participant knows \((x, r)\) in \(c = g^x h^r \pmod{p}\)
+     * Generate Proof of Knowledge that participant knows \((x, r)\) in \(c = g^x h^r\)
      *
-     * @param c commitment s.t. \(c = g^x h^r \pmod{p}\)
+     * @param c commitment s.t. \(c = g^x h^r\)
      * @param g generator of group \(G_q\)
      * @param x value in \(\mathbb{Z}_q\)
      * @param h generator of group \(G_q\)
      * @param r value in \(\mathbb{Z}_q\)
-     * @param q large prime
-     * @param p large prime s.t. \(p = kq + 1\)
-     * @return ProofOfKnowledge s.t. node knows \((x,r)\) in \(c = g^x h^r \pmod{p}\)
+     * @return ProofOfKnowledge s.t. node knows \((x,r)\) in \(c = g^x h^r\)
      * @throws NoSuchAlgorithmException     test
      * @throws UnsupportedEncodingException test
      */
-    public ProofOfKnowledgePedersen generateProofOfKnowledgePedersen(BigInteger c, BigInteger g, BigInteger x, BigInteger h, BigInteger r, BigInteger q, BigInteger p) throws NoSuchAlgorithmException, UnsupportedEncodingException {
-        PedersenCommitment pedersenCommitment = new PedersenCommitment(g, h, q, p);
+    public ProofOfKnowledgePedersen generateProofOfKnowledgePedersen(GroupElement c, GroupElement g, BigInteger x, GroupElement h, BigInteger r) throws NoSuchAlgorithmException, UnsupportedEncodingException {
+        ProofNoncePool.Nonce nonce = null;
+        if (this.deterministicNonces) {
+            BigInteger[] secrets = {x, r};
+            BigInteger[] publicValues = {g.encode(), h.encode(), c.encode(), BigInteger.valueOf(this.nodeIndex)};
+            BigInteger y = RandomSource.deriveScalar(this.group.getOrder(), secrets, DOMAIN + "pok-pedersen/y",
+                    publicValues);
+            BigInteger s = RandomSource.deriveScalar(this.group.getOrder(), secrets, DOMAIN + "pok-pedersen/s",
+                    publicValues);
+            nonce = new ProofNoncePool.Nonce(new BigInteger[]{y, s}, g.power(y).multiply(h.power(s)));
+        } else if (this.noncePool != null) {
+            nonce = this.noncePool.takePedersenNonce(g, h);
+        }
+        if (nonce == null) {
+            PedersenCommitment pedersenCommitment = new PedersenCommitment(g, h, this.group);
+            BigInteger y = pedersenCommitment.generateRandom();
+            BigInteger s = pedersenCommitment.generateRandom();
+            nonce = new ProofNoncePool.Nonce(new BigInteger[]{y, s}, pedersenCommitment.calculateCommitment(y, s));
+        }
 
-        BigInteger y = pedersenCommitment.generateRandom(); // y random value in Z_q
-        BigInteger s = pedersenCommitment.generateRandom(); // s random value in Z_q
+        Scalar y = this.group.scalar(nonce.randoms[0]); // y random value in Z_q
+        Scalar s = this.group.scalar(nonce.randoms[1]); // s random value in Z_q
 
-        BigInteger d = pedersenCommitment.calculateCommitment(y, s); // d = g^y h^s (mod p)
+        GroupElement d = nonce.commitment; // d = g^y h^s
 
-        MessageDigest md = MessageDigest.getInstance("SHA-512");
-        String publicValueOnHash = d.toString().concat(
-                g.toString()).concat(
-                h.toString()).concat(
-                c.toString()).concat(
-                "" + this.nodeIndex);
-        md.update(publicValueOnHash.getBytes("UTF-8"));
-        byte[] hashOnPublicValues = md.digest();
-        BigInteger e = new BigInteger(hashOnPublicValues).mod(q); // e = H( d || g || h || c || nodeIndex ) (mod q)
+        Scalar e = challenge(this.transcriptScheme.start(DOMAIN + "pok-pedersen")
+                .append(d)
+                .append(g)
+                .append(h)
+                .append(c)
+                .append(this.nodeIndex)); // e = H( d || g || h || c || nodeIndex ) (mod q)
 
-        BigInteger u = e.multiply(x).add(y); // u = e*x + y
-        BigInteger v = e.multiply(r).add(s); // v = e*r + s
+        Scalar u = e.multiply(this.group.scalar(x)).add(y); // u = e*x + y
+        Scalar v = e.multiply(this.group.scalar(r)).add(s); // v = e*r + s
 
-        return new ProofOfKnowledgePedersen(d, u, v, nodeIndex);
+        return new ProofOfKnowledgePedersen(d.encode(), u.getValue(), v.getValue(), nodeIndex);
 
     }
 
     /**
-     * Verifies if the Proof of Knowledge provide is valid or not for knowing \((x, r)\) in \(c = g^x h^r \pmod{p}\)
+     * Verifies if the Proof of Knowledge provide is valid or not for knowing \((x, r)\) in \(c = g^x h^r\)
      *
-     * @param proof ProofOfKnowledge that node knows \((x,r)\) in \(c = g^x h^r \pmod{p}\)
-     * @param c     commitment s.t. \(c = g^x h^r \pmod{p}\)
+     * @param proof ProofOfKnowledge that node knows \((x,r)\) in \(c = g^x h^r\)
+     * @param c     commitment s.t. \(c = g^x h^r\)
      * @param g     generator of group \(G_q\)
      * @param h     generator of group \(G_q\)
-     * @param q     large prime
-     * @param p     large prime s.t. \(p = kq + 1\)
      * @return true if proof is correct, false otherwise
      * @throws NoSuchAlgorithmException     test
      * @throws UnsupportedEncodingException test
      */
-    public boolean verifyProofOfKnowledgePedersen(ProofOfKnowledgePedersen proof, BigInteger c, BigInteger g, BigInteger h, BigInteger q, BigInteger p) throws NoSuchAlgorithmException, UnsupportedEncodingException {
-        PedersenCommitment pedersenCommitment = new PedersenCommitment(g, h, q, p);
-
-        BigInteger _a = pedersenCommitment.calculateCommitment(proof.getU(), proof.getV()); // _a = g^u h^v (mod p)
+    public boolean verifyProofOfKnowledgePedersen(ProofOfKnowledgePedersen proof, GroupElement c, GroupElement g, GroupElement h) throws NoSuchAlgorithmException, UnsupportedEncodingException {
+        VerificationEquations equations = equationsOfProofOfKnowledgePedersen(proof, c, g, h);
+        return equations != null && equations.hold();
+    }
 
-        MessageDigest md = MessageDigest.getInstance("SHA-512");
-        String publicValueOnHash = proof.getD().toString().concat(
-                g.toString()).concat(
-                h.toString()).concat(
-                c.toString()).concat(
-                "" + proof.getNodeIndex());
-        md.update(publicValueOnHash.getBytes("UTF-8"));
-        BigInteger e = new BigInteger(md.digest()).mod(q);  // e = H( d || g || h || c || nodeIndex ) (mod q)
+    /**
+     * @return verification equations of the proof, or null if its challenge is not correct or its values are not
+     * elements of the group
+     */
+    private VerificationEquations equationsOfProofOfKnowledgePedersen(ProofOfKnowledgePedersen proof, GroupElement c, GroupElement g, GroupElement h) throws NoSuchAlgorithmException, UnsupportedEncodingException {
+        GroupElement d;
+        try {
+            d = this.group.decode(proof.getD());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
 
-        BigInteger _b = proof.getD().mod(p).multiply(c.modPow(e, p)).mod(p); // _b = (d (mod p) * (c^e (mod p)) (mod p) = d * c^e (mod p)
-        return _a.equals(_b);
+        BigInteger e = challenge(this.transcriptScheme.start(DOMAIN + "pok-pedersen")
+                .append(d)
+                .append(g)
+                .append(h)
+                .append(c)
+                .append(proof.getNodeIndex())).getValue(); // e = H( d || g || h || c || nodeIndex ) (mod q)
+
+        // g^u h^v = d * c^e
+        VerificationEquations equations = new VerificationEquations(this.group);
+        equations.addEquation(new GroupElement[]{g, h}, new BigInteger[]{proof.getU(), proof.getV()},
+                new GroupElement[]{d, c}, new BigInteger[]{BigInteger.ONE, e});
+        return equations;
     }
 
     /**
-     * Generate Proof of Knowledge that participant knows \(x\) in \(c = g^x \pmod{p}\)
+     * Generate Proof of Knowledge that participant knows \(x\) in \(c = g^x\)
      *
-     * @param c commitment s.t. \(c = g^x \pmod{p}\)
+     * @param c commitment s.t. \(c = g^x\)
      * @param g generator of group \(G_q\)
      * @param x value in \(\mathbb{Z}_q\)
-     * @param q large prime
-     * @param p large prime s.t. \(p = kq + 1\)
-     * @return ProofOfKnowledge that node knows \(x\) in \(c = g^x \pmod{p}\)
+     * @return ProofOfKnowledge that node knows \(x\) in \(c = g^x\)
      * @throws NoSuchAlgorithmException     test
      * @throws UnsupportedEncodingException test
      */
-    public ProofOfKnowledge generateProofOfKnowledge(BigInteger c, BigInteger g, BigInteger x, BigInteger q, BigInteger p) throws NoSuchAlgorithmException, UnsupportedEncodingException {
-        Commitment commitment = new Commitment(g, q, p);
-
-        BigInteger r = commitment.generateRandom(); // r random value in Z_q
-        BigInteger z = commitment.calculateCommitment(r); // z = g^r (mod p)
+    public ProofOfKnowledge generateProofOfKnowledge(GroupElement c, GroupElement g, BigInteger x) throws NoSuchAlgorithmException, UnsupportedEncodingException {
+        ProofNoncePool.Nonce nonce;
+        if (this.deterministicNonces) {
+            BigInteger derived = RandomSource.deriveScalar(this.group.getOrder(), new BigInteger[]{x}, DOMAIN + "pok/r",
+                    g.encode(), c.encode(), BigInteger.valueOf(this.nodeIndex));
+            nonce = new ProofNoncePool.Nonce(new BigInteger[]{derived}, g.power(derived));
+        } else {
+            nonce = nonce(g);
+        }
+        Scalar r = this.group.scalar(nonce.randoms[0]); // r random value in Z_q
+        GroupElement z = nonce.commitment; // z = g^r
 
-        MessageDigest md = MessageDigest.getInstance("SHA-512");
-        String publicValueOnHash = z.toString().concat(
-                g.toString()).concat(
-                c.toString()).concat(
-                "" + this.nodeIndex);
-        md.update(publicValueOnHash.getBytes("UTF-8"));
-        byte[] hashOnPublicValues = md.digest();
-        BigInteger b = new BigInteger(hashOnPublicValues).mod(q); // b = H( z || g || c || nodeIndex ) (mod q)
+        Scalar b = challenge(this.transcriptScheme.start(DOMAIN + "pok")
+                .append(z)
+                .append(g)
+                .append(c)
+                .append(this.nodeIndex)); // b = H( z || g || c || nodeIndex ) (mod q)
 
-        BigInteger a = r.add(b.multiply(x)); // a = r + b*x
+        Scalar a = r.add(b.multiply(this.group.scalar(x))); // a = r + b*x
 
-        return new ProofOfKnowledge(g, z, a, nodeIndex);
+        return new ProofOfKnowledge(g.encode(), z.encode(), a.getValue(), nodeIndex);
 
     }
 
     /**
-     * Verifies if the Proof of Knowledge provide is correct or not for knowing \(x\) in \(c = g^x \pmod{p}\)
+     * Verifies if the Proof of Knowledge provide is correct or not for knowing \(x\) in \(c = g^x\)
      *
-     * @param proof ProofOfKnowledge that node knows \(x\) in \(c = g^x \pmod{p}\)
-     * @param c     commitment s.t. \(c = g^x \pmod{p}\)
+     * @param proof ProofOfKnowledge that node knows \(x\) in \(c = g^x\)
+     * @param c     commitment s.t. \(c = g^x\)
      * @param g     generator of group \(G_q\)
-     * @param q     large prime
-     * @param p     large prime s.t \(p = kq + 1\)
      * @return true if proof is correct, false otherwise
      * @throws NoSuchAlgorithmException     test
      * @throws UnsupportedEncodingException test
      */
-    public boolean verifyProofOfKnowledge(ProofOfKnowledge proof, BigInteger c, BigInteger g, BigInteger q, BigInteger p) throws NoSuchAlgorithmException, UnsupportedEncodingException {
-        Commitment commitment = new Commitment(g, q, p);
-        BigInteger _a = commitment.calculateCommitment(proof.getA()); // _a = g^a (mod p)
-
-        MessageDigest md = MessageDigest.getInstance("SHA-512");
-        String publicValueOnHash = proof.getZ().toString().concat(
-                g.toString()).concat(
-                c.toString()).concat(
-                "" + proof.getNodeIndex());
-        md.update(publicValueOnHash.getBytes("UTF-8"));
-        byte[] hashOnPublicValues = md.digest();
-        BigInteger b = new BigInteger(hashOnPublicValues).mod(q); // b = H( z || g || c || nodeIndex ) (mod q)
-
-        BigInteger _b = proof.getZ().mod(p).multiply(c.modPow(b, p)).mod(p); // _b = (z (mod p) * (c^b (mod p)) (mod p) = z * c^b (mod p)
-        return _a.equals(_b);
+    public boolean verifyProofOfKnowledge(ProofOfKnowledge proof, GroupElement c, GroupElement g) throws NoSuchAlgorithmException, UnsupportedEncodingException {
+        VerificationEquations equations = equationsOfProofOfKnowledge(proof, c, g);
+        return equations != null && equations.hold();
     }
 
     /**
-     * Generates Proof of Knowledge that participants knows \(x_1\) in \(c_1 = g^{x_1} \pmod{p} \lor (c_2 = g^{x_2} \pmod{p} \land c_3 = g^{x_3} \pmod{p})\)
+     * @return verification equations of the proof, or null if its challenge is not correct or its values are not
+     * elements of the group
+     */
+    private VerificationEquations equationsOfProofOfKnowledge(ProofOfKnowledge proof, GroupElement c, GroupElement g) throws NoSuchAlgorithmException, UnsupportedEncodingException {
+        GroupElement z;
+        try {
+            z = this.group.decode(proof.getZ());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        BigInteger b = challenge(this.transcriptScheme.start(DOMAIN + "pok")
+                .append(z)
+                .append(g)
+                .append(c)
+                .append(proof.getNodeIndex())).getValue(); // b = H( z || g || c || nodeIndex ) (mod q)
+
+        // g^a = z * c^b
+        VerificationEquations equations = new VerificationEquations(this.group);
+        equations.addEquation(new GroupElement[]{g}, new BigInteger[]{proof.getA()},
+                new GroupElement[]{z, c}, new BigInteger[]{BigInteger.ONE, b});
+        return equations;
+    }
+
+    /**
+     * Generates Proof of Knowledge that participants knows \(x_1\) in \(c_1 = g^{x_1} \lor (c_2 = g^{x_2} \land c_3 = g^{x_3})\)
      *
-     * @param h1 commitment s.t. \(h_1 = g^{x_1} \pmod{p}\)
+     * @param h1 commitment s.t. \(h_1 = g^{x_1}\)
      * @param g  generator of group \(G_q\)
      * @param x1 value in \(\mathbb{Z}_q\)
-     * @param h2 commitment s.t. \(h_2 = g^{x_2} \pmod{p}\)
-     * @param h3 commitment s.t. \(h_3 = g^{x_3} \pmod{p}\)
-     * @param q  large prime
-     * @param p  large prime s.t. \(p = kq + 1\)
-     * @return ProofOfKnowledgeMessageFormat that node knows \(x_1\) in \(c_1 = g^{x_1} \pmod{p} \lor (c_2 = g^{x_2} \pmod{p} \land c_3 = g^{x_3} \pmod{p})\)
+     * @param h2 commitment s.t. \(h_2 = g^{x_2}\)
+     * @param h3 commitment s.t. \(h_3 = g^{x_3}\)
+     * @return ProofOfKnowledgeMessageFormat that node knows \(x_1\) in \(c_1 = g^{x_1} \lor (c_2 = g^{x_2} \land c_3 = g^{x_3})\)
      * @throws UnsupportedEncodingException test
      * @throws NoSuchAlgorithmException     test
      */
-    public ProofOfKnowledgeMessageFormat generateProofOfKnowledgeMessageFormatX1(BigInteger h1, BigInteger g, BigInteger x1, BigInteger h2, BigInteger h3, BigInteger q, BigInteger p) throws NoSuchAlgorithmException, UnsupportedEncodingException {
-        Commitment commitment = new Commitment(g, q, p);
-        PedersenCommitment pedersenCommitment2 = new PedersenCommitment(g, h2, q, p);
-        PedersenCommitment pedersenCommitment3 = new PedersenCommitment(g, h3, q, p);
-
-        BigInteger c2 = commitment.generateRandom(); // c2 random value in Z_q
-        BigInteger r1 = commitment.generateRandom(); // r1 random value in Z_q
-        BigInteger r2 = commitment.generateRandom(); // r2 random value in Z_q
-        BigInteger r3 = commitment.generateRandom(); // r3 random value in Z_q
-
-        BigInteger z1 = commitment.calculateCommitment(r1); // z1 = g^r1 (mod p)
-        BigInteger z2 = pedersenCommitment2.calculateCommitment(r2, c2.negate()); // z2 = g^r2 h2^{-c2}
-        BigInteger z3 = pedersenCommitment3.calculateCommitment(r3, c2.negate()); // z3 = g^r3 h3^{-c2}
-
-        MessageDigest md = MessageDigest.getInstance("SHA-512");
-        String publicValueOnHash = z1.toString().concat(
-                z2.toString()).concat(
-                z3.toString()).concat(
-                g.toString()).concat(
-                h1.toString()).concat(
-                h2.toString()).concat(
-                h3.toString()).concat(
-                "" + this.nodeIndex);
-        md.update(publicValueOnHash.getBytes("UTF-8"));
-        byte[] hashOnPublicValues = md.digest();
-        BigInteger b = new BigInteger(hashOnPublicValues).mod(q); // b = H( z1 || z2 || z3 || g || h1 || h2 || h3 || nodeIndex )
-
-        BigInteger c1 = b.subtract(c2).mod(q); // c1 = b - c2 (mod q)
-
-        BigInteger a1 = r1.add(c1.multiply(x1)); // a1 = r1 + c1*x1
-
-        return new ProofOfKnowledgeMessageFormat(c1, c2, z1, z2, z3, a1, r2, r3, nodeIndex);
+    public ProofOfKnowledgeMessageFormat generateProofOfKnowledgeMessageFormatX1(GroupElement h1, GroupElement g, BigInteger x1, GroupElement h2, GroupElement h3) throws NoSuchAlgorithmException, UnsupportedEncodingException {
+        Scalar c2 = this.group.randomScalar(); // c2 random value in Z_q
+        ProofNoncePool.Nonce nonce1 = nonce(g);
+        ProofNoncePool.Nonce nonce2 = nonce(g);
+        ProofNoncePool.Nonce nonce3 = nonce(g);
+        Scalar r1 = this.group.scalar(nonce1.randoms[0]); // r1 random value in Z_q
+        BigInteger r2 = nonce2.randoms[0]; // r2 random value in Z_q
+        BigInteger r3 = nonce3.randoms[0]; // r3 random value in Z_q
+
+        GroupElement z1 = nonce1.commitment; // z1 = g^r1
+        GroupElement z2 = simulate(nonce2, h2, c2); // z2 = g^r2 h2^{-c2}
+        GroupElement z3 = simulate(nonce3, h3, c2); // z3 = g^r3 h3^{-c2}
+
+        Scalar b = challenge(this.transcriptScheme.start(DOMAIN + "pok-message-format")
+                .append(z1)
+                .append(z2)
+                .append(z3)
+                .append(g)
+                .append(h1)
+                .append(h2)
+                .append(h3)
+                .append(this.nodeIndex)); // b = H( z1 || z2 || z3 || g || h1 || h2 || h3 || nodeIndex )
+
+        Scalar c1 = b.subtract(c2); // c1 = b - c2 (mod q)
+
+        Scalar a1 = r1.add(c1.multiply(this.group.scalar(x1))); // a1 = r1 + c1*x1
+
+        return new ProofOfKnowledgeMessageFormat(c1.getValue(), c2.getValue(), z1.encode(), z2.encode(), z3.encode(),
+                a1.getValue(), r2, r3, nodeIndex);
 
     }
 
     /**
-     * Generates Proof of Knowledge that participants knows \((x_2, x_3)\) in \(h_1 = g^{x_1} \pmod{p} \lor (h_2 = g^{x_2} \pmod{p} \land h_3 = g^{x_3} \pmod{p})\)
+     * Generates Proof of Knowledge that participants knows \((x_2, x_3)\) in \(h_1 = g^{x_1} \lor (h_2 = g^{x_2} \land h_3 = g^{x_3})\)
      *
-     * @param h1 commitment s.t. \(h_1 = g^{x_1} \pmod{p}\)
+     * @param h1 commitment s.t. \(h_1 = g^{x_1}\)
      * @param g  generator of group \(G_q\)
-     * @param h2 commitment s.t. \(h_2 = g^{x_2} \pmod{p}\)
+     * @param h2 commitment s.t. \(h_2 = g^{x_2}\)
      * @param x2 value in \(\mathbb{Z}_q\)
-     * @param h3 commitment s.t. \(h_3 = g^{x_3} \pmod{p}\)
+     * @param h3 commitment s.t. \(h_3 = g^{x_3}\)
      * @param x3 value in \(\mathbb{Z}_q\)
-     * @param q  large prime
-     * @param p  large prime s.t. \(p = kq + 1\)
-     * @return ProofOfKnowledgeMessageFormat that node knows \((x_2, x_3)\) in \(h_1 = g^{x_1} \pmod{p} \lor (h_2 = g^{x_2} \pmod{p} \land h_3 = g^{x_3} \pmod{p})\)
+     * @return ProofOfKnowledgeMessageFormat that node knows \((x_2, x_3)\) in \(h_1 = g^{x_1} \lor (h_2 = g^{x_2} \land h_3 = g^{x_3})\)
      * @throws UnsupportedEncodingException test
      * @throws NoSuchAlgorithmException     test
      */
-    public ProofOfKnowledgeMessageFormat generateProofOfKnowledgeMessageFormatX2X3(BigInteger h1, BigInteger g, BigInteger h2, BigInteger x2, BigInteger h3, BigInteger x3, BigInteger q, BigInteger p) throws NoSuchAlgorithmException, UnsupportedEncodingException {
-        Commitment commitment = new Commitment(g, q, p);
-        PedersenCommitment pedersenCommitment1 = new PedersenCommitment(g, h1, q, p);
-
-        BigInteger c1 = commitment.generateRandom(); // c1 random value in Z_q
-        BigInteger r1 = commitment.generateRandom(); // r1 random value in Z_q
-        BigInteger r2 = commitment.generateRandom(); // r2 random value in Z_q
-        BigInteger r3 = commitment.generateRandom(); // r3 random value in Z_q
-
-        BigInteger z1 = pedersenCommitment1.calculateCommitment(r1, c1.negate()); // z1 = g^r1 h1^{-c1} (mod p)
-        BigInteger z2 = commitment.calculateCommitment(r2); // z2 = g^r2 (mod p)
-        BigInteger z3 = commitment.calculateCommitment(r3); // z3 = g^r3 (mod p)
-
-        MessageDigest md = MessageDigest.getInstance("SHA-512");
-        String publicValueOnHash = z1.toString().concat(
-                z2.toString()).concat(
-                z3.toString()).concat(
-                g.toString()).concat(
-                h1.toString()).concat(
-                h2.toString()).concat(
-                h3.toString()).concat(
-                "" + this.nodeIndex);
-        md.update(publicValueOnHash.getBytes("UTF-8"));
-        byte[] hashOnPublicValues = md.digest();
-        BigInteger b = new BigInteger(hashOnPublicValues).mod(q); // b = H( z1 || z2 || z3 || g || h1 || h2 || h3 || nodeIndex )
-
-        BigInteger c2 = b.subtract(c1).mod(q); // c2 = b - c1 (mod q)
-
-        BigInteger a2 = r2.add(c2.multiply(x2)); // a2 = r2 + c2*x2
-        BigInteger a3 = r3.add(c2.multiply(x3)); // a3 = r3 + c2*x3
-
-        return new ProofOfKnowledgeMessageFormat(c1, c2, z1, z2, z3, r1, a2, a3, nodeIndex);
+    public ProofOfKnowledgeMessageFormat generateProofOfKnowledgeMessageFormatX2X3(GroupElement h1, GroupElement g, GroupElement h2, BigInteger x2, GroupElement h3, BigInteger x3) throws NoSuchAlgorithmException, UnsupportedEncodingException {
+        Scalar c1 = this.group.randomScalar(); // c1 random value in Z_q
+        ProofNoncePool.Nonce nonce1 = nonce(g);
+        ProofNoncePool.Nonce nonce2 = nonce(g);
+        ProofNoncePool.Nonce nonce3 = nonce(g);
+        BigInteger r1 = nonce1.randoms[0]; // r1 random value in Z_q
+        Scalar r2 = this.group.scalar(nonce2.randoms[0]); // r2 random value in Z_q
+        Scalar r3 = this.group.scalar(nonce3.randoms[0]); // r3 random value in Z_q
+
+        GroupElement z1 = simulate(nonce1, h1, c1); // z1 = g^r1 h1^{-c1}
+        GroupElement z2 = nonce2.commitment; // z2 = g^r2
+        GroupElement z3 = nonce3.commitment; // z3 = g^r3
+
+        Scalar b = challenge(this.transcriptScheme.start(DOMAIN + "pok-message-format")
+                .append(z1)
+                .append(z2)
+                .append(z3)
+                .append(g)
+                .append(h1)
+                .append(h2)
+                .append(h3)
+                .append(this.nodeIndex)); // b = H( z1 || z2 || z3 || g || h1 || h2 || h3 || nodeIndex )
+
+        Scalar c2 = b.subtract(c1); // c2 = b - c1 (mod q)
+
+        Scalar a2 = r2.add(c2.multiply(this.group.scalar(x2))); // a2 = r2 + c2*x2
+        Scalar a3 = r3.add(c2.multiply(this.group.scalar(x3))); // a3 = r3 + c2*x3
+
+        return new ProofOfKnowledgeMessageFormat(c1.getValue(), c2.getValue(), z1.encode(), z2.encode(), z3.encode(),
+                r1, a2.getValue(), a3.getValue(), nodeIndex);
 
     }
 
 
     /**
-     * Verifies if the Proof of Knowledge provide is correct or not for knowing either \(x_1\) or \(x_2\) in \(h_1 = g^{x_1} \pmod{p} \lor (h_2 = g^{x_2} \pmod{p} \land h_3 = g^{x_3} \pmod{p})\)
+     * Verifies if the Proof of Knowledge provide is correct or not for knowing either \(x_1\) or \(x_2\) in \(h_1 = g^{x_1} \lor (h_2 = g^{x_2} \land h_3 = g^{x_3})\)
      *
-     * @param proofOfKnowledgeMessageFormat ProofOfKnowledgeMessageFormat that node knows either \(x_1\) or \(x_2\) in \(h_1 = g^{x_1} \pmod{p} \lor (h_2 = g^{x_2} \pmod{p} \land h_3 = g^{x_3} \pmod{p})\)
-     * @param h1                            commitment s.t. \(h_1 = g^{x_1} \pmod{p}\)
-     * @param h2                            commitment s.t. \(h_2 = g^{x_2} \pmod{p}\)
-     * @param h3                            commitment s.t. \(h_3 = g^{x_3} \pmod{p}\)
+     * @param proofOfKnowledgeMessageFormat ProofOfKnowledgeMessageFormat that node knows either \(x_1\) or \(x_2\) in \(h_1 = g^{x_1} \lor (h_2 = g^{x_2} \land h_3 = g^{x_3})\)
+     * @param h1                            commitment s.t. \(h_1 = g^{x_1}\)
+     * @param h2                            commitment s.t. \(h_2 = g^{x_2}\)
+     * @param h3                            commitment s.t. \(h_3 = g^{x_3}\)
      * @param g                             generator of group \(G_q\)
-     * @param q                             large prime
-     * @param p                             large prime s.t. \(p = kq + 1\)
      * @return true if proof is correct, false otherwise
      * @throws UnsupportedEncodingException test
      * @throws NoSuchAlgorithmException     test
      */
-    public boolean verifyProofOfKnowledgeMessageFormat(ProofOfKnowledgeMessageFormat proofOfKnowledgeMessageFormat, BigInteger h1, BigInteger h2, BigInteger h3, BigInteger g, BigInteger q, BigInteger p) throws NoSuchAlgorithmException, UnsupportedEncodingException {
+    public boolean verifyProofOfKnowledgeMessageFormat(ProofOfKnowledgeMessageFormat proofOfKnowledgeMessageFormat, GroupElement h1, GroupElement h2, GroupElement h3, GroupElement g) throws NoSuchAlgorithmException, UnsupportedEncodingException {
+        VerificationEquations equations = equationsOfProofOfKnowledgeMessageFormat(proofOfKnowledgeMessageFormat, h1, h2, h3, g);
+        return equations != null && equations.hold();
+    }
+
+    /**
+     * @return verification equations of the proof, or null if its challenge is not correct or its values are not
+     * elements of the group
+     */
+    private VerificationEquations equationsOfProofOfKnowledgeMessageFormat(ProofOfKnowledgeMessageFormat proofOfKnowledgeMessageFormat, GroupElement h1, GroupElement h2, GroupElement h3, GroupElement g) throws NoSuchAlgorithmException, UnsupportedEncodingException {
         BigInteger c1 = proofOfKnowledgeMessageFormat.getC1();
         BigInteger c2 = proofOfKnowledgeMessageFormat.getC2();
-        BigInteger z1 = proofOfKnowledgeMessageFormat.getZ1();
-        BigInteger z2 = proofOfKnowledgeMessageFormat.getZ2();
-        BigInteger z3 = proofOfKnowledgeMessageFormat.getZ3();
         BigInteger a1 = proofOfKnowledgeMessageFormat.getA1();
         BigInteger a2 = proofOfKnowledgeMessageFormat.getA2();
         BigInteger a3 = proofOfKnowledgeMessageFormat.getA3();
+        GroupElement z1, z2, z3;
+        try {
+            z1 = this.group.decode(proofOfKnowledgeMessageFormat.getZ1());
+            z2 = this.group.decode(proofOfKnowledgeMessageFormat.getZ2());
+            z3 = this.group.decode(proofOfKnowledgeMessageFormat.getZ3());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
 
-        MessageDigest md = MessageDigest.getInstance("SHA-512");
-        String publicValueOnHash = z1.toString().concat(
-                z2.toString()).concat(
-                z3.toString()).concat(
-                g.toString()).concat(
-                h1.toString()).concat(
-                h2.toString()).concat(
-                h3.toString()).concat(
-                "" + proofOfKnowledgeMessageFormat.getNodeIndex());
-        md.update(publicValueOnHash.getBytes("UTF-8"));
-        byte[] hashOnPublicValues = md.digest();
-        BigInteger b = new BigInteger(hashOnPublicValues).mod(q); // b = H( z1 || z2 || z3 || g || h1 || h2 || h3 || nodeIndex ) (mod q)
-
-        BigInteger cSum = c1.add(c2).mod(q); // cSum = c1 + c2
-
-        Commitment commitment = new Commitment(g, q, p);
-        PedersenCommitment pedersenCommitment1 = new PedersenCommitment(z1, h1, q, p);
-        PedersenCommitment pedersenCommitment2 = new PedersenCommitment(z2, h2, q, p);
-        PedersenCommitment pedersenCommitment3 = new PedersenCommitment(z3, h3, q, p);
-
-        BigInteger _a = commitment.calculateCommitment(a1); // _a = g^r1 (mod p)
-        BigInteger _b = pedersenCommitment1.calculateCommitment(BigInteger.ONE, c1); // _b = z1 h1^c1 (mod p)
-
-        BigInteger _c = commitment.calculateCommitment(a2); // _c = g^r2 (mod p)
-        BigInteger _d = pedersenCommitment2.calculateCommitment(BigInteger.ONE, c2); // _d = z2 h2^c2 (mod p)
-
-        BigInteger _e = commitment.calculateCommitment(a3); // _e = g^r3 (mod p)
-        BigInteger _f = pedersenCommitment3.calculateCommitment(BigInteger.ONE, c2); // _f = z3 h3^c2 (mod p)
-
-        return b.equals(cSum) && _a.equals(_b) && _c.equals(_d) && _e.equals(_f);
+        Scalar b = challenge(this.transcriptScheme.start(DOMAIN + "pok-message-format")
+                .append(z1)
+                .append(z2)
+                .append(z3)
+                .append(g)
+                .append(h1)
+                .append(h2)
+                .append(h3)
+                .append(proofOfKnowledgeMessageFormat.getNodeIndex())); // b = H( z1 || z2 || z3 || g || h1 || h2 || h3 || nodeIndex ) (mod q)
+
+        Scalar cSum = this.group.scalar(c1.add(c2)); // cSum = c1 + c2
+
+        if (!b.equals(cSum))
+            return null;
+
+        VerificationEquations equations = new VerificationEquations(this.group);
+        // g^a1 = z1 h1^c1
+        equations.addEquation(new GroupElement[]{g}, new BigInteger[]{a1},
+                new GroupElement[]{z1, h1}, new BigInteger[]{BigInteger.ONE, c1});
+        // g^a2 = z2 h2^c2
+        equations.addEquation(new GroupElement[]{g}, new BigInteger[]{a2},
+                new GroupElement[]{z2, h2}, new BigInteger[]{BigInteger.ONE, c2});
+        // g^a3 = z3 h3^c2
+        equations.addEquation(new GroupElement[]{g}, new BigInteger[]{a3},
+                new GroupElement[]{z3, h3}, new BigInteger[]{BigInteger.ONE, c2});
+        return equations;
 
     }
 
     /**
      * Generates Proof of Knowledge that participant knows \(x_1\) in \(h_1 = g^{x_1} \lor h_2 = g^{x_2}\)
      *
-     * @param h1 commitment s.t. \(h_1 = g^{x_1} \pmod{p}\)
+     * @param h1 commitment s.t. \(h_1 = g^{x_1}\)
      * @param g  generator of group \(G_q\)
      * @param x1 value in \(\mathbb{Z}_q\)
-     * @param h2 commitment s.t. \(h_2 = g^{x_2} \pmod{p}\)
-     * @param q  large prime
-     * @param p  large prime s.t. \(p = kq + 1\)
+     * @param h2 commitment s.t. \(h_2 = g^{x_2}\)
      * @return Proof of Knowledge that participant knows \(x_1\) in \(h_1 = g^{x_1} \lor h_2 = g^{x_2}\)
      * @throws NoSuchAlgorithmException     test
      * @throws UnsupportedEncodingException test
      */
-    public ProofOfKnowledgeResendingFatherRoundReal generateProofOfKnowledgeResendingFatherRoundRealX1(BigInteger h1, BigInteger g, BigInteger x1, BigInteger h2, BigInteger q, BigInteger p) throws NoSuchAlgorithmException, UnsupportedEncodingException {
-        Commitment commitment = new Commitment(g, q, p);
-        PedersenCommitment pedersenCommitment = new PedersenCommitment(g, h2, q, p);
-
-        BigInteger c2 = commitment.generateRandom();
-        BigInteger r1 = commitment.generateRandom();
-        BigInteger r2 = commitment.generateRandom();
+    public ProofOfKnowledgeResendingFatherRoundReal generateProofOfKnowledgeResendingFatherRoundRealX1(GroupElement h1, GroupElement g, BigInteger x1, GroupElement h2) throws NoSuchAlgorithmException, UnsupportedEncodingException {
+        Scalar c2 = this.group.randomScalar();
+        ProofNoncePool.Nonce nonce1 = nonce(g);
+        ProofNoncePool.Nonce nonce2 = nonce(g);
+        Scalar r1 = this.group.scalar(nonce1.randoms[0]);
+        BigInteger r2 = nonce2.randoms[0];
 
-        BigInteger z1 = commitment.calculateCommitment(r1);
-        BigInteger z2 = pedersenCommitment.calculateCommitment(r2, c2.negate());
+        GroupElement z1 = nonce1.commitment;
+        GroupElement z2 = simulate(nonce2, h2, c2);
 
-        MessageDigest md = MessageDigest.getInstance("SHA-512");
-        String publicValueOnHash = z1.toString().concat(
-                z2.toString()).concat(
-                g.toString()).concat(
-                h1.toString()).concat(
-                h2.toString()).concat(
-                "" + this.nodeIndex);
-        md.update(publicValueOnHash.getBytes("UTF-8"));
-        byte[] hashOnPublicValues = md.digest();
-        BigInteger b = new BigInteger(hashOnPublicValues).mod(q); // b = H( z1 || z2 || g || h1 || h2 || nodeIndex )
+        Scalar b = challenge(this.transcriptScheme.start(DOMAIN + "pok-resending-real")
+                .append(z1)
+                .append(z2)
+                .append(g)
+                .append(h1)
+                .append(h2)
+                .append(this.nodeIndex)); // b = H( z1 || z2 || g || h1 || h2 || nodeIndex )
 
-        BigInteger c1 = b.subtract(c2).mod(q);
+        Scalar c1 = b.subtract(c2);
 
-        BigInteger a1 = r1.add(c1.multiply(x1));
+        Scalar a1 = r1.add(c1.multiply(this.group.scalar(x1)));
 
-        return new ProofOfKnowledgeResendingFatherRoundReal(c1, c2, z1, z2, a1, r2, nodeIndex);
+        return new ProofOfKnowledgeResendingFatherRoundReal(c1.getValue(), c2.getValue(), z1.encode(), z2.encode(),
+                a1.getValue(), r2, nodeIndex);
 
     }
 
     /**
      * Generates Proof of Knowledge that participant knows \(x_2\) in \(h_1 = g^{x_1} \lor h_2 = g^{x_2}\)
      *
-     * @param h1 commitment s.t. \(h_1 = g^{x_1} \pmod{p}\)
-     * @param h2 commitment s.t. \(h_2 = g^{x_2} \pmod{p}\)
+     * @param h1 commitment s.t. \(h_1 = g^{x_1}\)
+     * @param h2 commitment s.t. \(h_2 = g^{x_2}\)
      * @param g  generator of group \(G_q\)
      * @param x2 value in \(\mathbb{Z}_q\)
-     * @param q  large prime
-     * @param p  large prime s.t. \(p = kq + 1\)
      * @return Proof of Knowledge that participant knows \(x_1\) in \(h_1 = g^{x_1} \lor h_2 = g^{x_2}\)
      * @throws NoSuchAlgorithmException     test
      * @throws UnsupportedEncodingException test
      */
-    public ProofOfKnowledgeResendingFatherRoundReal generateProofOfKnowledgeResendingFatherRoundRealX2(BigInteger h1, BigInteger h2, BigInteger g, BigInteger x2, BigInteger q, BigInteger p) throws NoSuchAlgorithmException, UnsupportedEncodingException {
-        Commitment commitment = new Commitment(g, q, p);
-        PedersenCommitment pedersenCommitment = new PedersenCommitment(g, h1, q, p);
+    public ProofOfKnowledgeResendingFatherRoundReal generateProofOfKnowledgeResendingFatherRoundRealX2(GroupElement h1, GroupElement h2, GroupElement g, BigInteger x2) throws NoSuchAlgorithmException, UnsupportedEncodingException {
+        Scalar c1 = this.group.randomScalar();
+        ProofNoncePool.Nonce nonce1 = nonce(g);
+        ProofNoncePool.Nonce nonce2 = nonce(g);
+        BigInteger r1 = nonce1.randoms[0];
+        Scalar r2 = this.group.scalar(nonce2.randoms[0]);
 
-        BigInteger c1 = commitment.generateRandom();
-        BigInteger r1 = commitment.generateRandom();
-        BigInteger r2 = commitment.generateRandom();
+        GroupElement z1 = simulate(nonce1, h1, c1);
+        GroupElement z2 = nonce2.commitment;
 
-        BigInteger z1 = pedersenCommitment.calculateCommitment(r1, c1.negate());
-        BigInteger z2 = commitment.calculateCommitment(r2);
+        Scalar b = challenge(this.transcriptScheme.start(DOMAIN + "pok-resending-real")
+                .append(z1)
+                .append(z2)
+                .append(g)
+                .append(h1)
+                .append(h2)
+                .append(this.nodeIndex)); // b = H( z1 || z2 || g || h1 || h2 || nodeIndex )
 
-        MessageDigest md = MessageDigest.getInstance("SHA-512");
-        String publicValueOnHash = z1.toString().concat(
-                z2.toString()).concat(
-                g.toString()).concat(
-                h1.toString()).concat(
-                h2.toString()).concat(
-                "" + this.nodeIndex);
-        md.update(publicValueOnHash.getBytes("UTF-8"));
-        byte[] hashOnPublicValues = md.digest();
-        BigInteger b = new BigInteger(hashOnPublicValues).mod(q); // b = H( z1 || z2 || g || h1 || h2 || nodeIndex )
+        Scalar c2 = b.subtract(c1);
 
-        BigInteger c2 = b.subtract(c1).mod(q);
+        Scalar a2 = r2.add(c2.multiply(this.group.scalar(x2)));
 
-        BigInteger a2 = r2.add(c2.multiply(x2));
-
-        return new ProofOfKnowledgeResendingFatherRoundReal(c1, c2, z1, z2, r1, a2, nodeIndex);
+        return new ProofOfKnowledgeResendingFatherRoundReal(c1.getValue(), c2.getValue(), z1.encode(), z2.encode(),
+                r1, a2.getValue(), nodeIndex);
 
     }
 
@@ -407,168 +553,153 @@ public class ZeroKnowledgeProof {
      * Verifies if the Proof of Knowledge provide is correct or not for knowing either \(x_1\) or \(x_2\) in \(h_1 = g^{x_1} \lor h_2 = g^{x_2}\)
      *
      * @param proofOfKnowledgeResendingFatherRoundReal Proof of Knowledge that participants knows either \(x_1\) or \(x_2\) in \(h_1 = g^{x_1} \lor h_2 = g^{x_2}\)
-     * @param h1                                       commitment s.t. \(h_1 = g^{x_1} \pmod{p}\)
-     * @param h2                                       commitment s.t. \(h_2 = g^{x_2} \pmod{p}\)
+     * @param h1                                       commitment s.t. \(h_1 = g^{x_1}\)
+     * @param h2                                       commitment s.t. \(h_2 = g^{x_2}\)
      * @param g                                        generator of group \(G_q\)
-     * @param q                                        large prime
-     * @param p                                        large prime s.t. \(p = kq + 1\)
      * @return true if proof is correct, false otherwise
      * @throws NoSuchAlgorithmException     test
      * @throws UnsupportedEncodingException test
      */
-    public boolean verifyProofOfKnowledgeResendingFatherRoundReal(ProofOfKnowledgeResendingFatherRoundReal proofOfKnowledgeResendingFatherRoundReal, BigInteger h1, BigInteger h2, BigInteger g, BigInteger q, BigInteger p) throws NoSuchAlgorithmException, UnsupportedEncodingException {
+    public boolean verifyProofOfKnowledgeResendingFatherRoundReal(ProofOfKnowledgeResendingFatherRoundReal proofOfKnowledgeResendingFatherRoundReal, GroupElement h1, GroupElement h2, GroupElement g) throws NoSuchAlgorithmException, UnsupportedEncodingException {
+        VerificationEquations equations = equationsOfProofOfKnowledgeResendingFatherRoundReal(proofOfKnowledgeResendingFatherRoundReal, h1, h2, g);
+        return equations != null && equations.hold();
+    }
+
+    /**
+     * @return verification equations of the proof, or null if its challenge is not correct or its values are not
+     * elements of the group
+     */
+    private VerificationEquations equationsOfProofOfKnowledgeResendingFatherRoundReal(ProofOfKnowledgeResendingFatherRoundReal proofOfKnowledgeResendingFatherRoundReal, GroupElement h1, GroupElement h2, GroupElement g) throws NoSuchAlgorithmException, UnsupportedEncodingException {
         BigInteger c1 = proofOfKnowledgeResendingFatherRoundReal.getC1();
         BigInteger c2 = proofOfKnowledgeResendingFatherRoundReal.getC2();
-        BigInteger z1 = proofOfKnowledgeResendingFatherRoundReal.getZ1();
-        BigInteger z2 = proofOfKnowledgeResendingFatherRoundReal.getZ2();
         BigInteger a1 = proofOfKnowledgeResendingFatherRoundReal.getA1();
         BigInteger a2 = proofOfKnowledgeResendingFatherRoundReal.getA2();
+        GroupElement z1, z2;
+        try {
+            z1 = this.group.decode(proofOfKnowledgeResendingFatherRoundReal.getZ1());
+            z2 = this.group.decode(proofOfKnowledgeResendingFatherRoundReal.getZ2());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
 
-        MessageDigest md = MessageDigest.getInstance("SHA-512");
-        String publicValueOnHash = z1.toString().concat(
-                z2.toString()).concat(
-                g.toString()).concat(
-                h1.toString()).concat(
-                h2.toString()).concat(
-                "" + proofOfKnowledgeResendingFatherRoundReal.getNodeIndex());
-        md.update(publicValueOnHash.getBytes("UTF-8"));
-        byte[] hashOnPublicValues = md.digest();
-        BigInteger b = new BigInteger(hashOnPublicValues).mod(q); // b = H( z1 || z2 || g || h1 || h2 || nodeIndex ) (mod q)
-
-        BigInteger cSum = c1.add(c2).mod(q); // cSum = c1 + c2
-
-        Commitment commitment = new Commitment(g, q, p);
-        PedersenCommitment pedersenCommitment1 = new PedersenCommitment(z1, h1, q, p);
-        PedersenCommitment pedersenCommitment2 = new PedersenCommitment(z2, h2, q, p);
+        Scalar b = challenge(this.transcriptScheme.start(DOMAIN + "pok-resending-real")
+                .append(z1)
+                .append(z2)
+                .append(g)
+                .append(h1)
+                .append(h2)
+                .append(proofOfKnowledgeResendingFatherRoundReal.getNodeIndex())); // b = H( z1 || z2 || g || h1 || h2 || nodeIndex ) (mod q)
 
-        BigInteger _a = commitment.calculateCommitment(a1);
-        BigInteger _b = pedersenCommitment1.calculateCommitment(BigInteger.ONE, c1);
+        Scalar cSum = this.group.scalar(c1.add(c2)); // cSum = c1 + c2
 
-        BigInteger _c = commitment.calculateCommitment(a2);
-        BigInteger _d = pedersenCommitment2.calculateCommitment(BigInteger.ONE, c2);
+        if (!b.equals(cSum))
+            return null;
 
-        return b.equals(cSum) && _a.equals(_b) && _c.equals(_d);
+        VerificationEquations equations = new VerificationEquations(this.group);
+        // g^a1 = z1 h1^c1
+        equations.addEquation(new GroupElement[]{g}, new BigInteger[]{a1},
+                new GroupElement[]{z1, h1}, new BigInteger[]{BigInteger.ONE, c1});
+        // g^a2 = z2 h2^c2
+        equations.addEquation(new GroupElement[]{g}, new BigInteger[]{a2},
+                new GroupElement[]{z2, h2}, new BigInteger[]{BigInteger.ONE, c2});
+        return equations;
 
     }
 
     /**
      * Generates Proof of Knowledge that participant knows \(x_1\) in \(h_1 = g^{x_1} \lor (h_2 = g^{x_2} \land (\bigwedge h_j = g^{x_j})\)
      *
-     * @param h1 commitment s.t. \(h_1 = g^{x_1} \pmod{p}\)
+     * @param h1 commitment s.t. \(h_1 = g^{x_1}\)
      * @param g  generator of group \(G_q\)
      * @param x1 value in \(\mathbb{Z}_q\)
-     * @param h2 commitment s.t. \(h_2 = g^{x_2} \pmod{p}\)
-     * @param hj array of commitments s.t. \(h_j = g^{x_j} \pmod{p}\)
-     * @param q  large prime
-     * @param p  large prime s.t. \(p = kq + 1\)
+     * @param h2 commitment s.t. \(h_2 = g^{x_2}\)
+     * @param hj array of commitments s.t. \(h_j = g^{x_j}\)
      * @return Proof of Knowledge that participant knows \(x_1\) in \(h_1 = g^{x_1} \lor (h_2 = g^{x_2} \land (\bigwedge h_j = g^{x_j})\)
      * @throws NoSuchAlgorithmException     test
      * @throws UnsupportedEncodingException test
      */
-    public ProofOfKnowledgeResendingFatherRoundVirtual generateProofOfKnowledgeResendingFatherRoundVirtualX1(BigInteger h1, BigInteger g, BigInteger x1, BigInteger h2, BigInteger[] hj, BigInteger q, BigInteger p) throws NoSuchAlgorithmException, UnsupportedEncodingException {
-        Commitment commitment = new Commitment(g, q, p);
-        PedersenCommitment pedersenCommitment = new PedersenCommitment(g, h2, q, p);
-        PedersenCommitment[] pedersenCommitmentJ = new PedersenCommitment[hj.length];
-        for (int i = 0; i < hj.length; i++) {
-            pedersenCommitmentJ[i] = new PedersenCommitment(g, hj[i], q, p);
-        }
-
-        BigInteger c2 = commitment.generateRandom();
-        /*BigInteger[] cj = new BigInteger[hj.length];
-        for (int i = 0; i < cj.length; i++) {
-            cj[i] = commitment.generateRandom();
-        }*/
-        BigInteger r1 = commitment.generateRandom();
-        BigInteger r2 = commitment.generateRandom();
+    public ProofOfKnowledgeResendingFatherRoundVirtual generateProofOfKnowledgeResendingFatherRoundVirtualX1(GroupElement h1, GroupElement g, BigInteger x1, GroupElement h2, GroupElement[] hj) throws NoSuchAlgorithmException, UnsupportedEncodingException {
+        Scalar c2 = this.group.randomScalar();
+        ProofNoncePool.Nonce nonce1 = nonce(g);
+        ProofNoncePool.Nonce nonce2 = nonce(g);
+        Scalar r1 = this.group.scalar(nonce1.randoms[0]);
+        BigInteger r2 = nonce2.randoms[0];
         BigInteger[] rj = new BigInteger[hj.length];
-        for (int i = 0; i < hj.length; i++) {
-            rj[i] = commitment.generateRandom();
-        }
-
-        BigInteger z1 = commitment.calculateCommitment(r1);
-        BigInteger z2 = pedersenCommitment.calculateCommitment(r2, c2.negate());
         BigInteger[] zj = new BigInteger[hj.length];
         for (int i = 0; i < hj.length; i++) {
-            zj[i] = pedersenCommitmentJ[i].calculateCommitment(rj[i], c2.negate());
+            ProofNoncePool.Nonce nonceJ = nonce(g);
+            rj[i] = nonceJ.randoms[0];
+            zj[i] = simulate(nonceJ, hj[i], c2).encode();
         }
 
-        MessageDigest md = MessageDigest.getInstance("SHA-512");
-        String publicValueOnHash = z1.toString().concat(
-                z2.toString()).concat(
-                g.toString()).concat(
-                h1.toString()).concat(
-                h2.toString()).concat(
-                "" + this.nodeIndex);
-        md.update(publicValueOnHash.getBytes("UTF-8"));
-        byte[] hashOnPublicValues = md.digest();
-        BigInteger b = new BigInteger(hashOnPublicValues).mod(q); // b = H( z1 || z2 || g || h1 || h2 || nodeIndex )
+        GroupElement z1 = nonce1.commitment;
+        GroupElement z2 = simulate(nonce2, h2, c2);
+
+        Scalar b = challenge(this.transcriptScheme.start(DOMAIN + "pok-resending-virtual")
+                .append(z1)
+                .append(z2)
+                .append(g)
+                .append(h1)
+                .append(h2)
+                .append(this.nodeIndex)); // b = H( z1 || z2 || g || h1 || h2 || nodeIndex )
 
-        BigInteger c1 = b.subtract(c2).mod(q);
+        Scalar c1 = b.subtract(c2);
 
-        BigInteger a1 = r1.add(c1.multiply(x1));
+        Scalar a1 = r1.add(c1.multiply(this.group.scalar(x1)));
 
-        return new ProofOfKnowledgeResendingFatherRoundVirtual(c1, c2, z1, z2, zj, a1, r2, rj, nodeIndex);
+        return new ProofOfKnowledgeResendingFatherRoundVirtual(c1.getValue(), c2.getValue(), z1.encode(), z2.encode(),
+                zj, a1.getValue(), r2, rj, nodeIndex);
 
     }
 
     /**
      * Generates Proof of Knowledge that participant knows \(x_2 \land x_j\) in \(h_1 = g^{x_1} \lor (h_2 = g^{x_2} \land (\bigwedge h_j = g^{x_j})\)
      *
-     * @param h1 commitment s.t. \(h_1 = g^{x_1} \pmod{p}\)
-     * @param h2 commitment s.t. \(h_2 = g^{x_2} \pmod{p}\)
-     * @param hj array of commitments s.t. \(h_j = g^{x_j} \pmod{p}\)
+     * @param h1 commitment s.t. \(h_1 = g^{x_1}\)
+     * @param h2 commitment s.t. \(h_2 = g^{x_2}\)
+     * @param hj array of commitments s.t. \(h_j = g^{x_j}\)
      * @param g  generator of group \(G_q\)
      * @param x2 value in \(\mathbb{Z}_q\)
      * @param xj values in \(\mathbb{Z}_q\)
-     * @param q  large prime
-     * @param p  large prime s.t. \(p = kq + 1\)
      * @return Proof of Knowledge that participant knows \(x_2 \land x_j\) in \(h_1 = g^{x_1} \lor (h_2 = g^{x_2} \land (\bigwedge h_j = g^{x_j})\)
      * @throws NoSuchAlgorithmException     test
      * @throws UnsupportedEncodingException test
      */
-    public ProofOfKnowledgeResendingFatherRoundVirtual generateProofOfKnowledgeResendingFatherRoundVirtualX2Xs(BigInteger h1, BigInteger h2, BigInteger[] hj, BigInteger g, BigInteger x2, BigInteger[] xj, BigInteger q, BigInteger p) throws NoSuchAlgorithmException, UnsupportedEncodingException {
-        Commitment commitment = new Commitment(g, q, p);
-        PedersenCommitment pedersenCommitment = new PedersenCommitment(g, h1, q, p);
-
-        BigInteger c1 = commitment.generateRandom();
-        BigInteger r1 = commitment.generateRandom();
-        BigInteger r2 = commitment.generateRandom();
-        BigInteger[] rj = new BigInteger[hj.length];
-        for (int i = 0; i < hj.length; i++) {
-            rj[i] = commitment.generateRandom();
-        }
-
-        BigInteger z1 = pedersenCommitment.calculateCommitment(r1, c1.negate());
-        BigInteger z2 = commitment.calculateCommitment(r2);
+    public ProofOfKnowledgeResendingFatherRoundVirtual generateProofOfKnowledgeResendingFatherRoundVirtualX2Xs(GroupElement h1, GroupElement h2, GroupElement[] hj, GroupElement g, BigInteger x2, BigInteger[] xj) throws NoSuchAlgorithmException, UnsupportedEncodingException {
+        Scalar c1 = this.group.randomScalar();
+        ProofNoncePool.Nonce nonce1 = nonce(g);
+        ProofNoncePool.Nonce nonce2 = nonce(g);
+        BigInteger r1 = nonce1.randoms[0];
+        Scalar r2 = this.group.scalar(nonce2.randoms[0]);
+        Scalar[] rj = new Scalar[hj.length];
         BigInteger[] zj = new BigInteger[hj.length];
         for (int i = 0; i < hj.length; i++) {
-            zj[i] = commitment.calculateCommitment(rj[i]);
+            ProofNoncePool.Nonce nonceJ = nonce(g);
+            rj[i] = this.group.scalar(nonceJ.randoms[0]);
+            zj[i] = nonceJ.commitment.encode();
         }
 
-        MessageDigest md = MessageDigest.getInstance("SHA-512");
-        String publicValueOnHash = z1.toString().concat(
-                z2.toString()).concat(
-                g.toString()).concat(
-                h1.toString()).concat(
-                h2.toString()).concat(
-                "" + this.nodeIndex);
-        md.update(publicValueOnHash.getBytes("UTF-8"));
-        byte[] hashOnPublicValues = md.digest();
-        BigInteger b = new BigInteger(hashOnPublicValues).mod(q); // b = H( z1 || z2 || g || h1 || h2 || nodeIndex )
-
-        BigInteger c2 = b.subtract(c1).mod(q);
-        /*BigInteger[] cj = new BigInteger[hj.length];
-        for (int i = 0; i < hj.length; i++) {
-            cj[i] = b.subtract(c1).mod(q); // Check this
-        }*/
+        GroupElement z1 = simulate(nonce1, h1, c1);
+        GroupElement z2 = nonce2.commitment;
+
+        Scalar b = challenge(this.transcriptScheme.start(DOMAIN + "pok-resending-virtual")
+                .append(z1)
+                .append(z2)
+                .append(g)
+                .append(h1)
+                .append(h2)
+                .append(this.nodeIndex)); // b = H( z1 || z2 || g || h1 || h2 || nodeIndex )
 
-        BigInteger a2 = r2.add(c2.multiply(x2));
+        Scalar c2 = b.subtract(c1);
+
+        Scalar a2 = r2.add(c2.multiply(this.group.scalar(x2)));
         BigInteger[] aj = new BigInteger[hj.length];
         for (int i = 0; i < hj.length; i++) {
-            aj[i] = rj[i].add(c2.multiply(xj[i]));
+            aj[i] = rj[i].add(c2.multiply(this.group.scalar(xj[i]))).getValue();
         }
 
-        return new ProofOfKnowledgeResendingFatherRoundVirtual(c1, c2, z1, z2, zj, r1, a2, aj, nodeIndex);
+        return new ProofOfKnowledgeResendingFatherRoundVirtual(c1.getValue(), c2.getValue(), z1.encode(), z2.encode(),
+                zj, r1, a2.getValue(), aj, nodeIndex);
 
     }
 
@@ -576,70 +707,307 @@ public class ZeroKnowledgeProof {
      * Verifies if the Proof of Knowledge provide is correct or not for knowing either \(x_1\) or \(x_2\) in \(h_1 = g^{x_1} \lor h_2 = g^{x_2}\)
      *
      * @param proofOfKnowledgeResendingFatherRoundVirtual Proof of Knowledge that participants knows either \(x_1\) or \(x_2\) in \(h_1 = g^{x_1} \lor h_2 = g^{x_2}\)
-     * @param h1                                          commitment s.t. \(h_1 = g^{x_1} \pmod{p}\)
-     * @param h2                                          commitment s.t. \(h_2 = g^{x_2} \pmod{p}\)
+     * @param h1                                          commitment s.t. \(h_1 = g^{x_1}\)
+     * @param h2                                          commitment s.t. \(h_2 = g^{x_2}\)
+     * @param hj                                          array of commitments s.t. \(h_j = g^{x_j}\)
      * @param g                                           generator of group \(G_q\)
-     * @param q                                           large prime
-     * @param p                                           large prime s.t. \(p = kq + 1\)
      * @return true if proof is correct, false otherwise
      * @throws NoSuchAlgorithmException     test
      * @throws UnsupportedEncodingException test
      */
-    public boolean verifyProofOfKnowledgeResendingFatherRoundVirtual(ProofOfKnowledgeResendingFatherRoundVirtual proofOfKnowledgeResendingFatherRoundVirtual, BigInteger h1, BigInteger h2, BigInteger[] hj, BigInteger g, BigInteger q, BigInteger p) throws NoSuchAlgorithmException, UnsupportedEncodingException {
+    public boolean verifyProofOfKnowledgeResendingFatherRoundVirtual(ProofOfKnowledgeResendingFatherRoundVirtual proofOfKnowledgeResendingFatherRoundVirtual, GroupElement h1, GroupElement h2, GroupElement[] hj, GroupElement g) throws NoSuchAlgorithmException, UnsupportedEncodingException {
+        VerificationEquations equations = equationsOfProofOfKnowledgeResendingFatherRoundVirtual(proofOfKnowledgeResendingFatherRoundVirtual, h1, h2, hj, g);
+        return equations != null && equations.hold();
+    }
+
+    /**
+     * @return verification equations of the proof, or null if its challenge is not correct or its values are not
+     * elements of the group
+     */
+    private VerificationEquations equationsOfProofOfKnowledgeResendingFatherRoundVirtual(ProofOfKnowledgeResendingFatherRoundVirtual proofOfKnowledgeResendingFatherRoundVirtual, GroupElement h1, GroupElement h2, GroupElement[] hj, GroupElement g) throws NoSuchAlgorithmException, UnsupportedEncodingException {
         BigInteger c1 = proofOfKnowledgeResendingFatherRoundVirtual.getC1();
         BigInteger c2 = proofOfKnowledgeResendingFatherRoundVirtual.getC2();
         // BigInteger[] cj = proofOfKnowledgeResendingFatherRoundVirtual.getCj();
-        BigInteger z1 = proofOfKnowledgeResendingFatherRoundVirtual.getZ1();
-        BigInteger z2 = proofOfKnowledgeResendingFatherRoundVirtual.getZ2();
-        BigInteger[] zj = proofOfKnowledgeResendingFatherRoundVirtual.getZj();
         BigInteger a1 = proofOfKnowledgeResendingFatherRoundVirtual.getA1();
         BigInteger a2 = proofOfKnowledgeResendingFatherRoundVirtual.getA2();
         BigInteger[] aj = proofOfKnowledgeResendingFatherRoundVirtual.getAj();
+        GroupElement z1, z2;
+        GroupElement[] zj = new GroupElement[hj.length];
+        try {
+            z1 = this.group.decode(proofOfKnowledgeResendingFatherRoundVirtual.getZ1());
+            z2 = this.group.decode(proofOfKnowledgeResendingFatherRoundVirtual.getZ2());
+            for (int i = 0; i < hj.length; i++)
+                zj[i] = this.group.decode(proofOfKnowledgeResendingFatherRoundVirtual.getZj()[i]);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
 
-        MessageDigest md = MessageDigest.getInstance("SHA-512");
-        String publicValueOnHash = z1.toString().concat(
-                z2.toString()).concat(
-                g.toString()).concat(
-                h1.toString()).concat(
-                h2.toString()).concat(
-                "" + proofOfKnowledgeResendingFatherRoundVirtual.getNodeIndex());
-        md.update(publicValueOnHash.getBytes("UTF-8"));
-        byte[] hashOnPublicValues = md.digest();
-        BigInteger b = new BigInteger(hashOnPublicValues).mod(q); // b = H( z1 || z2 || g || h1 || h2 || nodeIndex ) (mod q)
-
-        BigInteger cSum = c1.add(c2).mod(q); // cSum = c1 + c2
-
-        Commitment commitment = new Commitment(g, q, p);
-        PedersenCommitment pedersenCommitment1 = new PedersenCommitment(z1, h1, q, p);
-        PedersenCommitment pedersenCommitment2 = new PedersenCommitment(z2, h2, q, p);
-        PedersenCommitment[] pedersenCommitmentJ = new PedersenCommitment[hj.length];
-        for (int i = 0; i < hj.length; i++) {
-            pedersenCommitmentJ[i] = new PedersenCommitment(zj[i], hj[i], q, p);
+        Scalar b = challenge(this.transcriptScheme.start(DOMAIN + "pok-resending-virtual")
+                .append(z1)
+                .append(z2)
+                .append(g)
+                .append(h1)
+                .append(h2)
+                .append(proofOfKnowledgeResendingFatherRoundVirtual.getNodeIndex())); // b = H( z1 || z2 || g || h1 || h2 || nodeIndex ) (mod q)
+
+        Scalar cSum = this.group.scalar(c1.add(c2)); // cSum = c1 + c2
+
+        if (!b.equals(cSum))
+            return null;
+
+        VerificationEquations equations = new VerificationEquations(this.group);
+        // g^a1 = z1 h1^c1
+        equations.addEquation(new GroupElement[]{g}, new BigInteger[]{a1},
+                new GroupElement[]{z1, h1}, new BigInteger[]{BigInteger.ONE, c1});
+        // g^a2 = z2 h2^c2
+        equations.addEquation(new GroupElement[]{g}, new BigInteger[]{a2},
+                new GroupElement[]{z2, h2}, new BigInteger[]{BigInteger.ONE, c2});
+        // g^aj = zj hj^c2, for each j
+        for (int i = 0; i < hj.length; i++)
+            equations.addEquation(new GroupElement[]{g}, new BigInteger[]{aj[i]},
+                    new GroupElement[]{zj[i], hj[i]}, new BigInteger[]{BigInteger.ONE, c2});
+        return equations;
+
+    }
+
+    /**
+     * Verify a batch of proofs, splitting it in one chunk per worker thread. The proofs of each chunk are checked at
+     * once by a worker, and the results are joined before returning
+     *
+     * @param size           number of proofs of the batch
+     * @param proofEquations verification equations of each proof
+     * @return array with true in position i if proof i is correct, false otherwise
+     * @throws NoSuchAlgorithmException     test
+     * @throws UnsupportedEncodingException test
+     */
+    private boolean[] verifyBatch(int size, final ProofEquations proofEquations) throws NoSuchAlgorithmException, UnsupportedEncodingException {
+        int chunks = Math.max(1, Math.min(this.verificationExecutor.getThreads(), size));
+        List<Callable<boolean[]>> tasks = new ArrayList<>(chunks);
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            final int from = chunk * size / chunks;
+            final int to = (chunk + 1) * size / chunks;
+            tasks.add(new Callable<boolean[]>() {
+                @Override
+                public boolean[] call() throws NoSuchAlgorithmException, UnsupportedEncodingException {
+                    VerificationEquations[] equations = new VerificationEquations[to - from];
+                    for (int i = from; i < to; i++)
+                        equations[i - from] = proofEquations.equations(i);
+                    return VerificationEquations.holdAll(equations, group);
+                }
+            });
         }
 
-        BigInteger _a = commitment.calculateCommitment(a1);
-        BigInteger _b = pedersenCommitment1.calculateCommitment(BigInteger.ONE, c1);
+        List<boolean[]> chunkResults;
+        try {
+            chunkResults = this.verificationExecutor.invokeAll(tasks);
+        } catch (ExecutionException e) {
+            throw rethrow(e);
+        }
 
-        BigInteger _c = commitment.calculateCommitment(a2);
-        BigInteger _d = pedersenCommitment2.calculateCommitment(BigInteger.ONE, c2);
+        boolean[] results = new boolean[size];
+        int i = 0;
+        for (boolean[] chunkResult : chunkResults)
+            for (boolean result : chunkResult)
+                results[i++] = result;
+        return results;
+    }
 
-        BigInteger[] _e = new BigInteger[hj.length];
-        for (int i = 0; i < hj.length; i++) {
-            _e[i] = commitment.calculateCommitment(aj[i]);
+    /**
+     * Throw the exception a verification task failed with, as the exception thrown by the methods of this class
+     *
+     * @param e exception thrown when getting the result of the task
+     * @return never returns, so callers can write {@code throw rethrow(e)}
+     * @throws NoSuchAlgorithmException     test
+     * @throws UnsupportedEncodingException test
+     */
+    private static IllegalStateException rethrow(ExecutionException e) throws NoSuchAlgorithmException, UnsupportedEncodingException {
+        Throwable cause = e.getCause();
+        if (cause instanceof NoSuchAlgorithmException)
+            throw (NoSuchAlgorithmException) cause;
+        if (cause instanceof UnsupportedEncodingException)
+            throw (UnsupportedEncodingException) cause;
+        if (cause instanceof RuntimeException)
+            throw (RuntimeException) cause;
+        if (cause instanceof Error)
+            throw (Error) cause;
+        throw new IllegalStateException(cause);
+    }
+
+    /**
+     * @param size number of proofs expected in the phase
+     * @return stream where the proofs of a phase are verified one by one as they arrive
+     */
+    public VerificationStream newVerificationStream(int size) {
+        return new VerificationStream(size);
+    }
+
+    /**
+     * Proofs of a phase verified as they arrive. Each proof is submitted as soon as its message is taken, and its
+     * challenge is recomputed and its verification equations are built on a worker thread while the next messages
+     * are still on their way. Once the whole phase is in, the equations are checked as a batch, split in one chunk per
+     * worker thread, and each proof of a chunk that fails is checked on its own to find the wrong ones
+     */
+    public class VerificationStream {
+
+        /**
+         * Pending verification equations of each proof, in the order they were submitted
+         */
+        private final List<Future<VerificationEquations>> equations;
+
+        /**
+         * @param size number of proofs expected in the phase
+         */
+        private VerificationStream(int size) {
+            this.equations = new ArrayList<>(size);
         }
-        BigInteger[] _f = new BigInteger[hj.length];
-        for (int i = 0; i < hj.length; i++) {
-            _f[i] = pedersenCommitmentJ[i].calculateCommitment(BigInteger.ONE, c2);
+
+        /**
+         * Start verifying a Proof of Knowledge of \((x, r)\) in \(c = g^x h^r\)
+         *
+         * @param proof ProofOfKnowledgePedersen that node knows \((x,r)\) in \(c = g^x h^r\)
+         * @param c     commitment s.t. \(c = g^x h^r\)
+         * @param g     generator of group \(G_q\)
+         * @param h     generator of group \(G_q\)
+         */
+        public void submitProofOfKnowledgePedersen(final ProofOfKnowledgePedersen proof, final GroupElement c, final GroupElement g, final GroupElement h) {
+            submit(new Callable<VerificationEquations>() {
+                @Override
+                public VerificationEquations call() throws NoSuchAlgorithmException, UnsupportedEncodingException {
+                    return equationsOfProofOfKnowledgePedersen(proof, c, g, h);
+                }
+            });
         }
 
-        boolean condition = true;
-        for (int i = 0; i < hj.length; i++) {
-            if (!(_e[i].equals(_f[i]))) {
-                condition = false;
+        /**
+         * Start verifying a Proof of Knowledge of \(x\) in \(c = g^x\)
+         *
+         * @param proof ProofOfKnowledge that node knows \(x\) in \(c = g^x\)
+         * @param c     commitment s.t. \(c = g^x\)
+         * @param g     generator of group \(G_q\)
+         */
+        public void submitProofOfKnowledge(final ProofOfKnowledge proof, final GroupElement c, final GroupElement g) {
+            submit(new Callable<VerificationEquations>() {
+                @Override
+                public VerificationEquations call() throws NoSuchAlgorithmException, UnsupportedEncodingException {
+                    return equationsOfProofOfKnowledge(proof, c, g);
+                }
+            });
+        }
+
+        /**
+         * Start verifying a Proof of Knowledge of the message format
+         *
+         * @param proof ProofOfKnowledgeMessageFormat that node knows either \(x_1\) or \(x_2\) in \(h_1 = g^{x_1} \lor (h_2 = g^{x_2} \land h_3 = g^{x_3})\)
+         * @param h1    commitment \(h_1\) of the proof
+         * @param h2    commitment \(h_2\) of the proof
+         * @param h3    commitment \(h_3\) of the proof
+         * @param g     generator of group \(G_q\)
+         */
+        public void submitProofOfKnowledgeMessageFormat(final ProofOfKnowledgeMessageFormat proof, final GroupElement h1, final GroupElement h2, final GroupElement h3, final GroupElement g) {
+            submit(new Callable<VerificationEquations>() {
+                @Override
+                public VerificationEquations call() throws NoSuchAlgorithmException, UnsupportedEncodingException {
+                    return equationsOfProofOfKnowledgeMessageFormat(proof, h1, h2, h3, g);
+                }
+            });
+        }
+
+        /**
+         * Start verifying a Proof of Knowledge of resending in a real father round
+         *
+         * @param proof Proof of Knowledge that node knows either \(x_1\) or \(x_2\) in \(h_1 = g^{x_1} \lor h_2 = g^{x_2}\)
+         * @param h1    commitment \(h_1\) of the proof
+         * @param h2    commitment \(h_2\) of the proof
+         * @param g     generator of group \(G_q\)
+         */
+        public void submitProofOfKnowledgeResendingFatherRoundReal(final ProofOfKnowledgeResendingFatherRoundReal proof, final GroupElement h1, final GroupElement h2, final GroupElement g) {
+            submit(new Callable<VerificationEquations>() {
+                @Override
+                public VerificationEquations call() throws NoSuchAlgorithmException, UnsupportedEncodingException {
+                    return equationsOfProofOfKnowledgeResendingFatherRoundReal(proof, h1, h2, g);
+                }
+            });
+        }
+
+        /**
+         * Start verifying a Proof of Knowledge of resending in a virtual father round
+         *
+         * @param proof Proof of Knowledge that node knows either \(x_1\) or \(x_2\) in \(h_1 = g^{x_1} \lor (h_2 = g^{x_2} \land (\bigwedge h_j = g^{x_j})\)
+         * @param h1    commitment \(h_1\) of the proof
+         * @param h2    commitment \(h_2\) of the proof
+         * @param hj    commitments \(h_j\) of the proof
+         * @param g     generator of group \(G_q\)
+         */
+        public void submitProofOfKnowledgeResendingFatherRoundVirtual(final ProofOfKnowledgeResendingFatherRoundVirtual proof, final GroupElement h1, final GroupElement h2, final GroupElement[] hj, final GroupElement g) {
+            submit(new Callable<VerificationEquations>() {
+                @Override
+                public VerificationEquations call() throws NoSuchAlgorithmException, UnsupportedEncodingException {
+                    return equationsOfProofOfKnowledgeResendingFatherRoundVirtual(proof, h1, h2, hj, g);
+                }
+            });
+        }
+
+        /**
+         * Count a proof as wrong without verifying it, e.g. because the commitment it is about is not an element of
+         * the group
+         */
+        public void reject() {
+            FutureTask<VerificationEquations> rejected = new FutureTask<>(new Callable<VerificationEquations>() {
+                @Override
+                public VerificationEquations call() {
+                    return null;
+                }
+            });
+            rejected.run();
+            this.equations.add(rejected);
+        }
+
+        /**
+         * @param proofEquations computes the verification equations of the proof, or null if its challenge is not
+         *                       correct or its values are not elements of the group
+         */
+        private void submit(Callable<VerificationEquations> proofEquations) {
+            this.equations.add(verificationExecutor.submit(proofEquations));
+        }
+
+        /**
+         * Wait for the equations of the proofs submitted so far and verify them as a batch
+         *
+         * @return array with true in position i if the i-th proof submitted is correct, false otherwise
+         * @throws NoSuchAlgorithmException     test
+         * @throws UnsupportedEncodingException test
+         */
+        public boolean[] await() throws NoSuchAlgorithmException, UnsupportedEncodingException {
+            final VerificationEquations[] proofs = new VerificationEquations[this.equations.size()];
+            try {
+                for (int i = 0; i < proofs.length; i++)
+                    proofs[i] = this.equations.get(i).get();
+            } catch (ExecutionException e) {
+                throw rethrow(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the verification of the proofs", e);
             }
+            return verifyBatch(proofs.length, new ProofEquations() {
+                @Override
+                VerificationEquations equations(int i) {
+                    return proofs[i];
+                }
+            });
         }
 
-        return b.equals(cSum) && _a.equals(_b) && _c.equals(_d) && condition;
+    }
+
+    /**
+     * Verification equations of each proof of a batch
+     */
+    private static abstract class ProofEquations {
+
+        /**
+         * @param i index of the proof in the batch
+         * @return verification equations of proof i, or null if its challenge is not correct
+         */
+        abstract VerificationEquations equations(int i) throws NoSuchAlgorithmException, UnsupportedEncodingException;
 
     }
 
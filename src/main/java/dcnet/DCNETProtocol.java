@@ -1,8 +1,14 @@
 package dcnet;
 
+import crypto.ProofNoncePool;
+import crypto.VerificationExecutor;
+import keygeneration.KeyGenerationStrategy;
+import keygeneration.PairwiseSeedStore;
+import keygeneration.ParallelKeyDerivation;
 import org.zeromq.ZContext;
 import org.zeromq.ZMQ;
 import org.zeromq.ZThread;
+import participantnode.MessageInbox;
 import participantnode.ParticipantNode;
 import participantnode.Receiver;
 import participantnode.SessionManager;
@@ -23,6 +29,7 @@ public class DCNETProtocol {
     private Room room;
     private ParticipantNode participantNode;
     private ZMQ.Socket receiverThread;
+    private MessageInbox inbox;
     private ZContext context;
     private String directoryIp;
     private String nodeIp;
@@ -37,11 +44,19 @@ public class DCNETProtocol {
     private ObservableMessageArrived observableMessageArrived;
     private ObservableParticipantsLeft observableParticipantsLeft;
     private double syncTime;
+    private int verificationThreads;
+    private int keyDerivationThreads;
+    private PairwiseSeedStore seedStore;
+    private KeyGenerationStrategy keyGenerationStrategy;
+    private boolean deterministicNonces;
+    private ProofNoncePool proofNoncePool;
 
     public DCNETProtocol() {
         messagesList = new ArrayList<>();
         observableMessageArrived = new ObservableMessageArrived("");
         observableParticipantsLeft = new ObservableParticipantsLeft();
+        verificationThreads = Runtime.getRuntime().availableProcessors();
+        keyDerivationThreads = Runtime.getRuntime().availableProcessors();
     }
 
     /**
@@ -51,14 +66,31 @@ public class DCNETProtocol {
      * @throws IOException test
      */
     public boolean runProtocol() throws IOException {
+        // Create the worker threads where the proofs of each phase are verified
+        VerificationExecutor verificationExecutor = new VerificationExecutor(verificationThreads);
+        sessionManager.setVerificationExecutor(verificationExecutor);
+
+        // Create the threads where the exponentiations of the key generation are split, only used in large rooms
+        ParallelKeyDerivation parallelKeyDerivation = new ParallelKeyDerivation(keyDerivationThreads,
+                ParallelKeyDerivation.DEFAULT_ROOM_SIZE_THRESHOLD);
+        sessionManager.setParallelKeyDerivation(parallelKeyDerivation);
+        sessionManager.setSeedStore(seedStore);
+        sessionManager.setDeterministicNonces(deterministicNonces);
+        if (keyGenerationStrategy != null)
+            room.setKeyGenerationStrategy(keyGenerationStrategy);
+
         // Run session with the established parameters
         try {
-            sessionManager.runSession(nodeIndex, messageToSend, cheaterNode, room, participantNode, receiverThread, messagesList, observableMessageArrived);
+            sessionManager.runSession(nodeIndex, messageToSend, cheaterNode, room, participantNode, receiverThread, inbox, messagesList, observableMessageArrived);
         } catch (UnsupportedEncodingException e) {
             e.printStackTrace();
             System.exit(0);
         } catch (NoSuchAlgorithmException e) {
             e.printStackTrace();
+        } finally {
+            verificationExecutor.shutdown();
+            parallelKeyDerivation.shutdown();
+            proofNoncePool.stop();
         }
 
         // Print total time of execution and how many rounds the session played
@@ -72,7 +104,7 @@ public class DCNETProtocol {
         receiverThread.close();
         participantNode.closeSender();
         context.destroy();
-        sessionManager.closeRepliersAndRequestorsSockets(nodeIndex, room.getRoomSize());
+        sessionManager.closePeerChannel();
 
         return true;
     }
@@ -104,27 +136,35 @@ public class DCNETProtocol {
         // Connect ParticipantNode to DirectoryNode and wait response from DirectoryNode with the information of the rest of the room
         participantNode.connectToDirectoryNode(directoryNode, room, context, observableParticipantsLeft);
 
+        // Start precomputing the nonces of the proofs, now that the parameters of the room are known
+        ProofNoncePool proofNoncePool = new ProofNoncePool(room.getGroup());
+        proofNoncePool.start();
+        sessionManager.setProofNoncePool(proofNoncePool);
+
         this.directoryIp = directoryIp;
         this.roomSize = room.getRoomSize();
 
         // Retrieve nodeIndex of this ParticipantNode
         int nodeIndex = room.getNodeIndex(participantNode);
 
-        // Initialize Repliers and Requestors sockets, in order to synchronize the room between rounds
-        sessionManager.initializeRepliersArray(nodeIndex, context);
-        sessionManager.initializeRequestorsArray(nodeIndex, context, room);
+        // Initialize the channel with the rest of the room, in order to exchange keys and synchronize the room
+        sessionManager.initializePeerChannel(nodeIndex, context, room);
 
-        // Create a thread with the Receiver in order to receive the messages from the rest of the room
-        ZMQ.Socket receiverThread = ZThread.fork(context, new Receiver(), room);
+        // Create a thread with the Receiver in order to receive the messages from the rest of the room. The inbox
+        // holds the messages of every node until the phase they belong to is played
+        MessageInbox inbox = new MessageInbox(room.getRoomSize());
+        ZMQ.Socket receiverThread = ZThread.fork(context, new Receiver(), room, inbox);
 
         // Create sender socket
         participantNode.createSender(context);
 
         this.sessionManager = sessionManager;
+        this.proofNoncePool = proofNoncePool;
         this.nodeIndex = nodeIndex;
         this.room = room;
         this.participantNode = participantNode;
         this.receiverThread = receiverThread;
+        this.inbox = inbox;
         this.context = context;
         messageMaxLength = room.getL();
 
@@ -143,6 +183,54 @@ public class DCNETProtocol {
     }
 
 
+    /**
+     * Set how many worker threads are used to verify the proofs received in each phase of the protocol
+     *
+     * @param verificationThreads number of worker threads (1 to verify on the protocol thread)
+     */
+    public void setVerificationThreads(int verificationThreads) {
+        this.verificationThreads = verificationThreads;
+    }
+
+    /**
+     * Set how many threads are used to compute the exponentiations of the key generation, in rooms of more than
+     * {@link ParallelKeyDerivation#DEFAULT_ROOM_SIZE_THRESHOLD} nodes
+     *
+     * @param keyDerivationThreads number of threads (1 to compute them on the protocol thread)
+     */
+    public void setKeyDerivationThreads(int keyDerivationThreads) {
+        this.keyDerivationThreads = keyDerivationThreads;
+    }
+
+    /**
+     * Keep the seeds agreed with the other nodes in a file, so they are reused when the node joins again a room with
+     * the same parameters and peers, skipping the Diffie-Hellman key agreements
+     *
+     * @param seedStore store of the seeds (null to agree on new seeds every session)
+     */
+    public void setSeedStore(PairwiseSeedStore seedStore) {
+        this.seedStore = seedStore;
+    }
+
+    /**
+     * Override the key generation strategy announced by the directory. Every node of the room must use the same one
+     *
+     * @param keyGenerationStrategy strategy used to generate the keys of each round (null to use the one of the room)
+     */
+    public void setKeyGenerationStrategy(KeyGenerationStrategy keyGenerationStrategy) {
+        this.keyGenerationStrategy = keyGenerationStrategy;
+    }
+
+    /**
+     * Derive the nonces of the proofs of knowledge from their secrets and public values instead of drawing them, so a
+     * weak random source of the node can not leak the secrets through the proofs
+     *
+     * @param deterministicNonces true to derive the nonces, false to draw them
+     */
+    public void setDeterministicNonces(boolean deterministicNonces) {
+        this.deterministicNonces = deterministicNonces;
+    }
+
     public String getNodeIp() {
         return nodeIp;
     }
@@ -15,6 +15,13 @@ public class InfoFromDirectory {
     private int l;
     private boolean nonProbabilistic;
     private int padLength;
+    private String transcriptFormat;
+    private String transcriptHash;
+    private String group;
+    private String exponentPolicy;
+    private Integer shortExponentBits;
+    private String keyGeneration;
+    private String wireFormat;
 
     /**
      * @return array with info of nodes connected in the room
@@ -72,4 +79,54 @@ public class InfoFromDirectory {
         return padLength;
     }
 
+    /**
+     * @return format of the transcripts of the proofs ("legacy" or "binary"), or null if the directory does not set it
+     */
+    String getTranscriptFormat() {
+        return transcriptFormat;
+    }
+
+    /**
+     * @return hash algorithm of the transcripts of the proofs, or null if the directory does not set it
+     */
+    String getTranscriptHash() {
+        return transcriptHash;
+    }
+
+    /**
+     * @return name of the group of the room ("modp" or the name of a curve), or null if the directory does not set it
+     */
+    String getGroup() {
+        return group;
+    }
+
+    /**
+     * @return how the exponents of the key agreements are drawn ("full" or "short"), or null if the directory does not
+     * set it
+     */
+    String getExponentPolicy() {
+        return exponentPolicy;
+    }
+
+    /**
+     * @return length of the short exponents of the key agreements, or null if the directory does not set it
+     */
+    Integer getShortExponentBits() {
+        return shortExponentBits;
+    }
+
+    /**
+     * @return name of the key generation strategy of the room, or null if the directory does not set it
+     */
+    String getKeyGeneration() {
+        return keyGeneration;
+    }
+
+    /**
+     * @return format of the frames broadcast to the room ("json" or "binary"), or null if the directory does not set it
+     */
+    String getWireFormat() {
+        return wireFormat;
+    }
+
 }
@@ -0,0 +1,224 @@
+package dcnet;
+
+import org.zeromq.ZContext;
+import org.zeromq.ZMQ;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Point to point channel of a participant node with each other node of the room, addressed by node index. Every node
+ * binds a single ROUTER socket, and connects one DEALER socket to the ROUTER of each node of higher index, with its
+ * own index as identity. So there is exactly one connection for each pair of nodes and one bound port per node, and
+ * frames to different nodes do not wait for each other as with REQ/REP pairs.
+ * <p>
+ * A ROUTER can only send to a peer whose identity it has already seen, so in each exchange the node of lower index
+ * sends first and the node of higher index answers. Frames that arrive before they are asked for (e.g. the frame of
+ * the next exchange of a node that is already there) are kept, in order, until they are received
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public class PeerChannel {
+
+    /**
+     * Port where the ROUTER socket of every node is bound
+     */
+    public static final int PORT = 7000;
+
+    private final int nodeIndex;
+    private final int roomSize;
+
+    /**
+     * Socket where the nodes of lower index are connected
+     */
+    private final ZMQ.Socket router;
+
+    /**
+     * Socket connected to each node of higher index, by node index (null for the rest)
+     */
+    private final ZMQ.Socket[] dealers;
+
+    /**
+     * Frames received and not yet taken, of each other node by node index
+     */
+    private final Queue<byte[]>[] pending;
+
+    private ZMQ.Poller poller;
+
+    /**
+     * Bytes of all the frames sent so far
+     */
+    private long bytesSent;
+
+    /**
+     * Create the sockets of the node and bind its ROUTER socket. The DEALER sockets are connected by
+     * {@link #connect(String[])}, once the ROUTER sockets of the other nodes are bound
+     *
+     * @param nodeIndex    index of current participant node
+     * @param roomSize     number of nodes of the room
+     * @param context      context where the zmq sockets are going to run
+     * @param bindEndpoint endpoint where the ROUTER socket is bound
+     */
+    public PeerChannel(int nodeIndex, int roomSize, ZContext context, String bindEndpoint) {
+        this.nodeIndex = nodeIndex;
+        this.roomSize = roomSize;
+        this.router = context.createSocket(ZMQ.ROUTER);
+        this.router.bind(bindEndpoint);
+        this.dealers = new ZMQ.Socket[roomSize + 1];
+        for (int peer = nodeIndex + 1; peer <= roomSize; peer++) {
+            this.dealers[peer] = context.createSocket(ZMQ.DEALER);
+            this.dealers[peer].setIdentity(identityOf(nodeIndex));
+        }
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Queue<byte[]>[] pending = new Queue[roomSize + 1];
+        this.pending = pending;
+        for (int peer = 1; peer <= roomSize; peer++)
+            this.pending[peer] = new ArrayDeque<>();
+    }
+
+    /**
+     * Channel of a node of the room, on TCP
+     *
+     * @param nodeIndex index of current participant node
+     * @param room      room where the current participant node is sending messages
+     * @param context   context where the zmq sockets are going to run
+     * @return channel connected to every other node of the room
+     */
+    public static PeerChannel open(int nodeIndex, Room room, ZContext context) {
+        PeerChannel peerChannel = new PeerChannel(nodeIndex, room.getRoomSize(), context, "tcp://*:" + PORT);
+        String[] endpoints = new String[room.getRoomSize() + 1];
+        for (int peer = 1; peer <= room.getRoomSize(); peer++)
+            endpoints[peer] = "tcp://" + room.getNodeIpFromIndex(peer) + ":" + PORT;
+        peerChannel.connect(endpoints);
+        return peerChannel;
+    }
+
+    /**
+     * Connect a DEALER socket to the ROUTER socket of each node of higher index
+     *
+     * @param endpoints endpoint of the ROUTER socket of each node, by node index
+     */
+    public void connect(String[] endpoints) {
+        this.poller = new ZMQ.Poller(1 + this.roomSize - this.nodeIndex);
+        this.poller.register(this.router, ZMQ.Poller.POLLIN);
+        for (int peer = this.nodeIndex + 1; peer <= this.roomSize; peer++) {
+            this.dealers[peer].connect(endpoints[peer]);
+            this.poller.register(this.dealers[peer], ZMQ.Poller.POLLIN);
+        }
+    }
+
+    /**
+     * @return index of current participant node
+     */
+    public int getNodeIndex() {
+        return nodeIndex;
+    }
+
+    /**
+     * @return number of nodes of the room
+     */
+    public int getRoomSize() {
+        return roomSize;
+    }
+
+    /**
+     * Send a frame to another node, without waiting for it. A node of lower index must have sent a frame first
+     *
+     * @param peer  index of the other node
+     * @param frame frame to send
+     */
+    public void send(int peer, byte[] frame) {
+        this.bytesSent += frame.length;
+        if (peer > this.nodeIndex) {
+            this.dealers[peer].send(frame, 0);
+        } else {
+            this.router.send(identityOf(peer), ZMQ.SNDMORE);
+            this.router.send(frame, 0);
+        }
+    }
+
+    /**
+     * @return bytes of all the frames sent so far, to every node
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * @param peer index of the other node
+     * @return oldest frame of that node not yet received, waiting for one if there is none
+     */
+    public byte[] receive(int peer) {
+        while (this.pending[peer].isEmpty())
+            receiveFrame();
+        return this.pending[peer].poll();
+    }
+
+    /**
+     * @param peers true in the position of each node (by node index) whose frames are expected
+     * @return index of one of those nodes with a frame not yet received, waiting for one if there is none
+     */
+    public int waitForAny(boolean[] peers) {
+        while (true) {
+            for (int peer = 1; peer <= this.roomSize; peer++)
+                if (peers[peer] && !this.pending[peer].isEmpty())
+                    return peer;
+            receiveFrame();
+        }
+    }
+
+    /**
+     * Wait for the next frame of any node and keep it with the rest of the frames of that node
+     */
+    private void receiveFrame() {
+        if (this.poller.poll() < 0)
+            throw new IllegalStateException("Peer channel interrupted");
+        if (this.poller.pollin(0)) {
+            int peer = indexOf(this.router.recv(0));
+            byte[] frame = this.router.hasReceiveMore() ? this.router.recv(0) : new byte[0];
+            while (this.router.hasReceiveMore())
+                this.router.recv(0);
+            // Identities not of a node of lower index can not be answered, so their frames are dropped
+            if (peer >= 1 && peer < this.nodeIndex)
+                this.pending[peer].add(frame);
+        }
+        // The DEALER sockets are registered after the ROUTER socket, in the order of their nodes
+        for (int peer = this.nodeIndex + 1; peer <= this.roomSize; peer++)
+            if (this.poller.pollin(peer - this.nodeIndex))
+                this.pending[peer].add(this.dealers[peer].recv(0));
+    }
+
+    /**
+     * Close every socket of the channel
+     */
+    public void close() {
+        this.router.close();
+        for (int peer = this.nodeIndex + 1; peer <= this.roomSize; peer++)
+            this.dealers[peer].close();
+    }
+
+    /**
+     * @param nodeIndex index of a node
+     * @return identity of the DEALER sockets of that node
+     */
+    private static byte[] identityOf(int nodeIndex) {
+        return ("node-" + nodeIndex).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param identity identity of a DEALER socket
+     * @return index of its node, or 0 if it is not the identity of a node
+     */
+    private static int indexOf(byte[] identity) {
+        String name = new String(identity, StandardCharsets.UTF_8);
+        if (!name.startsWith("node-"))
+            return 0;
+        try {
+            return Integer.parseInt(name.substring("node-".length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+}
@@ -1,6 +1,13 @@
 package dcnet;
 
+import crypto.EllipticCurveGroup;
+import crypto.ExponentPolicy;
+import crypto.Group;
+import crypto.ModPGroup;
+import crypto.TranscriptScheme;
 import json.ParticipantNodeInfoFromDirectory;
+import json.WireCodec;
+import keygeneration.KeyGenerationStrategy;
 import participantnode.ParticipantNode;
 
 import java.math.BigInteger;
@@ -16,14 +23,20 @@ public class Room {
     private HashMap<Integer, ParticipantNode> directoryMap = new HashMap<>();
     private int roomSize;
     private boolean nonProbabilisticMode;
-    private BigInteger g, h, q, p;
+    private Group group;
+    private BigInteger messageModulus;
+    private RoomContext context;
     private int l;
     private int padLength;
+    private TranscriptScheme transcriptScheme = TranscriptScheme.LEGACY;
+    private ExponentPolicy exponentPolicy = ExponentPolicy.FULL;
+    private KeyGenerationStrategy keyGenerationStrategy = KeyGenerationStrategy.DIFFIE_HELLMAN;
+    private WireCodec wireCodec;
 
     /**
-     *
+     * Empty room, configured later with {@link #setRoomInfoFromDirectory(InfoFromDirectory)}
      */
-    Room() {
+    public Room() {
     }
 
     /**
@@ -56,45 +69,118 @@ public class Room {
      * @param infoFromDirectory info of nodes
      */
     public void setRoomInfoFromDirectory(InfoFromDirectory infoFromDirectory) {
-        this.g = infoFromDirectory.getG();
-        this.h = infoFromDirectory.getH();
-        this.q = infoFromDirectory.getQ();
-        this.p = infoFromDirectory.getP();
         this.l = infoFromDirectory.getL();
         this.padLength = infoFromDirectory.getPadLength();
         this.nonProbabilisticMode = infoFromDirectory.getNonProbabilistic();
         ParticipantNodeInfoFromDirectory[] nodes = infoFromDirectory.getNodes();
         this.roomSize = nodes.length;
+        // Rooms of directories that do not announce a group keep the group of Z_p* given by (p, q, g, h)
+        String groupName = infoFromDirectory.getGroup();
+        if (groupName == null || groupName.equals(ModPGroup.NAME)) {
+            this.group = new ModPGroup(infoFromDirectory.getP(), infoFromDirectory.getQ(), infoFromDirectory.getG(),
+                    infoFromDirectory.getH());
+            this.messageModulus = infoFromDirectory.getP();
+        } else {
+            this.group = EllipticCurveGroup.named(groupName);
+            this.messageModulus = this.group.getOrder();
+        }
+        this.context = new RoomContext(this.group, this.roomSize, this.padLength);
+        if (!(this.group instanceof ModPGroup)) {
+            // Messages are exponents of g, so the sum of the messages of the room has to fit in Z_q
+            BigInteger nPlusOne = this.context.getNPlusOne();
+            BigInteger maxSumOfMessages = BigInteger.ONE.shiftLeft(8 * this.l)
+                    .multiply(this.context.getPlainMessageFactor()).multiply(nPlusOne)
+                    .multiply(BigInteger.valueOf(this.roomSize));
+            if (maxSumOfMessages.compareTo(this.messageModulus) >= 0)
+                throw new IllegalArgumentException("Messages of the room do not fit in the order of " + groupName);
+        }
+        // Rooms of directories that do not announce a transcript format keep the legacy one
+        this.transcriptScheme = TranscriptScheme.fromDirectory(infoFromDirectory.getTranscriptFormat(),
+                infoFromDirectory.getTranscriptHash());
+        // Rooms of directories that do not announce an exponent policy draw full length exponents
+        this.exponentPolicy = ExponentPolicy.fromDirectory(infoFromDirectory.getExponentPolicy(),
+                infoFromDirectory.getShortExponentBits());
+        // Rooms of directories that do not announce a key generation keep a Diffie-Hellman agreement in each round
+        this.keyGenerationStrategy = KeyGenerationStrategy.fromName(infoFromDirectory.getKeyGeneration());
+        // Rooms of directories that do not announce a wire format send JSON, which every node understands
+        this.wireCodec = WireCodec.fromDirectory(infoFromDirectory.getWireFormat(), this.group);
         for (ParticipantNodeInfoFromDirectory node : nodes)
             this.directoryMap.put(node.getIndex(), new ParticipantNode(node.getIp()));
     }
 
     /**
-     * @return generator g
+     * @return group \(G_q\) where the commitments and proofs of the room are computed
+     */
+    public Group getGroup() {
+        return group;
+    }
+
+    /**
+     * @return constants of the room computed when it was configured
+     */
+    public RoomContext getContext() {
+        return context;
+    }
+
+    /**
+     * @return scheme used to compute the challenges of the proofs of the room
+     */
+    public TranscriptScheme getTranscriptScheme() {
+        return transcriptScheme;
+    }
+
+    /**
+     * @return policy used to draw the secret exponents of the key agreements
+     */
+    public ExponentPolicy getExponentPolicy() {
+        return exponentPolicy;
+    }
+
+    /**
+     * Override the exponent policy announced by the directory. Each node draws its exponents alone, so the policy
+     * does not need to match the one of the other nodes
+     *
+     * @param exponentPolicy policy used to draw the secret exponents of the key agreements
+     */
+    public void setExponentPolicy(ExponentPolicy exponentPolicy) {
+        this.exponentPolicy = exponentPolicy;
+    }
+
+    /**
+     * @return strategy used to generate the keys of each round
+     */
+    public KeyGenerationStrategy getKeyGenerationStrategy() {
+        return keyGenerationStrategy;
+    }
+
+    /**
+     * Override the key generation strategy announced by the directory. Every node of the room must use the same one
+     *
+     * @param keyGenerationStrategy strategy used to generate the keys of each round
      */
-    public BigInteger getG() {
-        return g;
+    public void setKeyGenerationStrategy(KeyGenerationStrategy keyGenerationStrategy) {
+        this.keyGenerationStrategy = keyGenerationStrategy;
     }
 
     /**
-     * @return generator h
+     * @return codec of the messages broadcast to the room
      */
-    public BigInteger getH() {
-        return h;
+    public WireCodec getWireCodec() {
+        return wireCodec;
     }
 
     /**
-     * @return large prime q
+     * @return large prime order q of the group
      */
     public BigInteger getQ() {
-        return q;
+        return group.getOrder();
     }
 
     /**
-     * @return large prime p
+     * @return modulus of the sums of the messages of the room (p for groups of \(\mathbb{Z}_p^*\), q otherwise)
      */
-    public BigInteger getP() {
-        return p;
+    public BigInteger getMessageModulus() {
+        return messageModulus;
     }
 
     /**
@@ -0,0 +1,158 @@
+package dcnet;
+
+import crypto.Group;
+import crypto.GroupElement;
+
+import java.math.BigInteger;
+
+/**
+ * Constants of a room derived from the info sent by the directory node. They are computed once, when the room is
+ * configured, so the rounds of the protocol only read them. Instances are immutable and can be shared between threads
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public final class RoomContext {
+
+    /**
+     * Group \(G_q\) of the room
+     */
+    private final Group group;
+
+    /**
+     * Generators of the group, that hold its precomputed fixed-base tables
+     */
+    private final GroupElement g, h;
+
+    /**
+     * Inverses \(g^{-1}\) and \(h^{-1}\) of the generators
+     */
+    private final GroupElement inverseOfG, inverseOfH;
+
+    /**
+     * Number of nodes plus one \((n+1)\)
+     */
+    private final BigInteger nPlusOne;
+
+    /**
+     * \(2^{8z}\), with \(z\) the random padding length in bytes
+     */
+    private final BigInteger twoToThePadLength;
+
+    /**
+     * \(2^{8z}(n+1)\), factor that leaves room for the random padding and the sum of the room in a message
+     */
+    private final BigInteger plainMessageFactor;
+
+    /**
+     * Exponents \((2^{8z}(n+1)^2, n+1, 1)\) of the commitments on plain message, random padding and final bit in the
+     * commitment on message
+     */
+    private final BigInteger[] commitmentOnMessageExponents;
+
+    /**
+     * Bit length of the order \(q\)
+     */
+    private final int qBitLength;
+
+    /**
+     * Constructor for dcnet.RoomContext class
+     *
+     * @param group     group \(G_q\) of the room
+     * @param roomSize  number of nodes \(n\) of the room
+     * @param padLength random padding length \(z\) in bytes
+     */
+    public RoomContext(Group group, int roomSize, int padLength) {
+        this.group = group;
+        this.g = group.getG();
+        this.h = group.getH();
+        this.inverseOfG = this.g.inverse();
+        this.inverseOfH = this.h.inverse();
+        this.nPlusOne = BigInteger.valueOf(roomSize + 1);
+        this.twoToThePadLength = BigInteger.ONE.shiftLeft(8 * padLength);
+        this.plainMessageFactor = this.twoToThePadLength.multiply(this.nPlusOne);
+        this.commitmentOnMessageExponents = new BigInteger[]{this.plainMessageFactor.multiply(this.nPlusOne),
+                this.nPlusOne, BigInteger.ONE};
+        this.qBitLength = group.getOrder().bitLength();
+    }
+
+    /**
+     * @return group \(G_q\) of the room
+     */
+    public Group getGroup() {
+        return group;
+    }
+
+    /**
+     * @return generator \(g\), whose powers use the precomputed table of the group
+     */
+    public GroupElement getG() {
+        return g;
+    }
+
+    /**
+     * @return generator \(h\), whose powers use the precomputed table of the group
+     */
+    public GroupElement getH() {
+        return h;
+    }
+
+    /**
+     * @return \(g^{-1}\)
+     */
+    public GroupElement getInverseOfG() {
+        return inverseOfG;
+    }
+
+    /**
+     * @return \(h^{-1}\)
+     */
+    public GroupElement getInverseOfH() {
+        return inverseOfH;
+    }
+
+    /**
+     * @return \(n+1\)
+     */
+    public BigInteger getNPlusOne() {
+        return nPlusOne;
+    }
+
+    /**
+     * @return \(2^{8z}\)
+     */
+    public BigInteger getTwoToThePadLength() {
+        return twoToThePadLength;
+    }
+
+    /**
+     * @return \(2^{8z}(n+1)\)
+     */
+    public BigInteger getPlainMessageFactor() {
+        return plainMessageFactor;
+    }
+
+    /**
+     * Calculate the commitment on message \(C = (C_m^{2^{8z}(n+1)} C_r)^{n+1} C_b\) as the single multi-exponentiation
+     * \(C_m^{2^{8z}(n+1)^2} C_r^{n+1} C_b\)
+     *
+     * @param commitmentOnPlainMessage  commitment \(C_m\) on plain message
+     * @param commitmentOnRandomPadding commitment \(C_r\) on random padding
+     * @param commitmentOnFinalBit      commitment \(C_b\) on final bit
+     * @return commitment on message
+     */
+    public GroupElement commitmentOnMessage(GroupElement commitmentOnPlainMessage,
+                                            GroupElement commitmentOnRandomPadding,
+                                            GroupElement commitmentOnFinalBit) {
+        return this.group.multiExponentiation(
+                new GroupElement[]{commitmentOnPlainMessage, commitmentOnRandomPadding, commitmentOnFinalBit},
+                this.commitmentOnMessageExponents);
+    }
+
+    /**
+     * @return bit length of the order \(q\)
+     */
+    public int getQBitLength() {
+        return qBitLength;
+    }
+
+}
@@ -0,0 +1,87 @@
+package json;
+
+/**
+ * Phases of a round, each with the message broadcast to the room in it and the tag that identifies it on binary
+ * frames
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public enum MessageType {
+
+    /**
+     * Commitment on the round key and proof of knowledge of its opening
+     */
+    COMMITMENT_ON_KEY(1, CommitmentAndProofOfKnowledge.class),
+
+    /**
+     * Commitments on the single values of the message and proof of its format
+     */
+    COMMITMENTS_ON_SINGLE_VALUES(2, CommitmentsOnSingleValuesAndProofOfKnowledgeMessageFormat.class),
+
+    /**
+     * Proof of knowledge of the opening of the commitment on the message
+     */
+    PROOF_ON_MESSAGE(3, ProofOfKnowledgePedersen.class),
+
+    /**
+     * Output message of the first round, with the proof of knowledge of its randomness
+     */
+    OUTPUT_MESSAGE(4, OutputMessageAndProofOfKnowledge.class),
+
+    /**
+     * Output message of a round whose father round is real, with its proof of resending
+     */
+    OUTPUT_MESSAGE_RESENDING_REAL(5, OutputMessageAndProofOfKnowledgeResendingFatherRoundReal.class),
+
+    /**
+     * Output message of a round whose father round is virtual, with its proof of resending
+     */
+    OUTPUT_MESSAGE_RESENDING_VIRTUAL(6, OutputMessageAndProofOfKnowledgeResendingFatherRoundVirtual.class);
+
+    private final byte tag;
+
+    private final Class<?> messageClass;
+
+    MessageType(int tag, Class<?> messageClass) {
+        this.tag = (byte) tag;
+        this.messageClass = messageClass;
+    }
+
+    /**
+     * @return first byte of the binary frames of this type
+     */
+    public byte getTag() {
+        return tag;
+    }
+
+    /**
+     * @return class of the messages of this type
+     */
+    public Class<?> getMessageClass() {
+        return messageClass;
+    }
+
+    /**
+     * @param tag first byte of a frame
+     * @return type with that tag, or null if no type has it (e.g. the '{' of a JSON frame)
+     */
+    public static MessageType fromTag(byte tag) {
+        for (MessageType type : values())
+            if (type.tag == tag)
+                return type;
+        return null;
+    }
+
+    /**
+     * @param messageClass class of a message
+     * @return type of the messages of that class
+     * @throws IllegalArgumentException if the class is not a message of the protocol
+     */
+    public static MessageType of(Class<?> messageClass) {
+        for (MessageType type : values())
+            if (type.messageClass == messageClass)
+                return type;
+        throw new IllegalArgumentException("Not a protocol message: " + messageClass.getName());
+    }
+
+}
@@ -0,0 +1,58 @@
+package json;
+
+/**
+ * Message broadcast to the room together with the header that routes it: the round and the phase where it was sent,
+ * and the index of the node that sent it
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public class PhaseMessage {
+
+    private final int round;
+    private final MessageType phase;
+    private final int sender;
+    private final Object message;
+
+    /**
+     * Constructor for json.PhaseMessage class
+     *
+     * @param round   round where the message was sent
+     * @param sender  index of the node that sent the message
+     * @param message message of one of the {@link MessageType}s, which is also its phase
+     */
+    public PhaseMessage(int round, int sender, Object message) {
+        this.round = round;
+        this.phase = MessageType.of(message.getClass());
+        this.sender = sender;
+        this.message = message;
+    }
+
+    /**
+     * @return round where the message was sent
+     */
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * @return phase of the round where the message was sent
+     */
+    public MessageType getPhase() {
+        return phase;
+    }
+
+    /**
+     * @return index of the node that sent the message
+     */
+    public int getSender() {
+        return sender;
+    }
+
+    /**
+     * @return message, of the class of its phase
+     */
+    public Object getMessage() {
+        return message;
+    }
+
+}
@@ -0,0 +1,539 @@
+package json;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import crypto.Group;
+import participantnode.OutputMessage;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Class that encodes the messages broadcast to the room as ZMQ frames. Every frame starts with the header of a
+ * {@link PhaseMessage} (round, phase and sender), so the receiver can route it without relying on the order in which
+ * frames arrive. With {@link Format#JSON} a frame is an object with the header fields and the Gson serialization of
+ * the message, where every value is a decimal string. With {@link Format#BINARY} a frame is the tag of its
+ * {@link MessageType}, the round and the sender as varints, and the values of the message: group elements and scalars
+ * of \(\mathbb{Z}_q\) as fixed-width big-endian integers, node indices and array lengths as varints, and the protocol
+ * messages (which are not reduced) as a varint length followed by their two's complement bytes.
+ * <p>
+ * The format of the frames sent is announced by the directory node, and rooms that do not announce one send JSON.
+ * JSON frames carry the header too, so nodes that only know the JSON messages without header can not join a room of
+ * either format. Frames of both formats are always decoded, since no tag is the first byte of a JSON object
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public class WireCodec {
+
+    /**
+     * Format of the frames sent
+     */
+    public enum Format {
+        /**
+         * Gson serialization of the message
+         */
+        JSON,
+        /**
+         * Message type tag followed by fixed-width values
+         */
+        BINARY
+    }
+
+    /**
+     * Gson is thread-safe, so a single instance serializes the messages of all the rooms
+     */
+    private static final Gson GSON = new Gson();
+
+    /**
+     * Fields of the header of JSON frames, and field of their message
+     */
+    private static final String ROUND_FIELD = "round", PHASE_FIELD = "phase", SENDER_FIELD = "sender",
+            MESSAGE_FIELD = "message";
+
+    /**
+     * Format of the frames sent
+     */
+    private final Format format;
+
+    /**
+     * Bytes of each group element and of each scalar of \(\mathbb{Z}_q\) on binary frames
+     */
+    private final int elementLength, scalarLength;
+
+    /**
+     * Constructor for json.WireCodec class
+     *
+     * @param format format of the frames sent
+     * @param group  group \(G_q\) of the commitments and proofs of the room
+     */
+    public WireCodec(Format format, Group group) {
+        this.format = format;
+        this.elementLength = group.getElementLength();
+        this.scalarLength = (group.getOrder().bitLength() + 7) / 8;
+    }
+
+    /**
+     * Codec announced by the directory node. A missing format falls back to JSON
+     *
+     * @param format name of the format ("json" or "binary"), or null
+     * @param group  group \(G_q\) of the commitments and proofs of the room
+     * @return codec of the room
+     * @throws IllegalArgumentException if there is no format with that name
+     */
+    public static WireCodec fromDirectory(String format, Group group) {
+        if (format == null)
+            return new WireCodec(Format.JSON, group);
+        try {
+            return new WireCodec(Format.valueOf(format.trim().toUpperCase()), group);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown wire format " + format + ", expected one of " +
+                    Arrays.toString(Format.values()));
+        }
+    }
+
+    /**
+     * @return format of the frames sent
+     */
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * @param phaseMessage message of one of the {@link MessageType}s and its header
+     * @return frame with the header and the message, in the format of the codec
+     */
+    public byte[] encode(PhaseMessage phaseMessage) {
+        MessageType type = phaseMessage.getPhase();
+        Object message = phaseMessage.getMessage();
+        if (this.format == Format.JSON) {
+            JsonObject object = new JsonObject();
+            object.addProperty(ROUND_FIELD, phaseMessage.getRound());
+            object.addProperty(PHASE_FIELD, type.name());
+            object.addProperty(SENDER_FIELD, phaseMessage.getSender());
+            object.add(MESSAGE_FIELD, GSON.toJsonTree(message, type.getMessageClass()));
+            return GSON.toJson(object).getBytes(StandardCharsets.UTF_8);
+        }
+        Writer writer = new Writer();
+        writer.writeByte(type.getTag());
+        writer.writeVarint(phaseMessage.getRound());
+        writer.writeVarint(phaseMessage.getSender());
+        writeBody(writer, type, message);
+        return writer.toByteArray();
+    }
+
+    /**
+     * @param writer  binary frame, past its header
+     * @param type    type of the message
+     * @param message message of that type
+     */
+    private void writeBody(Writer writer, MessageType type, Object message) {
+        switch (type) {
+            case COMMITMENT_ON_KEY:
+                CommitmentAndProofOfKnowledge commitmentOnKey = (CommitmentAndProofOfKnowledge) message;
+                writer.writeFixed(commitmentOnKey.getCommitment(), this.elementLength);
+                writeProofOfKnowledgePedersen(writer, commitmentOnKey.getProofOfKnowledge());
+                break;
+            case COMMITMENTS_ON_SINGLE_VALUES:
+                CommitmentsOnSingleValuesAndProofOfKnowledgeMessageFormat singleValues =
+                        (CommitmentsOnSingleValuesAndProofOfKnowledgeMessageFormat) message;
+                writeCommitmentsOnSingleValues(writer, singleValues.getCommitmentsOnSingleValues());
+                writeProofOfKnowledgeMessageFormat(writer, singleValues.getProofOfKnowledgeMessageFormat());
+                break;
+            case PROOF_ON_MESSAGE:
+                writeProofOfKnowledgePedersen(writer, (ProofOfKnowledgePedersen) message);
+                break;
+            case OUTPUT_MESSAGE:
+                OutputMessageAndProofOfKnowledge output = (OutputMessageAndProofOfKnowledge) message;
+                writer.writeInteger(output.getOutputMessage().getProtocolMessage());
+                writeProofOfKnowledge(writer, output.getProofOfKnowledge());
+                break;
+            case OUTPUT_MESSAGE_RESENDING_REAL:
+                OutputMessageAndProofOfKnowledgeResendingFatherRoundReal outputReal =
+                        (OutputMessageAndProofOfKnowledgeResendingFatherRoundReal) message;
+                writer.writeInteger(outputReal.getOutputMessage().getProtocolMessage());
+                writeProofOfKnowledgeResendingFatherRoundReal(writer,
+                        outputReal.getProofOfKnowledgeResendingFatherRoundReal());
+                break;
+            case OUTPUT_MESSAGE_RESENDING_VIRTUAL:
+                OutputMessageAndProofOfKnowledgeResendingFatherRoundVirtual outputVirtual =
+                        (OutputMessageAndProofOfKnowledgeResendingFatherRoundVirtual) message;
+                writer.writeInteger(outputVirtual.getOutputMessage().getProtocolMessage());
+                writeProofOfKnowledgeResendingFatherRoundVirtual(writer,
+                        outputVirtual.getProofOfKnowledgeResendingFatherRoundVirtual());
+                break;
+            default:
+                throw new IllegalStateException("Unknown message type " + type);
+        }
+    }
+
+    /**
+     * Decode a frame and its header. Binary frames carry their phase in their tag, and JSON frames in their phase field
+     *
+     * @param frame frame received from the room, in any format
+     * @return message of the frame, of the class of its phase, and its header
+     * @throws IllegalArgumentException if the frame is malformed, is not a message of the protocol, has a missing or
+     *                                  out of range value, or its sender is not the node the message belongs to
+     */
+    public PhaseMessage decode(byte[] frame) {
+        MessageType phase = frame.length == 0 ? null : MessageType.fromTag(frame[0]);
+        int round, sender;
+        Object message;
+        if (phase != null) {
+            Reader reader = new Reader(frame, 1);
+            round = reader.readVarint();
+            sender = reader.readVarint();
+            message = decodeBinary(reader, phase);
+        } else {
+            JsonObject object;
+            try {
+                JsonElement json = new JsonParser().parse(new String(frame, StandardCharsets.UTF_8));
+                object = json.getAsJsonObject();
+                round = object.get(ROUND_FIELD).getAsInt();
+                phase = MessageType.valueOf(object.get(PHASE_FIELD).getAsString());
+                sender = object.get(SENDER_FIELD).getAsInt();
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Malformed JSON frame", e);
+            }
+            try {
+                message = GSON.fromJson(object.get(MESSAGE_FIELD), phase.getMessageClass());
+                // Writing the values as on a binary frame checks that none is missing or out of range
+                writeBody(new Writer(), phase, message);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Malformed JSON message", e);
+            }
+        }
+        if (nodeIndexOf(message, phase) != sender)
+            throw new IllegalArgumentException("Frame of node " + sender + " carries a message of node " +
+                    nodeIndexOf(message, phase));
+        return new PhaseMessage(round, sender, message);
+    }
+
+    /**
+     * @param reader binary frame, past its header
+     * @param type   type of its tag
+     * @return message of the frame
+     */
+    private Object decodeBinary(Reader reader, MessageType type) {
+        Object message;
+        switch (type) {
+            case COMMITMENT_ON_KEY:
+                BigInteger commitmentOnKey = reader.readFixed(this.elementLength);
+                message = new CommitmentAndProofOfKnowledge(commitmentOnKey, readProofOfKnowledgePedersen(reader));
+                break;
+            case COMMITMENTS_ON_SINGLE_VALUES:
+                CommitmentsOnSingleValues commitmentsOnSingleValues = readCommitmentsOnSingleValues(reader);
+                message = new CommitmentsOnSingleValuesAndProofOfKnowledgeMessageFormat(commitmentsOnSingleValues,
+                        readProofOfKnowledgeMessageFormat(reader));
+                break;
+            case PROOF_ON_MESSAGE:
+                message = readProofOfKnowledgePedersen(reader);
+                break;
+            case OUTPUT_MESSAGE:
+                OutputMessage output = new OutputMessage(reader.readInteger());
+                message = new OutputMessageAndProofOfKnowledge(output, readProofOfKnowledge(reader));
+                break;
+            case OUTPUT_MESSAGE_RESENDING_REAL:
+                OutputMessage outputReal = new OutputMessage(reader.readInteger());
+                message = new OutputMessageAndProofOfKnowledgeResendingFatherRoundReal(outputReal,
+                        readProofOfKnowledgeResendingFatherRoundReal(reader));
+                break;
+            case OUTPUT_MESSAGE_RESENDING_VIRTUAL:
+                OutputMessage outputVirtual = new OutputMessage(reader.readInteger());
+                message = new OutputMessageAndProofOfKnowledgeResendingFatherRoundVirtual(outputVirtual,
+                        readProofOfKnowledgeResendingFatherRoundVirtual(reader));
+                break;
+            default:
+                throw new IllegalStateException("Unknown message type " + type);
+        }
+        reader.finish();
+        return message;
+    }
+
+    /**
+     * @param message message of the frame
+     * @param type    type of the message
+     * @return index of the node whose commitments and proofs are in the message
+     */
+    private static int nodeIndexOf(Object message, MessageType type) {
+        switch (type) {
+            case COMMITMENT_ON_KEY:
+                return ((CommitmentAndProofOfKnowledge) message).getProofOfKnowledge().getNodeIndex();
+            case COMMITMENTS_ON_SINGLE_VALUES:
+                return ((CommitmentsOnSingleValuesAndProofOfKnowledgeMessageFormat) message)
+                        .getCommitmentsOnSingleValues().getNodeIndex();
+            case PROOF_ON_MESSAGE:
+                return ((ProofOfKnowledgePedersen) message).getNodeIndex();
+            case OUTPUT_MESSAGE:
+                return ((OutputMessageAndProofOfKnowledge) message).getProofOfKnowledge().getNodeIndex();
+            case OUTPUT_MESSAGE_RESENDING_REAL:
+                return ((OutputMessageAndProofOfKnowledgeResendingFatherRoundReal) message)
+                        .getProofOfKnowledgeResendingFatherRoundReal().getNodeIndex();
+            case OUTPUT_MESSAGE_RESENDING_VIRTUAL:
+                return ((OutputMessageAndProofOfKnowledgeResendingFatherRoundVirtual) message)
+                        .getProofOfKnowledgeResendingFatherRoundVirtual().getNodeIndex();
+            default:
+                throw new IllegalStateException("Unknown message type " + type);
+        }
+    }
+
+    private void writeProofOfKnowledgePedersen(Writer writer, ProofOfKnowledgePedersen proof) {
+        writer.writeFixed(proof.getD(), this.elementLength);
+        writer.writeFixed(proof.getU(), this.scalarLength);
+        writer.writeFixed(proof.getV(), this.scalarLength);
+        writer.writeVarint(proof.getNodeIndex());
+    }
+
+    private ProofOfKnowledgePedersen readProofOfKnowledgePedersen(Reader reader) {
+        BigInteger d = reader.readFixed(this.elementLength);
+        BigInteger u = reader.readFixed(this.scalarLength);
+        BigInteger v = reader.readFixed(this.scalarLength);
+        return new ProofOfKnowledgePedersen(d, u, v, reader.readVarint());
+    }
+
+    private void writeProofOfKnowledge(Writer writer, ProofOfKnowledge proof) {
+        writer.writeFixed(proof.getG(), this.elementLength);
+        writer.writeFixed(proof.getZ(), this.elementLength);
+        writer.writeFixed(proof.getA(), this.scalarLength);
+        writer.writeVarint(proof.getNodeIndex());
+    }
+
+    private ProofOfKnowledge readProofOfKnowledge(Reader reader) {
+        BigInteger g = reader.readFixed(this.elementLength);
+        BigInteger z = reader.readFixed(this.elementLength);
+        BigInteger a = reader.readFixed(this.scalarLength);
+        return new ProofOfKnowledge(g, z, a, reader.readVarint());
+    }
+
+    private void writeCommitmentsOnSingleValues(Writer writer, CommitmentsOnSingleValues commitments) {
+        writer.writeFixed(commitments.getCommitmentOnPlainMessage(), this.elementLength);
+        writer.writeFixed(commitments.getCommitmentOnRandomPadding(), this.elementLength);
+        writer.writeFixed(commitments.getCommitmentOnFinalBit(), this.elementLength);
+        writer.writeVarint(commitments.getNodeIndex());
+    }
+
+    private CommitmentsOnSingleValues readCommitmentsOnSingleValues(Reader reader) {
+        BigInteger commitmentOnPlainMessage = reader.readFixed(this.elementLength);
+        BigInteger commitmentOnRandomPadding = reader.readFixed(this.elementLength);
+        BigInteger commitmentOnFinalBit = reader.readFixed(this.elementLength);
+        return new CommitmentsOnSingleValues(commitmentOnPlainMessage, commitmentOnRandomPadding, commitmentOnFinalBit,
+                reader.readVarint());
+    }
+
+    private void writeProofOfKnowledgeMessageFormat(Writer writer, ProofOfKnowledgeMessageFormat proof) {
+        writer.writeFixed(proof.getC1(), this.scalarLength);
+        writer.writeFixed(proof.getC2(), this.scalarLength);
+        writer.writeFixed(proof.getZ1(), this.elementLength);
+        writer.writeFixed(proof.getZ2(), this.elementLength);
+        writer.writeFixed(proof.getZ3(), this.elementLength);
+        writer.writeFixed(proof.getA1(), this.scalarLength);
+        writer.writeFixed(proof.getA2(), this.scalarLength);
+        writer.writeFixed(proof.getA3(), this.scalarLength);
+        writer.writeVarint(proof.getNodeIndex());
+    }
+
+    private ProofOfKnowledgeMessageFormat readProofOfKnowledgeMessageFormat(Reader reader) {
+        BigInteger c1 = reader.readFixed(this.scalarLength);
+        BigInteger c2 = reader.readFixed(this.scalarLength);
+        BigInteger z1 = reader.readFixed(this.elementLength);
+        BigInteger z2 = reader.readFixed(this.elementLength);
+        BigInteger z3 = reader.readFixed(this.elementLength);
+        BigInteger a1 = reader.readFixed(this.scalarLength);
+        BigInteger a2 = reader.readFixed(this.scalarLength);
+        BigInteger a3 = reader.readFixed(this.scalarLength);
+        return new ProofOfKnowledgeMessageFormat(c1, c2, z1, z2, z3, a1, a2, a3, reader.readVarint());
+    }
+
+    private void writeProofOfKnowledgeResendingFatherRoundReal(Writer writer,
+                                                               ProofOfKnowledgeResendingFatherRoundReal proof) {
+        writer.writeFixed(proof.getC1(), this.scalarLength);
+        writer.writeFixed(proof.getC2(), this.scalarLength);
+        writer.writeFixed(proof.getZ1(), this.elementLength);
+        writer.writeFixed(proof.getZ2(), this.elementLength);
+        writer.writeFixed(proof.getA1(), this.scalarLength);
+        writer.writeFixed(proof.getA2(), this.scalarLength);
+        writer.writeVarint(proof.getNodeIndex());
+    }
+
+    private ProofOfKnowledgeResendingFatherRoundReal readProofOfKnowledgeResendingFatherRoundReal(Reader reader) {
+        BigInteger c1 = reader.readFixed(this.scalarLength);
+        BigInteger c2 = reader.readFixed(this.scalarLength);
+        BigInteger z1 = reader.readFixed(this.elementLength);
+        BigInteger z2 = reader.readFixed(this.elementLength);
+        BigInteger a1 = reader.readFixed(this.scalarLength);
+        BigInteger a2 = reader.readFixed(this.scalarLength);
+        return new ProofOfKnowledgeResendingFatherRoundReal(c1, c2, z1, z2, a1, a2, reader.readVarint());
+    }
+
+    private void writeProofOfKnowledgeResendingFatherRoundVirtual(Writer writer,
+                                                                  ProofOfKnowledgeResendingFatherRoundVirtual proof) {
+        writer.writeFixed(proof.getC1(), this.scalarLength);
+        writer.writeFixed(proof.getC2(), this.scalarLength);
+        writer.writeFixed(proof.getZ1(), this.elementLength);
+        writer.writeFixed(proof.getZ2(), this.elementLength);
+        writer.writeFixedArray(proof.getZj(), this.elementLength);
+        writer.writeFixed(proof.getA1(), this.scalarLength);
+        writer.writeFixed(proof.getA2(), this.scalarLength);
+        writer.writeFixedArray(proof.getAj(), this.scalarLength);
+        writer.writeVarint(proof.getNodeIndex());
+    }
+
+    private ProofOfKnowledgeResendingFatherRoundVirtual readProofOfKnowledgeResendingFatherRoundVirtual(
+            Reader reader) {
+        BigInteger c1 = reader.readFixed(this.scalarLength);
+        BigInteger c2 = reader.readFixed(this.scalarLength);
+        BigInteger z1 = reader.readFixed(this.elementLength);
+        BigInteger z2 = reader.readFixed(this.elementLength);
+        BigInteger[] zj = reader.readFixedArray(this.elementLength);
+        BigInteger a1 = reader.readFixed(this.scalarLength);
+        BigInteger a2 = reader.readFixed(this.scalarLength);
+        BigInteger[] aj = reader.readFixedArray(this.scalarLength);
+        return new ProofOfKnowledgeResendingFatherRoundVirtual(c1, c2, z1, z2, zj, a1, a2, aj, reader.readVarint());
+    }
+
+    /**
+     * Growing buffer where a binary frame is written
+     */
+    private static final class Writer {
+
+        private byte[] bytes = new byte[1024];
+        private int length;
+
+        void writeByte(byte value) {
+            ensureCapacity(1);
+            this.bytes[this.length++] = value;
+        }
+
+        /**
+         * Non negative integer in groups of 7 bits, least significant first, with the high bit set on all the bytes
+         * but the last one
+         */
+        void writeVarint(int value) {
+            if (value < 0)
+                throw new IllegalArgumentException("Negative varint " + value);
+            while (value >= 0x80) {
+                writeByte((byte) (value | 0x80));
+                value >>>= 7;
+            }
+            writeByte((byte) value);
+        }
+
+        /**
+         * Non negative integer as exactly width bytes, big-endian
+         */
+        void writeFixed(BigInteger value, int width) {
+            if (value.signum() < 0 || value.bitLength() > 8 * width)
+                throw new IllegalArgumentException("Value does not fit in " + width + " bytes");
+            byte[] magnitude = value.toByteArray();
+            // toByteArray adds a zero sign byte when the highest bit is set
+            int offset = magnitude.length > width ? 1 : 0;
+            int valueLength = magnitude.length - offset;
+            ensureCapacity(width);
+            Arrays.fill(this.bytes, this.length, this.length + width - valueLength, (byte) 0);
+            System.arraycopy(magnitude, offset, this.bytes, this.length + width - valueLength, valueLength);
+            this.length += width;
+        }
+
+        void writeFixedArray(BigInteger[] values, int width) {
+            writeVarint(values.length);
+            for (BigInteger value : values)
+                writeFixed(value, width);
+        }
+
+        /**
+         * Integer of any sign and size as its length followed by its two's complement bytes
+         */
+        void writeInteger(BigInteger value) {
+            byte[] twosComplement = value.toByteArray();
+            writeVarint(twosComplement.length);
+            ensureCapacity(twosComplement.length);
+            System.arraycopy(twosComplement, 0, this.bytes, this.length, twosComplement.length);
+            this.length += twosComplement.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(this.bytes, this.length);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (this.length + extra > this.bytes.length)
+                this.bytes = Arrays.copyOf(this.bytes, Math.max(2 * this.bytes.length, this.length + extra));
+        }
+
+    }
+
+    /**
+     * Cursor over a binary frame that rejects truncated and oversized frames
+     */
+    private static final class Reader {
+
+        private final byte[] bytes;
+        private int position;
+
+        Reader(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    if (value < 0)
+                        throw new IllegalArgumentException("Varint out of range");
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Varint too long");
+        }
+
+        BigInteger readFixed(int width) {
+            require(width);
+            BigInteger value = new BigInteger(1, Arrays.copyOfRange(this.bytes, this.position, this.position + width));
+            this.position += width;
+            return value;
+        }
+
+        BigInteger[] readFixedArray(int width) {
+            int count = readVarint();
+            // The count is checked before allocating, so a forged count can not exhaust the memory
+            if (count > (this.bytes.length - this.position) / width)
+                throw new IllegalArgumentException("Truncated frame");
+            BigInteger[] values = new BigInteger[count];
+            for (int i = 0; i < count; i++)
+                values[i] = readFixed(width);
+            return values;
+        }
+
+        BigInteger readInteger() {
+            int length = readVarint();
+            if (length == 0)
+                throw new IllegalArgumentException("Empty integer");
+            require(length);
+            BigInteger value = new BigInteger(Arrays.copyOfRange(this.bytes, this.position, this.position + length));
+            this.position += length;
+            return value;
+        }
+
+        void finish() {
+            if (this.position != this.bytes.length)
+                throw new IllegalArgumentException("Trailing bytes in frame");
+        }
+
+        private byte readByte() {
+            require(1);
+            return this.bytes[this.position++];
+        }
+
+        private void require(int length) {
+            if (length > this.bytes.length - this.position)
+                throw new IllegalArgumentException("Truncated frame");
+        }
+
+    }
+
+}
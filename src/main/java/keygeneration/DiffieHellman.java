@@ -1,17 +1,18 @@
 package keygeneration;
 
+import crypto.ExponentPolicy;
+import crypto.Group;
+import dcnet.PeerChannel;
 import dcnet.Room;
-import org.zeromq.ZMQ;
 
 import java.math.BigInteger;
-import java.util.Random;
 
 /**
  *
  */
 public class DiffieHellman implements KeyGeneration {
 
-    private final BigInteger g, p;
+    private final Group group;
     private BigInteger[] exponentValuesForKeys;
     private BigInteger[] exponentValuesForRandomShares; //
 
@@ -21,35 +22,46 @@ public class DiffieHellman implements KeyGeneration {
 
     private int nodeIndex;
 
-    private ZMQ.Socket[] repliers, requestors;
+    private PeerExchange peerExchange;
     private Room room;
+    private ParallelKeyDerivation parallelKeyDerivation;
 
     private BigInteger[] participantNodeSharedRandomValueHalves; //
     private BigInteger[] otherParticipantNodeSharedRandomValueHalves; //
     private BigInteger[] sharedRandomValues; //
 
     /**
-     * @param n          number of participant nodes that need to share a key
-     * @param g          generator g
-     * @param p          large prime p
-     * @param nodeIndex  index of current participant node
-     * @param repliers   sockets repliers of current participant node
-     * @param requestors sockets requestors of current participant node
-     * @param room       room where the current participant node is sending messages
+     * @param n           number of participant nodes that need to share a key
+     * @param group       group \(G_q\) of the room, whose generator g is the base of the halves
+     * @param nodeIndex   index of current participant node
+     * @param peerChannel channel of current participant node with the other nodes of the room
+     * @param room        room where the current participant node is sending messages
      */
-    public DiffieHellman(int n, BigInteger g, BigInteger p, int nodeIndex, ZMQ.Socket[] repliers, ZMQ.Socket[] requestors, Room room) {
-        this.g = g;
-        this.p = p;
+    public DiffieHellman(int n, Group group, int nodeIndex, PeerChannel peerChannel, Room room) {
+        this(n, group, nodeIndex, peerChannel, room, PeerExchange.Mode.CONCURRENT);
+    }
+
+    /**
+     * @param n            number of participant nodes that need to share a key
+     * @param group        group \(G_q\) of the room, whose generator g is the base of the halves
+     * @param nodeIndex    index of current participant node
+     * @param peerChannel  channel of current participant node with the other nodes of the room
+     * @param room         room where the current participant node is sending messages
+     * @param exchangeMode order in which the halves are exchanged with the other participant nodes
+     */
+    public DiffieHellman(int n, Group group, int nodeIndex, PeerChannel peerChannel, Room room,
+                         PeerExchange.Mode exchangeMode) {
+        this.group = group;
         this.exponentValuesForKeys = new BigInteger[n];
         exponentValuesForRandomShares = new BigInteger[n];
+        ExponentPolicy exponentPolicy = room.getExponentPolicy();
         for (int i = 0; i < exponentValuesForKeys.length; i++) {
-            exponentValuesForKeys[i] = new BigInteger(p.bitCount(), new Random());
-            exponentValuesForRandomShares[i] = new BigInteger(p.bitCount(), new Random()); //
+            exponentValuesForKeys[i] = exponentPolicy.randomExponent(group);
+            exponentValuesForRandomShares[i] = exponentPolicy.randomExponent(group); //
         }
         this.participantNodeHalves = new BigInteger[n];
         this.nodeIndex = nodeIndex;
-        this.repliers = repliers;
-        this.requestors = requestors;
+        this.peerExchange = new PeerExchange(nodeIndex, peerChannel, room, exchangeMode);
         this.room = room;
         this.roundKeys = new BigInteger[n];
 
@@ -63,62 +75,77 @@ public class DiffieHellman implements KeyGeneration {
      */
     @Override
     public BigInteger[] generateParticipantNodeValues() {
-        for (int i = 0; i < this.participantNodeHalves.length; i++) {
-            this.participantNodeHalves[i] = this.g.modPow(exponentValuesForKeys[i], this.p);
-            this.participantNodeSharedRandomValueHalves[i] = this.g.modPow(exponentValuesForRandomShares[i], this.p);
-        }
+        final int n = this.participantNodeHalves.length;
+        // Indexes [0, n) are the halves of the keys and [n, 2n) the halves of the shared random values
+        ParallelKeyDerivation.forEach(parallelKeyDerivation, 2 * n, room.getRoomSize(),
+                new ParallelKeyDerivation.IndexedTask() {
+                    @Override
+                    public void run(int i) {
+                        if (i < n)
+                            participantNodeHalves[i] = powerOfG(exponentValuesForKeys[i]);
+                        else
+                            participantNodeSharedRandomValueHalves[i - n] = powerOfG(exponentValuesForRandomShares[i - n]);
+                    }
+                });
         return this.participantNodeHalves;
     }
 
+    /**
+     * @param parallelKeyDerivation threads where the exponentiations are split (null to run them on the calling thread)
+     */
+    public void setParallelKeyDerivation(ParallelKeyDerivation parallelKeyDerivation) {
+        this.parallelKeyDerivation = parallelKeyDerivation;
+    }
+
+    /**
+     * @param exponent exponent a
+     * @return encoding of g^a
+     */
+    private BigInteger powerOfG(BigInteger exponent) {
+        return this.group.getG().power(exponent).encode();
+    }
+
+    /**
+     * @param otherHalf encoding of the half g^b of other participant node
+     * @param exponent  exponent a
+     * @return encoding of the shared key g^(ab)
+     */
+    private BigInteger sharedKey(BigInteger otherHalf, BigInteger exponent) {
+        return this.group.decode(otherHalf).power(exponent).encode();
+    }
+
     /**
      * @return other participant nodes "halves" of the shared key (g^b)
      */
     @Override
     public BigInteger[] getOtherParticipantNodesValues() {
-        int i = 0;
-        BigInteger[] otherNodesKeyHalves = new BigInteger[room.getRoomSize() - 1];
-        // The "first" node doesn't have any replier sockets
-        if (nodeIndex != 1)
-            for (ZMQ.Socket replier : repliers) {
-                // The replier wait to receive a key share
-                otherNodesKeyHalves[i] = new BigInteger(replier.recvStr());
-                // When the replier receives the message, replies with one of their key shares
-                replier.send(participantNodeHalves[i].toString());
-                i++;
-            }
-        // The "last" node doesn't have any requestor sockets
-        if (nodeIndex != room.getRoomSize())
-            for (ZMQ.Socket requestor : requestors) {
-                // The requestor sends a key share
-                requestor.send(participantNodeHalves[i].toString());
-                // The requestor waits to receive a reply with one of the key shares
-                otherNodesKeyHalves[i] = new BigInteger(requestor.recvStr());
-                i++;
-            }
-        this.otherParticipantNodeHalves = otherNodesKeyHalves;
-
-        i = 0;
-        this.otherParticipantNodeSharedRandomValueHalves = new BigInteger[room.getRoomSize() - 1];
-        // The "first" node doesn't have any replier sockets
-        if (nodeIndex != 1)
-            for (ZMQ.Socket replier : repliers) {
-                // The replier wait to receive a key share
-                this.otherParticipantNodeSharedRandomValueHalves[i] = new BigInteger(replier.recvStr());
-                // When the replier receives the message, replies with one of their key shares
-                replier.send(participantNodeSharedRandomValueHalves[i].toString());
-                i++;
-            }
-        // The "last" node doesn't have any requestor sockets
-        if (nodeIndex != room.getRoomSize())
-            for (ZMQ.Socket requestor : requestors) {
-                // The requestor sends a key share
-                requestor.send(participantNodeSharedRandomValueHalves[i].toString());
-                // The requestor waits to receive a reply with one of the key shares
-                this.otherParticipantNodeSharedRandomValueHalves[i] = new BigInteger(requestor.recvStr());
-                i++;
-            }
-
-        return otherNodesKeyHalves;
+        setOtherParticipantNodesFrames(this.peerExchange.exchange(getParticipantNodeFrames()));
+        return otherParticipantNodeHalves;
+    }
+
+    /**
+     * @return frames with the halves of the shared key and of the shared random value for each other participant node
+     */
+    @Override
+    public byte[][] getParticipantNodeFrames() {
+        byte[][] frames = new byte[participantNodeHalves.length][];
+        for (int i = 0; i < frames.length; i++)
+            frames[i] = KeyMaterialFrame.encode(participantNodeHalves[i], participantNodeSharedRandomValueHalves[i]);
+        return frames;
+    }
+
+    /**
+     * @param frames frames with the halves of the shared key and of the shared random value of each other node
+     */
+    @Override
+    public void setOtherParticipantNodesFrames(byte[][] frames) {
+        this.otherParticipantNodeHalves = new BigInteger[frames.length];
+        this.otherParticipantNodeSharedRandomValueHalves = new BigInteger[frames.length];
+        for (int i = 0; i < frames.length; i++) {
+            BigInteger[] values = KeyMaterialFrame.decode(frames[i], 2);
+            this.otherParticipantNodeHalves[i] = values[0];
+            this.otherParticipantNodeSharedRandomValueHalves[i] = values[1];
+        }
     }
 
     /**
@@ -126,16 +153,24 @@ public class DiffieHellman implements KeyGeneration {
      */
     @Override
     public BigInteger getParticipantNodeRoundKeyValue() {
-        int _a = nodeIndex - 1;
-        int i;
-        for (i = 0; i < _a; i++) {
-            roundKeys[i] = otherParticipantNodeHalves[i].modPow(exponentValuesForKeys[i], p).negate();
-            sharedRandomValues[i] = otherParticipantNodeSharedRandomValueHalves[i].modPow(exponentValuesForRandomShares[i], p).negate();
-        }
-        for (int j = i; j < roundKeys.length; j++) {
-            roundKeys[j] = otherParticipantNodeHalves[j].modPow(exponentValuesForKeys[j], p);
-            sharedRandomValues[j] = otherParticipantNodeSharedRandomValueHalves[j].modPow(exponentValuesForRandomShares[j], p);
-        }
+        final int _a = nodeIndex - 1;
+        final int n = roundKeys.length;
+        // Indexes [0, n) are the shared keys and [n, 2n) the shared random values
+        ParallelKeyDerivation.forEach(parallelKeyDerivation, 2 * n, room.getRoomSize(),
+                new ParallelKeyDerivation.IndexedTask() {
+                    @Override
+                    public void run(int i) {
+                        if (i < n) {
+                            BigInteger roundKey = sharedKey(otherParticipantNodeHalves[i], exponentValuesForKeys[i]);
+                            roundKeys[i] = i < _a ? roundKey.negate() : roundKey;
+                        } else {
+                            int j = i - n;
+                            BigInteger sharedRandomValue = sharedKey(otherParticipantNodeSharedRandomValueHalves[j],
+                                    exponentValuesForRandomShares[j]);
+                            sharedRandomValues[j] = j < _a ? sharedRandomValue.negate() : sharedRandomValue;
+                        }
+                    }
+                });
         BigInteger roundKeyValue = BigInteger.ZERO;
         for (BigInteger roundKey : roundKeys) {
             roundKeyValue = roundKeyValue.add(roundKey);
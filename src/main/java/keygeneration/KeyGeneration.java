@@ -11,6 +11,16 @@ public interface KeyGeneration {
 
     BigInteger[] getOtherParticipantNodesValues();
 
+    /**
+     * @return one frame for each other participant node, with all the values sent to it in the round
+     */
+    byte[][] getParticipantNodeFrames();
+
+    /**
+     * @param frames one frame from each other participant node, with all the values it sent in the round
+     */
+    void setOtherParticipantNodesFrames(byte[][] frames);
+
     BigInteger[] getRoundKeys();
 
     BigInteger getParticipantNodeRoundKeyValue();
@@ -0,0 +1,88 @@
+package keygeneration;
+
+import dcnet.PeerChannel;
+import dcnet.Room;
+
+import java.util.Arrays;
+
+/**
+ * Implementations of {@link KeyGeneration} that a room can use. All the nodes of a room must use the same one, since
+ * each of them puts different frames on the sockets
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public enum KeyGenerationStrategy {
+
+    /**
+     * {@link SeededKeyGeneration}: one Diffie-Hellman seed per pair and session, keys derived locally in each round.
+     * Rooms have to ask for it, since a leaked seed exposes the keys of every round of the session
+     */
+    SEEDED,
+
+    /**
+     * {@link DiffieHellman}: a new key agreement with each other node in each round. Default of the rooms, as it was
+     * the only key generation before the strategies could be chosen
+     */
+    DIFFIE_HELLMAN,
+
+    /**
+     * {@link SecretSharing}: shares of a secret key and a secret random sent to each other node in each round
+     */
+    SECRET_SHARING,
+
+    /**
+     * {@link SeedExpansionSecretSharing}: seeds of the shares sent to each other node in each round
+     */
+    SEED_EXPANSION_SECRET_SHARING;
+
+    /**
+     * @param name name of the strategy, in any case and with '-' or '_' between words, or null
+     * @return strategy with that name ({@link #DIFFIE_HELLMAN} if the name is null)
+     * @throws IllegalArgumentException if there is no strategy with that name
+     */
+    public static KeyGenerationStrategy fromName(String name) {
+        if (name == null)
+            return DIFFIE_HELLMAN;
+        try {
+            return valueOf(name.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown key generation strategy " + name + ", expected one of " +
+                    Arrays.toString(values()));
+        }
+    }
+
+    /**
+     * @return true if the keys of every round are derived from values exchanged once per session, false if values
+     * are exchanged in each round
+     */
+    public boolean isPerSession() {
+        return this == SEEDED;
+    }
+
+    /**
+     * @param nodeIndex    index of current participant node
+     * @param peerChannel  channel of current participant node with the other nodes of the room
+     * @param room         room where the current participant node is sending messages
+     * @param exchangeMode order in which the values are exchanged with the other participant nodes
+     * @return new key generation of this strategy for the room
+     */
+    public KeyGeneration create(int nodeIndex, PeerChannel peerChannel, Room room,
+                                PeerExchange.Mode exchangeMode) {
+        int roomSize = room.getRoomSize();
+        switch (this) {
+            case SEEDED:
+                return new SeededKeyGeneration(roomSize - 1, room.getGroup(), nodeIndex, peerChannel, room,
+                        exchangeMode);
+            case DIFFIE_HELLMAN:
+                return new DiffieHellman(roomSize - 1, room.getGroup(), nodeIndex, peerChannel, room,
+                        exchangeMode);
+            case SECRET_SHARING:
+                return new SecretSharing(roomSize, nodeIndex, peerChannel, room, exchangeMode);
+            case SEED_EXPANSION_SECRET_SHARING:
+                return new SeedExpansionSecretSharing(roomSize, nodeIndex, peerChannel, room, exchangeMode);
+            default:
+                throw new IllegalStateException("Unknown strategy " + this);
+        }
+    }
+
+}
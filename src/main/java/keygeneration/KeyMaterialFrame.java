@@ -0,0 +1,86 @@
+package keygeneration;
+
+import java.math.BigInteger;
+
+/**
+ * Binary frame with all the key material that a participant node sends to another one in a round: a byte with the
+ * number of values, and each value as a 2-byte length followed by its two's-complement big-endian bytes (values can
+ * be negative)
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+final class KeyMaterialFrame {
+
+    private static final int MAX_VALUES = 0xFF;
+    private static final int MAX_VALUE_LENGTH = 0xFFFF;
+
+    private KeyMaterialFrame() {
+    }
+
+    /**
+     * @param values values sent to the other participant node
+     * @return frame with the values
+     */
+    static byte[] encode(BigInteger... values) {
+        if (values.length > MAX_VALUES)
+            throw new IllegalArgumentException("Too many values for a frame");
+        byte[][] bytes = new byte[values.length][];
+        int length = 1;
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = values[i].toByteArray();
+            if (bytes[i].length > MAX_VALUE_LENGTH)
+                throw new IllegalArgumentException("Value too large for a frame");
+            length += 2 + bytes[i].length;
+        }
+        byte[] frame = new byte[length];
+        frame[0] = (byte) values.length;
+        int offset = 1;
+        for (byte[] value : bytes) {
+            frame[offset] = (byte) (value.length >>> 8);
+            frame[offset + 1] = (byte) value.length;
+            System.arraycopy(value, 0, frame, offset + 2, value.length);
+            offset += 2 + value.length;
+        }
+        return frame;
+    }
+
+    /**
+     * @param frame frame received from another participant node
+     * @return number of values of the frame
+     * @throws IllegalArgumentException if the frame is empty
+     */
+    static int count(byte[] frame) {
+        if (frame == null || frame.length < 1)
+            throw new IllegalArgumentException("Empty frame");
+        return frame[0] & 0xFF;
+    }
+
+    /**
+     * @param frame frame received from another participant node
+     * @param count number of values expected
+     * @return values of the frame
+     * @throws IllegalArgumentException if the frame is malformed or does not have count values
+     */
+    static BigInteger[] decode(byte[] frame, int count) {
+        if (frame == null || frame.length < 1 || (frame[0] & 0xFF) != count)
+            throw new IllegalArgumentException("Frame does not have " + count + " values");
+        BigInteger[] values = new BigInteger[count];
+        int offset = 1;
+        for (int i = 0; i < count; i++) {
+            if (offset + 2 > frame.length)
+                throw new IllegalArgumentException("Truncated frame");
+            int length = ((frame[offset] & 0xFF) << 8) | (frame[offset + 1] & 0xFF);
+            offset += 2;
+            if (length == 0 || offset + length > frame.length)
+                throw new IllegalArgumentException("Truncated frame");
+            byte[] value = new byte[length];
+            System.arraycopy(frame, offset, value, 0, length);
+            values[i] = new BigInteger(value);
+            offset += length;
+        }
+        if (offset != frame.length)
+            throw new IllegalArgumentException("Trailing bytes in frame");
+        return values;
+    }
+
+}
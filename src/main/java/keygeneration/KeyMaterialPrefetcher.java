@@ -0,0 +1,162 @@
+package keygeneration;
+
+import crypto.Group;
+import crypto.PedersenCommitment;
+
+import java.math.BigInteger;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Class that prepares the key material of the next real rounds in a background thread: the keys derived from the
+ * seeds of a {@link SeededKeyGeneration}, or exchanged by a {@link RoundKeyExchange} for the strategies that exchange
+ * values in each round, and the Pedersen commitments on them. The real rounds to come are known as soon as a
+ * collision is found (and the first one as soon as the session starts), so their keys are computed while the node
+ * plays the rest of the current round.
+ * <p>
+ * When the material of a round was not prefetched, derived keys are computed on the calling thread. Exchanges are
+ * always run on the background thread instead, in the order they were asked for: they use the sockets of the
+ * {@link dcnet.PeerChannel}, which only one thread may use, and every node asks for the same rounds in the same
+ * order, so the i-th exchange of each node is with the i-th exchange of the others
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public class KeyMaterialPrefetcher {
+
+    /**
+     * Source of the keys of each round: one of them is null
+     */
+    private final SeededKeyGeneration keyGeneration;
+    private final RoundKeyExchange roundKeyExchange;
+
+    private final PedersenCommitment pedersenCommitment;
+    private final Group group;
+
+    /**
+     * Material requested for each round, until it is taken
+     */
+    private final ConcurrentHashMap<Integer, Future<RoundKeyMaterial>> prefetched = new ConcurrentHashMap<>();
+
+    /**
+     * Background thread that computes the material (null if it is not running)
+     */
+    private ExecutorService executor;
+
+    /**
+     * Constructor for keygeneration.KeyMaterialPrefetcher class
+     *
+     * @param keyGeneration key generation whose halves were already exchanged
+     * @param group         group \(G_q\) of the room
+     */
+    public KeyMaterialPrefetcher(SeededKeyGeneration keyGeneration, Group group) {
+        this.keyGeneration = keyGeneration;
+        this.roundKeyExchange = null;
+        this.pedersenCommitment = new PedersenCommitment(group);
+        this.group = group;
+    }
+
+    /**
+     * Constructor for keygeneration.KeyMaterialPrefetcher class, for a strategy that exchanges values in each round.
+     * The first round must be requested once no other thread uses the channel of the exchange
+     *
+     * @param roundKeyExchange exchange of the values of each round, that also commits on the keys
+     */
+    public KeyMaterialPrefetcher(RoundKeyExchange roundKeyExchange) {
+        this.keyGeneration = null;
+        this.roundKeyExchange = roundKeyExchange;
+        this.pedersenCommitment = null;
+        this.group = null;
+    }
+
+    /**
+     * Start the background thread
+     */
+    public synchronized void start() {
+        if (this.executor != null)
+            return;
+        this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "key-material-prefetcher");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Stop the background thread, discarding the material not taken yet
+     */
+    public synchronized void stop() {
+        if (this.executor == null)
+            return;
+        this.executor.shutdownNow();
+        this.executor = null;
+        this.prefetched.clear();
+    }
+
+    /**
+     * Start computing the material of a real round in the background (nothing is done if it was already requested or
+     * the thread is not running)
+     *
+     * @param round number of the round
+     */
+    public synchronized void prefetch(int round) {
+        if (this.executor == null || this.prefetched.containsKey(round))
+            return;
+        this.prefetched.put(round, submit(round));
+    }
+
+    /**
+     * @param round number of the round
+     * @return pending material of the round, computed by the background thread after the rounds requested before
+     */
+    private Future<RoundKeyMaterial> submit(final int round) {
+        return this.executor.submit(new Callable<RoundKeyMaterial>() {
+            @Override
+            public RoundKeyMaterial call() {
+                return compute(round);
+            }
+        });
+    }
+
+    /**
+     * @param round number of the round
+     * @return material of the round, waiting for it if it is still being computed
+     */
+    public RoundKeyMaterial take(int round) {
+        Future<RoundKeyMaterial> future = this.prefetched.remove(round);
+        if (future == null && this.roundKeyExchange != null) {
+            // Exchanges are queued behind the ones already requested, so the channel keeps a single thread
+            synchronized (this) {
+                if (this.executor != null)
+                    future = submit(round);
+            }
+        }
+        if (future != null) {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Key material of round " + round + " could not be computed",
+                        e.getCause());
+            }
+        }
+        return compute(round);
+    }
+
+    private RoundKeyMaterial compute(int round) {
+        if (this.roundKeyExchange != null)
+            return this.roundKeyExchange.exchange(round);
+        BigInteger[][] derived = this.keyGeneration.deriveRound(round);
+        return RoundKeyMaterial.commit(round, derived[0], derived[1], this.pedersenCommitment, this.group,
+                this.keyGeneration.getParallelKeyDerivation());
+    }
+
+}
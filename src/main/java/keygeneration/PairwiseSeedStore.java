@@ -0,0 +1,173 @@
+package keygeneration;
+
+import crypto.Group;
+import dcnet.Room;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * On-disk store of the seeds agreed by Diffie-Hellman with each other participant node, so a node that restarts or
+ * joins again a room with the same parameters and the same peers can reuse them instead of agreeing on new ones (see
+ * {@link SeededKeyGeneration#setSeedStore(PairwiseSeedStore)}). Seeds are stored by (hash of the parameters of the
+ * room, identity of the current node, identity of the other node), together with the time when they expire.
+ * <p>
+ * The file holds secret material: it is written readable only by its owner when the file system supports it, and
+ * replaced atomically, so a node killed while saving keeps the previous version
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public class PairwiseSeedStore {
+
+    /**
+     * Time that the seeds of the stores that do not specify one are reused
+     */
+    public static final long DEFAULT_TIME_TO_LIVE = TimeUnit.DAYS.toMillis(1);
+
+    private final File file;
+    private final long timeToLive;
+
+    /**
+     * Entries as "room hash/node identity/peer identity" = "expiration time:seed in hexadecimal"
+     */
+    private final Properties entries = new Properties();
+
+    /**
+     * Constructor for keygeneration.PairwiseSeedStore class, loading the seeds already stored in the file (if it
+     * exists)
+     *
+     * @param file       file where the seeds are stored
+     * @param timeToLive milliseconds that a seed is reused after it was agreed
+     * @throws IOException if the file exists but cannot be read
+     */
+    public PairwiseSeedStore(File file, long timeToLive) throws IOException {
+        this.file = file;
+        this.timeToLive = timeToLive;
+        if (file.exists()) {
+            try (InputStream in = new FileInputStream(file)) {
+                this.entries.load(in);
+            }
+        }
+    }
+
+    /**
+     * @param roomHash     hash of the parameters of the room
+     * @param nodeIdentity identity of the current participant node
+     * @param peerIdentity identity of the other participant node
+     * @return seed agreed with the other node in the room, or null if there is none or it expired
+     */
+    public synchronized BigInteger get(String roomHash, String nodeIdentity, String peerIdentity) {
+        String entry = this.entries.getProperty(key(roomHash, nodeIdentity, peerIdentity));
+        if (entry == null)
+            return null;
+        int separator = entry.indexOf(':');
+        try {
+            if (separator < 0 || Long.parseLong(entry.substring(0, separator)) <= System.currentTimeMillis())
+                return null;
+            return new BigInteger(entry.substring(separator + 1), 16);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Store a seed agreed with another participant node, replacing the previous one. It is written to the file by
+     * {@link #save()}
+     *
+     * @param roomHash     hash of the parameters of the room
+     * @param nodeIdentity identity of the current participant node
+     * @param peerIdentity identity of the other participant node
+     * @param seed         seed agreed with the other node
+     */
+    public synchronized void put(String roomHash, String nodeIdentity, String peerIdentity, BigInteger seed) {
+        long expiration = System.currentTimeMillis() + this.timeToLive;
+        this.entries.setProperty(key(roomHash, nodeIdentity, peerIdentity), expiration + ":" + seed.toString(16));
+    }
+
+    /**
+     * Write the seeds to the file, dropping the expired ones
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void save() throws IOException {
+        for (String key : this.entries.stringPropertyNames())
+            if (hasExpired(key))
+                this.entries.remove(key);
+        File directory = this.file.getAbsoluteFile().getParentFile();
+        File temporary = File.createTempFile(this.file.getName(), ".tmp", directory);
+        try {
+            try {
+                Files.setPosixFilePermissions(temporary.toPath(), PosixFilePermissions.fromString("rw-------"));
+            } catch (UnsupportedOperationException e) {
+                // File systems without POSIX permissions keep the default ones
+            }
+            try (OutputStream out = new FileOutputStream(temporary)) {
+                this.entries.store(out, "DC-NET pairwise seeds");
+            }
+            Files.move(temporary.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+    }
+
+    /**
+     * @param room room whose parameters are hashed
+     * @return SHA-256 of the group and message modulus of the room in hexadecimal, the same for every node of the room
+     */
+    public static String roomHash(Room room) {
+        Group group = room.getGroup();
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+        digest.update(group.getName().getBytes(StandardCharsets.UTF_8));
+        for (BigInteger parameter : new BigInteger[]{group.getOrder(), group.getG().encode(), group.getH().encode(),
+                room.getMessageModulus()}) {
+            byte[] bytes = parameter.toByteArray();
+            digest.update(new byte[]{(byte) (bytes.length >>> 8), (byte) bytes.length});
+            digest.update(bytes);
+        }
+        return String.format("%064x", new BigInteger(1, digest.digest()));
+    }
+
+    /**
+     * @return file where the seeds are stored
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return milliseconds that a seed is reused after it was agreed
+     */
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    private boolean hasExpired(String key) {
+        String[] parts = key.split("/", 3);
+        return parts.length != 3 || get(parts[0], parts[1], parts[2]) == null;
+    }
+
+    private static String key(String roomHash, String nodeIdentity, String peerIdentity) {
+        return roomHash + "/" + nodeIdentity + "/" + peerIdentity;
+    }
+
+}
@@ -0,0 +1,144 @@
+package keygeneration;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Class that spreads the independent exponentiations of key generation (the halves and shared keys of each pair and
+ * the commitments on each key) across the cores, with a fork/join pool. Each task writes only its own slot of the
+ * output, so the results do not depend on the number of threads nor on their scheduling. Small rooms, where splitting
+ * the work does not pay off, run on the calling thread
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public class ParallelKeyDerivation {
+
+    /**
+     * Rooms of up to this number of nodes run on the calling thread
+     */
+    public static final int DEFAULT_ROOM_SIZE_THRESHOLD = 4;
+
+    /**
+     * Task run for each index of a loop
+     */
+    public interface IndexedTask {
+
+        /**
+         * @param i index of the loop
+         */
+        void run(int i);
+
+    }
+
+    /**
+     * Number of threads
+     */
+    private final int threads;
+
+    /**
+     * Rooms of up to this number of nodes run on the calling thread
+     */
+    private final int roomSizeThreshold;
+
+    /**
+     * Pool of threads (null if threads is 1)
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor for keygeneration.ParallelKeyDerivation class
+     *
+     * @param threads           number of threads (values lower than 1 are treated as 1)
+     * @param roomSizeThreshold rooms of up to this number of nodes run on the calling thread
+     */
+    public ParallelKeyDerivation(int threads, int roomSizeThreshold) {
+        this.threads = Math.max(1, threads);
+        this.roomSizeThreshold = roomSizeThreshold;
+        this.pool = this.threads == 1 ? null : new ForkJoinPool(this.threads);
+    }
+
+    /**
+     * @param roomSize number of nodes of the room
+     * @return true if the work of a room of that size is split between the threads
+     */
+    public boolean isEnabled(int roomSize) {
+        return this.pool != null && roomSize > this.roomSizeThreshold;
+    }
+
+    /**
+     * Run the task for every index in \([0, count)\) and wait for all of them to finish
+     *
+     * @param count    number of indexes
+     * @param roomSize number of nodes of the room
+     * @param task     task to run for each index
+     */
+    public void forEach(int count, int roomSize, IndexedTask task) {
+        if (!isEnabled(roomSize) || count < 2) {
+            for (int i = 0; i < count; i++)
+                task.run(i);
+            return;
+        }
+        this.pool.invoke(new Range(task, 0, count));
+    }
+
+    /**
+     * Run the task for every index in \([0, count)\), split between the threads if the derivation is not null
+     *
+     * @param derivation parallel derivation (null to run on the calling thread)
+     * @param count      number of indexes
+     * @param roomSize   number of nodes of the room
+     * @param task       task to run for each index
+     */
+    static void forEach(ParallelKeyDerivation derivation, int count, int roomSize, IndexedTask task) {
+        if (derivation == null) {
+            for (int i = 0; i < count; i++)
+                task.run(i);
+        } else {
+            derivation.forEach(count, roomSize, task);
+        }
+    }
+
+    /**
+     * @return number of threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Stop the threads
+     */
+    public void shutdown() {
+        if (this.pool != null)
+            this.pool.shutdownNow();
+    }
+
+    /**
+     * Range of indexes, split in halves until it has a single index
+     */
+    private static final class Range extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final IndexedTask task;
+        private final int from, to;
+
+        Range(IndexedTask task, int from, int to) {
+            this.task = task;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from == 1) {
+                this.task.run(this.from);
+                return;
+            }
+            int middle = (this.from + this.to) >>> 1;
+            invokeAll(new Range(this.task, this.from, middle), new Range(this.task, middle, this.to));
+        }
+
+    }
+
+}
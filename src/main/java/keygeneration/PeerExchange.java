@@ -0,0 +1,131 @@
+package keygeneration;
+
+import dcnet.PeerChannel;
+import dcnet.Room;
+
+/**
+ * Exchange of one frame with each other participant node of the room, through the {@link PeerChannel} of the node.
+ * Frames are ordered by index of the other node. In each pair of nodes the node of lower index sends its frame first
+ * and the node of higher index answers it as soon as it arrives.
+ * <p>
+ * In {@link Mode#SEQUENTIAL} mode the node waits for each other node before the next one, so the exchange takes
+ * about \(n-1\) round trips. In {@link Mode#CONCURRENT} mode all the frames for the nodes of higher index are sent at
+ * once and the frames of the other nodes are taken in the order they arrive, answering each frame of a node of lower
+ * index as soon as it arrives, so the exchange takes about one round trip whatever the size of the room. Both modes
+ * put the same frames on the channel, so nodes using different modes can share a room
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public class PeerExchange {
+
+    /**
+     * Order in which the other nodes are served
+     */
+    public enum Mode {
+        SEQUENTIAL, CONCURRENT
+    }
+
+    private final int nodeIndex;
+    private final PeerChannel peerChannel;
+    private final Room room;
+    private final Mode mode;
+
+    /**
+     * @param nodeIndex   index of current participant node
+     * @param peerChannel channel of current participant node with the other nodes of the room
+     * @param room        room where the current participant node is sending messages
+     * @param mode        order in which the other nodes are served
+     */
+    public PeerExchange(int nodeIndex, PeerChannel peerChannel, Room room, Mode mode) {
+        this.nodeIndex = nodeIndex;
+        this.peerChannel = peerChannel;
+        this.room = room;
+        this.mode = mode;
+    }
+
+    /**
+     * @return order in which the other nodes are served
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Send one frame to each other participant node and receive one frame from each of them. A null frame skips the
+     * other node, which must skip the current node too: nothing is sent to nor received from that node
+     *
+     * @param frames frames to send, one for each other participant node (null to skip it)
+     * @return frames received, one from each other participant node (null for the skipped ones)
+     */
+    public byte[][] exchange(byte[][] frames) {
+        if (this.mode == Mode.CONCURRENT)
+            return exchangeConcurrently(frames);
+        return exchangeSequentially(frames);
+    }
+
+    private byte[][] exchangeSequentially(byte[][] frames) {
+        byte[][] received = new byte[room.getRoomSize() - 1][];
+        for (int i = 0; i < received.length; i++) {
+            if (frames[i] == null)
+                continue;
+            int peer = peerOf(i);
+            if (peer < nodeIndex) {
+                // Wait for the frame of the node of lower index, and answer it with the frame of this node
+                received[i] = peerChannel.receive(peer);
+                peerChannel.send(peer, frames[i]);
+            } else {
+                // Send the frame of this node, and wait for the answer of the node of higher index
+                peerChannel.send(peer, frames[i]);
+                received[i] = peerChannel.receive(peer);
+            }
+        }
+        return received;
+    }
+
+    private byte[][] exchangeConcurrently(byte[][] frames) {
+        byte[][] received = new byte[room.getRoomSize() - 1][];
+
+        // Send every frame for the nodes of higher index first, without waiting for their answers
+        boolean[] expected = new boolean[room.getRoomSize() + 1];
+        int pending = 0;
+        for (int i = 0; i < received.length; i++) {
+            if (frames[i] == null)
+                continue;
+            int peer = peerOf(i);
+            if (peer > nodeIndex)
+                peerChannel.send(peer, frames[i]);
+            expected[peer] = true;
+            pending++;
+        }
+
+        // Take the frames of the nodes not skipped in the order they arrive, until all of them arrived
+        while (pending > 0) {
+            int peer = peerChannel.waitForAny(expected);
+            int i = indexOf(peer);
+            received[i] = peerChannel.receive(peer);
+            // The frame of a node of lower index is answered with the frame of this node right away
+            if (peer < nodeIndex)
+                peerChannel.send(peer, frames[i]);
+            expected[peer] = false;
+            pending--;
+        }
+        return received;
+    }
+
+    /**
+     * @param i position of a frame
+     * @return index of the other node of that frame
+     */
+    private int peerOf(int i) {
+        return i < nodeIndex - 1 ? i + 1 : i + 2;
+    }
+
+    /**
+     * @param peer index of another node
+     * @return position of the frame of that node
+     */
+    private int indexOf(int peer) {
+        return peer < nodeIndex ? peer - 1 : peer - 2;
+    }
+
+}
@@ -0,0 +1,78 @@
+package keygeneration;
+
+import crypto.PedersenCommitment;
+import dcnet.PeerChannel;
+import dcnet.Room;
+
+import java.math.BigInteger;
+
+/**
+ * Class that obtains the key material of each real round from a strategy that exchanges values with the other
+ * participant nodes in every round ({@link KeyGenerationStrategy#isPerSession()} is false): a new key generation is
+ * created, its values are exchanged with the other nodes, and the keys are committed. A {@link KeyMaterialPrefetcher}
+ * runs the exchanges of the rounds to come in background, one after the other
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public class RoundKeyExchange {
+
+    private final KeyGenerationStrategy strategy;
+    private final int nodeIndex;
+    private final PeerChannel peerChannel;
+    private final Room room;
+    private final PeerExchange.Mode exchangeMode;
+    private final PedersenCommitment pedersenCommitment;
+    private final ParallelKeyDerivation parallelKeyDerivation;
+
+    /**
+     * Constructor for keygeneration.RoundKeyExchange class
+     *
+     * @param strategy              strategy of the room
+     * @param nodeIndex             index of current participant node
+     * @param peerChannel           channel of current participant node with the other nodes of the room
+     * @param room                  room where the current participant node is sending messages
+     * @param exchangeMode          order in which the values are exchanged with the other participant nodes
+     * @param parallelKeyDerivation threads where the exponentiations are split (null to run them on the calling
+     *                              thread)
+     */
+    public RoundKeyExchange(KeyGenerationStrategy strategy, int nodeIndex, PeerChannel peerChannel, Room room,
+                            PeerExchange.Mode exchangeMode, ParallelKeyDerivation parallelKeyDerivation) {
+        this.strategy = strategy;
+        this.nodeIndex = nodeIndex;
+        this.peerChannel = peerChannel;
+        this.room = room;
+        this.exchangeMode = exchangeMode;
+        this.pedersenCommitment = new PedersenCommitment(room.getGroup());
+        this.parallelKeyDerivation = parallelKeyDerivation;
+    }
+
+    /**
+     * Exchange the values of a real round with the other participant nodes and commit on the resulting keys
+     *
+     * @param round number of the round
+     * @return keys of the round together with their commitments
+     */
+    public RoundKeyMaterial exchange(int round) {
+        KeyGeneration keyGeneration = this.strategy.create(this.nodeIndex, this.peerChannel, this.room,
+                this.exchangeMode);
+        if (keyGeneration instanceof DiffieHellman)
+            ((DiffieHellman) keyGeneration).setParallelKeyDerivation(this.parallelKeyDerivation);
+        if (keyGeneration instanceof SeededKeyGeneration)
+            ((SeededKeyGeneration) keyGeneration).setRound(round);
+        keyGeneration.generateParticipantNodeValues();
+        keyGeneration.getOtherParticipantNodesValues();
+        keyGeneration.getParticipantNodeRoundKeyValue();
+        BigInteger[] roundKeys = keyGeneration.getRoundKeys();
+        BigInteger[] sharedRandomValues = keyGeneration.getSharedRandomValues();
+        return RoundKeyMaterial.commit(round, roundKeys, sharedRandomValues, this.pedersenCommitment,
+                this.room.getGroup(), this.parallelKeyDerivation);
+    }
+
+    /**
+     * @return strategy of the room
+     */
+    public KeyGenerationStrategy getStrategy() {
+        return strategy;
+    }
+
+}
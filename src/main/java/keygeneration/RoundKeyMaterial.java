@@ -0,0 +1,133 @@
+package keygeneration;
+
+import crypto.Group;
+import crypto.GroupElement;
+import crypto.PedersenCommitment;
+
+import java.math.BigInteger;
+
+/**
+ * Keys of a real round together with their commitments, everything a participant node needs from key generation
+ * before it sends its commitment on key. Instances are immutable
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public final class RoundKeyMaterial {
+
+    private final int round;
+
+    /**
+     * Key shared with each other participant node and their sum
+     */
+    private final BigInteger[] roundKeys;
+    private final BigInteger roundKeyValue;
+
+    /**
+     * Random value of the commitment on each key and their sum
+     */
+    private final BigInteger[] sharedRandomValues;
+    private final BigInteger randomForCommitmentOnKey;
+
+    /**
+     * Pedersen commitment on each key and their product
+     */
+    private final GroupElement[] commitmentsOnKeys;
+    private final GroupElement commitmentOnKey;
+
+    RoundKeyMaterial(int round, BigInteger[] roundKeys, BigInteger roundKeyValue, BigInteger[] sharedRandomValues,
+                     BigInteger randomForCommitmentOnKey, GroupElement[] commitmentsOnKeys,
+                     GroupElement commitmentOnKey) {
+        this.round = round;
+        this.roundKeys = roundKeys;
+        this.roundKeyValue = roundKeyValue;
+        this.sharedRandomValues = sharedRandomValues;
+        this.randomForCommitmentOnKey = randomForCommitmentOnKey;
+        this.commitmentsOnKeys = commitmentsOnKeys;
+        this.commitmentOnKey = commitmentOnKey;
+    }
+
+    /**
+     * Commit on the keys of a round
+     *
+     * @param round                 number of the round
+     * @param roundKeys             key shared with each other participant node
+     * @param sharedRandomValues    random value of the commitment on each key
+     * @param pedersenCommitment    Pedersen commitments of the room
+     * @param group                 group \(G_q\) of the room
+     * @param parallelKeyDerivation threads where the commitments are split (null to compute them on the calling thread)
+     * @return keys of the round together with their commitments
+     */
+    static RoundKeyMaterial commit(int round, final BigInteger[] roundKeys, final BigInteger[] sharedRandomValues,
+                                   final PedersenCommitment pedersenCommitment, Group group,
+                                   ParallelKeyDerivation parallelKeyDerivation) {
+        final GroupElement[] commitmentsOnKeys = new GroupElement[roundKeys.length];
+        ParallelKeyDerivation.forEach(parallelKeyDerivation, roundKeys.length, roundKeys.length + 1,
+                new ParallelKeyDerivation.IndexedTask() {
+                    @Override
+                    public void run(int i) {
+                        commitmentsOnKeys[i] = pedersenCommitment.calculateCommitment(roundKeys[i],
+                                sharedRandomValues[i]);
+                    }
+                });
+        BigInteger roundKeyValue = BigInteger.ZERO;
+        BigInteger randomForCommitmentOnKey = BigInteger.ZERO;
+        GroupElement commitmentOnKey = group.getIdentity();
+        for (int i = 0; i < roundKeys.length; i++) {
+            roundKeyValue = roundKeyValue.add(roundKeys[i]);
+            randomForCommitmentOnKey = randomForCommitmentOnKey.add(sharedRandomValues[i]);
+            commitmentOnKey = commitmentOnKey.multiply(commitmentsOnKeys[i]);
+        }
+        return new RoundKeyMaterial(round, roundKeys, roundKeyValue, sharedRandomValues, randomForCommitmentOnKey,
+                commitmentsOnKeys, commitmentOnKey);
+    }
+
+    /**
+     * @return number of the round
+     */
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * @return key shared with each other participant node
+     */
+    public BigInteger[] getRoundKeys() {
+        return roundKeys.clone();
+    }
+
+    /**
+     * @return sum of the keys of the round
+     */
+    public BigInteger getRoundKeyValue() {
+        return roundKeyValue;
+    }
+
+    /**
+     * @return random value of the commitment on each key
+     */
+    public BigInteger[] getSharedRandomValues() {
+        return sharedRandomValues.clone();
+    }
+
+    /**
+     * @return sum of the random values, random of the commitment on the round key
+     */
+    public BigInteger getRandomForCommitmentOnKey() {
+        return randomForCommitmentOnKey;
+    }
+
+    /**
+     * @return Pedersen commitment on each key
+     */
+    public GroupElement[] getCommitmentsOnKeys() {
+        return commitmentsOnKeys.clone();
+    }
+
+    /**
+     * @return product of the commitments on each key, commitment on the round key
+     */
+    public GroupElement getCommitmentOnKey() {
+        return commitmentOnKey;
+    }
+
+}
@@ -1,10 +1,10 @@
 package keygeneration;
 
+import crypto.RandomSource;
+import dcnet.PeerChannel;
 import dcnet.Room;
-import org.zeromq.ZMQ;
 
 import java.math.BigInteger;
-import java.util.Random;
 
 /**
  *
@@ -25,7 +25,7 @@ public class SecretSharing implements KeyGeneration {
     private BigInteger[] otherNodesRandomShares;
 
     private int nodeIndex;
-    private ZMQ.Socket[] repliers, requestors;
+    private PeerExchange peerExchange;
     private Room room;
 
     // Part of secret key didn't shared with any participant node
@@ -44,23 +44,33 @@ public class SecretSharing implements KeyGeneration {
     private BigInteger roundRandom;
 
     /**
-     * @param n          number of shares to split the secretKey
-     * @param nodeIndex  index of current participant node
-     * @param repliers   sockets repliers of current participant node
-     * @param requestors sockets requestors of current participant node
-     * @param room       room where the current participant node is sending messages
+     * @param n           number of shares to split the secretKey
+     * @param nodeIndex   index of current participant node
+     * @param peerChannel channel of current participant node with the other nodes of the room
+     * @param room        room where the current participant node is sending messages
      */
-    public SecretSharing(int n, int nodeIndex, ZMQ.Socket[] repliers, ZMQ.Socket[] requestors, Room room) {
+    public SecretSharing(int n, int nodeIndex, PeerChannel peerChannel, Room room) {
+        this(n, nodeIndex, peerChannel, room, PeerExchange.Mode.CONCURRENT);
+    }
+
+    /**
+     * @param n            number of shares to split the secretKey
+     * @param nodeIndex    index of current participant node
+     * @param peerChannel  channel of current participant node with the other nodes of the room
+     * @param room         room where the current participant node is sending messages
+     * @param exchangeMode order in which the shares are exchanged with the other participant nodes
+     */
+    public SecretSharing(int n, int nodeIndex, PeerChannel peerChannel, Room room,
+                         PeerExchange.Mode exchangeMode) {
         this.n = n;
-        this.secretKey = new BigInteger(room.getQ().bitLength() - 1, new Random());
-        this.secretRandom = new BigInteger(room.getQ().bitLength() - 1, new Random());
+        this.secretKey = RandomSource.getInstance().nextBits(room.getQ().bitLength() - 1);
+        this.secretRandom = RandomSource.getInstance().nextBits(room.getQ().bitLength() - 1);
         while (this.secretKey.bitLength() != room.getQ().bitLength() - 1)
-            this.secretKey = new BigInteger(room.getQ().bitLength(), new Random());
+            this.secretKey = RandomSource.getInstance().nextBits(room.getQ().bitLength());
         while (this.secretRandom.bitLength() != room.getQ().bitLength() - 1) //
-            this.secretRandom = new BigInteger(room.getQ().bitLength(), new Random()); //
+            this.secretRandom = RandomSource.getInstance().nextBits(room.getQ().bitLength()); //
         this.nodeIndex = nodeIndex;
-        this.repliers = repliers;
-        this.requestors = requestors;
+        this.peerExchange = new PeerExchange(nodeIndex, peerChannel, room, exchangeMode);
         this.room = room;
     }
 
@@ -75,12 +85,12 @@ public class SecretSharing implements KeyGeneration {
         BigInteger randomnessAdded = BigInteger.ZERO;
         BigInteger randomnessAddedForRandom = BigInteger.ZERO; //
         for (int i = 0; i < shares.length; i++) {
-            BigInteger randomValue = new BigInteger(bitLength, new Random()).negate();
-            BigInteger randomValueForRandom = new BigInteger(bitLength, new Random()).negate(); //
+            BigInteger randomValue = RandomSource.getInstance().nextBits(bitLength).negate();
+            BigInteger randomValueForRandom = RandomSource.getInstance().nextBits(bitLength).negate(); //
             while (randomValue.bitLength() != bitLength)
-                randomValue = new BigInteger(bitLength, new Random());
+                randomValue = RandomSource.getInstance().nextBits(bitLength);
             while (randomValueForRandom.bitLength() != bitLength)
-                randomValueForRandom = new BigInteger(bitLength, new Random());
+                randomValueForRandom = RandomSource.getInstance().nextBits(bitLength);
             shares[i] = randomValue;
             randomShares[i] = randomValueForRandom; //
             randomnessAdded = randomnessAdded.add(randomValue);
@@ -98,53 +108,35 @@ public class SecretSharing implements KeyGeneration {
      */
     @Override
     public BigInteger[] getOtherParticipantNodesValues() {
-        int i = 0;
-        BigInteger[] otherNodesRandomKeyShares = new BigInteger[room.getRoomSize() - 1];
-        // The "first" node doesn't have any replier sockets
-        if (nodeIndex != 1)
-            for (ZMQ.Socket replier : repliers) {
-                // The replier wait to receive a key share
-                otherNodesRandomKeyShares[i] = new BigInteger(replier.recvStr());
-                // When the replier receives the message, replies with one of their key shares
-                replier.send(secretKeyShares[i].toString());
-                i++;
-            }
-        // The "last" node doesn't have any requestor sockets
-        if (nodeIndex != room.getRoomSize())
-            for (ZMQ.Socket requestor : requestors) {
-                // The requestor sends a key share
-                requestor.send(secretKeyShares[i].toString());
-                // The requestor waits to receive a reply with one of the key shares
-                otherNodesRandomKeyShares[i] = new BigInteger(requestor.recvStr());
-                i++;
-            }
-        this.otherNodesKeyShares = otherNodesRandomKeyShares;
-
-        i = 0;
-        BigInteger[] otherNodesRandomShares = new BigInteger[room.getRoomSize() - 1]; //
-        // The "first" node doesn't have any replier sockets
-        if (nodeIndex != 1)
-            for (ZMQ.Socket replier : repliers) {
-                // The replier wait to receive a key share
-                otherNodesRandomShares[i] = new BigInteger(replier.recvStr()); //
-                // When the replier receives the message, replies with one of their key shares
-                replier.send(secretRandomShares[i].toString()); //
-                i++;
-            }
-        // The "last" node doesn't have any requestor sockets
-        if (nodeIndex != room.getRoomSize())
-            for (ZMQ.Socket requestor : requestors) {
-                // The requestor sends a key share
-                requestor.send(secretRandomShares[i].toString()); //
-                // The requestor waits to receive a reply with one of the key shares
-                otherNodesRandomShares[i] = new BigInteger(requestor.recvStr()); //
-                i++;
-            }
-        this.otherNodesRandomShares = otherNodesRandomShares; //
-
+        setOtherParticipantNodesFrames(this.peerExchange.exchange(getParticipantNodeFrames()));
         return otherNodesRandomShares;
     }
 
+    /**
+     * @return frames with the share of the secretKey and of the secretRandom for each other participant node
+     */
+    @Override
+    public byte[][] getParticipantNodeFrames() {
+        byte[][] frames = new byte[secretKeyShares.length][];
+        for (int i = 0; i < frames.length; i++)
+            frames[i] = KeyMaterialFrame.encode(secretKeyShares[i], secretRandomShares[i]);
+        return frames;
+    }
+
+    /**
+     * @param frames frames with the share of the secretKey and of the secretRandom of each other participant node
+     */
+    @Override
+    public void setOtherParticipantNodesFrames(byte[][] frames) {
+        this.otherNodesKeyShares = new BigInteger[frames.length];
+        this.otherNodesRandomShares = new BigInteger[frames.length];
+        for (int i = 0; i < frames.length; i++) {
+            BigInteger[] values = KeyMaterialFrame.decode(frames[i], 2);
+            this.otherNodesKeyShares[i] = values[0];
+            this.otherNodesRandomShares[i] = values[1];
+        }
+    }
+
     /**
      * @return n-1 shares of the secretKey of current participant node
      */
@@ -194,9 +186,9 @@ public class SecretSharing implements KeyGeneration {
         BigInteger[] shares = new BigInteger[n];
         BigInteger randomnessAdded = BigInteger.ZERO;
         for (int i = 0; i < shares.length - 1; i++) {
-            BigInteger randomValue = new BigInteger(bitLength, new Random()).negate();
+            BigInteger randomValue = RandomSource.getInstance().nextBits(bitLength).negate();
             while (randomValue.bitLength() != bitLength)
-                randomValue = new BigInteger(bitLength, new Random());
+                randomValue = RandomSource.getInstance().nextBits(bitLength);
             shares[i] = randomValue;
             randomnessAdded = randomnessAdded.add(randomValue);
         }
@@ -0,0 +1,191 @@
+package keygeneration;
+
+import crypto.HmacPrf;
+import crypto.RandomSource;
+import dcnet.PeerChannel;
+import dcnet.Room;
+
+import javax.crypto.Mac;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Variant of {@link SecretSharing} where the shares sent to each other participant node are not sent: a short random
+ * seed is sent instead, and both nodes expand it to the share of the secret key and the share of the secret random
+ * with a PRG (HMAC-SHA256 in counter mode). The round key is the sum of the shares received minus the sum of the
+ * shares sent, as in {@link SecretSharing}, so the keys of the room still cancel out. The split of the round key and
+ * round random into n-1 values is also derived from a local seed, so it is the same every time it is requested
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public class SeedExpansionSecretSharing implements KeyGeneration {
+
+    /**
+     * Bits of the seeds sent to the other participant nodes
+     */
+    private static final int SEED_BITS = 128;
+
+    /**
+     * Labels that separate the values expanded from the same seed
+     */
+    private static final byte[] KEY_SHARE_LABEL = "dcnet/key-share".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RANDOM_SHARE_LABEL = "dcnet/random-share".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] KEY_SPLIT_LABEL = "dcnet/key-split".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RANDOM_SPLIT_LABEL = "dcnet/random-split".getBytes(StandardCharsets.UTF_8);
+
+    // Number of participant nodes sharing their secrets
+    private final int n;
+
+    // Bytes of each share, as the secrets of SecretSharing
+    private final int shareLength;
+
+    private final PeerExchange peerExchange;
+
+    // Seeds of the shares sent to each other participant node
+    private final BigInteger[] seeds;
+    // Seeds of the shares received from each other participant node
+    private BigInteger[] otherNodesSeeds;
+
+    // Seed of the split of the round key and round random
+    private final BigInteger splitSeed;
+
+    // Resulting round key value
+    private BigInteger roundKey;
+    // Resulting round random value
+    private BigInteger roundRandom;
+
+    /**
+     * @param n           number of participant nodes sharing their secrets (n-1 seeds are sent)
+     * @param nodeIndex   index of current participant node
+     * @param peerChannel channel of current participant node with the other nodes of the room
+     * @param room        room where the current participant node is sending messages
+     */
+    public SeedExpansionSecretSharing(int n, int nodeIndex, PeerChannel peerChannel,
+                                      Room room) {
+        this(n, nodeIndex, peerChannel, room, PeerExchange.Mode.CONCURRENT);
+    }
+
+    /**
+     * @param n            number of participant nodes sharing their secrets (n-1 seeds are sent)
+     * @param nodeIndex    index of current participant node
+     * @param peerChannel  channel of current participant node with the other nodes of the room
+     * @param room         room where the current participant node is sending messages
+     * @param exchangeMode order in which the seeds are exchanged with the other participant nodes
+     */
+    public SeedExpansionSecretSharing(int n, int nodeIndex, PeerChannel peerChannel,
+                                      Room room, PeerExchange.Mode exchangeMode) {
+        this.n = n;
+        this.shareLength = (room.getQ().bitLength() - 1 + 7) / 8;
+        this.peerExchange = new PeerExchange(nodeIndex, peerChannel, room, exchangeMode);
+        this.seeds = new BigInteger[n - 1];
+        this.splitSeed = RandomSource.getInstance().nextBits(SEED_BITS);
+    }
+
+    /**
+     * @return n-1 seeds of the shares sent to the other participant nodes
+     */
+    @Override
+    public BigInteger[] generateParticipantNodeValues() {
+        for (int i = 0; i < this.seeds.length; i++)
+            this.seeds[i] = RandomSource.getInstance().nextBits(SEED_BITS);
+        return this.seeds;
+    }
+
+    /**
+     * @return seeds of the shares of the n-1 other participant nodes
+     */
+    @Override
+    public BigInteger[] getOtherParticipantNodesValues() {
+        setOtherParticipantNodesFrames(this.peerExchange.exchange(getParticipantNodeFrames()));
+        return this.otherNodesSeeds;
+    }
+
+    /**
+     * @return frames with the seed of the shares for each other participant node
+     */
+    @Override
+    public byte[][] getParticipantNodeFrames() {
+        byte[][] frames = new byte[this.seeds.length][];
+        for (int i = 0; i < frames.length; i++)
+            frames[i] = KeyMaterialFrame.encode(this.seeds[i]);
+        return frames;
+    }
+
+    /**
+     * @param frames frames with the seed of the shares of each other participant node
+     */
+    @Override
+    public void setOtherParticipantNodesFrames(byte[][] frames) {
+        BigInteger[] otherNodesSeeds = new BigInteger[frames.length];
+        for (int i = 0; i < frames.length; i++)
+            otherNodesSeeds[i] = KeyMaterialFrame.decode(frames[i], 1)[0];
+        this.otherNodesSeeds = otherNodesSeeds;
+    }
+
+    /**
+     * @return sum of the shares received from the other participant nodes minus the sum of the shares sent to them
+     */
+    @Override
+    public BigInteger getParticipantNodeRoundKeyValue() {
+        BigInteger roundKey = BigInteger.ZERO;
+        BigInteger roundRandom = BigInteger.ZERO;
+        for (BigInteger otherNodeSeed : this.otherNodesSeeds) {
+            Mac prg = HmacPrf.keyed(otherNodeSeed.toByteArray());
+            roundKey = roundKey.add(share(prg, KEY_SHARE_LABEL, 0));
+            roundRandom = roundRandom.add(share(prg, RANDOM_SHARE_LABEL, 0));
+        }
+        for (BigInteger seed : this.seeds) {
+            Mac prg = HmacPrf.keyed(seed.toByteArray());
+            roundKey = roundKey.subtract(share(prg, KEY_SHARE_LABEL, 0));
+            roundRandom = roundRandom.subtract(share(prg, RANDOM_SHARE_LABEL, 0));
+        }
+        this.roundKey = roundKey;
+        this.roundRandom = roundRandom;
+        return this.roundKey;
+    }
+
+    /**
+     * @return round key split in n-1 values
+     */
+    @Override
+    public BigInteger[] getRoundKeys() {
+        return splitSecret(this.roundKey, KEY_SPLIT_LABEL);
+    }
+
+    /**
+     * @return round random split in n-1 values
+     */
+    @Override
+    public BigInteger[] getSharedRandomValues() {
+        return splitSecret(this.roundRandom, RANDOM_SPLIT_LABEL);
+    }
+
+    /**
+     * @param secret value split
+     * @param label  label of the values expanded from the split seed
+     * @return n-1 values that add up to the secret, the first n-2 of them expanded from the split seed
+     */
+    private BigInteger[] splitSecret(BigInteger secret, byte[] label) {
+        BigInteger[] shares = new BigInteger[this.n - 1];
+        Mac prg = HmacPrf.keyed(this.splitSeed.toByteArray());
+        BigInteger randomnessAdded = BigInteger.ZERO;
+        for (int i = 0; i < shares.length - 1; i++) {
+            shares[i] = share(prg, label, i);
+            randomnessAdded = randomnessAdded.add(shares[i]);
+        }
+        shares[shares.length - 1] = secret.subtract(randomnessAdded);
+        return shares;
+    }
+
+    /**
+     * @param prg   PRG keyed with a seed
+     * @param label label of the value
+     * @param index index of the value
+     * @return value of the length of the shares expanded from the seed
+     */
+    private BigInteger share(Mac prg, byte[] label, int index) {
+        byte[] input = {(byte) (index >>> 24), (byte) (index >>> 16), (byte) (index >>> 8), (byte) index};
+        return new BigInteger(1, HmacPrf.expand(prg, label, input, this.shareLength));
+    }
+
+}
@@ -0,0 +1,452 @@
+package keygeneration;
+
+import crypto.ExponentPolicy;
+import crypto.Group;
+import crypto.HmacPrf;
+import crypto.RandomSource;
+import dcnet.PeerChannel;
+import dcnet.Room;
+
+import javax.crypto.Mac;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Key generation that agrees on one Diffie-Hellman seed with each other participant node for the whole session, and
+ * derives the keys and shared random values of every real round locally as \(PRF(seed, round, pair)\), with
+ * HMAC-SHA256 as PRF. Only the first round exchanges values through the network; the rest of the rounds do no
+ * exchange nor exponentiation.
+ * <p>
+ * As in {@link DiffieHellman}, keys shared with nodes of lower index are negated, so the sum of the keys of the room
+ * cancels out.
+ * <p>
+ * With a {@link PairwiseSeedStore}, the seeds agreed with each node are kept between sessions. A node that has a seed
+ * stored for another node offers it (an identifier of the seed and a fresh nonce) instead of sending its half; if both
+ * nodes offer the same seed they reuse it, keyed with both nonces so the keys differ from the ones of previous
+ * sessions, and no exponentiation is done for that pair. The pairs that cannot reuse a seed exchange their halves in a
+ * second exchange
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public class SeededKeyGeneration implements KeyGeneration {
+
+    /**
+     * Labels that separate the round keys from the shared random values derived from the same seed
+     */
+    private static final byte[] KEY_LABEL = "dcnet/round-key".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RANDOM_LABEL = "dcnet/shared-random".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Labels of the identifier of a stored seed and of the seed of a session that reuses it
+     */
+    private static final byte[] SEED_ID_LABEL = "dcnet/seed-id".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SESSION_SEED_LABEL = "dcnet/session-seed".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Bits of the nonces sent with the offers of stored seeds
+     */
+    private static final int NONCE_BITS = 128;
+
+
+    /**
+     * Extra bits derived over the size of the modulus, so the reduced values are close to uniform
+     */
+    private static final int EXTRA_BITS = 64;
+
+    private final Group group;
+    private final int nodeIndex;
+    private final PeerExchange peerExchange;
+    private final Room room;
+
+    /**
+     * Secret exponents of the halves sent to each other participant node
+     */
+    private final BigInteger[] exponents;
+
+    private final BigInteger[] participantNodeHalves;
+    private BigInteger[] otherParticipantNodeHalves;
+    private boolean halvesGenerated;
+
+    /**
+     * PRF keyed with the seed shared with each other participant node (null until the seeds are agreed)
+     */
+    private Mac[] prfs;
+
+    private int round;
+    private BigInteger[] roundKeys;
+    private BigInteger[] sharedRandomValues;
+
+    /**
+     * Threads where the exponentiations are split (null if they run on the calling thread)
+     */
+    private ParallelKeyDerivation parallelKeyDerivation;
+
+    /**
+     * Store of the seeds agreed in previous sessions (null if seeds are not reused)
+     */
+    private PairwiseSeedStore seedStore;
+    private String roomHash;
+
+    /**
+     * Seed stored for each other participant node, offered instead of the half (null entries if there is none)
+     */
+    private BigInteger[] storedSeeds;
+
+    /**
+     * Nonces sent with the offers of the current node and received with the offers of the other nodes
+     */
+    private BigInteger[] sessionNonces;
+    private BigInteger[] otherSessionNonces;
+
+    /**
+     * True for the other participant nodes with which the stored seed is reused
+     */
+    private boolean[] reused;
+
+    /**
+     * @param n           number of participant nodes that need to share a key
+     * @param group       group \(G_q\) of the room, whose generator g is the base of the halves
+     * @param nodeIndex   index of current participant node
+     * @param peerChannel channel of current participant node with the other nodes of the room
+     * @param room        room where the current participant node is sending messages
+     */
+    public SeededKeyGeneration(int n, Group group, int nodeIndex, PeerChannel peerChannel,
+                               Room room) {
+        this(n, group, nodeIndex, peerChannel, room, PeerExchange.Mode.CONCURRENT);
+    }
+
+    /**
+     * @param n            number of participant nodes that need to share a key
+     * @param group        group \(G_q\) of the room, whose generator g is the base of the halves
+     * @param nodeIndex    index of current participant node
+     * @param peerChannel  channel of current participant node with the other nodes of the room
+     * @param room         room where the current participant node is sending messages
+     * @param exchangeMode order in which the halves are exchanged with the other participant nodes
+     */
+    public SeededKeyGeneration(int n, Group group, int nodeIndex, PeerChannel peerChannel,
+                               Room room, PeerExchange.Mode exchangeMode) {
+        this.group = group;
+        this.nodeIndex = nodeIndex;
+        this.peerExchange = new PeerExchange(nodeIndex, peerChannel, room, exchangeMode);
+        this.room = room;
+        this.exponents = new BigInteger[n];
+        this.participantNodeHalves = new BigInteger[n];
+        this.storedSeeds = new BigInteger[n];
+        this.sessionNonces = new BigInteger[n];
+        ExponentPolicy exponentPolicy = room.getExponentPolicy();
+        for (int i = 0; i < n; i++)
+            this.exponents[i] = exponentPolicy.randomExponent(group);
+    }
+
+    /**
+     * Set the round whose keys are derived next. It must be called before the values of each real round are
+     * generated
+     *
+     * @param round number of the round
+     */
+    public void setRound(int round) {
+        this.round = round;
+    }
+
+    /**
+     * @return current participant node "halves" of the seeds (g^a), only computed the first time (null for the nodes
+     * offered a stored seed, whose halves are only computed if the offer is not accepted)
+     */
+    @Override
+    public BigInteger[] generateParticipantNodeValues() {
+        if (!this.halvesGenerated) {
+            boolean[] needed = new boolean[this.participantNodeHalves.length];
+            for (int i = 0; i < needed.length; i++)
+                needed[i] = this.storedSeeds[i] == null;
+            computeHalves(needed);
+            this.halvesGenerated = true;
+        }
+        return this.participantNodeHalves;
+    }
+
+    /**
+     * Reuse the seeds stored for the other participant nodes of the room, and store the new ones agreed. It must be
+     * called before the halves are generated
+     *
+     * @param seedStore store of the seeds agreed in previous sessions
+     */
+    public void setSeedStore(PairwiseSeedStore seedStore) {
+        this.seedStore = seedStore;
+        this.roomHash = PairwiseSeedStore.roomHash(this.room);
+        String nodeIdentity = this.room.getNodeIpFromIndex(this.nodeIndex);
+        for (int i = 0; i < this.storedSeeds.length; i++) {
+            String peerIdentity = this.room.getNodeIpFromIndex(otherIndex(i));
+            this.storedSeeds[i] = seedStore.get(this.roomHash, nodeIdentity, peerIdentity);
+            if (this.storedSeeds[i] != null)
+                this.sessionNonces[i] = RandomSource.getInstance().nextBits(NONCE_BITS);
+        }
+    }
+
+    /**
+     * @param parallelKeyDerivation threads where the exponentiations are split (null to run them on the calling thread)
+     */
+    public void setParallelKeyDerivation(ParallelKeyDerivation parallelKeyDerivation) {
+        this.parallelKeyDerivation = parallelKeyDerivation;
+    }
+
+    /**
+     * @return threads where the exponentiations are split (null if they run on the calling thread)
+     */
+    ParallelKeyDerivation getParallelKeyDerivation() {
+        return parallelKeyDerivation;
+    }
+
+    /**
+     * @return other participant nodes "halves" of the seeds (g^b), only exchanged the first time (null for the nodes
+     * that reuse a stored seed)
+     */
+    @Override
+    public BigInteger[] getOtherParticipantNodesValues() {
+        if (this.otherParticipantNodeHalves == null) {
+            setOtherParticipantNodesFrames(this.peerExchange.exchange(getParticipantNodeFrames()));
+            exchangeMissingHalves();
+        }
+        return this.otherParticipantNodeHalves;
+    }
+
+    /**
+     * @return frames with the half of the seed for each other participant node, or with the identifier of the stored
+     * seed and a nonce for the nodes offered a stored seed
+     */
+    @Override
+    public byte[][] getParticipantNodeFrames() {
+        byte[][] frames = new byte[this.participantNodeHalves.length][];
+        for (int i = 0; i < frames.length; i++) {
+            if (this.storedSeeds[i] != null)
+                frames[i] = KeyMaterialFrame.encode(seedIdentifier(this.storedSeeds[i]), this.sessionNonces[i]);
+            else
+                frames[i] = KeyMaterialFrame.encode(this.participantNodeHalves[i]);
+        }
+        return frames;
+    }
+
+    /**
+     * @param frames frames with the half of the seed, or the offer of a stored seed, of each other participant node
+     */
+    @Override
+    public void setOtherParticipantNodesFrames(byte[][] frames) {
+        BigInteger[] otherNodesHalves = new BigInteger[frames.length];
+        BigInteger[] otherSessionNonces = new BigInteger[frames.length];
+        boolean[] reused = new boolean[frames.length];
+        for (int i = 0; i < frames.length; i++) {
+            if (KeyMaterialFrame.count(frames[i]) == 2) {
+                BigInteger[] offer = KeyMaterialFrame.decode(frames[i], 2);
+                otherSessionNonces[i] = offer[1];
+                // The seed is reused only if both nodes offered the same one
+                reused[i] = this.storedSeeds[i] != null && offer[0].equals(seedIdentifier(this.storedSeeds[i]));
+            } else {
+                otherNodesHalves[i] = KeyMaterialFrame.decode(frames[i], 1)[0];
+            }
+        }
+        this.otherSessionNonces = otherSessionNonces;
+        this.reused = reused;
+        this.otherParticipantNodeHalves = otherNodesHalves;
+    }
+
+    /**
+     * Exchange the halves with the other participant nodes that did not reuse a stored seed and did not send their
+     * half yet: both nodes of such a pair sent an offer or only one of them did, so both know the pair is in this
+     * second exchange. Nothing is exchanged with the rest of the nodes
+     */
+    private void exchangeMissingHalves() {
+        boolean[] missing = new boolean[this.participantNodeHalves.length];
+        boolean anyMissing = false;
+        for (int i = 0; i < missing.length; i++) {
+            missing[i] = !this.reused[i] && (this.storedSeeds[i] != null || this.otherParticipantNodeHalves[i] == null);
+            anyMissing |= missing[i];
+        }
+        if (!anyMissing)
+            return;
+        computeHalves(missing);
+        byte[][] frames = new byte[missing.length][];
+        for (int i = 0; i < frames.length; i++)
+            if (missing[i])
+                frames[i] = KeyMaterialFrame.encode(this.participantNodeHalves[i]);
+        byte[][] received = this.peerExchange.exchange(frames);
+        for (int i = 0; i < received.length; i++) {
+            if (missing[i]) {
+                this.otherParticipantNodeHalves[i] = KeyMaterialFrame.decode(received[i], 1)[0];
+                // The stored seed was not accepted, so a new one is agreed from the halves
+                this.storedSeeds[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Compute the halves (g^a) not computed yet for some of the other participant nodes
+     *
+     * @param needed true for the nodes whose half is computed
+     */
+    private void computeHalves(final boolean[] needed) {
+        ParallelKeyDerivation.forEach(this.parallelKeyDerivation, needed.length, this.room.getRoomSize(),
+                new ParallelKeyDerivation.IndexedTask() {
+                    @Override
+                    public void run(int i) {
+                        if (needed[i] && participantNodeHalves[i] == null)
+                            participantNodeHalves[i] = group.getG().power(exponents[i]).encode();
+                    }
+                });
+    }
+
+    /**
+     * @return sum of all the keys of current participant node in the current round
+     */
+    @Override
+    public BigInteger getParticipantNodeRoundKeyValue() {
+        BigInteger[][] derived = deriveRound(this.round);
+        this.roundKeys = derived[0];
+        this.sharedRandomValues = derived[1];
+        BigInteger roundKeyValue = BigInteger.ZERO;
+        for (BigInteger roundKey : this.roundKeys)
+            roundKeyValue = roundKeyValue.add(roundKey);
+        return roundKeyValue;
+    }
+
+    /**
+     * Derive the keys and shared random values of a round without changing the current round, so the keys of future
+     * rounds can be prepared by another thread. The halves must have been exchanged before
+     *
+     * @param round number of the round
+     * @return keys and shared random values with each other participant node, signed as in
+     * {@link #getRoundKeys()} and {@link #getSharedRandomValues()}
+     */
+    public synchronized BigInteger[][] deriveRound(int round) {
+        if (this.prfs == null)
+            agreeOnSeeds();
+        BigInteger keyModulus = this.room.getMessageModulus();
+        BigInteger randomModulus = this.group.getOrder();
+        int _a = nodeIndex - 1;
+        BigInteger[] keys = new BigInteger[this.exponents.length];
+        BigInteger[] randoms = new BigInteger[this.exponents.length];
+        for (int i = 0; i < keys.length; i++) {
+            int otherIndex = otherIndex(i);
+            byte[] input = prfInput(round, Math.min(nodeIndex, otherIndex), Math.max(nodeIndex, otherIndex));
+            BigInteger key = derive(this.prfs[i], KEY_LABEL, input, keyModulus);
+            BigInteger random = derive(this.prfs[i], RANDOM_LABEL, input, randomModulus);
+            keys[i] = i < _a ? key.negate() : key;
+            randoms[i] = i < _a ? random.negate() : random;
+        }
+        return new BigInteger[][]{keys, randoms};
+    }
+
+    /**
+     * @return each key of current node with all the participant nodes in the room in the current round
+     */
+    @Override
+    public BigInteger[] getRoundKeys() {
+        return roundKeys;
+    }
+
+    /**
+     * @return shared random values of the current round
+     */
+    @Override
+    public BigInteger[] getSharedRandomValues() {
+        return sharedRandomValues;
+    }
+
+    /**
+     * Key a PRF with the seed \(g^{ab}\) shared with each other participant node, or with the seed of the session
+     * for the nodes that reuse a stored seed. New seeds are written to the store
+     */
+    private void agreeOnSeeds() {
+        final Mac[] prfs = new Mac[this.exponents.length];
+        final BigInteger[] newSeeds = new BigInteger[this.exponents.length];
+        ParallelKeyDerivation.forEach(this.parallelKeyDerivation, prfs.length, this.room.getRoomSize(),
+                new ParallelKeyDerivation.IndexedTask() {
+                    @Override
+                    public void run(int i) {
+                        byte[] key;
+                        if (reused != null && reused[i]) {
+                            key = sessionSeed(i);
+                        } else {
+                            newSeeds[i] = group.decode(otherParticipantNodeHalves[i]).power(exponents[i]).encode();
+                            key = newSeeds[i].toByteArray();
+                        }
+                        prfs[i] = HmacPrf.keyed(key);
+                    }
+                });
+        this.prfs = prfs;
+        if (this.seedStore != null)
+            storeSeeds(newSeeds);
+    }
+
+    /**
+     * @param newSeeds seeds agreed in this session (null entries for the reused ones)
+     */
+    private void storeSeeds(BigInteger[] newSeeds) {
+        String nodeIdentity = this.room.getNodeIpFromIndex(this.nodeIndex);
+        for (int i = 0; i < newSeeds.length; i++)
+            if (newSeeds[i] != null) {
+                String peerIdentity = this.room.getNodeIpFromIndex(otherIndex(i));
+                this.seedStore.put(this.roomHash, nodeIdentity, peerIdentity, newSeeds[i]);
+            }
+        try {
+            this.seedStore.save();
+        } catch (IOException e) {
+            // The seeds of this session are still valid, they are just agreed again in the next one
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @param i position of the other participant node
+     * @return key of the PRF of a pair that reuses its stored seed: \(PRF(seed, nonce_{lower}, nonce_{higher})\)
+     */
+    private byte[] sessionSeed(int i) {
+        boolean otherIsLower = i < nodeIndex - 1;
+        Mac prf = HmacPrf.keyed(this.storedSeeds[i].toByteArray());
+        prf.update(SESSION_SEED_LABEL);
+        prf.update(KeyMaterialFrame.encode(otherIsLower ? this.otherSessionNonces[i] : this.sessionNonces[i],
+                otherIsLower ? this.sessionNonces[i] : this.otherSessionNonces[i]));
+        return prf.doFinal();
+    }
+
+    /**
+     * @param seed stored seed
+     * @return public identifier of the seed, \(PRF(seed, label)\)
+     */
+    private static BigInteger seedIdentifier(BigInteger seed) {
+        Mac prf = HmacPrf.keyed(seed.toByteArray());
+        return new BigInteger(1, prf.doFinal(SEED_ID_LABEL));
+    }
+
+    /**
+     * @param i position of the other participant node in the arrays of halves and keys
+     * @return index of the other node: halves are ordered by index, skipping the current node
+     */
+    private int otherIndex(int i) {
+        return i < nodeIndex - 1 ? i + 1 : i + 2;
+    }
+
+    /**
+     * @return encoding of (round, lower index, higher index), the same for both nodes of the pair
+     */
+    private static byte[] prfInput(int round, int lowerIndex, int higherIndex) {
+        return new byte[]{
+                (byte) (round >>> 24), (byte) (round >>> 16), (byte) (round >>> 8), (byte) round,
+                (byte) (lowerIndex >>> 8), (byte) lowerIndex,
+                (byte) (higherIndex >>> 8), (byte) higherIndex};
+    }
+
+    /**
+     * Expand the PRF in counter mode to a value of the modulus
+     *
+     * @param prf     PRF keyed with the seed of the pair
+     * @param label   label of the value
+     * @param input   round and pair
+     * @param modulus modulus of the value
+     * @return \(PRF(seed, label, round, pair) \pmod{modulus}\)
+     */
+    private static BigInteger derive(Mac prf, byte[] label, byte[] input, BigInteger modulus) {
+        int length = (modulus.bitLength() + EXTRA_BITS + 7) / 8;
+        return new BigInteger(1, HmacPrf.expand(prf, label, input, length)).mod(modulus);
+    }
+
+}
@@ -0,0 +1,271 @@
+package participantnode;
+
+import json.MessageType;
+import json.PhaseMessage;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Reorder buffer of the messages decoded by the {@link Receiver} thread and not yet taken by the protocol thread,
+ * keyed by the round, phase and sender of their header. The receiver leaves each message in the buffer of its phase
+ * as soon as it arrives, whatever phase the protocol thread is playing, and the protocol thread takes the messages of
+ * the phase it is playing, in the order they arrived, until it has one of every node of the room. So a message of a
+ * fast node that is already in the next phase (or round) waits for its turn instead of being taken as the message of
+ * a slow node in the current one.
+ * <p>
+ * The sender of the header is declared by the node that sent the frame, and the PUB/SUB sockets of the room do not
+ * authenticate it, so the buffer only keeps honest nodes in order: it does not tell which node sent a message. A node
+ * can send messages as another one, and since only the first message of each sender is kept in a phase, the message
+ * of the real node is then dropped. Authenticating the senders is out of the scope of this buffer.
+ * <p>
+ * A node that plays the protocol is at most one phase ahead of the slowest node, since no phase completes without the
+ * message of every node, so it never has more than two messages in the buffer, of the round being played or of the
+ * round played next. Messages of any other round are dropped as they arrive, and the ones of the rounds that turn out
+ * not to be played next are dropped when the protocol thread moves to a new round, so they only count against the
+ * quota of their sender while they can still be taken. The messages of a sender over {@link #MAX_MESSAGES_PER_NODE}
+ * are dropped, so a node that floods the room can not exhaust the memory
+ *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
+ */
+public class MessageInbox {
+
+    /**
+     * How long the protocol thread waits on the buffer before checking if the receiver failed
+     */
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    /**
+     * Messages of a node kept at most, of all the phases
+     */
+    private static final int MAX_MESSAGES_PER_NODE = 4;
+
+    /**
+     * Number of nodes of the room, which is the number of messages of a complete phase
+     */
+    private final int roomSize;
+
+    /**
+     * Phases with at least one message received and not all of their messages taken
+     */
+    private final Map<PhaseKey, PhaseBuffer> phases = new HashMap<>();
+
+    /**
+     * Phases of the current round whose messages were all taken, so late copies of their messages are dropped (the
+     * ones of older rounds are dropped as their round is not expected anymore)
+     */
+    private final Set<PhaseKey> completedPhases = new HashSet<>();
+
+    /**
+     * Messages received and not yet taken of each node, of all the phases
+     */
+    private final int[] buffered;
+
+    /**
+     * Round being played by the protocol thread, and the rounds that may be played after it
+     */
+    private int currentRound = 1;
+    private int[] nextRounds = new int[0];
+
+    /**
+     * First error of the receiver thread, thrown to the protocol thread when it takes a message
+     */
+    private volatile RuntimeException failure;
+
+    private volatile boolean closed;
+
+    /**
+     * @param roomSize number of nodes of the room
+     */
+    public MessageInbox(int roomSize) {
+        this.roomSize = roomSize;
+        this.buffered = new int[roomSize + 1];
+    }
+
+    /**
+     * Add a message to the buffer of its phase. Messages of nodes out of the room, of phases already completed, of a
+     * sender that already has one in their phase, or of a sender with too many messages in the buffer are dropped. The
+     * sender is the one declared in the header, that is not authenticated
+     *
+     * @param phaseMessage message decoded from a frame, with its header
+     */
+    synchronized void put(PhaseMessage phaseMessage) {
+        int sender = phaseMessage.getSender();
+        PhaseKey key = new PhaseKey(phaseMessage.getRound(), phaseMessage.getPhase());
+        if (sender < 1 || sender > this.roomSize) {
+            System.err.println("Dropped message of unknown node " + sender + ". Round: " + key.round);
+            return;
+        }
+        if (!isExpected(key.round)) {
+            System.err.println("Dropped " + key.phase + " message of a round not expected. Round: " + key.round +
+                    ", Node: " + sender);
+            return;
+        }
+        if (this.completedPhases.contains(key)) {
+            System.err.println("Dropped late " + key.phase + " message. Round: " + key.round + ", Node: " + sender);
+            return;
+        }
+        if (this.closed)
+            return;
+        if (this.buffered[sender] >= MAX_MESSAGES_PER_NODE) {
+            System.err.println("Dropped " + key.phase + " message of node " + sender + " with too many messages " +
+                    "waiting. Round: " + key.round);
+            return;
+        }
+
+        PhaseBuffer phase = this.phases.get(key);
+        if (phase == null) {
+            phase = new PhaseBuffer(this.roomSize);
+            this.phases.put(key, phase);
+        }
+        if (phase.senders[sender]) {
+            System.err.println("Dropped repeated " + key.phase + " message. Round: " + key.round + ", Node: " +
+                    sender);
+            return;
+        }
+        phase.senders[sender] = true;
+        phase.arrived.add(phaseMessage);
+        this.buffered[sender]++;
+        notifyAll();
+    }
+
+    /**
+     * @param round round being played
+     * @param type  class of the messages of the phase being played
+     * @return oldest message of that phase not yet taken, waiting for one if there is none
+     * @throws InterruptedIOException if the protocol thread is interrupted while waiting
+     * @throws IllegalStateException  if the receiver thread failed, or all the messages of the phase were taken
+     */
+    synchronized <T> T take(int round, Class<T> type) throws InterruptedIOException {
+        PhaseKey key = new PhaseKey(round, MessageType.of(type));
+        if (this.completedPhases.contains(key))
+            throw new IllegalStateException("All the " + key.phase + " messages of round " + round + " were taken");
+        try {
+            while (true) {
+                PhaseBuffer phase = this.phases.get(key);
+                if (phase != null && !phase.arrived.isEmpty()) {
+                    PhaseMessage phaseMessage = phase.arrived.poll();
+                    // The phase is complete once the message of every node was taken
+                    if (++phase.taken == this.roomSize) {
+                        this.phases.remove(key);
+                        this.completedPhases.add(key);
+                    }
+                    this.buffered[phaseMessage.getSender()]--;
+                    return type.cast(phaseMessage.getMessage());
+                }
+                if (this.failure != null)
+                    throw new IllegalStateException("Receiver thread failed", this.failure);
+                wait(POLL_TIMEOUT_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a " + key.phase + " message");
+        }
+    }
+
+    /**
+     * Move to a new round, dropping the messages of the rounds that are no longer expected and forgetting the phases
+     * completed in older rounds
+     *
+     * @param round      round the protocol thread starts playing
+     * @param nextRounds rounds that may be played after it
+     */
+    synchronized void advance(int round, int[] nextRounds) {
+        this.currentRound = round;
+        this.nextRounds = nextRounds.clone();
+        Iterator<PhaseKey> completedPhases = this.completedPhases.iterator();
+        while (completedPhases.hasNext())
+            if (completedPhases.next().round < round)
+                completedPhases.remove();
+        Iterator<Map.Entry<PhaseKey, PhaseBuffer>> phases = this.phases.entrySet().iterator();
+        while (phases.hasNext()) {
+            Map.Entry<PhaseKey, PhaseBuffer> phase = phases.next();
+            if (isExpected(phase.getKey().round))
+                continue;
+            for (PhaseMessage phaseMessage : phase.getValue().arrived)
+                this.buffered[phaseMessage.getSender()]--;
+            phases.remove();
+        }
+    }
+
+    /**
+     * @param round round of a message
+     * @return true if it is the round being played or one of the rounds that may be played after it
+     */
+    private boolean isExpected(int round) {
+        if (round == this.currentRound)
+            return true;
+        for (int nextRound : this.nextRounds)
+            if (round == nextRound)
+                return true;
+        return false;
+    }
+
+    /**
+     * Stop the session once the socket of the receiver thread fails. A malformed frame is not a failure, as it is
+     * dropped by the receiver thread without reaching the inbox
+     *
+     * @param failure error of the socket of the receiver thread, after which no more messages arrive
+     */
+    void fail(RuntimeException failure) {
+        if (this.failure == null)
+            this.failure = failure;
+    }
+
+    /**
+     * Stop accepting messages, once the protocol thread has finished
+     */
+    void close() {
+        this.closed = true;
+    }
+
+    /**
+     * Round and phase of a message
+     */
+    private static final class PhaseKey {
+
+        private final int round;
+        private final MessageType phase;
+
+        PhaseKey(int round, MessageType phase) {
+            this.round = round;
+            this.phase = phase;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof PhaseKey))
+                return false;
+            PhaseKey other = (PhaseKey) o;
+            return this.round == other.round && this.phase == other.phase;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.round + this.phase.hashCode();
+        }
+
+    }
+
+    /**
+     * Messages of a phase received and not yet taken, and the nodes that already sent theirs
+     */
+    private static final class PhaseBuffer {
+
+        private final Queue<PhaseMessage> arrived = new ArrayDeque<>();
+        private final boolean[] senders;
+        private int taken;
+
+        PhaseBuffer(int roomSize) {
+            this.senders = new boolean[roomSize + 1];
+        }
+
+    }
+
+}
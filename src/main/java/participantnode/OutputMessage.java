@@ -1,10 +1,11 @@
 package participantnode;
 
+import crypto.RandomSource;
 import dcnet.Room;
+import dcnet.RoomContext;
 
 import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
-import java.util.Random;
 
 /**
  *
@@ -25,6 +26,15 @@ public class OutputMessage {
     OutputMessage() {
     }
 
+    /**
+     * Output message received from another node, of which only the protocol message is known
+     *
+     * @param protocolMessage protocol message of the node, hidden by its round key
+     */
+    public OutputMessage(BigInteger protocolMessage) {
+        this.protocolMessage = protocolMessage;
+    }
+
     public BigInteger getPlainMessage() {
         return plainMessage;
     }
@@ -47,7 +57,7 @@ public class OutputMessage {
     /**
      * @return protocol message in BigInteger form
      */
-    BigInteger getProtocolMessage() {
+    public BigInteger getProtocolMessage() {
         return protocolMessage;
     }
 
@@ -60,7 +70,7 @@ public class OutputMessage {
         StringBuilder sbRandomString = new StringBuilder(l);
         for (int i = 0; i < l; i++) {
             //get random integer between 0 and string length
-            int randomInt = new Random().nextInt(strAllowedCharacters.length());
+            int randomInt = RandomSource.getInstance().nextInt(strAllowedCharacters.length());
 
             //get char from randomInt index from string and append in StringBuilder
             sbRandomString.append(strAllowedCharacters.charAt(randomInt));
@@ -73,10 +83,7 @@ public class OutputMessage {
      * @return message without the randomness
      */
     static String getMessageWithoutRandomPadding(BigInteger messageWithRandomPadding, Room room) throws UnsupportedEncodingException {
-        BigInteger nPlusOne = BigInteger.valueOf(room.getRoomSize() + 1);
-        BigInteger two = BigInteger.valueOf(2);
-
-        BigInteger _a = messageWithRandomPadding.divide(two.pow(RANDOM_PADDING_LENGTH * 8).multiply(nPlusOne));
+        BigInteger _a = messageWithRandomPadding.divide(room.getContext().getPlainMessageFactor());
         return new String(_a.toByteArray(), "UTF-8");
     }
 
@@ -86,8 +93,8 @@ public class OutputMessage {
      * @throws UnsupportedEncodingException
      */
     void setParticipantMessage(String participantMessage, Room room) throws UnsupportedEncodingException {
-        BigInteger nPlusOne = BigInteger.valueOf(room.getRoomSize() + 1);
-        BigInteger two = BigInteger.valueOf(2);
+        RoomContext context = room.getContext();
+        BigInteger nPlusOne = context.getNPlusOne();
 
         // Generate random characters to prevent infinite protocol when equal messages collide
         String randomString = generateRandomString(RANDOM_PADDING_LENGTH);
@@ -101,7 +108,7 @@ public class OutputMessage {
         plainMessage = participantMessageBigInteger;
 
         // Calculate concatenation of participant message and random characters, leaving a gap of log(n+1) bits between them
-        this.plainMessageWithRandomPadding = participantMessageBigInteger.multiply(two.pow(RANDOM_PADDING_LENGTH * 8).multiply(nPlusOne)).add(randomStringBigInteger);
+        this.plainMessageWithRandomPadding = participantMessageBigInteger.multiply(context.getPlainMessageFactor()).add(randomStringBigInteger);
 
         // Set to the OutputMessage object the actual message that the node wants to communicate (<m>)
         // If the message is 0, the node doesn't want to send any message to the room
@@ -1,17 +1,22 @@
 package participantnode;
 
 import dcnet.Room;
+import json.PhaseMessage;
+import json.WireCodec;
 import org.zeromq.ZContext;
 import org.zeromq.ZMQ;
 import org.zeromq.ZThread;
 
 /**
+ * Thread that receives the frames broadcast by the room, decodes them and leaves them in the {@link MessageInbox} of
+ * the node, by the round, phase and sender of their header
  *
+ * @author Camilo J. Gomez (camilo@niclabs.cl)
  */
 public class Receiver implements ZThread.IAttachedRunnable {
 
     /**
-     * @param args    room where the receiver thread needs to listen messages
+     * @param args    room where the receiver thread needs to listen messages, and inbox where it leaves them
      * @param context context where the zmq sockets need to run
      * @param pipe    zmq socket created to connect both threads
      */
@@ -19,75 +24,46 @@ public class Receiver implements ZThread.IAttachedRunnable {
     public void run(Object[] args, ZContext context, ZMQ.Socket pipe) {
         // Create the receiver socket that work as a subscriber
         ZMQ.Socket receiver = context.createSocket(ZMQ.SUB);
-        // Set size of the DC-NET room
         Room room = (Room) args[0];
-        int roomSize = room.getRoomSize();
+        MessageInbox inbox = (MessageInbox) args[1];
+        WireCodec wireCodec = room.getWireCodec();
         // Connect as a subscriber to each of the nodes on the DC-NET room
         connectReceiverThread(receiver, room);
         // Subscribe to whatever the nodes say
         receiver.subscribe("".getBytes());
 
+        // Wait at the same time for frames of the room and for the end of the session
+        ZMQ.Poller poller = new ZMQ.Poller(2);
+        poller.register(pipe, ZMQ.Poller.POLLIN);
+        poller.register(receiver, ZMQ.Poller.POLLIN);
+
         // Read from other nodes while is not being interrupted
         while (!Thread.currentThread().isInterrupted()) {
-            // Receive message from the sender thread
-            String inputFromSender = pipe.recvStr();
-            // Check if the message is a Finished signal
-            if (inputFromSender.equals("FINISHED"))
+            byte[] frame;
+            try {
+                if (poller.poll() < 0)
+                    break;
+                // The only signal of the sender thread is the end of the session
+                if (poller.pollin(0) && pipe.recvStr().equals("FINISHED"))
+                    break;
+                if (!poller.pollin(1))
+                    continue;
+                frame = receiver.recv();
+            } catch (RuntimeException e) {
+                // The socket failed, so no more messages will arrive
+                inbox.fail(e);
                 break;
-            // If not is finished, it is the number of the round that the room is playing
-            int round = Integer.parseInt(inputFromSender);
-            // If the round is virtual, the receiver thread will not receive any message from the room, so we skip it
-            if (round != 1 && round % 2 != 0)
-                continue;
-
-            /* COMMITMENTS ON KEYS PART **/
-            for (int i = 0; i < roomSize; i++) {
-                // Receive commitment on key from a node in the room
-                String inputKeyCommitment = receiver.recvStr();
-                // Send string to sender thread
-                pipe.send(inputKeyCommitment);
-            }
-
-            /* COMMITMENTS FOR SINGLE VALUES **/
-            for (int i = 0; i < roomSize; i++) {
-                // Received commitments on single values from a node in the room
-                String inputCommitmentsOnSingleValues = receiver.recvStr().trim();
-                // Send string (json) to sender thread
-                pipe.send(inputCommitmentsOnSingleValues);
             }
-
-            /* COMMITMENTS AND POK ON MESSAGES **/
-            for (int i = 0; i < roomSize; i++) {
-                // Receive proof of knowledge from a node in the room as a String (json)
-                String inputMessagePOKAndCommitment = receiver.recvStr().trim();
-                // Send String (json) to sender thread
-                pipe.send(inputMessagePOKAndCommitment);
-            }
-
-            /* OUTPUT MESSAGE SENDING **/
-            if (round == 1) {
-                for (int i = 0; i < roomSize; i++) {
-                    // Receive message from a node in the room
-                    String inputOutputMessagePOKAndOutputMessage = receiver.recvStr().trim();
-                    // Send String (json) to the sender thread
-                    pipe.send(inputOutputMessagePOKAndOutputMessage);
-                }
-            } else if ((round/2) % 2 == 0 || round == 2) {
-                for (int i = 0; i < roomSize; i++) {
-                    // Receive message from a node in the room
-                    String incomingOutputMessageAndPOKResending = receiver.recvStr().trim();
-                    // Send String (json) to the sender thread the message received
-                    pipe.send(incomingOutputMessageAndPOKResending);
-                }
-            } else {
-                for (int i = 0; i < roomSize; i++) {
-                    // Receive message from a node in the room
-                    String incomingOutputMessageAndPOKResending = receiver.recvStr().trim();
-                    // Send String (json) to the sender thread the message received
-                    pipe.send(incomingOutputMessageAndPOKResending);
-                }
+            // Decode the frame here, so the sender thread only gets typed messages, and route it by its header. A
+            // malformed frame is dropped like any other wrong message of a node, without stopping the session
+            PhaseMessage message;
+            try {
+                message = wireCodec.decode(frame);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Dropped malformed frame: " + e.getMessage());
+                continue;
             }
-
+            inbox.put(message);
         }
 
         // Close receiver thread
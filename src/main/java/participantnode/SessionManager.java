@@ -1,21 +1,32 @@
 package participantnode;
 
-import com.google.gson.Gson;
 import crypto.Commitment;
+import crypto.Group;
+import crypto.GroupElement;
 import crypto.PedersenCommitment;
+import crypto.RandomSource;
+import crypto.ProofNoncePool;
+import crypto.VerificationExecutor;
 import crypto.ZeroKnowledgeProof;
 import dcnet.DCNETProtocol;
+import dcnet.PeerChannel;
 import dcnet.Room;
+import dcnet.RoomContext;
 import json.*;
-import keygeneration.DiffieHellman;
-import keygeneration.KeyGeneration;
+import keygeneration.KeyGenerationStrategy;
+import keygeneration.KeyMaterialPrefetcher;
+import keygeneration.PairwiseSeedStore;
+import keygeneration.ParallelKeyDerivation;
+import keygeneration.PeerExchange;
+import keygeneration.RoundKeyExchange;
+import keygeneration.RoundKeyMaterial;
+import keygeneration.SeededKeyGeneration;
 import org.zeromq.ZContext;
 import org.zeromq.ZMQ;
 
 import java.io.IOException;
 import java.math.BigInteger;
 import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
 import java.text.DecimalFormat;
 import java.util.*;
 
@@ -25,14 +36,9 @@ import java.util.*;
 public class SessionManager {
 
     /**
-     * Array of socket repliers of this participant node (one for each another node in the room)
+     * Channel of this participant node with each other node in the room
      */
-    private ZMQ.Socket[] repliers;
-
-    /**
-     * Array of socket requestors of this participant node (one for each another node in the room)
-     */
-    private ZMQ.Socket[] requestors;
+    private PeerChannel peerChannel;
 
     /**
      * Store how many real rounds were played in this session
@@ -59,6 +65,31 @@ public class SessionManager {
      */
     private long totalSyncTime;
 
+    /**
+     * Worker threads where the verification of the proofs received in each phase is split
+     */
+    private VerificationExecutor verificationExecutor;
+
+    /**
+     * Pool of nonces of the proofs precomputed in background (null if there is no pool)
+     */
+    private ProofNoncePool proofNoncePool;
+
+    /**
+     * Threads where the exponentiations of the key generation are split (null to run them on the protocol thread)
+     */
+    private ParallelKeyDerivation parallelKeyDerivation;
+
+    /**
+     * Store of the seeds agreed with the other nodes in previous sessions (null to agree on new seeds every session)
+     */
+    private PairwiseSeedStore seedStore;
+
+    /**
+     * True if the nonces of the proofs of knowledge are derived instead of drawn
+     */
+    private boolean deterministicNonces;
+
     /**
      * Initialize all parameters of SessionManager with default values
      */
@@ -67,6 +98,7 @@ public class SessionManager {
         executionTime = 0;
         firstMessageTime = 0;
         totalSyncTime = 0;
+        verificationExecutor = new VerificationExecutor(1);
     }
 
     /**
@@ -78,6 +110,7 @@ public class SessionManager {
      * @param node                     participant node
      * @param receiverThread           thread where participant node is listening to receive messages from
      *                                 the rest of the room
+     * @param inbox                    messages received by the receiver thread, by type
      * @param messagesList             where to store the messages that fo through the protocol
      * @param cheaterNode              true if the node cheats (send messages in the wrong rounds), false if not
      * @param observableMessageArrived observable that notifies when a message has arrived
@@ -85,7 +118,8 @@ public class SessionManager {
      * @throws NoSuchAlgorithmException test
      */
     public void runSession(int nodeIndex, String participantMessage, boolean cheaterNode, Room room,
-                           ParticipantNode node, ZMQ.Socket receiverThread, ArrayList<String> messagesList,
+                           ParticipantNode node, ZMQ.Socket receiverThread, MessageInbox inbox,
+                           ArrayList<String> messagesList,
                            DCNETProtocol.ObservableMessageArrived observableMessageArrived)
             throws IOException, NoSuchAlgorithmException {
 
@@ -136,25 +170,63 @@ public class SessionManager {
         zeroMessage.setParticipantMessage("0", room);
         zeroMessage.setPaddingLength(room.getPadLength());
 
+        // With the seeded strategy, agree on a seed with each node, from which the keys of every real round are
+        // derived, and prepare the keys of the first round in background while the nodes synchronize. The rest of the
+        // strategies exchange their values in each real round, in background too, from when the round is known
+        KeyGenerationStrategy keyGenerationStrategy = room.getKeyGenerationStrategy();
+        KeyMaterialPrefetcher keyMaterialPrefetcher;
+        if (keyGenerationStrategy.isPerSession()) {
+            SeededKeyGeneration seededKeyGeneration = (SeededKeyGeneration) keyGenerationStrategy.create(nodeIndex,
+                    peerChannel, room, PeerExchange.Mode.CONCURRENT);
+            seededKeyGeneration.setParallelKeyDerivation(parallelKeyDerivation);
+            if (seedStore != null)
+                seededKeyGeneration.setSeedStore(seedStore);
+            seededKeyGeneration.generateParticipantNodeValues();
+            seededKeyGeneration.getOtherParticipantNodesValues();
+            keyMaterialPrefetcher = new KeyMaterialPrefetcher(seededKeyGeneration, room.getGroup());
+            keyMaterialPrefetcher.start();
+            keyMaterialPrefetcher.prefetch(1);
+        } else {
+            RoundKeyExchange roundKeyExchange = new RoundKeyExchange(keyGenerationStrategy, nodeIndex, peerChannel,
+                    room, PeerExchange.Mode.CONCURRENT, parallelKeyDerivation);
+            keyMaterialPrefetcher = new KeyMaterialPrefetcher(roundKeyExchange);
+            keyMaterialPrefetcher.start();
+        }
+
         // Synchronize nodes at the beginning to solve slow joiner problem
-        synchronizeNodes(nodeIndex, repliers, requestors, room);
+        synchronizeNodes(nodeIndex, peerChannel, room);
+
+        // The exchanges use the channel too, so the one of the first round starts once the nodes are synchronized
+        if (!keyGenerationStrategy.isPerSession())
+            keyMaterialPrefetcher.prefetch(1);
+
+        // Group where the commitments and proofs of the room are computed
+        Group group = room.getGroup();
+
+        // Constants of the room read in each round
+        RoomContext context = room.getContext();
 
         // Set values of subsequently pedersen commitments with the public info of the room
-        PedersenCommitment pedersenCommitment = new PedersenCommitment(room.getG(), room.getH(), room.getQ(), room.getP());
+        PedersenCommitment pedersenCommitment = new PedersenCommitment(group);
 
         // Initialize ZeroKnowledgeProof with values of the room
-        ZeroKnowledgeProof zkp = new ZeroKnowledgeProof(nodeIndex);
+        ZeroKnowledgeProof zkp = new ZeroKnowledgeProof(nodeIndex, group, room.getTranscriptScheme(),
+                verificationExecutor, proofNoncePool);
+        zkp.setDeterministicNonces(deterministicNonces);
+
+        // Codec of the messages broadcast to the room
+        WireCodec wireCodec = room.getWireCodec();
 
         // Store commitments on plain message of current participant node
-        Dictionary<Integer, BigInteger> commitmentsOnPlainMessage = new Hashtable<>();
+        Dictionary<Integer, GroupElement> commitmentsOnPlainMessage = new Hashtable<>();
 
         // Store random values for commitments on plain message of current participant node
         Dictionary<Integer, BigInteger> randomsForPlainMessage = new Hashtable<>();
 
         // Store commitments on plain messages of others participant nodes in the room
-        List<Hashtable<Integer, BigInteger>> receivedCommitmentsOnPlainMessages = new ArrayList<>();
+        List<Hashtable<Integer, GroupElement>> receivedCommitmentsOnPlainMessages = new ArrayList<>();
         for (int i = 0; i < room.getRoomSize(); i++) {
-            receivedCommitmentsOnPlainMessages.add(i, new Hashtable<Integer, BigInteger>());
+            receivedCommitmentsOnPlainMessages.add(i, new Hashtable<Integer, GroupElement>());
         }
 
         // Delimiters for time
@@ -177,22 +249,24 @@ public class SessionManager {
             // Check if the protocol was finished in the last round played.
             // If it so, let know to the receiver thread, wait for his response and break the loop
             if (finished) {
+                inbox.close();
                 receiverThread.send("FINISHED");
                 receiverThread.recvStr();
                 break;
             }
-            // If it is not finished yet, obtain which round we need to play and send this round to the receiver thread
+            // If it is not finished yet, obtain which round we need to play
             else {
                 currentRound = nextRoundsToHappen.removeFirst();
-                receiverThread.send("" + currentRound);
+                // Only messages of this round, or of the one after it that fast nodes may already be playing, are kept
+                inbox.advance(currentRound, possibleNextRounds(nextRoundsToHappen, currentRound));
             }
 
             // Variables to store the resulting message of the round
             BigInteger sumOfM, sumOfT, sumOfO = BigInteger.ZERO;
 
             // Store commitments on keys and on message for future checking
-            BigInteger[] receivedCommitmentsOnKeyCurrentRound = new BigInteger[room.getRoomSize()];
-            BigInteger[] receivedCommitmentsOnMessageCurrentRound = new BigInteger[room.getRoomSize()];
+            GroupElement[] receivedCommitmentsOnKeyCurrentRound = new GroupElement[room.getRoomSize()];
+            GroupElement[] receivedCommitmentsOnMessageCurrentRound = new GroupElement[room.getRoomSize()];
 
             /* REAL ROUND (first and even rounds) */
             if (currentRound == 1 || currentRound % 2 == 0) {
@@ -204,46 +278,24 @@ public class SessionManager {
                 realRoundsPlayed++;
 
                 /* KEY SHARING PART */
-                // Initialize KeyGeneration
-                /*KeyGeneration keyGeneration = new SecretSharing(room.getRoomSize(),
-                nodeIndex, repliers, requestors, room);*/
-                KeyGeneration keyGeneration = new DiffieHellman(room.getRoomSize() - 1, room.getG(), room.getP(),
-                        nodeIndex, repliers, requestors, room);
-
-                // Generate Participant Node values
-                keyGeneration.generateParticipantNodeValues();
+                // Take the keys of the round and the commitments on them, prepared in background since the round
+                // was known to happen
+                RoundKeyMaterial keyMaterial = keyMaterialPrefetcher.take(currentRound);
 
-                // Get other participants values (to produce cancellation keys)
-                keyGeneration.getOtherParticipantNodesValues();
-
-                // Generation of the main key round value (operation over the shared key values)
-                BigInteger keyRoundValue = keyGeneration.getParticipantNodeRoundKeyValue();
-
-                /* SEND COMMITMENT AND POK ON KEY */
-                // Get round keys (shared keys) of the current participant node
-                BigInteger[] ownRoundKeysCurrentRound = keyGeneration.getRoundKeys();
-
-                // Get shared random values
-                BigInteger[] sharedRandomValuesCurrentRound = keyGeneration.getSharedRandomValues();
+                // Main key round value (sum of the shared key values)
+                BigInteger keyRoundValue = keyMaterial.getRoundKeyValue();
 
                 t_fin = System.nanoTime();
                 t_key += t_fin - t_init;
 
                 t_init = System.nanoTime();
 
-                // Calculate and save commitments on each round key
-                BigInteger[] ownCommitmentsOnKeysCurrentRound = new BigInteger[ownRoundKeysCurrentRound.length];
-                for (int i = 0; i < ownRoundKeysCurrentRound.length; i++)
-                    ownCommitmentsOnKeysCurrentRound[i] = pedersenCommitment.calculateCommitment(
-                            ownRoundKeysCurrentRound[i], sharedRandomValuesCurrentRound[i]);
-
-                // Retrieve random for commitment on key
-                BigInteger randomForCommitmentOnKeyCurrentRound = calculateRandomForCommitmentOnKey(
-                        sharedRandomValuesCurrentRound);
+                /* SEND COMMITMENT AND POK ON KEY */
+                // Random for commitment on key
+                BigInteger randomForCommitmentOnKeyCurrentRound = keyMaterial.getRandomForCommitmentOnKey();
 
-                // Generate general commitment value for the resulting round key (operation over round keys)
-                BigInteger ownCommitmentOnKeyCurrentRound = generateCommitmentOnKey(ownCommitmentsOnKeysCurrentRound,
-                        room);
+                // General commitment value for the resulting round key (product of the commitments on each key)
+                GroupElement ownCommitmentOnKeyCurrentRound = keyMaterial.getCommitmentOnKey();
 
                 t_fin = System.nanoTime();
                 t_comm_k += t_fin - t_init;
@@ -252,23 +304,23 @@ public class SessionManager {
 
                 // Generate proof of knowledge on key stored in commitment
                 ProofOfKnowledgePedersen ownProofOfKnowledgeOnKey = zkp.generateProofOfKnowledgePedersen(
-                        ownCommitmentOnKeyCurrentRound, room.getG(), keyRoundValue, room.getH(),
-                        randomForCommitmentOnKeyCurrentRound, room.getQ(), room.getP());
+                        ownCommitmentOnKeyCurrentRound, group.getG(), keyRoundValue, group.getH(),
+                        randomForCommitmentOnKeyCurrentRound);
 
                 t_fin = System.nanoTime();
                 t_pok_k += t_fin - t_init;
 
                 t_init = System.nanoTime();
 
-                // Generate Json string containing commitmentOnKey and proofOfKnowledge
+                // Encode a frame containing commitmentOnKey and proofOfKnowledge
                 CommitmentAndProofOfKnowledge ownCommitmentAndProofOfKnowledgeOnKey = new CommitmentAndProofOfKnowledge(
-                        ownCommitmentOnKeyCurrentRound, ownProofOfKnowledgeOnKey);
-                String ownCommitmentAndProofOfKnowledgeOnKeyJson = new Gson().toJson(
-                        ownCommitmentAndProofOfKnowledgeOnKey, CommitmentAndProofOfKnowledge.class);
+                        ownCommitmentOnKeyCurrentRound.encode(), ownProofOfKnowledgeOnKey);
+                byte[] ownCommitmentAndProofOfKnowledgeOnKeyFrame = wireCodec.encode(new PhaseMessage(currentRound,
+                        nodeIndex, ownCommitmentAndProofOfKnowledgeOnKey));
 
                 // Send commitment on key and index to the room
-                currentRoundTotalSentMessageSize += ownCommitmentAndProofOfKnowledgeOnKeyJson.getBytes("UTF-8").length;
-                node.getSender().send(ownCommitmentAndProofOfKnowledgeOnKeyJson);
+                currentRoundTotalSentMessageSize += ownCommitmentAndProofOfKnowledgeOnKeyFrame.length;
+                node.getSender().send(ownCommitmentAndProofOfKnowledgeOnKeyFrame);
 
                 t_fin = System.nanoTime();
                 t_send_cpk += t_fin - t_init;
@@ -276,34 +328,45 @@ public class SessionManager {
                 t_init = System.nanoTime();
 
                 /* RECEIVE COMMITMENTS AND POKs ON KEYS */
-                BigInteger multiplicationOnCommitments = BigInteger.ONE;
+                GroupElement multiplicationOnCommitments = group.getIdentity();
+                ProofOfKnowledgePedersen[] receivedProofsOfKnowledgeOnKey = new ProofOfKnowledgePedersen[room.getRoomSize()];
+                ZeroKnowledgeProof.VerificationStream proofsOfKnowledgeOnKey = zkp.newVerificationStream(
+                        room.getRoomSize());
                 for (int i = 0; i < room.getRoomSize(); i++) {
-                    // Wait response from Receiver thread as a string
-                    String receivedCommitmentAndProofOfKnowledgeOnKeyJson = receiverThread.recvStr();
-
-                    // Transform string (json) to CommitmentAndProofOfKnowledge object
-                    CommitmentAndProofOfKnowledge receivedCommitmentAndProofOfKnowledgeOnKey = new Gson().fromJson(
-                            receivedCommitmentAndProofOfKnowledgeOnKeyJson, CommitmentAndProofOfKnowledge.class);
+                    // Take the next message of this round and phase, already routed by the Receiver thread
+                    CommitmentAndProofOfKnowledge receivedCommitmentAndProofOfKnowledgeOnKey = inbox.take(currentRound,
+                            CommitmentAndProofOfKnowledge.class);
 
                     // Get commitmentOnKey and index of the node that is sending the values
-                    BigInteger receivedCommitmentOnKey = receivedCommitmentAndProofOfKnowledgeOnKey.getCommitment();
+                    GroupElement receivedCommitmentOnKey = decodeCommitment(group,
+                            receivedCommitmentAndProofOfKnowledgeOnKey.getCommitment());
                     int receivedIndex = receivedCommitmentAndProofOfKnowledgeOnKey.getProofOfKnowledge().getNodeIndex();
+                    receivedProofsOfKnowledgeOnKey[i] = receivedCommitmentAndProofOfKnowledgeOnKey.getProofOfKnowledge();
+
+                    if (receivedCommitmentOnKey == null) {
+                        // The proofOfKnowledge is about a value that is not in the group, so it is wrong
+                        receivedCommitmentOnKey = group.getIdentity();
+                        proofsOfKnowledgeOnKey.reject();
+                    } else {
+                        // Start verifying proofOfKnowledge on a worker thread while the rest of the room arrives
+                        proofsOfKnowledgeOnKey.submitProofOfKnowledgePedersen(receivedProofsOfKnowledgeOnKey[i],
+                                receivedCommitmentOnKey, group.getG(), group.getH());
+                    }
 
                     // Store commitment for future checking
                     receivedCommitmentsOnKeyCurrentRound[receivedIndex - 1] = receivedCommitmentOnKey;
 
-                    // Verify proofOfKnowledge
-                    if (!zkp.verifyProofOfKnowledgePedersen(receivedCommitmentAndProofOfKnowledgeOnKey.getProofOfKnowledge(),
-                            receivedCommitmentOnKey, room.getG(), room.getH(), room.getQ(), room.getP()))
-                        System.err.println("WRONG PoK on Key. Round: " + currentRound + ", Node: " +
-                                receivedCommitmentAndProofOfKnowledgeOnKey.getProofOfKnowledge().getNodeIndex());
-
                     // Calculate multiplication of incoming commitments
-                    multiplicationOnCommitments = multiplicationOnCommitments.multiply(receivedCommitmentOnKey).
-                            mod(room.getP());
+                    multiplicationOnCommitments = multiplicationOnCommitments.multiply(receivedCommitmentOnKey);
                 }
+                // Wait for the verification of the proofsOfKnowledge still running
+                boolean[] validProofsOfKnowledgeOnKey = proofsOfKnowledgeOnKey.await();
+                for (int i = 0; i < room.getRoomSize(); i++)
+                    if (!validProofsOfKnowledgeOnKey[i])
+                        System.err.println("WRONG PoK on Key. Round: " + currentRound + ", Node: " +
+                                receivedProofsOfKnowledgeOnKey[i].getNodeIndex());
                 // Check that multiplication result is 1
-                if (!multiplicationOnCommitments.equals(BigInteger.ONE))
+                if (!multiplicationOnCommitments.equals(group.getIdentity()))
                     System.err.println("Round " + currentRound + " commitments on keys are WRONG");
 
                 t_fin = System.nanoTime();
@@ -313,7 +376,7 @@ public class SessionManager {
 
                 /* SET MESSAGES AND OBJECTS OF THIS ROUND */
                 // Set protocol message to make a commitment to and add round key to the message
-                // to construct Json that will be sent
+                // to construct the frame that will be sent
                 BigInteger ownProtocolRoundMessageCurrentRound;
                 BigInteger ownPlainMessageCurrentRound, ownRandomPaddingCurrentRound, ownFinalBitCurrentRound;
                 if (messageInThisRound) {
@@ -340,11 +403,11 @@ public class SessionManager {
                 randomsForPlainMessage.put(currentRound, randomForCommitmentOnPlainMessage);
 
                 // Commitments for single values
-                BigInteger commitmentOnPlainMessage = pedersenCommitment.calculateCommitment(
+                GroupElement commitmentOnPlainMessage = pedersenCommitment.calculateCommitment(
                         ownPlainMessageCurrentRound, randomForCommitmentOnPlainMessage);
-                BigInteger commitmentOnRandomPadding = pedersenCommitment.calculateCommitment(
+                GroupElement commitmentOnRandomPadding = pedersenCommitment.calculateCommitment(
                         ownRandomPaddingCurrentRound, randomForCommitmentOnRandomPadding);
-                BigInteger commitmentOnFinalBit = pedersenCommitment.calculateCommitment(
+                GroupElement commitmentOnFinalBit = pedersenCommitment.calculateCommitment(
                         ownFinalBitCurrentRound, randomForCommitmentOnFinalBit);
 
                 // Store commitment on plain message for future use
@@ -352,7 +415,8 @@ public class SessionManager {
 
                 // Create Object with single commitments
                 CommitmentsOnSingleValues commitmentsOnSingleValues = new CommitmentsOnSingleValues(
-                        commitmentOnPlainMessage, commitmentOnRandomPadding, commitmentOnFinalBit, nodeIndex);
+                        commitmentOnPlainMessage.encode(), commitmentOnRandomPadding.encode(),
+                        commitmentOnFinalBit.encode(), nodeIndex);
 
                 t_fin = System.nanoTime();
                 t_set_msg += t_fin - t_init;
@@ -361,27 +425,25 @@ public class SessionManager {
 
                 // Create Proof that the format of the message is correct
                 ProofOfKnowledgeMessageFormat ownProofForMessageFormat;
-                BigInteger _comm = room.getG().modInverse(room.getP()).multiply(
-                        commitmentOnFinalBit).mod(room.getP()); // _comm = g^{-1} * C_b (mod p)
+                GroupElement _comm = context.getInverseOfG().multiply(commitmentOnFinalBit); // _comm = g^{-1} * C_b
                 if (messageInThisRound && !emptyMessage) {
                     ownProofForMessageFormat = zkp.generateProofOfKnowledgeMessageFormatX1(
-                            _comm, room.getH(), randomForCommitmentOnFinalBit, commitmentOnFinalBit,
-                            commitmentOnPlainMessage, room.getQ(), room.getP());
+                            _comm, group.getH(), randomForCommitmentOnFinalBit, commitmentOnFinalBit,
+                            commitmentOnPlainMessage);
                 } else {
                     ownProofForMessageFormat = zkp.generateProofOfKnowledgeMessageFormatX2X3(
-                            _comm, room.getH(), commitmentOnFinalBit, randomForCommitmentOnFinalBit,
-                            commitmentOnPlainMessage, randomForCommitmentOnPlainMessage, room.getQ(), room.getP());
+                            _comm, group.getH(), commitmentOnFinalBit, randomForCommitmentOnFinalBit,
+                            commitmentOnPlainMessage, randomForCommitmentOnPlainMessage);
                 }
 
-                // Generate Json string containing commitment and proof that the format of the message is correct
+                // Encode a frame containing commitment and proof that the format of the message is correct
                 CommitmentsOnSingleValuesAndProofOfKnowledgeMessageFormat
                         commitmentsOnSingleValuesAndProofOfKnowledgeMessageFormat =
                         new CommitmentsOnSingleValuesAndProofOfKnowledgeMessageFormat(
                                 commitmentsOnSingleValues, ownProofForMessageFormat);
-                String commitmentsOnSingleValuesAndProofOfKnowledgeMessageFormatJson =
-                        new Gson().toJson(
-                                commitmentsOnSingleValuesAndProofOfKnowledgeMessageFormat,
-                                CommitmentsOnSingleValuesAndProofOfKnowledgeMessageFormat.class);
+                byte[] commitmentsOnSingleValuesAndProofOfKnowledgeMessageFormatFrame = wireCodec.encode(
+                        new PhaseMessage(currentRound, nodeIndex,
+                                commitmentsOnSingleValuesAndProofOfKnowledgeMessageFormat));
 
                 t_fin = System.nanoTime();
                 t_pok_f += t_fin - t_init;
@@ -389,8 +451,8 @@ public class SessionManager {
                 t_init = System.nanoTime();
 
                 // Send commitment and Proof of Knowledge that the format of the message is correct
-                currentRoundTotalSentMessageSize += commitmentsOnSingleValuesAndProofOfKnowledgeMessageFormatJson.getBytes("UTF-8").length;
-                node.getSender().send(commitmentsOnSingleValuesAndProofOfKnowledgeMessageFormatJson);
+                currentRoundTotalSentMessageSize += commitmentsOnSingleValuesAndProofOfKnowledgeMessageFormatFrame.length;
+                node.getSender().send(commitmentsOnSingleValuesAndProofOfKnowledgeMessageFormatFrame);
 
                 t_fin = System.nanoTime();
                 t_send_cpk += t_fin - t_init;
@@ -398,34 +460,45 @@ public class SessionManager {
                 t_init = System.nanoTime();
 
                 /* RECEIVE COMMITMENTS ON SINGLE VALUES AND POK ON CORRECT MESSAGE FORMAT */
+                ProofOfKnowledgeMessageFormat[] receivedProofsForMessageFormat =
+                        new ProofOfKnowledgeMessageFormat[room.getRoomSize()];
+                ZeroKnowledgeProof.VerificationStream proofsForMessageFormat = zkp.newVerificationStream(
+                        room.getRoomSize());
                 for (int i = 0; i < room.getRoomSize(); i++) {
-                    // Wait response from Receiver thread as a string
-                    String receivedCommitmentsOnSingleValuesAndPOKMessageFormatJson = receiverThread.recvStr();
-
-                    // Transform string (json) to CommitmentsOnSingleValuesAndProofOfKnowledgeMessageFormat object
+                    // Take the next message of this round and phase, already routed by the Receiver thread
                     CommitmentsOnSingleValuesAndProofOfKnowledgeMessageFormat
-                            receivedCommitmentsOnSingleValuesAndPOKMessageFormat = new Gson().fromJson(
-                            receivedCommitmentsOnSingleValuesAndPOKMessageFormatJson,
-                            CommitmentsOnSingleValuesAndProofOfKnowledgeMessageFormat.class);
+                            receivedCommitmentsOnSingleValuesAndPOKMessageFormat =
+                            inbox.take(currentRound, CommitmentsOnSingleValuesAndProofOfKnowledgeMessageFormat.class);
 
                     // Get commitmentOnPlainMessage, commitmentOnRandomPadding, receivedCommitmentOnFinalBit
                     // and index of the node that is sending the values
                     CommitmentsOnSingleValues receivedCommitmentsOnSingleKeys =
                             receivedCommitmentsOnSingleValuesAndPOKMessageFormat.getCommitmentsOnSingleValues();
-                    BigInteger receivedCommitmentOnPlainMessage =
-                            receivedCommitmentsOnSingleKeys.getCommitmentOnPlainMessage();
-                    BigInteger receivedCommitmentOnRandomPadding =
-                            receivedCommitmentsOnSingleKeys.getCommitmentOnRandomPadding();
-                    BigInteger receivedCommitmentOnFinalBit =
-                            receivedCommitmentsOnSingleKeys.getCommitmentOnFinalBit();
+                    GroupElement receivedCommitmentOnPlainMessage = decodeCommitment(group,
+                            receivedCommitmentsOnSingleKeys.getCommitmentOnPlainMessage());
+                    GroupElement receivedCommitmentOnRandomPadding = decodeCommitment(group,
+                            receivedCommitmentsOnSingleKeys.getCommitmentOnRandomPadding());
+                    GroupElement receivedCommitmentOnFinalBit = decodeCommitment(group,
+                            receivedCommitmentsOnSingleKeys.getCommitmentOnFinalBit());
                     int participantNodeIndex = receivedCommitmentsOnSingleKeys.getNodeIndex();
 
+                    // A value that is not in the group makes the proof of the node wrong, and is replaced by the
+                    // identity so the checks of the following phases fail for that node too
+                    boolean validCommitmentsOnSingleValues = receivedCommitmentOnPlainMessage != null &&
+                            receivedCommitmentOnRandomPadding != null && receivedCommitmentOnFinalBit != null;
+                    if (receivedCommitmentOnPlainMessage == null)
+                        receivedCommitmentOnPlainMessage = group.getIdentity();
+                    if (receivedCommitmentOnRandomPadding == null)
+                        receivedCommitmentOnRandomPadding = group.getIdentity();
+                    if (receivedCommitmentOnFinalBit == null)
+                        receivedCommitmentOnFinalBit = group.getIdentity();
+
                     // Store received commitment on plain message for future use in subsequent rounds
                     receivedCommitmentsOnPlainMessages.get(participantNodeIndex - 1).
                             put(currentRound, receivedCommitmentOnPlainMessage);
 
                     // Construct received commitment on message using received commitments on single values
-                    BigInteger receivedCommitmentOnMessage = constructCommitmentOnMessage(
+                    GroupElement receivedCommitmentOnMessage = constructCommitmentOnMessage(
                             receivedCommitmentOnPlainMessage, receivedCommitmentOnRandomPadding,
                             receivedCommitmentOnFinalBit, room);
 
@@ -436,16 +509,25 @@ public class SessionManager {
                     ProofOfKnowledgeMessageFormat receivedProofForMessageFormat =
                             receivedCommitmentsOnSingleValuesAndPOKMessageFormat.getProofOfKnowledgeMessageFormat();
 
-                    // Verify Proof of Knowledge
-                    BigInteger _rcvComm = room.getG().modInverse(room.getP()).multiply(
-                            receivedCommitmentOnFinalBit).mod(room.getP()); // _comm = g^{-1} * C_b
-                    if (!zkp.verifyProofOfKnowledgeMessageFormat(receivedProofForMessageFormat, _rcvComm,
-                            receivedCommitmentOnFinalBit, receivedCommitmentOnPlainMessage,
-                            room.getH(), room.getQ(), room.getP()))
-                        System.err.println("WRONG PoK on Message Format. Round: " + currentRound + ", Node: " +
-                                receivedProofForMessageFormat.getNodeIndex());
+                    // Start verifying Proof of Knowledge on a worker thread while the rest of the room arrives
+                    receivedProofsForMessageFormat[i] = receivedProofForMessageFormat;
+                    if (!validCommitmentsOnSingleValues) {
+                        proofsForMessageFormat.reject();
+                        continue;
+                    }
+                    GroupElement _rcvComm = context.getInverseOfG().multiply(
+                            receivedCommitmentOnFinalBit); // _comm = g^{-1} * C_b
+                    proofsForMessageFormat.submitProofOfKnowledgeMessageFormat(receivedProofForMessageFormat, _rcvComm,
+                            receivedCommitmentOnFinalBit, receivedCommitmentOnPlainMessage, group.getH());
                 }
 
+                // Wait for the verification of the Proofs of Knowledge still running
+                boolean[] validProofsForMessageFormat = proofsForMessageFormat.await();
+                for (int i = 0; i < room.getRoomSize(); i++)
+                    if (!validProofsForMessageFormat[i])
+                        System.err.println("WRONG PoK on Message Format. Round: " + currentRound + ", Node: " +
+                                receivedProofsForMessageFormat[i].getNodeIndex());
+
                 t_fin = System.nanoTime();
                 t_rcv_cpf += t_fin - t_init;
 
@@ -453,7 +535,7 @@ public class SessionManager {
 
                 /* SEND POK ON MESSAGE */
                 // Generate Commitment on message using commitments on single values created previously
-                BigInteger ownCommitmentOnMessage = constructCommitmentOnMessage(commitmentOnPlainMessage,
+                GroupElement ownCommitmentOnMessage = constructCommitmentOnMessage(commitmentOnPlainMessage,
                         commitmentOnRandomPadding, commitmentOnFinalBit, room);
 
                 // Generate random value for commitment using random for commitments on single values created previously
@@ -463,19 +545,19 @@ public class SessionManager {
 
                 // Generate ProofOfKnowledgePedersen associated with the commitment for the protocol message
                 ProofOfKnowledgePedersen proofOfKnowledgeOnMessage = zkp.generateProofOfKnowledgePedersen(
-                        ownCommitmentOnMessage, room.getG(), ownProtocolRoundMessageCurrentRound,
-                        room.getH(), ownRandomForCommitmentOnMessage, room.getQ(), room.getP());
-                String proofOfKnowledgeOnMessageJson = new Gson().toJson(
-                        proofOfKnowledgeOnMessage, ProofOfKnowledgePedersen.class);
+                        ownCommitmentOnMessage, group.getG(), ownProtocolRoundMessageCurrentRound,
+                        group.getH(), ownRandomForCommitmentOnMessage);
+                byte[] proofOfKnowledgeOnMessageFrame = wireCodec.encode(new PhaseMessage(currentRound, nodeIndex,
+                        proofOfKnowledgeOnMessage));
 
                 t_fin = System.nanoTime();
                 t_pok_m += t_fin - t_init;
 
                 t_init = System.nanoTime();
 
-                // Send Json to the room (which contains the proofOfKnowledge)
-                currentRoundTotalSentMessageSize += proofOfKnowledgeOnMessageJson.getBytes("UTF-8").length;
-                node.getSender().send(proofOfKnowledgeOnMessageJson);
+                // Send the frame to the room (which contains the proofOfKnowledge)
+                currentRoundTotalSentMessageSize += proofOfKnowledgeOnMessageFrame.length;
+                node.getSender().send(proofOfKnowledgeOnMessageFrame);
 
                 t_fin = System.nanoTime();
                 t_send_pm += t_fin - t_init;
@@ -483,23 +565,30 @@ public class SessionManager {
                 t_init = System.nanoTime();
 
                 /* RECEIVE COMMITMENTS AND POKs ON MESSAGES */
+                ProofOfKnowledgePedersen[] receivedProofsOfKnowledgeOnMessage =
+                        new ProofOfKnowledgePedersen[room.getRoomSize()];
+                ZeroKnowledgeProof.VerificationStream proofsOfKnowledgeOnMessage = zkp.newVerificationStream(
+                        room.getRoomSize());
                 for (int i = 0; i < room.getRoomSize(); i++) {
-                    // Wait response from Receiver thread as a String (json)
-                    String receivedProofOfKnowledgeOnMessageJson = receiverThread.recvStr();
-
-                    // Transform String (json) to object ProofOfKnowledgePedersen
-                    ProofOfKnowledgePedersen receivedProofOfKnowledgeOnMessage = new Gson().fromJson(
-                            receivedProofOfKnowledgeOnMessageJson, ProofOfKnowledgePedersen.class);
+                    // Take the next message of this round and phase, already routed by the Receiver thread
+                    ProofOfKnowledgePedersen receivedProofOfKnowledgeOnMessage = inbox.take(currentRound,
+                            ProofOfKnowledgePedersen.class);
                     int receivedNodeIndex = receivedProofOfKnowledgeOnMessage.getNodeIndex();
 
-                    // Verify proof of knowledge
-                    if (!zkp.verifyProofOfKnowledgePedersen(receivedProofOfKnowledgeOnMessage,
-                            receivedCommitmentsOnMessageCurrentRound[receivedNodeIndex - 1],
-                            room.getG(), room.getH(), room.getQ(), room.getP()))
-                        System.err.println("WRONG PoK on Message. Round: " + currentRound + ", Node: " +
-                                receivedProofOfKnowledgeOnMessage.getNodeIndex());
+                    // Start verifying proof of knowledge on a worker thread while the rest of the room arrives
+                    receivedProofsOfKnowledgeOnMessage[i] = receivedProofOfKnowledgeOnMessage;
+                    proofsOfKnowledgeOnMessage.submitProofOfKnowledgePedersen(receivedProofOfKnowledgeOnMessage,
+                            receivedCommitmentsOnMessageCurrentRound[receivedNodeIndex - 1], group.getG(),
+                            group.getH());
                 }
 
+                // Wait for the verification of the proofs of knowledge still running
+                boolean[] validProofsOfKnowledgeOnMessage = proofsOfKnowledgeOnMessage.await();
+                for (int i = 0; i < room.getRoomSize(); i++)
+                    if (!validProofsOfKnowledgeOnMessage[i])
+                        System.err.println("WRONG PoK on Message. Round: " + currentRound + ", Node: " +
+                                receivedProofsOfKnowledgeOnMessage[i].getNodeIndex());
+
                 t_fin = System.nanoTime();
                 t_rcv_cpm += t_fin - t_init;
 
@@ -515,30 +604,28 @@ public class SessionManager {
                             ownRandomForCommitmentOnMessage);
 
                     // Commitment for the sum of both randomness used
-                    BigInteger commitmentOnSumOfRandomness = new Commitment(
-                            room.getH(), room.getQ(), room.getP()).calculateCommitment(
-                            randomForCommitmentOnOutputMessage);
+                    GroupElement commitmentOnSumOfRandomness = new Commitment(group.getH(), group)
+                            .calculateCommitment(randomForCommitmentOnOutputMessage);
 
                     // Generate proofOfKnowledge for OutputMessage, as a commitment for the sum of both randomness used
                     ProofOfKnowledge proofOfKnowledgeOnOutputMessage = zkp.generateProofOfKnowledge(
-                            commitmentOnSumOfRandomness, room.getH(), randomForCommitmentOnOutputMessage,
-                            room.getQ(), room.getP());
+                            commitmentOnSumOfRandomness, group.getH(), randomForCommitmentOnOutputMessage);
 
-                    // Generate Json string with Object containing both outputMessage and proofOfKnowledge
+                    // Encode a frame containing both outputMessage and proofOfKnowledge
                     OutputMessageAndProofOfKnowledge outputMessageAndProofOfKnowledge =
                             new OutputMessageAndProofOfKnowledge(outputParticipantMessage,
                                     proofOfKnowledgeOnOutputMessage);
-                    String outputMessageAndProofOfKnowledgeJson = new Gson().toJson(
-                            outputMessageAndProofOfKnowledge, OutputMessageAndProofOfKnowledge.class);
+                    byte[] outputMessageAndProofOfKnowledgeFrame = wireCodec.encode(new PhaseMessage(currentRound,
+                            nodeIndex, outputMessageAndProofOfKnowledge));
 
                     t_fin = System.nanoTime();
                     t_pok_o += t_fin - t_init;
 
                     t_init = System.nanoTime();
 
-                    // Send the Json to the room (which contains the outputMessage and the proofOfKnowledge)
-                    currentRoundTotalSentMessageSize += outputMessageAndProofOfKnowledgeJson.getBytes("UTF-8").length;
-                    node.getSender().send(outputMessageAndProofOfKnowledgeJson);
+                    // Send the frame to the room (which contains the outputMessage and the proofOfKnowledge)
+                    currentRoundTotalSentMessageSize += outputMessageAndProofOfKnowledgeFrame.length;
+                    node.getSender().send(outputMessageAndProofOfKnowledgeFrame);
 
                     t_fin = System.nanoTime();
                     t_send_po += t_fin - t_init;
@@ -552,7 +639,7 @@ public class SessionManager {
 
                     // Calculate commitment on plain message of father round divided by
                     // commitment on plain message of current round
-                    BigInteger divisionOfCommitments = commitmentOnPlainMessage.modInverse(room.getP()).multiply(
+                    GroupElement divisionOfCommitments = commitmentOnPlainMessage.inverse().multiply(
                             commitmentsOnPlainMessage.get((currentRound / 2)));
 
                     // Create Pok depending if the participant node will send a message in this round or not
@@ -570,8 +657,8 @@ public class SessionManager {
                         // Create Pok and create object containing it and the output message
                         proofOfKnowledgeResendingFatherRoundReal =
                                 zkp.generateProofOfKnowledgeResendingFatherRoundRealX2(
-                                        commitmentOnPlainMessage, divisionOfCommitments, room.getH(),
-                                        subtractionOfRandomness, room.getQ(), room.getP());
+                                        commitmentOnPlainMessage, divisionOfCommitments, group.getH(),
+                                        subtractionOfRandomness);
                         outputMessageAndProofOfKnowledgeResendingFatherRoundReal =
                                 new OutputMessageAndProofOfKnowledgeResendingFatherRoundReal(
                                         outputParticipantMessage, proofOfKnowledgeResendingFatherRoundReal);
@@ -582,26 +669,25 @@ public class SessionManager {
                         // Create Pok and create object containing it and the output message
                         proofOfKnowledgeResendingFatherRoundReal =
                                 zkp.generateProofOfKnowledgeResendingFatherRoundRealX1(
-                                        commitmentOnPlainMessage, room.getH(), randomForCommitmentOnPlainMessage,
-                                        divisionOfCommitments, room.getQ(), room.getP());
+                                        commitmentOnPlainMessage, group.getH(), randomForCommitmentOnPlainMessage,
+                                        divisionOfCommitments);
                         outputMessageAndProofOfKnowledgeResendingFatherRoundReal =
                                 new OutputMessageAndProofOfKnowledgeResendingFatherRoundReal(
                                         zeroMessage, proofOfKnowledgeResendingFatherRoundReal);
                     }
 
-                    // Generate Json object with the Pok (using an OR) and the output message
-                    String outputMessageAndProofOfKnowledgeJson = new Gson().toJson(
-                            outputMessageAndProofOfKnowledgeResendingFatherRoundReal,
-                            OutputMessageAndProofOfKnowledgeResendingFatherRoundReal.class);
+                    // Encode a frame with the Pok (using an OR) and the output message
+                    byte[] outputMessageAndProofOfKnowledgeFrame = wireCodec.encode(new PhaseMessage(currentRound,
+                            nodeIndex, outputMessageAndProofOfKnowledgeResendingFatherRoundReal));
 
                     t_fin = System.nanoTime();
                     t_pok_o += t_fin - t_init;
 
                     t_init = System.nanoTime();
 
-                    // Send Json to the room (containing the output Message and the Pok when the father round is real)
-                    currentRoundTotalSentMessageSize += outputMessageAndProofOfKnowledgeJson.getBytes("UTF-8").length;
-                    node.getSender().send(outputMessageAndProofOfKnowledgeJson);
+                    // Send the frame to the room (containing the output Message and the Pok when the father round is real)
+                    currentRoundTotalSentMessageSize += outputMessageAndProofOfKnowledgeFrame.length;
+                    node.getSender().send(outputMessageAndProofOfKnowledgeFrame);
 
                     t_fin = System.nanoTime();
                     t_send_po += t_fin - t_init;
@@ -621,7 +707,7 @@ public class SessionManager {
                     // Get real rounds between current and nearest real round
                     ArrayList<Integer> realRounds = getRealRoundsToCheckNotSending(nearestRealRound, virtualFatherRound);
 
-                    BigInteger[] commitmentsOnPlainMessagesInPreviousRounds = new BigInteger[realRounds.size()];
+                    GroupElement[] commitmentsOnPlainMessagesInPreviousRounds = new GroupElement[realRounds.size()];
                     BigInteger[] randomsOnPlainMessagesInPreviousRounds = new BigInteger[realRounds.size()];
                     for (int i = 0; i < realRounds.size(); i++) {
                         commitmentsOnPlainMessagesInPreviousRounds[i] = commitmentsOnPlainMessage.get(realRounds.get(i));
@@ -630,7 +716,7 @@ public class SessionManager {
 
                     // Calculate commitment on plain message of nearest real round divided by
                     // commitment on plain message of current round
-                    BigInteger divisionOfCommitments = commitmentOnPlainMessage.modInverse(room.getP()).multiply(
+                    GroupElement divisionOfCommitments = commitmentOnPlainMessage.inverse().multiply(
                             commitmentsOnPlainMessage.get(nearestRealRound));
 
                     // Create Pok depending if the participant node will send a message in this round or not
@@ -648,8 +734,8 @@ public class SessionManager {
                         // Create Pok and create object containing it and the output message
                         proofOfKnowledgeResendingFatherRoundVirtual =
                                 zkp.generateProofOfKnowledgeResendingFatherRoundVirtualX2Xs(
-                                        commitmentOnPlainMessage, divisionOfCommitments, commitmentsOnPlainMessagesInPreviousRounds, room.getH(),
-                                        subtractionOfRandomness, randomsOnPlainMessagesInPreviousRounds, room.getQ(), room.getP());
+                                        commitmentOnPlainMessage, divisionOfCommitments, commitmentsOnPlainMessagesInPreviousRounds, group.getH(),
+                                        subtractionOfRandomness, randomsOnPlainMessagesInPreviousRounds);
                         outputMessageAndProofOfKnowledgeResendingFatherRoundVirtual =
                                 new OutputMessageAndProofOfKnowledgeResendingFatherRoundVirtual(
                                         outputParticipantMessage, proofOfKnowledgeResendingFatherRoundVirtual);
@@ -660,26 +746,25 @@ public class SessionManager {
                         // Create Pok and create object containing it and the output message
                         proofOfKnowledgeResendingFatherRoundVirtual =
                                 zkp.generateProofOfKnowledgeResendingFatherRoundVirtualX1(
-                                        commitmentOnPlainMessage, room.getH(), randomForCommitmentOnPlainMessage,
-                                        divisionOfCommitments, commitmentsOnPlainMessagesInPreviousRounds, room.getQ(), room.getP());
+                                        commitmentOnPlainMessage, group.getH(), randomForCommitmentOnPlainMessage,
+                                        divisionOfCommitments, commitmentsOnPlainMessagesInPreviousRounds);
                         outputMessageAndProofOfKnowledgeResendingFatherRoundVirtual =
                                 new OutputMessageAndProofOfKnowledgeResendingFatherRoundVirtual(
                                         zeroMessage, proofOfKnowledgeResendingFatherRoundVirtual);
                     }
 
-                    // Generate Json object with the Pok (using an OR) and the output message
-                    String outputMessageAndProofOfKnowledgeJson = new Gson().toJson(
-                            outputMessageAndProofOfKnowledgeResendingFatherRoundVirtual,
-                            OutputMessageAndProofOfKnowledgeResendingFatherRoundVirtual.class);
+                    // Encode a frame with the Pok (using an OR) and the output message
+                    byte[] outputMessageAndProofOfKnowledgeFrame = wireCodec.encode(new PhaseMessage(currentRound,
+                            nodeIndex, outputMessageAndProofOfKnowledgeResendingFatherRoundVirtual));
 
                     t_fin = System.nanoTime();
                     t_pok_o += t_fin - t_init;
 
                     t_init = System.nanoTime();
 
-                    // Send Json to the room (containing the output Message and the Pok when the father round is virtual)
-                    currentRoundTotalSentMessageSize += outputMessageAndProofOfKnowledgeJson.getBytes("UTF-8").length;
-                    node.getSender().send(outputMessageAndProofOfKnowledgeJson);
+                    // Send the frame to the room (containing the output Message and the Pok when the father round is virtual)
+                    currentRoundTotalSentMessageSize += outputMessageAndProofOfKnowledgeFrame.length;
+                    node.getSender().send(outputMessageAndProofOfKnowledgeFrame);
 
                     t_fin = System.nanoTime();
                     t_send_po += t_fin - t_init;
@@ -700,47 +785,54 @@ public class SessionManager {
                     // Variable to count how many messages were received from the receiver thread in this round
                     int messagesReceivedInThisRound = 0;
 
+                    // Proofs of knowledge received, verified as they arrive
+                    ProofOfKnowledge[] receivedProofsOfKnowledge = new ProofOfKnowledge[room.getRoomSize()];
+                    ZeroKnowledgeProof.VerificationStream proofsOfKnowledge = zkp.newVerificationStream(
+                            room.getRoomSize());
+
                     // When this number equals the total number of participants nodes in the room,
                     // it means that i've received all the messages in this round
                     while (messagesReceivedInThisRound < room.getRoomSize()) {
 
-                        // Receive a message (json) from receiver thread
-                        String messageReceivedFromReceiverThread = receiverThread.recvStr();
-
-                        // Transform incoming message (json) to a OutputMessageAndProofOfKnowledge object
-                        OutputMessageAndProofOfKnowledge outputMessageAndProofOfKnowledge = new Gson().fromJson(
-                                messageReceivedFromReceiverThread, OutputMessageAndProofOfKnowledge.class);
+                        // Take the next message of this round and phase, already routed by the Receiver thread
+                        OutputMessageAndProofOfKnowledge outputMessageAndProofOfKnowledge = inbox.take(currentRound,
+                                OutputMessageAndProofOfKnowledge.class);
 
                         // Get index of participant node that is sending his proofOfKnowledge
                         int participantNodeIndex = outputMessageAndProofOfKnowledge.getProofOfKnowledge().getNodeIndex();
 
                         // Construct commitment on outputMessage as the multiplication of
                         // commitmentOnKey and commitmentOnMessage
-                        BigInteger commitmentOnOutputMessage =
+                        GroupElement commitmentOnOutputMessage =
                                 receivedCommitmentsOnKeyCurrentRound[participantNodeIndex - 1].multiply(
-                                        receivedCommitmentsOnMessageCurrentRound[participantNodeIndex - 1]).mod(
-                                        room.getP());
+                                        receivedCommitmentsOnMessageCurrentRound[participantNodeIndex - 1]);
 
                         // Construct beta using commitment on output message construct before
                         // in order to verify proof of knowledge sent by the participant node
-                        BigInteger beta = commitmentOnOutputMessage.multiply(room.getG().modPow(
-                                outputMessageAndProofOfKnowledge.getOutputMessage().getProtocolMessage(), room.getP())
-                                .modInverse(room.getP())).mod(room.getP());
+                        GroupElement beta = commitmentOnOutputMessage.multiply(context.getG().power(
+                                outputMessageAndProofOfKnowledge.getOutputMessage().getProtocolMessage().negate()));
 
-                        // Verify the proof of knowledge
-                        if (!zkp.verifyProofOfKnowledge(outputMessageAndProofOfKnowledge.getProofOfKnowledge(),
-                                beta, room.getH(), room.getQ(), room.getP()))
-                            System.err.println("WRONG PoK on OutputMessage. Round: " + currentRound + ", Node: " +
-                                    participantNodeIndex);
+                        // Start verifying the proof of knowledge on a worker thread while the rest of the room arrives
+                        receivedProofsOfKnowledge[messagesReceivedInThisRound] =
+                                outputMessageAndProofOfKnowledge.getProofOfKnowledge();
+                        proofsOfKnowledge.submitProofOfKnowledge(receivedProofsOfKnowledge[messagesReceivedInThisRound],
+                                beta, group.getH());
 
                         // Sum this incoming message with the rest that i've received in this round
                         // in order to construct the resulting message of this round
                         sumOfO = sumOfO.add(outputMessageAndProofOfKnowledge.getOutputMessage().getProtocolMessage())
-                                .mod(room.getP());
+                                .mod(room.getMessageModulus());
 
                         // Increase the number of messages received
                         messagesReceivedInThisRound++;
                     }
+
+                    // Wait for the verification of the proofs of knowledge still running
+                    boolean[] validProofsOfKnowledge = proofsOfKnowledge.await();
+                    for (int i = 0; i < room.getRoomSize(); i++)
+                        if (!validProofsOfKnowledge[i])
+                            System.err.println("WRONG PoK on OutputMessage. Round: " + currentRound + ", Node: " +
+                                    receivedProofsOfKnowledge[i].getNodeIndex());
                 }
 
                 // Receive Pok that is needed for rounds which have father round is real
@@ -748,18 +840,20 @@ public class SessionManager {
                     // Variable to count how many messages were received from the receiver thread
                     int messagesReceivedInThisRound = 0;
 
+                    // Proofs of knowledge received, verified as they arrive
+                    ProofOfKnowledgeResendingFatherRoundReal[] receivedProofsOfKnowledge =
+                            new ProofOfKnowledgeResendingFatherRoundReal[room.getRoomSize()];
+                    ZeroKnowledgeProof.VerificationStream proofsOfKnowledge = zkp.newVerificationStream(
+                            room.getRoomSize());
+
                     // When this number equals the total number of participants nodes in the room,
                     // it means that i've received all the messages in this round
                     while (messagesReceivedInThisRound < room.getRoomSize()) {
 
-                        // Receive a message (json) from receiver thread
-                        String messageReceivedFromReceiverThread = receiverThread.recvStr();
-
-                        // Transform incoming message (json) to a
-                        // OutputMessageAndProofOfKnowledgeResendingFatherRoundReal object
+                        // Take the next message of this round and phase, already routed by the Receiver thread
                         OutputMessageAndProofOfKnowledgeResendingFatherRoundReal
                                 outputMessageAndProofOfKnowledgeResendingFatherRoundReal =
-                                new Gson().fromJson(messageReceivedFromReceiverThread,
+                                inbox.take(currentRound,
                                         OutputMessageAndProofOfKnowledgeResendingFatherRoundReal.class);
 
                         // Get index of participant node that is sending his proofOfKnowledge
@@ -767,32 +861,39 @@ public class SessionManager {
                                 getProofOfKnowledgeResendingFatherRoundReal().getNodeIndex();
 
                         // Retrieve commitments on plain message sent in the current round and in the father round
-                        BigInteger commitmentOnPlainMessageNodeRound2K = receivedCommitmentsOnPlainMessages.get(
+                        GroupElement commitmentOnPlainMessageNodeRound2K = receivedCommitmentsOnPlainMessages.get(
                                 participantNodeIndex - 1).get(currentRound);
-                        BigInteger commitmentOnPlainMessageNodeRoundK = receivedCommitmentsOnPlainMessages.get(
+                        GroupElement commitmentOnPlainMessageNodeRoundK = receivedCommitmentsOnPlainMessages.get(
                                 participantNodeIndex - 1).get(currentRound / 2);
 
                         // Construct a commitment needed to verify Pok as the multiplication of the inverse of the
                         // commitment send in the current round with the commitment sent in the father round
-                        BigInteger resultantCommitment = commitmentOnPlainMessageNodeRound2K.modInverse(room.getP())
+                        GroupElement resultantCommitment = commitmentOnPlainMessageNodeRound2K.inverse()
                                 .multiply(commitmentOnPlainMessageNodeRoundK);
 
-                        // Verify proof of knowledge
-                        if (!zkp.verifyProofOfKnowledgeResendingFatherRoundReal(
+                        // Start verifying proof of knowledge on a worker thread while the rest of the room arrives
+                        receivedProofsOfKnowledge[messagesReceivedInThisRound] =
                                 outputMessageAndProofOfKnowledgeResendingFatherRoundReal.
-                                        getProofOfKnowledgeResendingFatherRoundReal(), commitmentOnPlainMessageNodeRound2K,
-                                resultantCommitment, room.getH(), room.getQ(), room.getP()))
-                            System.err.println("WRONG PoK on Resending when father round is real. Round: " +
-                                    currentRound + ", Node: " + participantNodeIndex);
+                                        getProofOfKnowledgeResendingFatherRoundReal();
+                        proofsOfKnowledge.submitProofOfKnowledgeResendingFatherRoundReal(
+                                receivedProofsOfKnowledge[messagesReceivedInThisRound],
+                                commitmentOnPlainMessageNodeRound2K, resultantCommitment, group.getH());
 
                         // Sum this incoming message with the rest that i've received in this round
                         // in order to construct the resulting message of this round
                         sumOfO = sumOfO.add(outputMessageAndProofOfKnowledgeResendingFatherRoundReal.getOutputMessage()
-                                .getProtocolMessage()).mod(room.getP());
+                                .getProtocolMessage()).mod(room.getMessageModulus());
 
                         // Increase the number of messages received
                         messagesReceivedInThisRound++;
                     }
+
+                    // Wait for the verification of the proofs of knowledge still running
+                    boolean[] validProofsOfKnowledge = proofsOfKnowledge.await();
+                    for (int i = 0; i < room.getRoomSize(); i++)
+                        if (!validProofsOfKnowledge[i])
+                            System.err.println("WRONG PoK on Resending when father round is real. Round: " +
+                                    currentRound + ", Node: " + receivedProofsOfKnowledge[i].getNodeIndex());
                 }
 
                 // Receive Pok that is needed for rounds which have father round is virtual
@@ -800,18 +901,20 @@ public class SessionManager {
                     // Variable to count how many messages were received from the receiver thread
                     int messagesReceivedInThisRound = 0;
 
+                    // Proofs of knowledge received, verified as they arrive
+                    ProofOfKnowledgeResendingFatherRoundVirtual[] receivedProofsOfKnowledge =
+                            new ProofOfKnowledgeResendingFatherRoundVirtual[room.getRoomSize()];
+                    ZeroKnowledgeProof.VerificationStream proofsOfKnowledge = zkp.newVerificationStream(
+                            room.getRoomSize());
+
                     // When this number equals the total number of participants nodes in the room,
                     // it means that i've received all the messages in this round
                     while (messagesReceivedInThisRound < room.getRoomSize()) {
 
-                        // Receive a message (json) from receiver thread
-                        String messageReceivedFromReceiverThread = receiverThread.recvStr();
-
-                        // Transform incoming message (json) to a
-                        // OutputMessageAndProofOfKnowledgeResendingFatherRoundReal object
+                        // Take the next message of this round and phase, already routed by the Receiver thread
                         OutputMessageAndProofOfKnowledgeResendingFatherRoundVirtual
                                 outputMessageAndProofOfKnowledgeResendingFatherRoundVirtual =
-                                new Gson().fromJson(messageReceivedFromReceiverThread,
+                                inbox.take(currentRound,
                                         OutputMessageAndProofOfKnowledgeResendingFatherRoundVirtual.class);
 
                         // Get index of participant node that is sending his proofOfKnowledge
@@ -825,39 +928,46 @@ public class SessionManager {
                         ArrayList<Integer> realRounds = getRealRoundsToCheckNotSending(nearestRealRound, currentRound/2);
 
                         // Retrieve commitments on plain message sent in the current round and in the nearest real round
-                        BigInteger commitmentOnPlainMessageNodeRound2K = receivedCommitmentsOnPlainMessages.
+                        GroupElement commitmentOnPlainMessageNodeRound2K = receivedCommitmentsOnPlainMessages.
                                 get(participantNodeIndex - 1).get(currentRound);
-                        BigInteger commitmentOnPlainMessageNodeNearestRealRound = receivedCommitmentsOnPlainMessages.
+                        GroupElement commitmentOnPlainMessageNodeNearestRealRound = receivedCommitmentsOnPlainMessages.
                                 get(participantNodeIndex - 1).get(nearestRealRound);
 
                         // Retrieve commitments on plain message sent in all the real rounds between current and nearest real round
-                        BigInteger[] commitmentsOnPlainMessageInPreviousRounds = new BigInteger[realRounds.size()];
+                        GroupElement[] commitmentsOnPlainMessageInPreviousRounds = new GroupElement[realRounds.size()];
                         for (int i = 0; i < realRounds.size(); i++) {
                             commitmentsOnPlainMessageInPreviousRounds[i] = receivedCommitmentsOnPlainMessages.get(participantNodeIndex - 1).get(realRounds.get(i));
                         }
 
                         // Construct a commitment needed to verify Pok as the multiplication of the inverse of the
                         // commitment send in the current round with the commitment sent in the nearest real round
-                        BigInteger resultantCommitment = commitmentOnPlainMessageNodeRound2K.modInverse(room.getP())
+                        GroupElement resultantCommitment = commitmentOnPlainMessageNodeRound2K.inverse()
                                 .multiply(commitmentOnPlainMessageNodeNearestRealRound);
 
-                        // Verify proof of knowledge
-                        if (!zkp.verifyProofOfKnowledgeResendingFatherRoundVirtual(
+                        // Start verifying proof of knowledge on a worker thread while the rest of the room arrives
+                        receivedProofsOfKnowledge[messagesReceivedInThisRound] =
                                 outputMessageAndProofOfKnowledgeResendingFatherRoundVirtual.
-                                        getProofOfKnowledgeResendingFatherRoundVirtual(),
+                                        getProofOfKnowledgeResendingFatherRoundVirtual();
+                        proofsOfKnowledge.submitProofOfKnowledgeResendingFatherRoundVirtual(
+                                receivedProofsOfKnowledge[messagesReceivedInThisRound],
                                 commitmentOnPlainMessageNodeRound2K, resultantCommitment,
-                                commitmentsOnPlainMessageInPreviousRounds, room.getH(), room.getQ(), room.getP()))
-                            System.err.println("WRONG PoK on Resending when father round is virtual. Round: " +
-                                    currentRound + ", Node: " + participantNodeIndex);
+                                commitmentsOnPlainMessageInPreviousRounds, group.getH());
 
                         // Sum this incoming message with the rest that i've received in this round
                         // in order to construct the resulting message of this round
                         sumOfO = sumOfO.add(outputMessageAndProofOfKnowledgeResendingFatherRoundVirtual.
-                                getOutputMessage().getProtocolMessage()).mod(room.getP());
+                                getOutputMessage().getProtocolMessage()).mod(room.getMessageModulus());
 
                         // Increase the number of messages received
                         messagesReceivedInThisRound++;
                     }
+
+                    // Wait for the verification of the proofs of knowledge still running
+                    boolean[] validProofsOfKnowledge = proofsOfKnowledge.await();
+                    for (int i = 0; i < room.getRoomSize(); i++)
+                        if (!validProofsOfKnowledge[i])
+                            System.err.println("WRONG PoK on Resending when father round is virtual. Round: " +
+                                    currentRound + ", Node: " + receivedProofsOfKnowledge[i].getNodeIndex());
                 }
 
                 t_fin = System.nanoTime();
@@ -997,7 +1107,7 @@ public class SessionManager {
                         // Probabilistic mode
                         else {
                             // Throw a coin to see if the message is re-send in the round (2*round) or (2*round + 1)
-                            boolean coin = new SecureRandom().nextBoolean();
+                            boolean coin = RandomSource.getInstance().nextBoolean();
                             if (coin)
                                 nextRoundAllowedToSend = 2 * currentRound;
                             else
@@ -1008,6 +1118,9 @@ public class SessionManager {
                     // Add (2*round) and (2*round + 1) rounds to future plays
                     addRoundToHappenNext(nextRoundsToHappen, 2 * currentRound);
                     addRoundToHappenNext(nextRoundsToHappen, 2 * currentRound + 1);
+
+                    // Start preparing the keys of the real round (2*round) while the rounds before it are played
+                    keyMaterialPrefetcher.prefetch(2 * currentRound);
                 }
 
             }
@@ -1024,6 +1137,8 @@ public class SessionManager {
         // Finish time measurement
         long t2 = System.nanoTime();
 
+        keyMaterialPrefetcher.stop();
+
         // Save execution time
         executionTime = t2 - t1;
 
@@ -1111,14 +1226,28 @@ public class SessionManager {
     private BigInteger calculateRandomForCommitmentOnMessage(BigInteger randomForPlainMessage,
                                                              BigInteger randomForRandomPadding,
                                                              BigInteger randomForFinalBit, Room room) {
-        BigInteger two = BigInteger.valueOf(2);
-        BigInteger nPlusOne = BigInteger.valueOf(room.getRoomSize() + 1);
-        int randomPaddingLength = room.getPadLength() * 8; // z
+        RoomContext context = room.getContext();
+        BigInteger nPlusOne = context.getNPlusOne();
 
-        return randomForPlainMessage.multiply(two.pow(randomPaddingLength).multiply(nPlusOne)).add(randomForRandomPadding).multiply(nPlusOne).add(randomForFinalBit);
+        return randomForPlainMessage.multiply(context.getPlainMessageFactor()).add(randomForRandomPadding).multiply(nPlusOne).add(randomForFinalBit);
 
     }
 
+    /**
+     * @param group    group where the commitments are computed
+     * @param encoding encoding of a commitment received from another node
+     * @return the commitment, or null if the encoding is not an element of the group
+     */
+    private GroupElement decodeCommitment(Group group, BigInteger encoding) {
+        if (encoding == null)
+            return null;
+        try {
+            return group.decode(encoding);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     /**
      * @param commitmentOnPlainMessage  commitment on plain message
      * @param commitmentOnRandomPadding commitment on random padding
@@ -1126,46 +1255,12 @@ public class SessionManager {
      * @param room                      room where the messages are being send
      * @return commitment on message
      */
-    private BigInteger constructCommitmentOnMessage(BigInteger commitmentOnPlainMessage,
-                                                    BigInteger commitmentOnRandomPadding,
-                                                    BigInteger commitmentOnFinalBit, Room room) {
-        BigInteger two = BigInteger.valueOf(2);
-        BigInteger nPlusOne = BigInteger.valueOf(room.getRoomSize() + 1);
-        int nPlusOneInteger = room.getRoomSize() + 1;
-        int randomPaddingLength = room.getPadLength() * 8; // z
-
-        return commitmentOnPlainMessage
-                .modPow(two.pow(randomPaddingLength).multiply(nPlusOne), room.getP())
-                .multiply(commitmentOnRandomPadding)
-                .pow(nPlusOneInteger)
-                .multiply(commitmentOnFinalBit)
-                .mod(room.getP());
-
-    }
-
-    /**
-     * @param sharedRandomValues array with all the shared random values used for commitments on key
-     * @return sum of all values on sharedRandomValues
-     */
-    private BigInteger calculateRandomForCommitmentOnKey(BigInteger[] sharedRandomValues) {
-        BigInteger result = BigInteger.ZERO;
-        for (BigInteger sharedRandomValue : sharedRandomValues) {
-            result = result.add(sharedRandomValue);
-        }
-        return result;
-    }
+    private GroupElement constructCommitmentOnMessage(GroupElement commitmentOnPlainMessage,
+                                                      GroupElement commitmentOnRandomPadding,
+                                                      GroupElement commitmentOnFinalBit, Room room) {
+        return room.getContext().commitmentOnMessage(commitmentOnPlainMessage, commitmentOnRandomPadding,
+                commitmentOnFinalBit);
 
-    /**
-     * @param commitmentsOnKeys commitments in each individual round key (shared with another participant node)
-     * @param room              Room where the participant node is playing
-     * @return multiplication of each individual commitment: c = c_1*c_2*...*c_n (mod p)
-     */
-    private BigInteger generateCommitmentOnKey(BigInteger[] commitmentsOnKeys, Room room) {
-        BigInteger _a = BigInteger.ONE;
-        for (BigInteger commitmentsOnKey : commitmentsOnKeys) {
-            _a = _a.multiply(commitmentsOnKey);
-        }
-        return _a.mod(room.getP());
     }
 
     /**
@@ -1190,28 +1285,31 @@ public class SessionManager {
     }
 
     /**
-     * @param nodeIndex  index of the participant node
-     * @param repliers   array with zmq sockets that work as repliers
-     * @param requestors array with zmq sockets that work as requestors
-     * @param room       room where the messages are going send
+     * @param nodeIndex   index of the participant node
+     * @param peerChannel channel of the participant node with each other node in the room
+     * @param room        room where the messages are going send
      */
-    private void synchronizeNodes(int nodeIndex, ZMQ.Socket[] repliers, ZMQ.Socket[] requestors, Room room) {
-        // The "first" node doesn't have any replier sockets
-        if (nodeIndex != 1)
-            for (ZMQ.Socket replier : repliers) {
-                // The replier wait to receive a message
-                replier.recv(0);
-                // When the replier receives the message, replies with another message
-                replier.send("", 0);
-            }
-        // The "last" node doesn't have any requestor sockets
-        if (nodeIndex != room.getRoomSize())
-            for (ZMQ.Socket requestor : requestors) {
-                // The requestor sends a message
-                requestor.send("".getBytes(), 0);
-                // The requestor waits to receive a reply by the correspondent replier
-                requestor.recv(0);
-            }
+    private void synchronizeNodes(int nodeIndex, PeerChannel peerChannel, Room room) {
+        // Exchange an empty frame with every other node: when it is done, all of them reached this point
+        byte[][] emptyFrames = new byte[room.getRoomSize() - 1][];
+        Arrays.fill(emptyFrames, new byte[0]);
+        new PeerExchange(nodeIndex, peerChannel, room, PeerExchange.Mode.CONCURRENT).exchange(emptyFrames);
+    }
+
+    /**
+     * The next round is the first one still to happen, or the second one if the first is removed by a collision in
+     * this round, or (2*round) if there are no more rounds to happen, since new rounds are added at the end
+     *
+     * @param nextRoundsToHappen list with rounds that are going to happen in the future, without the current one
+     * @param round              index of the current round
+     * @return rounds that may be played after the current one
+     */
+    private int[] possibleNextRounds(LinkedList<Integer> nextRoundsToHappen, int round) {
+        int[] nextRounds = new int[Math.min(2, nextRoundsToHappen.size()) + 1];
+        for (int i = 0; i < nextRounds.length - 1; i++)
+            nextRounds[i] = nextRoundsToHappen.get(i);
+        nextRounds[nextRounds.length - 1] = 2 * round;
+        return nextRounds;
     }
 
     /**
@@ -1235,54 +1333,15 @@ public class SessionManager {
     }
 
     /**
-     * Create all the repliers (the quantity depends on the index of the node) socket
-     * necessary to run the protocol (see Reference for more information)
-     *
-     * @param nodeIndex index of the participant node
-     * @param context   context where the zmq sockets are going to run
-     */
-    public void initializeRepliersArray(int nodeIndex, ZContext context) {
-        // Create an array of sockets
-        ZMQ.Socket[] repliers = null;
-        // The "first" node doesn't have any replier sockets
-        if (nodeIndex != 1) {
-            // Initialize the array with exactly (<nodeIndex> - 1) sockets
-            repliers = new ZMQ.Socket[nodeIndex - 1];
-            for (int i = 0; i < repliers.length; i++) {
-                // Create the REP socket
-                repliers[i] = context.createSocket(ZMQ.REP);
-                // Bind this REP socket to the correspondent port in order to be connected by his correspondent REQ socket of another node
-                repliers[i].bind("tcp://*:" + (7000 + i));
-            }
-        }
-        // Return the array with the replier sockets
-        this.repliers = repliers;
-    }
-
-    /**
-     * Create all the requestors (the quantity depends on the index of the node) socket necessary to run the protocol
-     * (see Reference for more information)
+     * Create the channel with the rest of the room, used to exchange the values of the keys and to synchronize the
+     * nodes (see Reference for more information)
      *
      * @param nodeIndex index of the participant node
      * @param context   context where the zmq sockets are going to run
      * @param room      room where the messages are being sent
      */
-    public void initializeRequestorsArray(int nodeIndex, ZContext context, Room room) {
-        // Create an array of sockets
-        ZMQ.Socket[] requestors = null;
-        // The "last" node doesn't have any requestor sockets
-        if (nodeIndex != room.getRoomSize()) {
-            // Initialize the array with exactly (<n> - <nodeIndex>) sockets
-            requestors = new ZMQ.Socket[room.getRoomSize() - nodeIndex];
-            for (int i = 0; i < requestors.length; i++) {
-                // Create the REQ socket
-                requestors[i] = context.createSocket(ZMQ.REQ);
-                // Connect this REQ socket to his correspondent REP socket of another node
-                requestors[i].connect("tcp://" + room.getNodeIpFromIndex(nodeIndex + i + 1) + ":" + (7000 + nodeIndex - 1));
-            }
-        }
-        // Return the array with the requestor sockets
-        this.requestors = requestors;
+    public void initializePeerChannel(int nodeIndex, ZContext context, Room room) {
+        this.peerChannel = PeerChannel.open(nodeIndex, room, context);
     }
 
     /**
@@ -1300,18 +1359,46 @@ public class SessionManager {
     }
 
     /**
-     * @param nodeIndex index of the participant node
-     * @param roomSize  size of the room
+     * @param verificationExecutor worker threads where the verification of the proofs received in each phase is split
      */
-    public void closeRepliersAndRequestorsSockets(int nodeIndex, int roomSize) {
-        if (nodeIndex != 1) {
-            for (ZMQ.Socket replier : repliers)
-                replier.close();
-        }
-        if (nodeIndex != roomSize) {
-            for (ZMQ.Socket requestor : requestors)
-                requestor.close();
-        }
+    public void setVerificationExecutor(VerificationExecutor verificationExecutor) {
+        this.verificationExecutor = verificationExecutor;
+    }
+
+    /**
+     * @param proofNoncePool pool of nonces of the proofs precomputed in background
+     */
+    public void setProofNoncePool(ProofNoncePool proofNoncePool) {
+        this.proofNoncePool = proofNoncePool;
+    }
+
+    /**
+     * @param parallelKeyDerivation threads where the exponentiations of the key generation are split
+     */
+    public void setParallelKeyDerivation(ParallelKeyDerivation parallelKeyDerivation) {
+        this.parallelKeyDerivation = parallelKeyDerivation;
+    }
+
+    /**
+     * @param seedStore store of the seeds agreed with the other nodes in previous sessions, reused while they are valid
+     */
+    public void setSeedStore(PairwiseSeedStore seedStore) {
+        this.seedStore = seedStore;
+    }
+
+    /**
+     * @param deterministicNonces true to derive the nonces of the proofs of knowledge from their secrets and public
+     *                            values, false to draw them
+     */
+    public void setDeterministicNonces(boolean deterministicNonces) {
+        this.deterministicNonces = deterministicNonces;
+    }
+
+    /**
+     * Close the channel with the rest of the room
+     */
+    public void closePeerChannel() {
+        this.peerChannel.close();
     }
 
 }